@@ -1,11 +1,16 @@
 package to.sparkapp.app;
 
 import javafx.application.Platform;
+import to.sparkapp.app.browser.WebviewManager;
 import to.sparkapp.app.config.AiConfiguration;
 import to.sparkapp.app.config.AppPreferences;
+import to.sparkapp.app.utils.AutoStartManager;
 import to.sparkapp.app.utils.LogSetup;
 import to.sparkapp.app.utils.SingleInstanceLock;
+import to.sparkapp.app.utils.StartupGraph;
+import to.sparkapp.app.utils.StartupTracer;
 import to.sparkapp.app.windows.MainWindow;
+import to.sparkapp.app.windows.SplashScreen;
 import javafx.application.Application;
 import javafx.stage.Stage;
 import lombok.extern.slf4j.Slf4j;
@@ -15,17 +20,45 @@ import org.slf4j.LoggerFactory;
 import java.net.CookieHandler;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
+import java.util.Arrays;
 
 @Slf4j
 public class SparkApplication extends Application {
 
     private static Logger initLog;
+    private static StartupGraph startup;
+    private static boolean launchedAtLogin;
+
+    // Runs of the packaging build: one that records a startup for the class archive, one that times it.
+    private static final boolean TRAINING = Boolean.getBoolean("spark.training");
+    private static final boolean BENCHMARK = Boolean.getBoolean("spark.benchmark");
 
     public static void main(String[] args) {
-        LogSetup.init();
-        initLog = LoggerFactory.getLogger(SparkApplication.class);
+        if (Arrays.asList(args).contains("--startup-report")) {
+            System.exit(StartupTracer.printLastReport() ? 0 : 1);
+            return;
+        }
+
+        launchedAtLogin = Arrays.asList(args).contains(AutoStartManager.AUTOSTART_ARG);
+
+        StartupTracer.begin();
+        StartupTracer.finishWhen("uiReady", "firstPageReady");
 
-        if (!SingleInstanceLock.tryAcquire()) {
+        try (var span = StartupTracer.span("logSetup")) {
+            LogSetup.init();
+            initLog = LoggerFactory.getLogger(SparkApplication.class);
+        }
+
+        if (Arrays.asList(args).contains("--smoke-test")) {
+            System.exit(runSmokeTest());
+            return;
+        }
+
+        boolean acquired;
+        try (var span = StartupTracer.span("instanceLock")) {
+            acquired = SingleInstanceLock.tryAcquire();
+        }
+        if (!acquired) {
             initLog.info("Another instance is already running — exiting");
             System.exit(0);
             return;
@@ -33,30 +66,109 @@ public class SparkApplication extends Application {
 
         Runtime.getRuntime().addShutdownHook(new Thread(SingleInstanceLock::release));
         Thread.setDefaultUncaughtExceptionHandler(new GlobalExceptionHandler());
+
+        // Runs while the JavaFX toolkit boots; start() picks the results up.
+        startup = new StartupGraph();
+        startup.supply("preferences", AppPreferences::new);
+        startup.supply("providers", () -> new AiConfiguration(startup.result("preferences")), "preferences");
+        startup.run("webviewNative", () -> {
+            if (!isDeferredBoot(startup.result("preferences"))) {
+                WebviewManager.loadNativeLibrary();
+            }
+        }, "preferences");
+        startup.run("autostartEntry", () -> {
+            AppPreferences preferences = startup.result("preferences");
+            if (preferences.isAutoStartEnabled() && !launchedAtLogin) {
+                AutoStartManager.refresh();
+            }
+        }, "preferences");
+
         setupCookies();
         launch(args);
     }
 
+    /**
+     * {@code --smoke-test}: loads the preferences and providers the way a startup does, on the
+     * startup graph, then exits without a window. Checks a build (the native image above all)
+     * on a machine without a display; does not take the instance lock.
+     *
+     * @return the exit code
+     */
+    private static int runSmokeTest() {
+        var graph = new StartupGraph();
+        graph.supply("preferences", AppPreferences::new);
+        var providers = graph.supply("providers", () -> new AiConfiguration(graph.result("preferences")), "preferences");
+        try {
+            AiConfiguration configuration = providers.join();
+            AppPreferences preferences = graph.result("preferences");
+            initLog.info("Smoke test passed: {} providers, preferences loaded", configuration.getConfigurations().size());
+            configuration.getCustomProvidersManager().shutdown();
+            preferences.shutdown();
+            return 0;
+        } catch (Exception e) {
+            initLog.error("Smoke test failed", e);
+            return 1;
+        }
+    }
+
     @Override
     public void start(Stage primaryStage) {
-        if (Boolean.getBoolean("spark.cds.generate")) {
-            System.out.println("CDS Archive successfully generated. Exiting...");
-            Platform.exit();
-            System.exit(0);
-        }
+        StartupTracer.mark("fxStart");
+        startup.runOnFx("bootMode", () -> {
+            if (isDeferredBoot(startup.result("preferences"))) {
+                startInBackground();
+            } else {
+                startWithWindow();
+            }
+        }, "preferences").exceptionally(e -> {
+            // Already logged by the graph; without a window there is nothing left to run.
+            System.exit(1);
+            return null;
+        });
+    }
 
-        try {
-            var appPreferences = new AppPreferences();
-            var aiConfiguration = new AiConfiguration(appPreferences);
-            var mainWindow = new MainWindow(aiConfiguration, appPreferences);
+    /**
+     * Started at login with "run in the background": nobody is waiting for the window, so it is
+     * not built until it is summoned, leaving the machine to the rest of the login.
+     */
+    private static boolean isDeferredBoot(AppPreferences preferences) {
+        return launchedAtLogin && preferences.isStartApplicationHiddenEnabled();
+    }
 
+    private void startInBackground() {
+        StartupTracer.finishWhen("residentReady");
+        startup.runOnFx("mainWindow", () -> {
+            var mainWindow = new MainWindow(startup.result("providers"), startup.result("preferences"), startup);
             SingleInstanceLock.setOnActivate(mainWindow::showMainWindow);
+            mainWindow.startDeferred();
+        }, "providers").exceptionally(e -> {
+            System.exit(1);
+            return null;
+        });
+    }
+
+    private void startWithWindow() {
+        // Shown right away; the FX thread stays free to paint it until the providers are loaded.
+        var splashScreen = new SplashScreen();
+        splashScreen.showSplash();
 
-            mainWindow.showWindow();
+        startup.runOnFx("mainWindow", () -> {
+            var mainWindow = new MainWindow(startup.result("providers"), startup.result("preferences"), startup);
+            SingleInstanceLock.setOnActivate(mainWindow::showMainWindow);
+            mainWindow.showWindow(splashScreen);
             initLog.info("Main window displayed.");
-        } catch (Exception e) {
-            initLog.error("Failed to show main window", e);
-        }
+            if (BENCHMARK) {
+                // The benchmark times the process from launch to here, the window on screen.
+                Platform.runLater(() -> System.exit(0));
+            } else if (TRAINING) {
+                mainWindow.runTraining();
+            }
+        }, "providers").exceptionally(e -> {
+            // Already logged by the graph; without a window there is nothing left to run.
+            splashScreen.hideSplash();
+            System.exit(1);
+            return null;
+        });
     }
 
     private static void setupCookies() {
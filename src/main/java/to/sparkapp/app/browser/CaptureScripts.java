@@ -0,0 +1,130 @@
+package to.sparkapp.app.browser;
+
+import com.google.gson.Gson;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import to.sparkapp.app.config.AiConfiguration;
+
+import java.util.HashMap;
+
+/**
+ * Init scripts that observe what the user does on provider pages.
+ *
+ * <p>The conversation script reports finished messages in batches through
+ * {@code sparkCall('captureMessages', url, messages)}. A message counts as finished once its
+ * text has not changed for {@link #STABLE_MS}, so streamed answers are captured once, not on
+ * every token. The prompt script reports each prompt the user sends through
+ * {@code sparkCall('promptSent', text)}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class CaptureScripts {
+
+    private static final int STABLE_MS = 1500;
+
+    private static final Gson GSON = new Gson();
+
+    private static final String CAPTURE_TEMPLATE = """
+            (function() {
+                var selectors = %s;
+                var host = window.location.hostname.replace(/^www\\./, '');
+                var sel = selectors[host];
+                if (!sel) return;
+
+                var USER = '[data-message-author-role="user"], user-query, [data-testid="user-message"], [data-content="user-message"]';
+                var sent = {}, timer = null;
+
+                function roleOf(el) {
+                    var role = el.getAttribute('data-message-author-role');
+                    if (role) return role;
+                    return el.matches(USER) ? 'user' : 'assistant';
+                }
+
+                function scan() {
+                    timer = null;
+                    var url = window.location.href.split('#')[0];
+                    var nodes = document.querySelectorAll(sel);
+                    var batch = [];
+                    for (var i = 0; i < nodes.length; i++) {
+                        var el = nodes[i];
+                        if (el.parentElement && el.parentElement.closest(sel)) continue;
+                        var text = (el.innerText || '').trim();
+                        var key = url + '#' + i;
+                        if (!text || sent[key] === text) continue;
+                        sent[key] = text;
+                        batch.push({key: key, role: roleOf(el), text: text});
+                    }
+                    if (batch.length) window.sparkCall('captureMessages', url, batch);
+                }
+
+                function schedule() {
+                    clearTimeout(timer);
+                    timer = setTimeout(scan, %d);
+                }
+
+                function start() {
+                    new MutationObserver(schedule).observe(document.body, {childList: true, subtree: true, characterData: true});
+                    schedule();
+                }
+
+                if (document.body) start(); else document.addEventListener('DOMContentLoaded', start);
+            })();
+            """;
+
+    private static final String PROMPT_TEMPLATE = """
+            (function() {
+                var selectors = %s, fallback = %s;
+                var sel = selectors[window.location.hostname.replace(/^www\\./, '')] || fallback;
+                var last = '', lastAt = 0;
+
+                function report(el) {
+                    if (!el) return;
+                    var text = (el.isContentEditable ? el.innerText : (el.value || '')).trim();
+                    var now = Date.now();
+                    if (text.length < 3 || (text === last && now - lastAt < 3000)) return;
+                    last = text;
+                    lastAt = now;
+                    window.sparkCall('promptSent', text);
+                }
+
+                document.addEventListener('keydown', function(e) {
+                    if (e.key !== 'Enter' || e.shiftKey || e.isComposing) return;
+                    var el = e.target;
+                    if (el && el.matches && el.matches(sel.input)) report(el);
+                }, true);
+
+                document.addEventListener('click', function(e) {
+                    if (sel.submit && e.target.closest && e.target.closest(sel.submit)) {
+                        report(document.querySelector(sel.input));
+                    }
+                }, true);
+            })();
+            """;
+
+    /**
+     * Builds the script that reports sent prompts, using the known input selectors
+     * of built-in providers and a generic guess elsewhere.
+     */
+    static String promptScript() {
+        return PROMPT_TEMPLATE.formatted(
+                GSON.toJson(AiConfiguration.getPromptSelectorsByHost()),
+                GSON.toJson(AiConfiguration.getPromptSelectors(null))
+        );
+    }
+
+    /**
+     * Builds the capture script for all providers with known message selectors.
+     * Returns an empty string when no provider supports capturing.
+     */
+    static String captureScript() {
+        var selectors = new HashMap<String, String>();
+        AiConfiguration.getPromptSelectorsByHost().forEach((host, s) -> {
+            if (s.message() != null) {
+                selectors.put(host, s.message());
+            }
+        });
+        if (selectors.isEmpty()) {
+            return "";
+        }
+        return CAPTURE_TEMPLATE.formatted(GSON.toJson(selectors), STABLE_MS);
+    }
+}
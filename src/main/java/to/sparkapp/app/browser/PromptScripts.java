@@ -0,0 +1,103 @@
+package to.sparkapp.app.browser;
+
+import com.google.gson.Gson;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import to.sparkapp.app.config.AiConfiguration;
+
+/**
+ * JavaScript snippets that type a prompt into a provider page and watch the DOM
+ * for the answer. Timings are reported back through {@code sparkCall('promptTiming', ...)}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class PromptScripts {
+
+    /** The answer is considered complete after this long without DOM changes. */
+    private static final int QUIET_MS = 2500;
+    private static final int TIMEOUT_MS = 180_000;
+
+    private static final Gson GSON = new Gson();
+
+    private static final String SUBMIT_TEMPLATE = """
+            (function() {
+                var req = %s, text = %s, sel = %s;
+                var input = document.querySelector(sel.input);
+                if (!input) { window.sparkCall('promptTiming', req, 'error', 0); return; }
+
+                input.focus();
+                if (input.isContentEditable) {
+                    document.execCommand('selectAll', false, null);
+                    document.execCommand('insertText', false, text);
+                } else {
+                    var proto = input.tagName === 'TEXTAREA' ? HTMLTextAreaElement.prototype : HTMLInputElement.prototype;
+                    Object.getOwnPropertyDescriptor(proto, 'value').set.call(input, text);
+                    input.dispatchEvent(new Event('input', {bubbles: true}));
+                }
+
+                var baseline = sel.response ? document.querySelectorAll(sel.response).length : 0;
+                var start = 0, last = 0, submitted = false, first = false, done = false, quiet = null;
+
+                function outsideInput(node) {
+                    if (!node) return false;
+                    var el = node.nodeType === 1 ? node : node.parentElement;
+                    return el && !input.contains(el) && !el.contains(input);
+                }
+                function isAnswer(node) {
+                    if (!outsideInput(node)) return false;
+                    if (!sel.response) return true;
+                    var el = node.nodeType === 1 ? node : node.parentElement;
+                    return (el.closest(sel.response) || (el.querySelector && el.querySelector(sel.response)))
+                        && document.querySelectorAll(sel.response).length > baseline;
+                }
+                function report(phase, ms) { window.sparkCall('promptTiming', req, phase, ms); }
+                function finish(phase) {
+                    if (done) return;
+                    done = true;
+                    observer.disconnect();
+                    report(phase, (first ? last : performance.now()) - start);
+                }
+
+                var observer = new MutationObserver(function(mutations) {
+                    if (!submitted || done) return;
+                    for (var i = 0; i < mutations.length; i++) {
+                        var m = mutations[i];
+                        var hit = m.type === 'characterData' ? isAnswer(m.target) : false;
+                        for (var j = 0; !hit && j < m.addedNodes.length; j++) hit = isAnswer(m.addedNodes[j]);
+                        if (!hit) continue;
+
+                        last = performance.now();
+                        if (!first) { first = true; report('first', last - start); }
+                        clearTimeout(quiet);
+                        quiet = setTimeout(function() { finish('complete'); }, %d);
+                        return;
+                    }
+                });
+                observer.observe(document.body, {childList: true, subtree: true, characterData: true});
+
+                setTimeout(function() {
+                    start = performance.now();
+                    submitted = true;
+                    var button = sel.submit ? document.querySelector(sel.submit) : null;
+                    if (button && !button.disabled) {
+                        button.click();
+                    } else {
+                        ['keydown', 'keypress', 'keyup'].forEach(function(type) {
+                            input.dispatchEvent(new KeyboardEvent(type, {key: 'Enter', code: 'Enter', keyCode: 13, which: 13, bubbles: true}));
+                        });
+                    }
+                }, 80);
+
+                setTimeout(function() { finish(first ? 'complete' : 'timeout'); }, %d);
+            })();
+            """;
+
+    static String submitPrompt(String requestId, String prompt, AiConfiguration.PromptSelectors selectors) {
+        return SUBMIT_TEMPLATE.formatted(
+                GSON.toJson(requestId),
+                GSON.toJson(prompt),
+                GSON.toJson(selectors),
+                QUIET_MS,
+                TIMEOUT_MS
+        );
+    }
+}
@@ -0,0 +1,20 @@
+package to.sparkapp.app.browser;
+
+/**
+ * Timing reported by the page after a prompt was injected.
+ *
+ * @param requestId the id passed to {@link WebviewManager#submitPrompt}
+ * @param phase     {@code first} (first answer mutation), {@code complete} (answer went quiet),
+ *                  {@code timeout} or {@code error}
+ * @param millis    milliseconds since the prompt was submitted
+ */
+public record PromptTiming(String requestId, String phase, double millis) {
+
+    public boolean isFirstToken() {
+        return "first".equals(phase);
+    }
+
+    public boolean isFinal() {
+        return !isFirstToken();
+    }
+}
@@ -5,9 +5,14 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import to.sparkapp.app.config.AiConfiguration;
 import to.sparkapp.app.config.AppPreferences;
+import to.sparkapp.app.history.CapturedMessage;
 import to.sparkapp.app.utils.NativeWindowUtils;
+import to.sparkapp.app.utils.StartupTracer;
 import to.sparkapp.app.utils.SystemUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -20,6 +25,8 @@ public class WebviewManager {
     private volatile Webview webview;
     private volatile long nativeHandle = 0L;
     private volatile long parentHandle = 0L;
+    /** The window the native webview is a child of right now; re-parenting is skipped while it stays the same. */
+    private volatile long attachedParent = 0L;
 
     private final AtomicBoolean ready = new AtomicBoolean(false);
     private final AtomicBoolean disposed = new AtomicBoolean(false);
@@ -34,6 +41,9 @@ public class WebviewManager {
 
     private final WebviewZoomManager zoomManager;
     private final WebviewNavigator navigator;
+    private final String initScripts;
+
+    private volatile String currentConfigId;
 
     private final ScheduledExecutorService dispatchWaitScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
         var t = new Thread(r, "webview-dispatch-waiter");
@@ -43,6 +53,17 @@ public class WebviewManager {
 
     @Setter
     private Runnable onReadyCallback;
+    @Setter
+    private Consumer<PromptTiming> onPromptTiming;
+    @Setter
+    private Consumer<List<CapturedMessage>> onMessagesCaptured;
+    @Setter
+    private Consumer<String> onPromptSent;
+    @Setter
+    private Runnable onPaletteRequested;
+    /** Called on the FX thread, like every sparkCall handler, when a page's DOM has loaded. */
+    @Setter
+    private Runnable onPageReady;
 
     private static final String INIT_SCRIPTS = """
             (function() {
@@ -53,6 +74,12 @@ public class WebviewManager {
                 }, {passive: false});
             
                 document.addEventListener('keydown', function(e) {
+                    if ((e.ctrlKey || e.metaKey) && e.shiftKey && (e.key === 'p' || e.key === 'P')) {
+                        e.preventDefault();
+                        e.stopPropagation();
+                        window.sparkCall('openPalette');
+                        return;
+                    }
                     if (!e.ctrlKey) return;
                     if (e.key === '=' || e.key === '+') { e.preventDefault(); window.sparkCall('zoom', 'up'); }
                     if (e.key === '-')                  { e.preventDefault(); window.sparkCall('zoom', 'down'); }
@@ -60,6 +87,11 @@ public class WebviewManager {
                 });
             
                 window.sparkCall('urlChanged', window.location.href);
+                if (document.readyState === 'loading') {
+                    document.addEventListener('DOMContentLoaded', function() { window.sparkCall('pageReady'); });
+                } else {
+                    window.sparkCall('pageReady');
+                }
                 var _push = history.pushState;
                 history.pushState = function() { _push.apply(this, arguments); window.sparkCall('urlChanged', window.location.href); };
                 var _replace = history.replaceState;
@@ -71,6 +103,22 @@ public class WebviewManager {
     public WebviewManager(AppPreferences appPreferences) {
         this.zoomManager = new WebviewZoomManager(appPreferences, this);
         this.navigator = new WebviewNavigator(this, zoomManager);
+        var scripts = new StringBuilder(INIT_SCRIPTS);
+        if (appPreferences.isConversationCaptureEnabled()) {
+            scripts.append(CaptureScripts.captureScript());
+        }
+        if (appPreferences.isPromptHistoryEnabled()) {
+            scripts.append(CaptureScripts.promptScript());
+        }
+        this.initScripts = scripts.toString();
+    }
+
+    /**
+     * Extracts and links the native webview library. Happens anyway when the first webview is
+     * created; calling it early moves that work off the path to the first page.
+     */
+    public static void loadNativeLibrary() {
+        Objects.requireNonNull(WebviewNative.WEBVIEW_NATIVE);
     }
 
     public void init(String startUrl, long parentHandle, int x, int y, int width, int height) {
@@ -101,24 +149,24 @@ public class WebviewManager {
                 isFirstStart = false;
 
                 webview = firstStart ? new Webview(false, parentHandle) : new Webview(false);
+                StartupTracer.mark("webviewCreated");
                 this.nativeHandle = webview.getNativeWindowPointer();
+                attachedParent = firstStart ? parentHandle : 0L;
 
                 if (nativeHandle != 0) {
                     if (isHibernated) {
                         NativeWindowUtils.setVisible(nativeHandle, false);
                         NativeWindowUtils.setBounds(nativeHandle, 15000, 15000, 10, 10);
-                        NativeWindowUtils.unparent(nativeHandle);
+                        detach();
                     } else if (!firstStart) {
                         NativeWindowUtils.setVisible(nativeHandle, false);
                         NativeWindowUtils.setBounds(nativeHandle, 15000, 15000, 10, 10);
-                        if (parentHandle != 0) {
-                            NativeWindowUtils.setParent(nativeHandle, parentHandle);
-                        }
+                        attach();
                     }
                 }
 
                 setupJsApi();
-                webview.setInitScript(INIT_SCRIPTS);
+                webview.setInitScript(initScripts);
                 webview.setSize(nativeW, nativeH);
 
                 var urlToLoad = initialUrl != null ? initialUrl : "about:blank";
@@ -132,9 +180,9 @@ public class WebviewManager {
                         if (isHibernated) {
                             NativeWindowUtils.setVisible(nativeHandle, false);
                             NativeWindowUtils.setBounds(nativeHandle, 15000, 15000, 10, 10);
-                            NativeWindowUtils.unparent(nativeHandle);
+                            detach();
                         } else if (parentHandle != 0) {
-                            NativeWindowUtils.setParent(nativeHandle, parentHandle);
+                            attach();
                             NativeWindowUtils.setBounds(nativeHandle, nativeX, nativeY, nativeW, nativeH);
                             NativeWindowUtils.setVisible(nativeHandle, true);
                         }
@@ -179,6 +227,58 @@ public class WebviewManager {
                 navigator.handleUrlChange(args.get(0).getAsString());
             }
         });
+
+        api.on("promptTiming", args -> {
+            if (args.size() >= 3 && onPromptTiming != null) {
+                onPromptTiming.accept(new PromptTiming(
+                        args.get(0).getAsString(),
+                        args.get(1).getAsString(),
+                        args.get(2).getAsDouble()
+                ));
+            }
+        });
+
+        api.on("captureMessages", args -> {
+            if (args.size() < 2 || onMessagesCaptured == null) {
+                return;
+            }
+
+            var url = args.get(0).getAsString();
+            var now = System.currentTimeMillis();
+            var messages = new ArrayList<CapturedMessage>();
+            for (var element : args.get(1).getAsJsonArray()) {
+                var obj = element.getAsJsonObject();
+                messages.add(new CapturedMessage(
+                        obj.get("key").getAsString(),
+                        now,
+                        currentConfigId,
+                        url,
+                        obj.get("role").getAsString(),
+                        obj.get("text").getAsString()
+                ));
+            }
+            onMessagesCaptured.accept(messages);
+        });
+
+        api.on("promptSent", args -> {
+            if (!args.isEmpty() && onPromptSent != null) {
+                onPromptSent.accept(args.get(0).getAsString());
+            }
+        });
+
+        api.on("pageReady", args -> {
+            StartupTracer.mark("firstPageReady");
+            if (onPageReady != null) {
+                onPageReady.run();
+            }
+        });
+
+        // The native webview swallows key events, so the palette shortcut is forwarded from the page.
+        api.on("openPalette", args -> {
+            if (onPaletteRequested != null) {
+                onPaletteRequested.run();
+            }
+        });
     }
 
     public void dispatch(Runnable action) {
@@ -232,6 +332,15 @@ public class WebviewManager {
         }
     }
 
+    /**
+     * Types the prompt into the current page and submits it. Progress is reported
+     * through {@link #setOnPromptTiming} with the same {@code requestId}.
+     */
+    public void submitPrompt(String requestId, String prompt, AiConfiguration.PromptSelectors selectors) {
+        var js = PromptScripts.submitPrompt(requestId, prompt, selectors);
+        dispatch(() -> eval(js));
+    }
+
     public void loadURL(String url) {
         if (webview != null) {
             webview.loadURL(url);
@@ -256,9 +365,7 @@ public class WebviewManager {
         });
 
         if (nativeHandle != 0 && !isHibernated) {
-            if (parentHandle != 0) {
-                NativeWindowUtils.setParent(nativeHandle, parentHandle);
-            }
+            attach();
             NativeWindowUtils.setBounds(nativeHandle, x, y, width, height);
         }
     }
@@ -272,9 +379,13 @@ public class WebviewManager {
 
         NativeWindowUtils.setVisible(nativeHandle, false);
         NativeWindowUtils.setBounds(nativeHandle, 15000, 15000, 10, 10);
-        NativeWindowUtils.unparent(nativeHandle);
+        detach();
     }
 
+    /**
+     * Shows the webview in {@code parentHandle}, or in the last parent if {@code 0}. Cheap when
+     * it is already there, so it can be called on every show of the host window.
+     */
     public void wakeup(long parentHandle) {
         if (parentHandle != 0) {
             this.parentHandle = parentHandle;
@@ -289,12 +400,25 @@ public class WebviewManager {
         if (!ready.get() || nativeHandle == 0 || webview == null) {
             startWebviewThread(navigator.getCurrentUrl());
         } else {
-            NativeWindowUtils.setParent(nativeHandle, this.parentHandle);
+            attach();
             NativeWindowUtils.setBounds(nativeHandle, nativeX, nativeY, nativeW, nativeH);
             NativeWindowUtils.setVisible(nativeHandle, true);
         }
     }
 
+    // SetParent with a style change and a frame flush; too costly to repeat on every bounds update.
+    private void attach() {
+        if (parentHandle != 0 && attachedParent != parentHandle) {
+            NativeWindowUtils.setParent(nativeHandle, parentHandle);
+            attachedParent = parentHandle;
+        }
+    }
+
+    private void detach() {
+        NativeWindowUtils.unparent(nativeHandle);
+        attachedParent = 0L;
+    }
+
     public void shutdown(Runnable onComplete) {
         if (disposed.getAndSet(true)) {
             return;
@@ -324,6 +448,7 @@ public class WebviewManager {
     }
 
     public void setCurrentConfig(AiConfiguration.AiConfig config) {
+        currentConfigId = config != null ? config.id() : null;
         navigator.setCurrentConfig(config);
     }
 
@@ -0,0 +1,8 @@
+package to.sparkapp.app.chat;
+
+/**
+ * One turn of a conversation in the OpenAI chat format.
+ *
+ * @param role {@code user}, {@code assistant} or {@code system}
+ */
+public record ChatMessage(String role, String content) {}
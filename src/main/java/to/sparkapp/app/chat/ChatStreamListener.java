@@ -0,0 +1,13 @@
+package to.sparkapp.app.chat;
+
+/**
+ * Receives a streamed answer. Callbacks arrive on the streaming thread, not the FX thread.
+ */
+public interface ChatStreamListener {
+
+    void onDelta(String text);
+
+    void onComplete();
+
+    void onError(Exception error);
+}
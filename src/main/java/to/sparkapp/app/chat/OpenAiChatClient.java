@@ -0,0 +1,253 @@
+package to.sparkapp.app.chat;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Minimal streaming client for OpenAI-compatible {@code /chat/completions} endpoints
+ * (OpenAI, llama.cpp server, Ollama, LM Studio, vLLM, ...).
+ *
+ * <p>Every request runs on its own virtual thread and reads the server-sent events line by
+ * line, so a slow model never holds a platform thread. The client is shared by all native
+ * chat views.
+ */
+@Slf4j
+public class OpenAiChatClient {
+
+    private static final String DATA_PREFIX = "data:";
+    private static final String DONE = "[DONE]";
+
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("chat-stream-", 0).factory());
+
+    private static final HttpClient HTTP = HttpClient.newBuilder()
+            .executor(EXECUTOR)
+            .connectTimeout(Duration.ofSeconds(10))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    private final Gson gson = new Gson();
+    private final URI endpoint;
+    private final String model;
+    private final String apiKey;
+
+    /**
+     * @param baseUrl API root such as {@code http://localhost:11434/v1}; a full
+     *                {@code .../chat/completions} URL is accepted as well
+     */
+    public OpenAiChatClient(String baseUrl, String model, String apiKey) {
+        this.endpoint = URI.create(resolveEndpoint(baseUrl));
+        this.model = model;
+        this.apiKey = apiKey;
+    }
+
+    /**
+     * Streams the answer to {@code history}. Cancel the returned future to abort the request:
+     * that drops the connection, also while the stream is waiting for the next chunk, and no
+     * further callbacks are made.
+     */
+    public Future<?> stream(List<ChatMessage> history, ChatStreamListener listener) {
+        var active = new ActiveStream();
+        active.task = EXECUTOR.submit(() -> {
+            try {
+                doStream(history, listener, active);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // Cancelling closes the connection under the reader; that is not an error.
+                if (!active.isCancelled()) {
+                    log.warn("Chat request to {} failed: {}", endpoint, e.getMessage());
+                    listener.onError(e);
+                }
+            }
+        });
+        return active;
+    }
+
+    private void doStream(List<ChatMessage> history, ChatStreamListener listener, ActiveStream active)
+            throws IOException, InterruptedException {
+        var body = gson.toJson(Map.of(
+                "model", model == null ? "" : model,
+                "messages", history,
+                "stream", true
+        ));
+
+        var request = HttpRequest.newBuilder(endpoint)
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream");
+        if (apiKey != null && !apiKey.isBlank()) {
+            request.header("Authorization", "Bearer " + apiKey);
+        }
+
+        var pending = HTTP.sendAsync(request.POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofLines());
+        if (!active.attach(pending)) {
+            return;
+        }
+        HttpResponse<Stream<String>> response;
+        try {
+            response = pending.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+
+        try (var lines = response.body()) {
+            if (!active.attach(lines)) {
+                return;
+            }
+            if (response.statusCode() / 100 != 2) {
+                var error = String.join("", lines.limit(20).toList());
+                throw new IOException("HTTP " + response.statusCode() + (error.isBlank() ? "" : ": " + error));
+            }
+
+            var iterator = lines.iterator();
+            while (iterator.hasNext()) {
+                var line = iterator.next();
+                if (!line.startsWith(DATA_PREFIX)) {
+                    continue;
+                }
+
+                var data = line.substring(DATA_PREFIX.length()).trim();
+                if (data.equals(DONE)) {
+                    break;
+                }
+
+                var delta = extractDelta(data);
+                if (delta != null && !delta.isEmpty() && !active.isCancelled()) {
+                    listener.onDelta(delta);
+                }
+            }
+        }
+        if (!active.isCancelled()) {
+            listener.onComplete();
+        }
+    }
+
+    private static String extractDelta(String data) {
+        try {
+            JsonObject chunk = JsonParser.parseString(data).getAsJsonObject();
+            var choices = chunk.getAsJsonArray("choices");
+            if (choices == null || choices.isEmpty()) {
+                return null;
+            }
+            var delta = choices.get(0).getAsJsonObject().getAsJsonObject("delta");
+            if (delta == null || !delta.has("content") || delta.get("content").isJsonNull()) {
+                return null;
+            }
+            return delta.get("content").getAsString();
+        } catch (Exception e) {
+            log.debug("Skipping unparsable SSE chunk: {}", data);
+            return null;
+        }
+    }
+
+    /**
+     * The handle returned by {@link #stream}. A read blocked on the response body does not
+     * notice an interrupt reliably, so cancelling also aborts the pending exchange and closes
+     * the body, which ends the read with an exception.
+     */
+    private static final class ActiveStream implements Future<Void> {
+
+        private volatile Future<?> task;
+        private volatile boolean cancelled;
+        private CompletableFuture<?> exchange;
+        private AutoCloseable body;
+
+        /** @return {@code false} if the stream was cancelled already; the exchange is then aborted */
+        synchronized boolean attach(CompletableFuture<?> exchange) {
+            this.exchange = exchange;
+            if (cancelled) {
+                exchange.cancel(true);
+            }
+            return !cancelled;
+        }
+
+        /** @return {@code false} if the stream was cancelled already; the body is then closed */
+        synchronized boolean attach(AutoCloseable body) {
+            this.body = body;
+            if (cancelled) {
+                closeQuietly(body);
+            }
+            return !cancelled;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            synchronized (this) {
+                if (cancelled || isDone()) {
+                    return false;
+                }
+                cancelled = true;
+                if (exchange != null) {
+                    exchange.cancel(true);
+                }
+                if (body != null) {
+                    closeQuietly(body);
+                }
+            }
+            task.cancel(mayInterruptIfRunning);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return cancelled || task.isDone();
+        }
+
+        @Override
+        public Void get() throws InterruptedException, ExecutionException {
+            task.get();
+            return null;
+        }
+
+        @Override
+        public Void get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            task.get(timeout, unit);
+            return null;
+        }
+
+        private static void closeQuietly(AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.debug("Closing a cancelled chat stream failed", e);
+            }
+        }
+    }
+
+    private static String resolveEndpoint(String baseUrl) {
+        var url = baseUrl.trim();
+        if (url.endsWith("/chat/completions")) {
+            return url;
+        }
+        if (url.endsWith("/")) {
+            url = url.substring(0, url.length() - 1);
+        }
+        return url + "/chat/completions";
+    }
+}
@@ -1,20 +1,75 @@
 package to.sparkapp.app.config;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class AiConfiguration {
 
+    private static final PromptSelectors DEFAULT_PROMPT_SELECTORS = new PromptSelectors(
+            "textarea, div[contenteditable=\"true\"]",
+            "button[type=\"submit\"]",
+            null,
+            null
+    );
+
+    // Keyed by provider id first; custom providers fall back to a host match.
+    private static final Map<String, PromptSelectors> PROMPT_SELECTORS = Map.of(
+            "chatgpt", new PromptSelectors(
+                    "#prompt-textarea",
+                    "button[data-testid=\"send-button\"]",
+                    "[data-message-author-role=\"assistant\"]",
+                    "[data-message-author-role]"),
+            "gemini", new PromptSelectors(
+                    "rich-textarea .ql-editor",
+                    "button.send-button",
+                    "message-content",
+                    "user-query, message-content"),
+            "claude", new PromptSelectors(
+                    "div.ProseMirror[contenteditable=\"true\"]",
+                    "button[aria-label=\"Send message\"]",
+                    "[data-is-streaming]",
+                    "[data-testid=\"user-message\"], [data-is-streaming]"),
+            "mistral", new PromptSelectors(
+                    "textarea, div[contenteditable=\"true\"]",
+                    "button[type=\"submit\"]",
+                    null,
+                    null),
+            "perplexity", new PromptSelectors(
+                    "textarea, div[contenteditable=\"true\"]",
+                    "button[aria-label=\"Submit\"]",
+                    ".prose",
+                    null),
+            "copilot", new PromptSelectors(
+                    "textarea#userInput",
+                    "button[aria-label=\"Submit message\"]",
+                    "[data-content=\"ai-message\"]",
+                    "[data-content=\"user-message\"], [data-content=\"ai-message\"]")
+    );
+
+    private static final Map<String, String> PROMPT_SELECTOR_HOSTS = Map.of(
+            "chatgpt.com", "chatgpt",
+            "gemini.google.com", "gemini",
+            "claude.ai", "claude",
+            "chat.mistral.ai", "mistral",
+            "perplexity.ai", "perplexity",
+            "copilot.microsoft.com", "copilot"
+    );
+
     @Getter
     private final CustomAiProvidersManager customProvidersManager;
 
     @Getter
-    private List<AiConfig> configurations = new ArrayList<>();
+    private volatile List<AiConfig> configurations = new ArrayList<>();
 
     private final AppPreferences appPreferences;
 
@@ -22,8 +77,10 @@ public class AiConfiguration {
         this.appPreferences = appPreferences;
         this.customProvidersManager = new CustomAiProvidersManager();
         reload();
+        customProvidersManager.getRepository().addListener(snapshot -> configurations = snapshot.providers());
     }
 
+    /** Picks up the repository's current snapshot; no disk access. */
     public void reload() {
         this.configurations = customProvidersManager.loadProviders();
         log.info("AiConfiguration loaded {} providers", configurations.size());
@@ -36,16 +93,93 @@ public class AiConfiguration {
         }
     }
 
+    public Optional<AiConfig> findById(String id) {
+        return customProvidersManager.getRepository().findById(id);
+    }
+
     public void resetToDefaults() {
         customProvidersManager.restoreDefaults();
         reload();
     }
 
+    /**
+     * Returns the DOM selectors used to inject a prompt into the provider's page
+     * and to observe its answer. Unknown providers get a generic textarea/contenteditable guess.
+     */
+    public static PromptSelectors getPromptSelectors(AiConfig config) {
+        if (config == null) {
+            return DEFAULT_PROMPT_SELECTORS;
+        }
+
+        var byId = PROMPT_SELECTORS.get(config.id());
+        if (byId != null) {
+            return byId;
+        }
+
+        try {
+            var host = URI.create(config.url()).getHost();
+            if (host != null) {
+                host = host.startsWith("www.") ? host.substring(4) : host;
+                var id = PROMPT_SELECTOR_HOSTS.get(host);
+                if (id != null) {
+                    return PROMPT_SELECTORS.get(id);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            log.debug("Can't resolve prompt selectors for {}", config.url());
+        }
+        return DEFAULT_PROMPT_SELECTORS;
+    }
+
+    /**
+     * Selectors of the built-in providers keyed by host (without {@code www.}),
+     * for scripts that run before the provider of a page is known.
+     */
+    public static Map<String, PromptSelectors> getPromptSelectorsByHost() {
+        return PROMPT_SELECTOR_HOSTS.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> PROMPT_SELECTORS.get(e.getValue())));
+    }
+
+    /**
+     * @param input    the prompt input (textarea or contenteditable)
+     * @param submit   the send button; Enter is simulated when it is missing
+     * @param response the container of an assistant answer, {@code null} to observe the whole page
+     * @param message  every chat message, user and assistant; {@code null} disables conversation capture
+     */
+    public record PromptSelectors(
+            String input,
+            String submit,
+            String response,
+            String message
+    ) {}
+
+    /**
+     * @param type   {@code null} for a website shown in the webview, {@link #TYPE_OPENAI} for an
+     *               OpenAI-compatible chat completions API rendered by the native chat view
+     * @param model  model name sent to the API; only used by {@link #TYPE_OPENAI} providers
+     * @param apiKey bearer token for the API, may be empty for local servers
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public record AiConfig(
             String id,
             String name,
             String url,
             String color,
-            String icon
-    ) {}
+            String icon,
+            String type,
+            String model,
+            String apiKey
+    ) {
+
+        public static final String TYPE_OPENAI = "openai";
+
+        public AiConfig(String id, String name, String url, String color, String icon) {
+            this(id, name, url, color, icon, null, null, null);
+        }
+
+        @JsonIgnore
+        public boolean isNativeChat() {
+            return TYPE_OPENAI.equals(type);
+        }
+    }
 }
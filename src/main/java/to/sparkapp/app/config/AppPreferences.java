@@ -2,6 +2,7 @@ package to.sparkapp.app.config;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import to.sparkapp.app.utils.AutoStartManager;
@@ -9,11 +10,12 @@ import to.sparkapp.app.utils.AutoStartManager;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 @Slf4j
 public class AppPreferences {
@@ -22,14 +24,9 @@ public class AppPreferences {
     private static final File FILE = new File(AppPaths.DIR, FILE_NAME);
 
     private final ObjectMapper mapper = new ObjectMapper();
-    private AppConfig config;
-
-    private final ScheduledExecutorService saveScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-        var t = new Thread(r, "preferences-save");
-        t.setDaemon(true);
-        return t;
-    });
-    private volatile ScheduledFuture<?> pendingDebouncedSave;
+    private final JsonFileStore store = new JsonFileStore(FILE.toPath(), mapper, true);
+    private final List<Consumer<Set<String>>> externalChangeListeners = new CopyOnWriteArrayList<>();
+    private volatile AppConfig config;
 
     public AppPreferences() {
         mapper.setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL);
@@ -38,13 +35,14 @@ public class AppPreferences {
     }
 
     private void load() {
-        if (!FILE.exists()) {
+        var stored = store.load();
+        if (stored == null) {
             config = new AppConfig();
             return;
         }
 
         try {
-            config = mapper.readValue(FILE, AppConfig.class);
+            config = mapper.treeToValue(stored, AppConfig.class);
         } catch (IOException e) {
             log.error("Failed to load application preferences", e);
             config = new AppConfig();
@@ -90,6 +88,30 @@ public class AppPreferences {
             config.darkModeEnabled = Boolean.parseBoolean(AppPreferencesKeys.DARK_MODE_ENABLED.getDefaultValue());
             changed = true;
         }
+        if (config.compareProviders == null) {
+            config.compareProviders = new ArrayList<>();
+            changed = true;
+        }
+        if (config.conversationCaptureEnabled == null) {
+            config.conversationCaptureEnabled = Boolean.parseBoolean(AppPreferencesKeys.CONVERSATION_CAPTURE_ENABLED.getDefaultValue());
+            changed = true;
+        }
+        if (config.hotkeyQuickAsk == null) {
+            config.hotkeyQuickAsk = new ArrayList<>();
+            changed = true;
+        }
+        if (config.quickAskRevealOnAnswer == null) {
+            config.quickAskRevealOnAnswer = Boolean.parseBoolean(AppPreferencesKeys.QUICK_ASK_REVEAL_ON_ANSWER.getDefaultValue());
+            changed = true;
+        }
+        if (config.promptHistoryEnabled == null) {
+            config.promptHistoryEnabled = Boolean.parseBoolean(AppPreferencesKeys.PROMPT_HISTORY_ENABLED.getDefaultValue());
+            changed = true;
+        }
+        if (config.deferredBootPrewarmSeconds == null) {
+            config.deferredBootPrewarmSeconds = Integer.parseInt(AppPreferencesKeys.DEFERRED_BOOT_PREWARM_SECONDS.getDefaultValue());
+            changed = true;
+        }
 
         if (changed) {
             save();
@@ -97,35 +119,79 @@ public class AppPreferences {
     }
 
     /**
-     * Immediate, synchronous write — used for settings that change rarely.
+     * Hands the current state to the background writer, which journals the change at once
+     * and rewrites the file once per second at most, so rapid changes (current URL, zoom
+     * level, dock drags) cost one write. Never blocks on the disk.
      */
     private void save() {
-        new File(AppPaths.DIR).mkdirs();
-        try {
-            mapper.writerWithDefaultPrettyPrinter().writeValue(FILE, config);
-        } catch (IOException e) {
-            log.error("Failed to save application preferences", e);
-        }
+        store.submit(mapper.valueToTree(config));
+    }
+
+    /** Picks up edits other programs make to the preferences file while the app runs. */
+    public void watch(ConfigFileWatcher watcher) {
+        watcher.watch(FILE_NAME, new ConfigFileWatcher.Listener() {
+            @Override
+            public boolean isOwnContent(String hash) {
+                return store.isOwnContent(hash);
+            }
+
+            @Override
+            public void onExternalChange(byte[] content) throws IOException {
+                applyExternalChange(content);
+            }
+        });
     }
 
     /**
-     * Deferred write — coalesces multiple rapid calls into one disk write
-     * 500 ms after the last mutation.  Used for values that can change very
-     * frequently (current URL, zoom level).
+     * Called on the watcher's thread with the names of the preferences another program
+     * changed, e.g. {@code aiOrder}.
      */
-    private void saveDebounced() {
-        if (pendingDebouncedSave != null) {
-            pendingDebouncedSave.cancel(false);
+    public void addExternalChangeListener(Consumer<Set<String>> listener) {
+        externalChangeListeners.add(listener);
+    }
+
+    private void applyExternalChange(byte[] content) throws IOException {
+        if (!(mapper.readTree(content) instanceof ObjectNode state)) {
+            throw new IOException("Expected a JSON object");
+        }
+        var next = mapper.treeToValue(state, AppConfig.class);
+
+        ObjectNode current = mapper.valueToTree(config);
+        var changed = new HashSet<String>();
+        state.fieldNames().forEachRemaining(changed::add);
+        current.fieldNames().forEachRemaining(changed::add);
+        changed.removeIf(name -> Objects.equals(state.get(name), current.get(name)));
+        if (changed.isEmpty()) {
+            return;
         }
-        pendingDebouncedSave = saveScheduler.schedule(this::save, 500, TimeUnit.MILLISECONDS);
+
+        if (!store.adopt(state, ConfigFileWatcher.hashOf(content))) {
+            log.info("Keeping unsaved preference changes over the external change of {}", FILE_NAME);
+            return;
+        }
+        config = next;
+        initDefaults();
+        log.info("Applied external change of {}: {}", FILE_NAME, changed);
+
+        if (changed.contains("autoStartEnabled")) {
+            AutoStartManager.setAutoStart(isAutoStartEnabled());
+        }
+        for (var listener : externalChangeListeners) {
+            listener.accept(changed);
+        }
+    }
+
+    /** Writes pending changes; call before the application exits. */
+    public void shutdown() {
+        store.shutdown();
     }
 
-    // Last-URL — debounced because the webview fires a URL-change event for
+    // Last-URL — relies on the store coalescing writes, because the webview fires a URL-change event for
     // every in-app navigation (e.g. chatgpt.com → chatgpt.com/c/<uuid>).
     public void setLastUrl(String url) {
         if (Boolean.TRUE.equals(config.rememberLastAi)) {
             config.lastUrl = url;
-            saveDebounced();
+            save();
         }
     }
 
@@ -149,7 +215,7 @@ public class AppPreferences {
     public void setLastZoomValue(Double zoomValue) {
         if (Boolean.TRUE.equals(config.zoomEnabled)) {
             config.lastZoomValue = zoomValue;
-            saveDebounced();
+            save();
         }
     }
 
@@ -226,6 +292,64 @@ public class AppPreferences {
         return Boolean.TRUE.equals(config.darkModeEnabled);
     }
 
+    public void setCompareProviders(List<String> providerIds) {
+        config.compareProviders = providerIds != null ? new ArrayList<>(providerIds) : new ArrayList<>();
+        save();
+    }
+
+    public List<String> getCompareProviders() {
+        return config.compareProviders != null ? new ArrayList<>(config.compareProviders) : new ArrayList<>();
+    }
+
+    public void setConversationCaptureEnabled(boolean enabled) {
+        config.conversationCaptureEnabled = enabled;
+        save();
+    }
+
+    public boolean isConversationCaptureEnabled() {
+        return Boolean.TRUE.equals(config.conversationCaptureEnabled);
+    }
+
+    public void setHotkeyQuickAsk(List<Integer> keys) {
+        config.hotkeyQuickAsk = keys != null ? new ArrayList<>(keys) : new ArrayList<>();
+        save();
+    }
+
+    public List<Integer> getHotkeyQuickAsk() {
+        return config.hotkeyQuickAsk != null ? new ArrayList<>(config.hotkeyQuickAsk) : new ArrayList<>();
+    }
+
+    public void setQuickAskRevealOnAnswer(boolean reveal) {
+        config.quickAskRevealOnAnswer = reveal;
+        save();
+    }
+
+    public boolean isQuickAskRevealOnAnswer() {
+        return Boolean.TRUE.equals(config.quickAskRevealOnAnswer);
+    }
+
+    public void setPromptHistoryEnabled(boolean enabled) {
+        config.promptHistoryEnabled = enabled;
+        save();
+    }
+
+    public boolean isPromptHistoryEnabled() {
+        return Boolean.TRUE.equals(config.promptHistoryEnabled);
+    }
+
+    public void setDeferredBootPrewarmSeconds(int seconds) {
+        config.deferredBootPrewarmSeconds = seconds;
+        save();
+    }
+
+    /**
+     * After a login start in the background, how long to wait before building the main window
+     * anyway; {@code 0} or less builds it only when it is first shown.
+     */
+    public int getDeferredBootPrewarmSeconds() {
+        return config.deferredBootPrewarmSeconds != null ? config.deferredBootPrewarmSeconds : 0;
+    }
+
     public void cleanupLastUrlIfNeeded(List<String> validUrls) {
         if (config.lastUrl != null && !validUrls.contains(config.lastUrl)) {
 
@@ -257,5 +381,11 @@ public class AppPreferences {
         private Boolean startApplicationHiddenEnabled;
         private List<Integer> hotkeyToStartApplication;
         private Boolean darkModeEnabled;
+        private List<String> compareProviders;
+        private Boolean conversationCaptureEnabled;
+        private List<Integer> hotkeyQuickAsk;
+        private Boolean quickAskRevealOnAnswer;
+        private Boolean promptHistoryEnabled;
+        private Integer deferredBootPrewarmSeconds;
     }
 }
@@ -16,7 +16,11 @@ public enum AppPreferencesKeys {
     AUTO_START_ENABLED("true"),
     START_APPLICATION_HIDDEN_ENABLED("false"),
     HOTKEY_TO_START_APPLICATION(""),
-    DARK_MODE_ENABLED("true");
+    DARK_MODE_ENABLED("true"),
+    CONVERSATION_CAPTURE_ENABLED("false"),
+    QUICK_ASK_REVEAL_ON_ANSWER("true"),
+    PROMPT_HISTORY_ENABLED("true"),
+    DEFERRED_BOOT_PREWARM_SECONDS("0");
 
     private final String defaultValue;
 }
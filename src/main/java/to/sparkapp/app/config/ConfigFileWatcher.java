@@ -0,0 +1,190 @@
+package to.sparkapp.app.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notices when another program edits one of the config files, e.g. a config management tool
+ * rewriting {@code providers.json}.
+ *
+ * <p>Events are debounced per file, since editors and tools often write a file in several
+ * steps. The file is then read on the watcher's own thread; if its content is what Spark
+ * itself recently wrote (compared by hash) nothing happens, otherwise the owner of the file
+ * gets the new content to parse and apply.
+ */
+@Slf4j
+public class ConfigFileWatcher {
+
+    private static final long DEBOUNCE_MS = 300;
+
+    private final Path dir;
+    private final Map<String, Watched> files = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+        var t = new Thread(r, "config-reload");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private WatchService watchService;
+
+    public ConfigFileWatcher(Path dir) {
+        this.dir = dir;
+    }
+
+    /** Registers a file of the watched directory; call before {@link #start()}. */
+    public void watch(String fileName, Listener listener) {
+        files.put(fileName, new Watched(listener, hashOf(read(dir.resolve(fileName)))));
+    }
+
+    public void start() {
+        try {
+            watchService = dir.getFileSystem().newWatchService();
+            // Atomic replacements show up as a create of the target name.
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            log.warn("Cannot watch {} for external config changes", dir, e);
+            return;
+        }
+
+        var thread = new Thread(this::run, "config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching {} for external changes to {}", dir, files.keySet());
+    }
+
+    public void stop() {
+        reloader.shutdownNow();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // shutting down anyway
+            }
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                var key = watchService.take();
+                for (var event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        files.keySet().forEach(this::schedule);
+                    } else if (event.context() instanceof Path name) {
+                        schedule(name.toString());
+                    }
+                }
+                if (!key.reset()) {
+                    log.warn("{} is no longer accessible, config watching stopped", dir);
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+
+    private void schedule(String fileName) {
+        var watched = files.get(fileName);
+        if (watched == null) {
+            return;
+        }
+        synchronized (watched) {
+            if (watched.pending != null) {
+                watched.pending.cancel(false);
+            }
+            watched.pending = reloader.schedule(() -> reload(fileName, watched), DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void reload(String fileName, Watched watched) {
+        var content = read(dir.resolve(fileName));
+        if (content == null) {
+            return; // deleted or replaced again in the meantime; the next event will tell
+        }
+
+        var hash = hashOf(content);
+        if (hash.equals(watched.lastSeenHash)) {
+            return;
+        }
+        watched.lastSeenHash = hash;
+
+        if (watched.listener.isOwnContent(hash)) {
+            return;
+        }
+
+        log.info("{} was changed by another program, applying it", fileName);
+        try {
+            watched.listener.onExternalChange(content);
+        } catch (IOException e) {
+            // Usually a file that is still being written; its next event brings the complete one.
+            log.warn("Ignoring unreadable {}: {}", fileName, e.getMessage());
+        } catch (Exception e) {
+            log.error("Failed to apply external change of {}", fileName, e);
+        }
+    }
+
+    private static byte[] read(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read {}", file, e);
+            return null;
+        }
+    }
+
+    /** SHA-256 of the content as hex, the same value owners compare against; {@code ""} for no content. */
+    static String hashOf(byte[] content) {
+        if (content == null) {
+            return "";
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** The owner of a watched file. Both methods run on the watcher's thread. */
+    public interface Listener {
+
+        /**
+         * Whether {@code hash} is the hash of what the owner itself wrote recently, including
+         * the version before a write still in progress.
+         */
+        boolean isOwnContent(String hash);
+
+        /** Parses and applies content that another program wrote. */
+        void onExternalChange(byte[] content) throws IOException;
+    }
+
+    private static final class Watched {
+
+        private final Listener listener;
+        private volatile String lastSeenHash;
+        private ScheduledFuture<?> pending;
+
+        private Watched(Listener listener, String lastSeenHash) {
+            this.listener = listener;
+            this.lastSeenHash = lastSeenHash;
+        }
+    }
+}
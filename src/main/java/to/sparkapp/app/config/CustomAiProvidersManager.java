@@ -2,8 +2,13 @@ package to.sparkapp.app.config;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import to.sparkapp.app.favicon.Favicon;
+import to.sparkapp.app.favicon.FaviconResolver;
+import to.sparkapp.app.utils.AtomicFiles;
 
 import java.io.File;
 import java.io.IOException;
@@ -11,10 +16,18 @@ import java.io.InputStream;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
+/**
+ * Provider CRUD on top of {@link ProviderRepository}. {@code providers.json} is read once;
+ * afterwards every change goes to the in-memory repository, which writes it back in the background.
+ */
 @Slf4j
 public class CustomAiProvidersManager {
 
@@ -22,9 +35,22 @@ public class CustomAiProvidersManager {
 
     private final File configFile;
 
+    @Getter
+    private final ProviderRepository repository;
+
     @Getter
     private final File iconsDir;
 
+    @Getter(AccessLevel.PACKAGE)
+    private final FaviconResolver faviconResolver = new FaviconResolver(new File(AppPaths.DATA_DIR, "cache/favicons"));
+
+    /**
+     * Called from a background thread when the providers changed without going through the
+     * settings: an icon arrived after a provider was added, or another program edited providers.json.
+     */
+    @Setter
+    private Runnable onBackgroundChange;
+
     public CustomAiProvidersManager() {
         this.configFile = new File(AppPaths.DATA_DIR, "providers.json");
         this.iconsDir = new File(AppPaths.DATA_DIR, "icons");
@@ -35,22 +61,30 @@ public class CustomAiProvidersManager {
         if (!iconsDir.exists() && !iconsDir.mkdirs()) {
             log.error("Failed to create icons directory: {}", iconsDir);
         }
+
+        this.repository = new ProviderRepository(configFile, jsonMapper);
+        readFromDisk();
     }
 
-    public List<AiConfiguration.AiConfig> loadProviders() {
+    private void readFromDisk() {
         if (!configFile.exists() || configFile.length() == 0) {
             log.info("Configuration file not found. Loading defaults from resources...");
             restoreDefaults();
+            return;
         }
 
         try {
-            return jsonMapper.readValue(configFile, new TypeReference<>() {});
+            repository.load(jsonMapper.readValue(configFile, new TypeReference<List<AiConfiguration.AiConfig>>() {}));
         } catch (IOException e) {
             log.error("Failed to load providers", e);
-            return new ArrayList<>();
         }
     }
 
+    /** The current providers; an immutable list that is cheap to get. */
+    public List<AiConfiguration.AiConfig> loadProviders() {
+        return repository.snapshot().providers();
+    }
+
     public void restoreDefaults() {
         try {
             InputStream inputStream = getClass().getResourceAsStream("/default-providers.json");
@@ -75,7 +109,10 @@ public class CustomAiProvidersManager {
                         config.name(),
                         config.url(),
                         config.color(),
-                        localIconName != null ? localIconName : config.icon()
+                        localIconName != null ? localIconName : config.icon(),
+                        config.type(),
+                        config.model(),
+                        config.apiKey()
                 ));
             }
 
@@ -115,77 +152,148 @@ public class CustomAiProvidersManager {
     }
 
     public void saveProviders(List<AiConfiguration.AiConfig> providers) {
-        try {
-            jsonMapper.writerWithDefaultPrettyPrinter().writeValue(configFile, providers);
-            log.info("Saved {} providers to {}", providers.size(), configFile.getAbsolutePath());
-        } catch (IOException e) {
-            log.error("Failed to save providers", e);
-        }
+        repository.replaceAll(providers);
     }
 
     public void addCustomProvider(String name, String url, String color) {
-        List<AiConfiguration.AiConfig> current = loadProviders();
+        addCustomProvider(name, url, color, null, null, null);
+    }
 
-        String id = "custom_" + UUID.randomUUID().toString().substring(0, 8);
-        String iconFilename = downloadFavicon(url, id);
+    /**
+     * @param type {@code null} for a website, {@link AiConfiguration.AiConfig#TYPE_OPENAI} for a native chat API
+     */
+    public void addCustomProvider(String name, String url, String color, String type, String model, String apiKey) {
+        String id = newCustomId();
 
-        current.add(new AiConfiguration.AiConfig(id, name, url, color, iconFilename));
-        saveProviders(current);
+        // Added without an icon so it shows up right away; the dock draws a placeholder until it is resolved.
+        repository.add(new AiConfiguration.AiConfig(id, name, url, color, null, type, model, apiKey));
+        resolveIcon(id, url);
     }
 
-    public void updateProvider(String id, String name, String url, String color) {
-        List<AiConfiguration.AiConfig> current = loadProviders();
-        for (int i = 0; i < current.size(); i++) {
-            if (current.get(i).id().equals(id)) {
-                String oldIcon = current.get(i).icon();
-                current.set(i, new AiConfiguration.AiConfig(id, name, url, color, oldIcon));
-                break;
-            }
+    /**
+     * Adds several providers as one change: a single snapshot, a single write and a single
+     * notification, however many there are.
+     */
+    public void addProviders(List<AiConfiguration.AiConfig> providers) {
+        if (providers.isEmpty()) {
+            return;
         }
-        saveProviders(current);
+        var next = new ArrayList<>(repository.snapshot().providers());
+        next.addAll(providers);
+        repository.replaceAll(next);
     }
 
-    public void deleteProvider(String id) {
-        List<AiConfiguration.AiConfig> current = loadProviders();
+    static String newCustomId() {
+        return "custom_" + UUID.randomUUID().toString().substring(0, 8);
+    }
 
-        AiConfiguration.AiConfig toDelete = current.stream()
-                .filter(p -> p.id().equals(id))
-                .findFirst()
-                .orElse(null);
+    public void updateProvider(String id, String name, String url, String color, String type, String model, String apiKey) {
+        var previous = repository.update(id, old -> new AiConfiguration.AiConfig(id, name, url, color, old.icon(), type, model, apiKey));
 
-        current.removeIf(p -> p.id().equals(id));
-        saveProviders(current);
+        if (id.startsWith("custom_") && previous.isPresent() && !Objects.equals(host(previous.get().url()), host(url))) {
+            resolveIcon(id, url);
+        }
+    }
+
+    public void deleteProvider(String id) {
+        AiConfiguration.AiConfig toDelete = repository.remove(id).orElse(null);
 
         if (toDelete != null && toDelete.icon() != null && id.startsWith("custom_")) {
-            File iconFile = new File(iconsDir, toDelete.icon());
-            if (iconFile.exists()) {
-                iconFile.delete();
-                log.info("Deleted icon: {}", iconFile.getAbsolutePath());
-            }
+            deleteIcon(toDelete.icon());
         }
     }
 
-    private String downloadFavicon(String urlString, String id) {
-        try {
-            var mainUri = URI.create(urlString);
-            var host = mainUri.getHost();
-            var faviconUri = URI.create("https://www.google.com/s2/favicons?domain=" + host + "&sz=64");
-            var iconFile = new File(iconsDir, id + ".png");
+    /** @param iconName a file name returned by {@link #saveIcon} */
+    void deleteIcon(String iconName) {
+        File iconFile = new File(iconsDir, iconName);
+        if (iconFile.exists()) {
+            iconFile.delete();
+            log.info("Deleted icon: {}", iconFile.getAbsolutePath());
+        }
+    }
+
+    private void resolveIcon(String id, String url) {
+        faviconResolver.resolve(url).thenAccept(favicon -> favicon.ifPresent(icon -> {
+            var iconName = saveIcon(id, icon);
+            if (iconName == null) {
+                return;
+            }
+            var iconFile = new File(iconsDir, iconName);
 
-            try (InputStream in = faviconUri.toURL().openStream()) {
-                Files.copy(in, iconFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            var previous = repository.update(id, old -> new AiConfiguration.AiConfig(
+                    old.id(), old.name(), old.url(), old.color(), iconFile.getName(), old.type(), old.model(), old.apiKey()));
+            if (previous.isEmpty()) {
+                // Deleted while the icon was on its way.
+                iconFile.delete();
+                return;
             }
 
-            if (iconFile.length() < 100) {
-                log.warn("Downloaded icon is too small (likely placeholder): {}", iconFile.length());
-                return null;
+            var oldIcon = previous.get().icon();
+            if (oldIcon != null && !oldIcon.equals(iconFile.getName())) {
+                new File(iconsDir, oldIcon).delete();
+            }
+            log.info("Saved icon for {}: {}", id, iconFile.getAbsolutePath());
+            if (onBackgroundChange != null) {
+                onBackgroundChange.run();
             }
+        }));
+    }
 
-            log.info("Downloaded favicon: {}", iconFile.getAbsolutePath());
+    /** @return the file name of the saved icon in {@link #iconsDir}, {@code null} if it could not be written */
+    String saveIcon(String id, Favicon icon) {
+        var iconFile = new File(iconsDir, iconFileName(id, icon));
+        try {
+            AtomicFiles.write(iconFile.toPath(), icon.data(), false);
             return iconFile.getName();
-        } catch (Exception e) {
-            log.error("Failed to download favicon for " + urlString, e);
+        } catch (IOException e) {
+            log.error("Failed to save icon for {}", id, e);
+            return null;
+        }
+    }
+
+    // Named after the content, so a changed icon never hides behind a cached image of the same name.
+    private static String iconFileName(String id, Favicon icon) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(icon.data());
+            return id + "-" + HexFormat.of().formatHex(digest, 0, 4) + "." + icon.extension();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String host(String url) {
+        try {
+            return URI.create(url.trim()).getHost();
+        } catch (IllegalArgumentException | NullPointerException e) {
             return null;
         }
     }
+
+    /** Picks up edits other programs make to providers.json while the app runs. */
+    public void watch(ConfigFileWatcher watcher) {
+        watcher.watch(configFile.getName(), new ConfigFileWatcher.Listener() {
+            @Override
+            public boolean isOwnContent(String hash) {
+                return repository.isOwnContent(hash);
+            }
+
+            @Override
+            public void onExternalChange(byte[] content) throws IOException {
+                var providers = jsonMapper.readValue(content, new TypeReference<List<AiConfiguration.AiConfig>>() {});
+                if (!repository.loadExternal(providers, ConfigFileWatcher.hashOf(content))) {
+                    log.info("Keeping unsaved provider changes over the external change of {}", configFile.getName());
+                    return;
+                }
+                log.info("Reloaded {} providers from {}", providers.size(), configFile.getName());
+                if (onBackgroundChange != null) {
+                    onBackgroundChange.run();
+                }
+            }
+        });
+    }
+
+    /** Writes outstanding changes; call before the application exits. */
+    public void shutdown() {
+        repository.shutdown();
+    }
 }
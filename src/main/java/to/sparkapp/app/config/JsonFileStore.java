@@ -0,0 +1,319 @@
+package to.sparkapp.app.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import to.sparkapp.app.utils.AtomicFiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Crash-safe persistence of one JSON object, off the caller's thread.
+ *
+ * <p>{@link #submit} only hands a tree to the writer thread. There the difference to the
+ * previous state is appended to a journal right away, while the full file is rewritten
+ * (temp file + rename) at most once per {@link #SNAPSHOT_DELAY_MS}; every rewrite compacts
+ * the journal to nothing. {@link #load} replays whatever the journal holds on top of the
+ * file, so a crash loses at most the change that was being journaled.
+ */
+@Slf4j
+class JsonFileStore {
+
+    private static final long SNAPSHOT_DELAY_MS = 1000;
+
+    private final Path file;
+    private final Path journal;
+    private final ObjectMapper mapper;
+    private final boolean fsync;
+
+    private final ScheduledExecutorService writer;
+    private final Metrics metrics = new Metrics();
+
+    // Owned by the writer thread
+    private ObjectNode written;
+    private ObjectNode latest;
+    private ScheduledFuture<?> pendingSnapshot;
+    private int journalEntries = 0;
+    private final RecentHashes writtenHashes = new RecentHashes();
+
+    JsonFileStore(Path file, ObjectMapper mapper, boolean fsync) {
+        this.file = file;
+        this.journal = file.resolveSibling(file.getFileName() + ".journal");
+        this.mapper = mapper;
+        this.fsync = fsync;
+
+        var name = file.getFileName().toString();
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            var t = new Thread(r, "store-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "store-flush-" + name));
+    }
+
+    /**
+     * Reads the file and replays the journal on top of it.
+     *
+     * @return the stored object, {@code null} if nothing has been stored yet
+     */
+    synchronized ObjectNode load() {
+        ObjectNode fromFile = null;
+        if (Files.exists(file)) {
+            try {
+                if (mapper.readTree(file.toFile()) instanceof ObjectNode node) {
+                    fromFile = node;
+                }
+            } catch (IOException e) {
+                log.error("Failed to read {}, starting from the journal", file, e);
+            }
+        }
+
+        var state = fromFile != null ? fromFile.deepCopy() : null;
+
+        var replayed = 0;
+        if (Files.exists(journal)) {
+            try {
+                for (var line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JsonNode entry;
+                    try {
+                        entry = mapper.readTree(line);
+                    } catch (IOException e) {
+                        // A torn last line from a crash during an append
+                        log.warn("Ignoring unreadable journal entry in {}", journal);
+                        continue;
+                    }
+                    if (state == null) {
+                        state = mapper.createObjectNode();
+                    }
+                    apply(state, entry);
+                    replayed++;
+                }
+            } catch (IOException e) {
+                log.error("Failed to read journal {}", journal, e);
+            }
+        }
+
+        if (replayed > 0) {
+            log.info("Recovered {} unsaved change(s) of {} from its journal", replayed, file.getFileName());
+        }
+
+        var onDisk = fromFile;
+        var recovered = state != null ? state.deepCopy() : null;
+        writer.execute(() -> {
+            written = onDisk;
+            latest = recovered;
+            journalEntries = 0;
+            // Fold the recovered journal into the file right away
+            writeSnapshot();
+        });
+        return state;
+    }
+
+    /** Queues {@code state} to be persisted. The tree must not be modified afterwards. */
+    void submit(ObjectNode state) {
+        writer.execute(() -> journal(state));
+    }
+
+    /**
+     * Takes over a state another program wrote to the file, and drops the journal: its diffs
+     * are against the old content and must not be replayed on the new one. Changes submitted
+     * here but not written yet are newer than the file, so instead they are kept and written
+     * over it right away.
+     *
+     * @return whether {@code state} was adopted
+     */
+    boolean adopt(ObjectNode state, String contentHash) {
+        try {
+            return writer.submit(() -> {
+                if (latest != null && !latest.equals(written)) {
+                    writeSnapshot();
+                    return false;
+                }
+                if (pendingSnapshot != null) {
+                    pendingSnapshot.cancel(false);
+                    pendingSnapshot = null;
+                }
+                written = state;
+                latest = state;
+                writtenHashes.reset(contentHash);
+                journalEntries = 0;
+                try {
+                    Files.deleteIfExists(journal);
+                } catch (IOException e) {
+                    log.error("Failed to drop journal {}", journal, e);
+                }
+                return true;
+            }).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.error("Failed to adopt external change of {}", file, e);
+            return false;
+        }
+    }
+
+    /** Whether the file holds what this store wrote or adopted recently. */
+    boolean isOwnContent(String contentHash) {
+        return writtenHashes.contains(contentHash);
+    }
+
+    /** Writes everything that is pending and waits for it. */
+    void flush() {
+        try {
+            writer.submit(this::writeSnapshot).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.error("Failed to flush {}", file, e);
+        }
+    }
+
+    /**
+     * Flushes and logs the write metrics. The writer stays usable, so late changes
+     * still reach the disk through the shutdown hook.
+     */
+    void shutdown() {
+        flush();
+        log.info("{}: {}", file.getFileName(), metrics);
+    }
+
+    Metrics metrics() {
+        return metrics;
+    }
+
+    private void journal(ObjectNode state) {
+        var diff = diff(latest, state);
+        if (diff == null) {
+            return;
+        }
+        latest = state;
+
+        var start = System.nanoTime();
+        try {
+            Files.writeString(journal, mapper.writeValueAsString(diff) + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+                    fsync ? StandardOpenOption.DSYNC : StandardOpenOption.WRITE);
+            journalEntries++;
+            metrics.journaled(System.nanoTime() - start);
+        } catch (IOException e) {
+            log.error("Failed to append to {}", journal, e);
+        }
+
+        if (pendingSnapshot == null) {
+            pendingSnapshot = writer.schedule(this::writeSnapshot, SNAPSHOT_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void writeSnapshot() {
+        if (pendingSnapshot != null) {
+            pendingSnapshot.cancel(false);
+            pendingSnapshot = null;
+        }
+        if (latest == null || latest.equals(written)) {
+            return;
+        }
+
+        var start = System.nanoTime();
+        try {
+            var bytes = mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(latest);
+            writtenHashes.add(ConfigFileWatcher.hashOf(bytes));
+            AtomicFiles.write(file, bytes, fsync);
+            written = latest;
+            Files.deleteIfExists(journal);
+            log.debug("Wrote {} and compacted {} journal entries", file.getFileName(), journalEntries);
+            journalEntries = 0;
+            metrics.snapshotted(System.nanoTime() - start);
+        } catch (IOException e) {
+            log.error("Failed to write {}", file, e);
+        }
+    }
+
+    /**
+     * A journal entry: {@code {"set": {field: value, ...}, "unset": [field, ...]}},
+     * or {@code null} when nothing changed.
+     */
+    private ObjectNode diff(ObjectNode before, ObjectNode after) {
+        var set = mapper.createObjectNode();
+        var unset = mapper.createArrayNode();
+
+        for (var field : after.properties()) {
+            if (before == null || !field.getValue().equals(before.get(field.getKey()))) {
+                set.set(field.getKey(), field.getValue());
+            }
+        }
+        if (before != null) {
+            var removed = new ArrayList<String>();
+            before.fieldNames().forEachRemaining(name -> {
+                if (!after.has(name)) {
+                    removed.add(name);
+                }
+            });
+            removed.forEach(unset::add);
+        }
+
+        if (set.isEmpty() && unset.isEmpty()) {
+            return null;
+        }
+        var entry = mapper.createObjectNode();
+        entry.set("set", set);
+        entry.set("unset", unset);
+        return entry;
+    }
+
+    private static void apply(ObjectNode state, JsonNode entry) {
+        entry.path("set").properties().forEach(field -> state.set(field.getKey(), field.getValue()));
+        entry.path("unset").forEach(name -> state.remove(name.asText()));
+    }
+
+    /** Write latencies, updated by the writer thread. */
+    static final class Metrics {
+
+        private volatile long snapshots;
+        private volatile long snapshotNanos;
+        private volatile long maxSnapshotNanos;
+        private volatile long journalEntries;
+        private volatile long journalNanos;
+
+        private void snapshotted(long nanos) {
+            snapshots++;
+            snapshotNanos += nanos;
+            maxSnapshotNanos = Math.max(maxSnapshotNanos, nanos);
+        }
+
+        private void journaled(long nanos) {
+            journalEntries++;
+            journalNanos += nanos;
+        }
+
+        long snapshots() {
+            return snapshots;
+        }
+
+        double averageSnapshotMillis() {
+            return snapshots == 0 ? 0 : snapshotNanos / 1e6 / snapshots;
+        }
+
+        double maxSnapshotMillis() {
+            return maxSnapshotNanos / 1e6;
+        }
+
+        double averageJournalMillis() {
+            return journalEntries == 0 ? 0 : journalNanos / 1e6 / journalEntries;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d writes (avg %.2f ms, max %.2f ms), %d journal entries (avg %.2f ms)",
+                    snapshots, averageSnapshotMillis(), maxSnapshotMillis(), journalEntries, averageJournalMillis());
+        }
+    }
+}
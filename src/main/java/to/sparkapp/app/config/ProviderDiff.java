@@ -0,0 +1,78 @@
+package to.sparkapp.app.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Difference between two provider lists, keyed by {@link AiConfiguration.AiConfig#id()}.
+ *
+ * @param added     providers that are new, in their new order
+ * @param removed   ids that are gone
+ * @param changed   new values of providers whose fields changed
+ * @param order     ids of the new list, in order
+ * @param reordered whether the providers present in both lists changed their relative order
+ */
+public record ProviderDiff(
+        List<AiConfiguration.AiConfig> added,
+        List<String> removed,
+        List<AiConfiguration.AiConfig> changed,
+        List<String> order,
+        boolean reordered
+) {
+
+    public static ProviderDiff compute(List<AiConfiguration.AiConfig> before, List<AiConfiguration.AiConfig> after) {
+        var previous = new HashMap<String, AiConfiguration.AiConfig>();
+        for (var config : before) {
+            previous.put(config.id(), config);
+        }
+
+        var added = new ArrayList<AiConfiguration.AiConfig>();
+        var changed = new ArrayList<AiConfiguration.AiConfig>();
+        var order = new ArrayList<String>(after.size());
+        var kept = new HashSet<String>();
+        for (var config : after) {
+            order.add(config.id());
+            var old = previous.get(config.id());
+            if (old == null) {
+                added.add(config);
+            } else {
+                kept.add(config.id());
+                if (!old.equals(config)) {
+                    changed.add(config);
+                }
+            }
+        }
+
+        var removed = new ArrayList<String>();
+        var keptBefore = new ArrayList<String>();
+        for (var config : before) {
+            if (kept.contains(config.id())) {
+                keptBefore.add(config.id());
+            } else {
+                removed.add(config.id());
+            }
+        }
+        var keptAfter = order.stream().filter(kept::contains).toList();
+
+        return new ProviderDiff(List.copyOf(added), List.copyOf(removed), List.copyOf(changed),
+                List.copyOf(order), !keptBefore.equals(keptAfter));
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty() && !reordered;
+    }
+
+    /**
+     * Whether going from {@code before} to {@code after} changes what the provider shows,
+     * as opposed to just how it is labelled in the dock.
+     */
+    public static boolean changesContent(AiConfiguration.AiConfig before, AiConfiguration.AiConfig after) {
+        return !Objects.equals(before.url(), after.url())
+                || !Objects.equals(before.type(), after.type())
+                || !Objects.equals(before.model(), after.model())
+                || !Objects.equals(before.apiKey(), after.apiKey());
+    }
+}
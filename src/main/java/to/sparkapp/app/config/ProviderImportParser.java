@@ -0,0 +1,213 @@
+package to.sparkapp.app.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Reads provider definitions from the file formats the importer accepts:
+ * <ul>
+ *     <li>JSON: an array of providers, or an object with a {@code providers} array, using the
+ *     field names of {@code providers.json};</li>
+ *     <li>CSV: {@code name,url[,color,type,model,apiKey]}, with an optional header row that may
+ *     list the columns in any order. Spreadsheets in many locales separate with {@code ;}
+ *     instead; whichever of the two the first row uses more is the delimiter of the file;</li>
+ *     <li>a browser bookmark export (Netscape bookmark HTML), one provider per bookmark.</li>
+ * </ul>
+ * Values are taken as they are; checking them is up to {@link ProviderImporter}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ProviderImportParser {
+
+    private static final List<String> CSV_COLUMNS = List.of("name", "url", "color", "type", "model", "apikey");
+    private static final Pattern BOOKMARK = Pattern.compile(
+            "<a\\s[^>]*?href\\s*=\\s*\"([^\"]*)\"[^>]*>(.*?)</a>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+
+    public static List<Entry> parse(Path file) throws IOException {
+        var content = Files.readString(file, StandardCharsets.UTF_8);
+        if (!content.isEmpty() && content.charAt(0) == '\uFEFF') {
+            content = content.substring(1);
+        }
+
+        var name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        var start = content.stripLeading();
+        if (name.endsWith(".json") || start.startsWith("[") || start.startsWith("{")) {
+            return parseJson(content);
+        }
+        if (name.endsWith(".html") || name.endsWith(".htm") || start.startsWith("<")) {
+            return parseBookmarks(content);
+        }
+        return parseCsv(content);
+    }
+
+    static List<Entry> parseJson(String content) throws IOException {
+        var root = new ObjectMapper().readTree(content);
+        var array = root.isArray() ? root : root.path("providers");
+        if (!array.isArray()) {
+            throw new IOException("Expected a JSON array of providers or an object with a \"providers\" array");
+        }
+
+        var entries = new ArrayList<Entry>();
+        for (var node : array) {
+            entries.add(new Entry(
+                    text(node, "name"),
+                    text(node, "url"),
+                    text(node, "color"),
+                    text(node, "type"),
+                    text(node, "model"),
+                    text(node, "apiKey")
+            ));
+        }
+        return entries;
+    }
+
+    static List<Entry> parseCsv(String content) {
+        var rows = csvRows(content);
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        // With a header the columns can come in any order; without one they are name,url,color,...
+        var columns = new int[CSV_COLUMNS.size()];
+        var header = rows.getFirst().stream().map(c -> c.trim().toLowerCase(Locale.ROOT)).toList();
+        var hasHeader = header.contains("url");
+        for (var i = 0; i < columns.length; i++) {
+            columns[i] = hasHeader ? header.indexOf(CSV_COLUMNS.get(i)) : i;
+        }
+
+        var entries = new ArrayList<Entry>();
+        for (var row : rows.subList(hasHeader ? 1 : 0, rows.size())) {
+            if (row.size() == 1 && !hasHeader) {
+                // A bare list of URLs
+                entries.add(new Entry(null, row.getFirst(), null, null, null, null));
+                continue;
+            }
+            entries.add(new Entry(
+                    cell(row, columns[0]),
+                    cell(row, columns[1]),
+                    cell(row, columns[2]),
+                    cell(row, columns[3]),
+                    cell(row, columns[4]),
+                    cell(row, columns[5])
+            ));
+        }
+        return entries;
+    }
+
+    static List<Entry> parseBookmarks(String content) {
+        var entries = new ArrayList<Entry>();
+        var matcher = BOOKMARK.matcher(content);
+        while (matcher.find()) {
+            var title = unescape(TAG.matcher(matcher.group(2)).replaceAll("")).trim();
+            entries.add(new Entry(title.isEmpty() ? null : title, unescape(matcher.group(1)), null, null, null, null));
+        }
+        return entries;
+    }
+
+    // RFC 4180: quoted fields may contain delimiters, line breaks and doubled quotes.
+    private static List<List<String>> csvRows(String content) {
+        var delimiter = delimiter(content);
+        var rows = new ArrayList<List<String>>();
+        var row = new ArrayList<String>();
+        var field = new StringBuilder();
+        var quoted = false;
+
+        for (var i = 0; i < content.length(); i++) {
+            var c = content.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < content.length() && content.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                row.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < content.length() && content.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                row.add(field.toString());
+                field.setLength(0);
+                addRow(rows, row);
+                row = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        row.add(field.toString());
+        addRow(rows, row);
+        return rows;
+    }
+
+    /** {@code ;} if the first non-blank row has more of those than commas outside quotes, else {@code ,}. */
+    private static char delimiter(String content) {
+        var commas = 0;
+        var semicolons = 0;
+        var quoted = false;
+        var started = false;
+        for (var i = 0; i < content.length(); i++) {
+            var c = content.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (quoted) {
+                continue;
+            } else if (c == '\n' || c == '\r') {
+                if (started) {
+                    break;
+                }
+                continue;
+            } else if (c == ',') {
+                commas++;
+            } else if (c == ';') {
+                semicolons++;
+            }
+            started |= !Character.isWhitespace(c);
+        }
+        return semicolons > commas ? ';' : ',';
+    }
+
+    private static void addRow(List<List<String>> rows, List<String> row) {
+        if (row.stream().anyMatch(cell -> !cell.isBlank())) {
+            rows.add(row);
+        }
+    }
+
+    private static String cell(List<String> row, int column) {
+        if (column < 0 || column >= row.size()) {
+            return null;
+        }
+        var value = row.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String text(JsonNode node, String field) {
+        var value = node.path(field);
+        return value.isTextual() && !value.asText().isBlank() ? value.asText().trim() : null;
+    }
+
+    private static String unescape(String value) {
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&#39;", "'").replace("&amp;", "&");
+    }
+
+    /** One provider as found in the file; any field may be missing. */
+    public record Entry(String name, String url, String color, String type, String model, String apiKey) {
+    }
+}
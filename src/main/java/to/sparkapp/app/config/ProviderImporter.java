@@ -0,0 +1,222 @@
+package to.sparkapp.app.config;
+
+import lombok.extern.slf4j.Slf4j;
+import to.sparkapp.app.favicon.Favicon;
+import to.sparkapp.app.utils.UrlUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Adds many providers from a file at once.
+ *
+ * <p>Entries are deduplicated by normalised URL, against each other and the existing
+ * providers. The remaining ones are checked for reachability and get their icon on a small
+ * pool of threads, and everything that passed is then added in one
+ * {@link CustomAiProvidersManager#addProviders transaction}: one write and one dock update
+ * instead of one per provider. Icons stay in memory until then and are only written for
+ * providers that are actually added.
+ */
+@Slf4j
+public class ProviderImporter {
+
+    private static final int MAX_PARALLEL_CHECKS = 8;
+    private static final Pattern COLOR = Pattern.compile("#[0-9a-fA-F]{6}");
+
+    private static final HttpClient HTTP = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    private final CustomAiProvidersManager providersManager;
+
+    public ProviderImporter(CustomAiProvidersManager providersManager) {
+        this.providersManager = providersManager;
+    }
+
+    /** Blocks until the import is done; call it off the FX thread. */
+    public Report importFile(Path file) throws IOException {
+        return importEntries(ProviderImportParser.parse(file));
+    }
+
+    public Report importEntries(List<ProviderImportParser.Entry> entries) {
+        var invalid = new ArrayList<String>();
+        var duplicates = new ArrayList<String>();
+        var accepted = new ArrayList<ProviderImportParser.Entry>();
+
+        var seen = new HashSet<String>();
+        for (var provider : providersManager.loadProviders()) {
+            var url = UrlUtils.normalize(provider.url());
+            if (url != null) {
+                seen.add(url);
+            }
+        }
+
+        for (var entry : entries) {
+            var url = UrlUtils.normalize(entry.url());
+            if (url == null) {
+                invalid.add(entry.name() != null ? entry.name() : String.valueOf(entry.url()));
+            } else if (!seen.add(url)) {
+                duplicates.add(url);
+            } else {
+                accepted.add(withUrl(entry, url));
+            }
+        }
+
+        var unreachable = new ArrayList<String>();
+        var prepared = new ArrayList<Prepared>();
+        try (var pool = Executors.newFixedThreadPool(MAX_PARALLEL_CHECKS, r -> {
+            var t = new Thread(r, "provider-import");
+            t.setDaemon(true);
+            return t;
+        })) {
+            var checks = new ArrayList<Future<Prepared>>();
+            for (var entry : accepted) {
+                checks.add(pool.submit(() -> prepare(entry)));
+            }
+
+            for (var i = 0; i < checks.size(); i++) {
+                try {
+                    var provider = checks.get(i).get();
+                    if (provider != null) {
+                        prepared.add(provider);
+                    } else {
+                        unreachable.add(accepted.get(i).url());
+                    }
+                } catch (ExecutionException e) {
+                    log.warn("Failed to import {}", accepted.get(i).url(), e.getCause());
+                    unreachable.add(accepted.get(i).url());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return new Report(List.of(), duplicates, unreachable, invalid);
+                }
+            }
+        }
+
+        var imported = new ArrayList<AiConfiguration.AiConfig>();
+        var icons = new ArrayList<String>();
+        for (var provider : prepared) {
+            var icon = provider.favicon() != null ? providersManager.saveIcon(provider.config().id(), provider.favicon()) : null;
+            if (icon != null) {
+                icons.add(icon);
+            }
+            imported.add(provider.withIcon(icon));
+        }
+        try {
+            providersManager.addProviders(imported);
+        } catch (RuntimeException e) {
+            icons.forEach(providersManager::deleteIcon);
+            throw e;
+        }
+
+        var report = new Report(imported, duplicates, unreachable, invalid);
+        log.info("Provider import: {}", report.summary());
+        return report;
+    }
+
+    /** @return the provider ready to be added, {@code null} when its site cannot be reached */
+    private Prepared prepare(ProviderImportParser.Entry entry) {
+        var nativeChat = AiConfiguration.AiConfig.TYPE_OPENAI.equalsIgnoreCase(entry.type());
+        // API endpoints often need a key or only run locally later, so only websites are checked.
+        if (!nativeChat && !isReachable(entry.url())) {
+            return null;
+        }
+
+        var favicon = nativeChat ? null : providersManager.getFaviconResolver().resolve(entry.url()).join().orElse(null);
+
+        return new Prepared(new AiConfiguration.AiConfig(
+                CustomAiProvidersManager.newCustomId(),
+                entry.name() != null ? entry.name() : nameFromUrl(entry.url()),
+                entry.url(),
+                entry.color() != null && COLOR.matcher(entry.color()).matches() ? entry.color() : randomColor(),
+                null,
+                nativeChat ? AiConfiguration.AiConfig.TYPE_OPENAI : null,
+                entry.model(),
+                entry.apiKey()
+        ), favicon);
+    }
+
+    // Anything that answers counts: login walls reply 401/403 and some servers refuse HEAD.
+    private static boolean isReachable(String url) {
+        var request = HttpRequest.newBuilder(URI.create(url))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(Duration.ofSeconds(8))
+                .build();
+        try {
+            var status = HTTP.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status != 404 && status != 410 && status < 500;
+        } catch (IOException e) {
+            log.debug("{} is not reachable: {}", url, e.toString());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String nameFromUrl(String url) {
+        var host = URI.create(url).getHost();
+        if (host.startsWith("www.")) {
+            host = host.substring(4);
+        }
+        var dot = host.indexOf('.');
+        var name = dot > 0 ? host.substring(0, dot) : host;
+        return name.substring(0, 1).toUpperCase(Locale.ROOT) + name.substring(1);
+    }
+
+    private static String randomColor() {
+        return String.format("#%06x", ThreadLocalRandom.current().nextInt(0x1000000));
+    }
+
+    private static ProviderImportParser.Entry withUrl(ProviderImportParser.Entry entry, String url) {
+        return new ProviderImportParser.Entry(entry.name(), url, entry.color(), entry.type(), entry.model(), entry.apiKey());
+    }
+
+    /** @param favicon the icon to save once the provider is added, {@code null} if it has none */
+    private record Prepared(AiConfiguration.AiConfig config, Favicon favicon) {
+
+        AiConfiguration.AiConfig withIcon(String icon) {
+            return new AiConfiguration.AiConfig(config.id(), config.name(), config.url(), config.color(), icon,
+                    config.type(), config.model(), config.apiKey());
+        }
+    }
+
+    /**
+     * @param duplicates  normalised URLs that were already present
+     * @param unreachable URLs whose site did not answer
+     * @param invalid     entries without a usable http(s) URL
+     */
+    public record Report(List<AiConfiguration.AiConfig> imported, List<String> duplicates,
+                         List<String> unreachable, List<String> invalid) {
+
+        public String summary() {
+            var summary = new StringBuilder("Imported " + imported.size() + " provider" + (imported.size() == 1 ? "" : "s") + ".");
+            if (!duplicates.isEmpty()) {
+                summary.append("\nSkipped ").append(duplicates.size()).append(" already present.");
+            }
+            if (!unreachable.isEmpty()) {
+                summary.append("\nSkipped ").append(unreachable.size()).append(" unreachable: ")
+                        .append(String.join(", ", unreachable.subList(0, Math.min(5, unreachable.size()))))
+                        .append(unreachable.size() > 5 ? ", …" : "");
+            }
+            if (!invalid.isEmpty()) {
+                summary.append("\nSkipped ").append(invalid.size()).append(" without a valid URL.");
+            }
+            return summary.toString();
+        }
+    }
+}
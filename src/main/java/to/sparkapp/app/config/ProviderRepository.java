@@ -0,0 +1,241 @@
+package to.sparkapp.app.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import to.sparkapp.app.utils.AtomicFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * The single in-memory copy of the provider list.
+ *
+ * <p>Readers get an immutable {@link Snapshot}; every mutation copies the list, publishes a
+ * new snapshot and schedules a write. Writes are coalesced, so a burst of edits ends up as
+ * one rewrite of {@code providers.json} shortly after the last one.
+ */
+@Slf4j
+public class ProviderRepository {
+
+    private static final long WRITE_DELAY_MS = 300;
+
+    private final File file;
+    private final ObjectMapper mapper;
+    private final List<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        var t = new Thread(r, "providers-save");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Object writeLock = new Object();
+    private ScheduledFuture<?> pendingWrite;
+    private long writtenVersion = 0;
+    private final RecentHashes writtenHashes = new RecentHashes();
+
+    private volatile Snapshot snapshot = Snapshot.of(List.of(), 0);
+
+    ProviderRepository(File file, ObjectMapper mapper) {
+        this.file = file;
+        this.mapper = mapper;
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    public Optional<AiConfiguration.AiConfig> findById(String id) {
+        return Optional.ofNullable(snapshot.byId().get(id));
+    }
+
+    public Optional<AiConfiguration.AiConfig> findByUrl(String url) {
+        return Optional.ofNullable(snapshot.byUrl().get(url));
+    }
+
+    /** Called for every published snapshot, on the thread that made the change. */
+    public void addListener(Consumer<Snapshot> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Snapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    /** Installs the list read from disk without writing it back. */
+    synchronized void load(List<AiConfiguration.AiConfig> providers) {
+        var loaded = Snapshot.of(providers, snapshot.version() + 1);
+        synchronized (writeLock) {
+            writtenVersion = loaded.version();
+        }
+        publish(loaded);
+    }
+
+    /**
+     * Installs a list another program wrote to the file, unless an edit made here has not
+     * been written yet: that one is newer than anything the file can hold, so it is kept and
+     * its write replaces the other program's content.
+     *
+     * @return whether the list was installed
+     */
+    synchronized boolean loadExternal(List<AiConfiguration.AiConfig> providers, String contentHash) {
+        Snapshot loaded;
+        synchronized (writeLock) {
+            if (snapshot.version() > writtenVersion) {
+                if (pendingWrite == null || pendingWrite.isDone()) {
+                    // The last write failed; without another one the edit would never replace the file.
+                    scheduleWrite();
+                }
+                return false;
+            }
+            if (pendingWrite != null) {
+                pendingWrite.cancel(false);
+                pendingWrite = null;
+            }
+            loaded = Snapshot.of(providers, snapshot.version() + 1);
+            writtenVersion = loaded.version();
+            writtenHashes.reset(contentHash);
+        }
+        publish(loaded);
+        return true;
+    }
+
+    /** Whether the file holds what this repository wrote or loaded recently. */
+    boolean isOwnContent(String contentHash) {
+        return writtenHashes.contains(contentHash);
+    }
+
+    public synchronized void replaceAll(List<AiConfiguration.AiConfig> providers) {
+        publish(Snapshot.of(providers, snapshot.version() + 1));
+        scheduleWrite();
+    }
+
+    public synchronized void add(AiConfiguration.AiConfig provider) {
+        var next = new ArrayList<>(snapshot.providers());
+        next.add(provider);
+        replaceAll(next);
+    }
+
+    /**
+     * Replaces the provider with the given id by {@code change} applied to it.
+     *
+     * @return the previous value, empty if there is no such provider
+     */
+    public synchronized Optional<AiConfiguration.AiConfig> update(String id, UnaryOperator<AiConfiguration.AiConfig> change) {
+        var current = snapshot.byId().get(id);
+        if (current == null) {
+            return Optional.empty();
+        }
+
+        var next = new ArrayList<>(snapshot.providers());
+        next.set(next.indexOf(current), change.apply(current));
+        replaceAll(next);
+        return Optional.of(current);
+    }
+
+    /** @return the removed provider, empty if there is no such provider */
+    public synchronized Optional<AiConfiguration.AiConfig> remove(String id) {
+        var current = snapshot.byId().get(id);
+        if (current == null) {
+            return Optional.empty();
+        }
+
+        var next = new ArrayList<>(snapshot.providers());
+        next.remove(current);
+        replaceAll(next);
+        return Optional.of(current);
+    }
+
+    /** Writes pending changes right away, e.g. before the application exits. */
+    public void flush() {
+        synchronized (this) {
+            if (pendingWrite != null) {
+                pendingWrite.cancel(false);
+                pendingWrite = null;
+            }
+        }
+        write();
+    }
+
+    public void shutdown() {
+        flush();
+        writer.shutdown();
+    }
+
+    private void publish(Snapshot next) {
+        snapshot = next;
+        for (var listener : listeners) {
+            try {
+                listener.accept(next);
+            } catch (Exception e) {
+                log.error("Provider listener failed", e);
+            }
+        }
+    }
+
+    private void scheduleWrite() {
+        if (pendingWrite != null) {
+            pendingWrite.cancel(false);
+        }
+        pendingWrite = writer.schedule(this::write, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs outside the repository lock so edits never wait for the disk.
+    private void write() {
+        synchronized (writeLock) {
+            var current = snapshot;
+            if (current.version() <= writtenVersion) {
+                return;
+            }
+
+            try {
+                var bytes = mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(current.providers());
+                // Known before the rename, so the watcher can never see the file without recognising it.
+                writtenHashes.add(ConfigFileWatcher.hashOf(bytes));
+                AtomicFiles.write(file.toPath(), bytes, true);
+                writtenVersion = current.version();
+                log.info("Saved {} providers to {}", current.providers().size(), file.getAbsolutePath());
+            } catch (IOException e) {
+                log.error("Failed to save providers", e);
+            }
+        }
+    }
+
+    /**
+     * An immutable view of the providers at one point in time.
+     *
+     * @param version increases with every change
+     */
+    public record Snapshot(
+            List<AiConfiguration.AiConfig> providers,
+            Map<String, AiConfiguration.AiConfig> byId,
+            Map<String, AiConfiguration.AiConfig> byUrl,
+            long version
+    ) {
+
+        static Snapshot of(List<AiConfiguration.AiConfig> providers, long version) {
+            var byId = new HashMap<String, AiConfiguration.AiConfig>();
+            var byUrl = new HashMap<String, AiConfiguration.AiConfig>();
+            for (var provider : providers) {
+                if (provider.id() != null) {
+                    byId.putIfAbsent(provider.id(), provider);
+                }
+                if (provider.url() != null) {
+                    byUrl.putIfAbsent(provider.url(), provider);
+                }
+            }
+            return new Snapshot(List.copyOf(providers), Map.copyOf(byId), Map.copyOf(byUrl), version);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package to.sparkapp.app.config;
+
+import java.util.ArrayDeque;
+
+/**
+ * Hashes of the last versions of a watched file that its owner wrote itself.
+ *
+ * <p>A write records its hash before the rename, so a reload that read the file just before
+ * the rename sees the previous version. That version has to count as own content too, or the
+ * reload would apply it as an external edit and roll the state back.
+ */
+final class RecentHashes {
+
+    /** The version being written and the one before it. */
+    private static final int KEPT = 2;
+
+    private final ArrayDeque<String> hashes = new ArrayDeque<>(KEPT + 1);
+
+    synchronized void add(String hash) {
+        hashes.remove(hash);
+        hashes.addLast(hash);
+        while (hashes.size() > KEPT) {
+            hashes.removeFirst();
+        }
+    }
+
+    /** Forgets the earlier versions: once another program replaced the file they are no longer ours. */
+    synchronized void reset(String hash) {
+        hashes.clear();
+        hashes.addLast(hash);
+    }
+
+    synchronized boolean contains(String hash) {
+        return hashes.contains(hash);
+    }
+}
@@ -0,0 +1,33 @@
+package to.sparkapp.app.favicon;
+
+import java.net.URI;
+
+/**
+ * A fetched and validated icon.
+ *
+ * @param extension file extension the dock can render it from: {@code png}, {@code jpg}, {@code gif} or {@code svg}
+ * @param size      edge length in pixels of the larger side, {@link #SCALABLE} for SVGs
+ * @param source    where it was downloaded from
+ */
+public record Favicon(byte[] data, String extension, int size, URI source) {
+
+    public static final int SCALABLE = Integer.MAX_VALUE;
+
+    /** Below this the icon would be upscaled on the dock; such icons only win if nothing else works. */
+    static final int PREFERRED_MIN_SIZE = 48;
+
+    /** Higher is better: any SVG, then the smallest raster that is at least {@link #PREFERRED_MIN_SIZE}, then the largest. */
+    static int score(int size) {
+        if (size == SCALABLE) {
+            return Integer.MAX_VALUE;
+        }
+        if (size >= PREFERRED_MIN_SIZE) {
+            return 100_000 - Math.min(size, 10_000);
+        }
+        return size;
+    }
+
+    int score() {
+        return score(size);
+    }
+}
@@ -0,0 +1,85 @@
+package to.sparkapp.app.favicon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import to.sparkapp.app.utils.AtomicFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The chosen icon per site, with the HTTP validators needed to ask whether it changed.
+ *
+ * <p>Every site has an {@code .json} entry and the icon bytes next to it. Both are only a
+ * cache: anything unreadable is treated as missing and resolved again.
+ */
+@Slf4j
+final class FaviconCache {
+
+    private final Path dir;
+    private final ObjectMapper mapper;
+
+    FaviconCache(File dir, ObjectMapper mapper) {
+        this.dir = dir.toPath();
+        this.mapper = mapper;
+    }
+
+    Stored get(URI page) {
+        var key = key(page);
+        try {
+            var entry = mapper.readValue(Files.readAllBytes(dir.resolve(key + ".json")), Entry.class);
+            var data = Files.readAllBytes(dir.resolve(key + ".icon"));
+            return new Stored(entry, new Favicon(data, entry.extension(), entry.size(), URI.create(entry.iconUrl())));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | IllegalArgumentException e) {
+            log.debug("Ignoring unreadable favicon cache entry {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    void put(URI page, Favicon favicon, String etag, String lastModified) {
+        var key = key(page);
+        var entry = new Entry(favicon.source().toString(), etag, lastModified, favicon.extension(), favicon.size(),
+                System.currentTimeMillis());
+        try {
+            AtomicFiles.write(dir.resolve(key + ".icon"), favicon.data(), false);
+            AtomicFiles.write(dir.resolve(key + ".json"), mapper.writeValueAsBytes(entry), false);
+        } catch (IOException e) {
+            log.warn("Failed to cache favicon for {}", key, e);
+        }
+    }
+
+    /** Records that the cached icon was confirmed to be current. */
+    void touch(URI page, Entry entry) {
+        var key = key(page);
+        var checked = new Entry(entry.iconUrl(), entry.etag(), entry.lastModified(), entry.extension(), entry.size(),
+                System.currentTimeMillis());
+        try {
+            AtomicFiles.write(dir.resolve(key + ".json"), mapper.writeValueAsBytes(checked), false);
+        } catch (IOException e) {
+            log.debug("Failed to update favicon cache entry {}", key, e);
+        }
+    }
+
+    // Icons belong to a site, not a page: every chat under chatgpt.com shares one entry.
+    private static String key(URI page) {
+        var host = page.getHost().toLowerCase(Locale.ROOT);
+        var port = page.getPort() != -1 ? "_" + page.getPort() : "";
+        return (host + port).replaceAll("[^a-z0-9._-]", "_");
+    }
+
+    /**
+     * @param checkedAt when the icon was last downloaded or confirmed unchanged, epoch millis
+     */
+    record Entry(String iconUrl, String etag, String lastModified, String extension, int size, long checkedAt) {
+    }
+
+    record Stored(Entry entry, Favicon favicon) {
+    }
+}
@@ -0,0 +1,12 @@
+package to.sparkapp.app.favicon;
+
+import java.net.URI;
+
+/**
+ * An icon a page points to, before it has been fetched.
+ *
+ * @param declaredSize edge length from the {@code sizes} attribute or manifest entry, {@link Favicon#SCALABLE}
+ *                     for SVGs and {@code sizes="any"}, or a guess based on where the icon was found
+ */
+record FaviconCandidate(URI uri, int declaredSize) {
+}
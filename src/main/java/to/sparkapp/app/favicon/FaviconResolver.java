@@ -0,0 +1,281 @@
+package to.sparkapp.app.favicon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the best icon for a website.
+ *
+ * <p>The page is fetched and its {@code <link rel="icon">}, apple-touch-icon and manifest icons
+ * are collected, with {@code /favicon.ico} as a fallback. The most promising candidates are
+ * downloaded in parallel and the best one that actually decodes wins: an SVG, else the
+ * smallest bitmap of at least 48 px, else the largest.
+ *
+ * <p>The result is cached per site together with its ETag / Last-Modified, so resolving the
+ * same site again costs at most one conditional request.
+ */
+@Slf4j
+public class FaviconResolver {
+
+    private static final int MAX_PARALLEL_FETCHES = 4;
+    private static final int MAX_PAGE_BYTES = 512 * 1024;
+    private static final int MAX_ICON_BYTES = 1024 * 1024;
+    private static final Duration REVALIDATE_AFTER = Duration.ofDays(1);
+    // Some sites serve an empty page or a bot check to clients that do not look like a browser.
+    private static final String USER_AGENT = "Mozilla/5.0 (compatible; Spark favicon resolver)";
+
+    private final HttpClient http;
+    private final Duration requestTimeout;
+    private final FaviconCache cache;
+    private final IconLinkParser parser;
+
+    public FaviconResolver(File cacheDir) {
+        this(HttpClient.newBuilder()
+                        .executor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("favicon-", 0).factory()))
+                        .connectTimeout(Duration.ofSeconds(4))
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .build(),
+                cacheDir,
+                Duration.ofSeconds(6));
+    }
+
+    /**
+     * @param requestTimeout limit for each single request; a whole resolution takes at most
+     *                       four of them in a row (cache check, page, manifest, icons)
+     */
+    public FaviconResolver(HttpClient http, File cacheDir, Duration requestTimeout) {
+        var mapper = new ObjectMapper();
+        this.http = http;
+        this.requestTimeout = requestTimeout;
+        this.cache = new FaviconCache(cacheDir, mapper);
+        this.parser = new IconLinkParser(mapper);
+    }
+
+    /**
+     * Resolves the icon of the site {@code pageUrl} belongs to. Never completes exceptionally:
+     * network errors, timeouts and sites without a usable icon all give an empty result.
+     */
+    public CompletableFuture<Optional<Favicon>> resolve(String pageUrl) {
+        URI page;
+        try {
+            page = URI.create(pageUrl.trim());
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        if (page.getHost() == null || !("http".equalsIgnoreCase(page.getScheme()) || "https".equalsIgnoreCase(page.getScheme()))) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        var stored = cache.get(page);
+        var result = stored != null ? revalidate(page, stored) : discover(page);
+        return result
+                .orTimeout(requestTimeout.toMillis() * 4, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    log.warn("Failed to resolve favicon for {}: {}", page.getHost(), e.toString());
+                    return Optional.empty();
+                });
+    }
+
+    private CompletableFuture<Optional<Favicon>> revalidate(URI page, FaviconCache.Stored stored) {
+        var entry = stored.entry();
+        if (System.currentTimeMillis() - entry.checkedAt() < REVALIDATE_AFTER.toMillis()) {
+            return CompletableFuture.completedFuture(Optional.of(stored.favicon()));
+        }
+
+        var request = request(stored.favicon().source());
+        if (entry.etag() != null) {
+            request.header("If-None-Match", entry.etag());
+        }
+        if (entry.lastModified() != null) {
+            request.header("If-Modified-Since", entry.lastModified());
+        }
+
+        return http.sendAsync(request.build(), HttpResponse.BodyHandlers.ofInputStream())
+                .thenCompose(response -> {
+                    if (response.statusCode() == 304) {
+                        close(response.body());
+                        cache.touch(page, entry);
+                        log.debug("Cached favicon of {} is current", page.getHost());
+                        return CompletableFuture.completedFuture(Optional.of(stored.favicon()));
+                    }
+
+                    var favicon = response.statusCode() == 200
+                            ? ImageProbe.probe(read(response.body(), MAX_ICON_BYTES), response.uri())
+                            : null;
+                    if (response.statusCode() != 200) {
+                        close(response.body());
+                    }
+                    if (favicon == null) {
+                        // The icon moved or broke; look at the page again.
+                        return discover(page);
+                    }
+                    cache.put(page, favicon, header(response, "ETag"), header(response, "Last-Modified"));
+                    return CompletableFuture.completedFuture(Optional.of(favicon));
+                })
+                .exceptionally(e -> {
+                    // Offline: a stale icon is better than none.
+                    log.debug("Could not revalidate favicon of {}: {}", page.getHost(), e.toString());
+                    return Optional.of(stored.favicon());
+                });
+    }
+
+    private CompletableFuture<Optional<Favicon>> discover(URI page) {
+        var origin = page.resolve("/");
+        return fetchPage(page)
+                .thenCompose(this::collectCandidates)
+                .thenApply(candidates -> {
+                    candidates.add(new FaviconCandidate(origin.resolve("/favicon.ico"), IconLinkParser.UNKNOWN_ICON_SIZE));
+                    return candidates;
+                })
+                .thenCompose(candidates -> fetchBest(page, candidates));
+    }
+
+    private CompletableFuture<PageResult> fetchPage(URI page) {
+        var request = request(page).header("Accept", "text/html,application/xhtml+xml").build();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        close(response.body());
+                        log.debug("Page {} answered {}", page, response.statusCode());
+                        return new PageResult(response.uri(), null);
+                    }
+                    var html = new String(read(response.body(), MAX_PAGE_BYTES), StandardCharsets.UTF_8);
+                    return new PageResult(response.uri(), html);
+                })
+                .exceptionally(e -> {
+                    log.debug("Could not fetch {}: {}", page, e.toString());
+                    return new PageResult(page, null);
+                });
+    }
+
+    private CompletableFuture<List<FaviconCandidate>> collectCandidates(PageResult page) {
+        if (page.html() == null) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+
+        var parsed = parser.parsePage(page.html(), page.uri());
+        List<FaviconCandidate> candidates = new ArrayList<>(parsed.candidates());
+        if (parsed.manifest() == null) {
+            return CompletableFuture.completedFuture(candidates);
+        }
+
+        return http.sendAsync(request(parsed.manifest()).build(), HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    if (response.statusCode() == 200) {
+                        candidates.addAll(parser.parseManifest(read(response.body(), MAX_PAGE_BYTES), response.uri()));
+                    } else {
+                        close(response.body());
+                    }
+                    return candidates;
+                })
+                .exceptionally(e -> {
+                    log.debug("Could not fetch manifest {}: {}", parsed.manifest(), e.toString());
+                    return candidates;
+                });
+    }
+
+    private CompletableFuture<Optional<Favicon>> fetchBest(URI page, List<FaviconCandidate> candidates) {
+        // The same file is often linked from the page and the manifest; keep its best declaration.
+        var unique = new LinkedHashMap<URI, FaviconCandidate>();
+        for (var candidate : candidates) {
+            unique.merge(candidate.uri(), candidate,
+                    (a, b) -> Favicon.score(b.declaredSize()) > Favicon.score(a.declaredSize()) ? b : a);
+        }
+
+        var fetches = unique.values().stream()
+                .sorted(Comparator.comparingInt((FaviconCandidate c) -> Favicon.score(c.declaredSize())).reversed())
+                .limit(MAX_PARALLEL_FETCHES)
+                .map(this::fetchIcon)
+                .toList();
+
+        return CompletableFuture.allOf(fetches.toArray(CompletableFuture[]::new)).thenApply(v -> {
+            var best = fetches.stream()
+                    .map(CompletableFuture::join)
+                    .filter(Objects::nonNull)
+                    .max(Comparator.comparingInt(fetched -> fetched.favicon().score()));
+
+            if (best.isEmpty()) {
+                log.info("No usable favicon found for {} ({} candidates)", page.getHost(), unique.size());
+                return Optional.empty();
+            }
+
+            var favicon = best.get().favicon();
+            log.info("Resolved favicon for {}: {} ({}, {})", page.getHost(), favicon.source(), favicon.extension(),
+                    favicon.size() == Favicon.SCALABLE ? "scalable" : favicon.size() + " px");
+            cache.put(page, favicon, best.get().etag(), best.get().lastModified());
+            return Optional.of(favicon);
+        });
+    }
+
+    private CompletableFuture<Fetched> fetchIcon(FaviconCandidate candidate) {
+        return http.sendAsync(request(candidate.uri()).build(), HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        close(response.body());
+                        return null;
+                    }
+                    var favicon = ImageProbe.probe(read(response.body(), MAX_ICON_BYTES), candidate.uri());
+                    if (favicon == null) {
+                        log.debug("Skipping {}: not a usable image", candidate.uri());
+                        return null;
+                    }
+                    return new Fetched(favicon, header(response, "ETag"), header(response, "Last-Modified"));
+                })
+                .exceptionally(e -> {
+                    log.debug("Could not fetch {}: {}", candidate.uri(), e.toString());
+                    return null;
+                });
+    }
+
+    private HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("User-Agent", USER_AGENT)
+                .GET();
+    }
+
+    private static byte[] read(InputStream body, int limit) {
+        try (body) {
+            return body.readNBytes(limit);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void close(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException ignored) {
+            // nothing left to release
+        }
+    }
+
+    private static String header(HttpResponse<?> response, String name) {
+        return response.headers().firstValue(name).orElse(null);
+    }
+
+    private record PageResult(URI uri, String html) {
+    }
+
+    private record Fetched(Favicon favicon, String etag, String lastModified) {
+    }
+}
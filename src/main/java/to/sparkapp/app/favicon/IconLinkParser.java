@@ -0,0 +1,178 @@
+package to.sparkapp.app.favicon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Finds icon declarations in a page's {@code <head>} and in a web app manifest.
+ *
+ * <p>This is a tag scanner, not an HTML parser: it looks at {@code <link>} and {@code <base>}
+ * tags only, which is all favicon discovery needs and tolerates broken markup.
+ */
+@Slf4j
+final class IconLinkParser {
+
+    /** Guesses for icons without a usable {@code sizes} attribute. */
+    static final int UNKNOWN_ICON_SIZE = 32;
+    static final int UNKNOWN_TOUCH_ICON_SIZE = 180;
+
+    private static final Pattern TAG = Pattern.compile("<(link|base)\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ATTRIBUTE = Pattern.compile(
+            "([a-zA-Z][a-zA-Z0-9_:-]*)\\s*=\\s*(\"[^\"]*\"|'[^']*'|[^\\s\"'>]+)");
+    private static final Pattern SIZE = Pattern.compile("(\\d+)\\s*[xX]\\s*(\\d+)");
+    private static final Pattern HEAD_END = Pattern.compile("</head\\s*>", Pattern.CASE_INSENSITIVE);
+
+    private final ObjectMapper mapper;
+
+    IconLinkParser(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * @param html    the page, or its beginning
+     * @param pageUri the page's final URI after redirects, used to resolve relative links
+     */
+    Result parsePage(String html, URI pageUri) {
+        var headEnd = HEAD_END.matcher(html);
+        var head = headEnd.find() ? html.substring(0, headEnd.start()) : html;
+
+        var base = pageUri;
+        var links = new ArrayList<Map<String, String>>();
+        var tags = TAG.matcher(head);
+        while (tags.find()) {
+            var attributes = attributes(tags.group(2));
+            if (tags.group(1).equalsIgnoreCase("base")) {
+                var href = attributes.get("href");
+                if (href != null) {
+                    var resolved = resolve(pageUri, href);
+                    if (resolved != null) {
+                        base = resolved;
+                    }
+                }
+            } else {
+                links.add(attributes);
+            }
+        }
+
+        var candidates = new ArrayList<FaviconCandidate>();
+        URI manifest = null;
+        for (var link : links) {
+            var href = link.get("href");
+            var rel = link.getOrDefault("rel", "").toLowerCase(Locale.ROOT);
+            if (href == null || href.isBlank() || href.startsWith("data:")) {
+                continue;
+            }
+
+            var rels = List.of(rel.split("\\s+"));
+            if (rels.contains("manifest")) {
+                manifest = resolve(base, href);
+                continue;
+            }
+
+            var touchIcon = rels.contains("apple-touch-icon") || rels.contains("apple-touch-icon-precomposed");
+            // mask-icon is a single-colour silhouette for Safari's pinned tabs, not a real icon.
+            if (!touchIcon && !rels.contains("icon")) {
+                continue;
+            }
+
+            var uri = resolve(base, href);
+            if (uri != null) {
+                var fallback = touchIcon ? UNKNOWN_TOUCH_ICON_SIZE : UNKNOWN_ICON_SIZE;
+                candidates.add(new FaviconCandidate(uri, declaredSize(link.get("sizes"), link.get("type"), href, fallback)));
+            }
+        }
+
+        return new Result(candidates, manifest);
+    }
+
+    /** Reads the {@code icons} of a web app manifest, skipping monochrome ones. */
+    List<FaviconCandidate> parseManifest(byte[] json, URI manifestUri) {
+        var candidates = new ArrayList<FaviconCandidate>();
+        try {
+            var icons = mapper.readTree(json).path("icons");
+            for (var icon : icons) {
+                var src = icon.path("src").asText(null);
+                if (src == null || src.isBlank() || icon.path("purpose").asText("").contains("monochrome")) {
+                    continue;
+                }
+                var uri = resolve(manifestUri, src);
+                if (uri != null) {
+                    candidates.add(new FaviconCandidate(uri, declaredSize(icon.path("sizes").asText(null),
+                            icon.path("type").asText(null), src, UNKNOWN_ICON_SIZE)));
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Ignoring unreadable manifest {}: {}", manifestUri, e.getMessage());
+        }
+        return candidates;
+    }
+
+    private static int declaredSize(String sizes, String type, String href, int fallback) {
+        if ("image/svg+xml".equalsIgnoreCase(type) || href.toLowerCase(Locale.ROOT).split("[?#]")[0].endsWith(".svg")) {
+            return Favicon.SCALABLE;
+        }
+        if (sizes == null) {
+            return fallback;
+        }
+        if (sizes.trim().equalsIgnoreCase("any")) {
+            return Favicon.SCALABLE;
+        }
+
+        // "16x16 32x32 64x64": the icon file holds every listed size, so its best one counts.
+        var best = 0;
+        var matcher = SIZE.matcher(sizes);
+        while (matcher.find()) {
+            try {
+                var size = Math.max(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+                if (Favicon.score(size) > Favicon.score(best)) {
+                    best = size;
+                }
+            } catch (NumberFormatException ignored) {
+                // absurdly long number, not a real size
+            }
+        }
+        return best > 0 ? best : fallback;
+    }
+
+    private static Map<String, String> attributes(String source) {
+        var attributes = new HashMap<String, String>();
+        var matcher = ATTRIBUTE.matcher(source);
+        while (matcher.find()) {
+            var value = matcher.group(2);
+            if (value.startsWith("\"") || value.startsWith("'")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            attributes.putIfAbsent(matcher.group(1).toLowerCase(Locale.ROOT), unescape(value.trim()));
+        }
+        return attributes;
+    }
+
+    private static String unescape(String value) {
+        return value.replace("&amp;", "&").replace("&#38;", "&").replace("&quot;", "\"").replace("&#39;", "'");
+    }
+
+    private static URI resolve(URI base, String href) {
+        try {
+            var uri = base.resolve(href.replace(" ", "%20"));
+            var scheme = uri.getScheme();
+            return "http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme) ? uri : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param manifest the web app manifest, {@code null} when the page does not link one
+     */
+    record Result(List<FaviconCandidate> candidates, URI manifest) {
+    }
+}
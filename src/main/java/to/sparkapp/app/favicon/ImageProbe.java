@@ -0,0 +1,197 @@
+package to.sparkapp.app.favicon;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Recognises downloaded icons by their content and reads their size from the header.
+ *
+ * <p>The dock can render PNG, JPEG, GIF and SVG. ICO files are unpacked: an embedded PNG is
+ * used as is and 32-bit bitmaps are converted to PNG; older palette-based ICOs are rejected.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class ImageProbe {
+
+    /** Anything smaller is a tracking pixel or a "no icon" placeholder. */
+    static final int MIN_SIZE = 16;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /** @return the icon, or {@code null} if the data is not an image the dock can show */
+    static Favicon probe(byte[] data, URI source) {
+        var favicon = identify(data, source);
+        if (favicon == null || favicon.size() < MIN_SIZE) {
+            return null;
+        }
+        return favicon;
+    }
+
+    private static Favicon identify(byte[] data, URI source) {
+        if (startsWith(data, PNG_SIGNATURE)) {
+            return data.length >= 24 ? new Favicon(data, "png", Math.max(intBe(data, 16), intBe(data, 20)), source) : null;
+        }
+        if (data.length >= 10 && data[0] == 'G' && data[1] == 'I' && data[2] == 'F') {
+            return new Favicon(data, "gif", Math.max(shortLe(data, 6), shortLe(data, 8)), source);
+        }
+        if (data.length >= 4 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8) {
+            var size = jpegSize(data);
+            return size > 0 ? new Favicon(data, "jpg", size, source) : null;
+        }
+        if (data.length >= 6 && shortLe(data, 0) == 0 && shortLe(data, 2) == 1) {
+            return fromIco(data, source);
+        }
+        if (isSvg(data)) {
+            return new Favicon(data, "svg", Favicon.SCALABLE, source);
+        }
+        return null;
+    }
+
+    private static boolean isSvg(byte[] data) {
+        var start = new String(data, 0, Math.min(data.length, 2048), StandardCharsets.UTF_8);
+        return start.contains("<svg");
+    }
+
+    private static int jpegSize(byte[] data) {
+        var i = 2;
+        while (i + 9 < data.length) {
+            if ((data[i] & 0xFF) != 0xFF) {
+                return 0;
+            }
+            var marker = data[i + 1] & 0xFF;
+            // Start-of-frame markers carry the dimensions; C4, C8 and CC are other segments.
+            if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                return Math.max(shortBe(data, i + 5), shortBe(data, i + 7));
+            }
+            i += 2 + shortBe(data, i + 2);
+        }
+        return 0;
+    }
+
+    private static Favicon fromIco(byte[] data, URI source) {
+        var count = shortLe(data, 4);
+        Favicon best = null;
+        for (var n = 0; n < count; n++) {
+            var entry = 6 + n * 16;
+            if (entry + 16 > data.length) {
+                break;
+            }
+            var length = intLe(data, entry + 8);
+            var offset = intLe(data, entry + 12);
+            if (offset < 0 || length <= 0 || offset + (long) length > data.length) {
+                continue;
+            }
+
+            var image = Arrays.copyOfRange(data, offset, offset + length);
+            var favicon = startsWith(image, PNG_SIGNATURE) ? identify(image, source) : fromIcoBitmap(image, source);
+            if (favicon != null && (best == null || favicon.score() > best.score())) {
+                best = favicon;
+            }
+        }
+        return best;
+    }
+
+    // ICO bitmaps are a BITMAPINFOHEADER followed by bottom-up BGRA rows; the height
+    // counts the colour and the transparency mask together.
+    private static Favicon fromIcoBitmap(byte[] dib, URI source) {
+        if (dib.length < 40 || intLe(dib, 0) < 40) {
+            return null;
+        }
+        var width = intLe(dib, 4);
+        var height = intLe(dib, 8) / 2;
+        var bitCount = shortLe(dib, 14);
+        var compression = intLe(dib, 16);
+        if (bitCount != 32 || compression != 0 || width <= 0 || height <= 0 || width > 512 || height > 512) {
+            return null;
+        }
+
+        var pixels = intLe(dib, 0);
+        if (pixels + (long) width * height * 4 > dib.length) {
+            return null;
+        }
+
+        var argb = new int[width * height];
+        var buffer = ByteBuffer.wrap(dib).order(ByteOrder.LITTLE_ENDIAN);
+        for (var y = 0; y < height; y++) {
+            for (var x = 0; x < width; x++) {
+                // little-endian BGRA is exactly an ARGB int
+                argb[(height - 1 - y) * width + x] = buffer.getInt(pixels + (y * width + x) * 4);
+            }
+        }
+        return new Favicon(encodePng(argb, width, height), "png", Math.max(width, height), source);
+    }
+
+    /** A truecolour-with-alpha PNG of the pixels, unfiltered; enough for favicons. */
+    private static byte[] encodePng(int[] argb, int width, int height) {
+        var raw = new byte[height * (width * 4 + 1)];
+        var i = 0;
+        for (var y = 0; y < height; y++) {
+            raw[i++] = 0; // filter: none
+            for (var x = 0; x < width; x++) {
+                var p = argb[y * width + x];
+                raw[i++] = (byte) (p >> 16);
+                raw[i++] = (byte) (p >> 8);
+                raw[i++] = (byte) p;
+                raw[i++] = (byte) (p >>> 24);
+            }
+        }
+
+        var deflater = new Deflater(Deflater.BEST_SPEED);
+        var compressed = new ByteArrayOutputStream();
+        deflater.setInput(raw);
+        deflater.finish();
+        var chunk = new byte[8192];
+        while (!deflater.finished()) {
+            compressed.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+
+        var header = ByteBuffer.allocate(13).putInt(width).putInt(height)
+                .put((byte) 8).put((byte) 6).put((byte) 0).put((byte) 0).put((byte) 0);
+        var png = new ByteArrayOutputStream(compressed.size() + 64);
+        png.writeBytes(PNG_SIGNATURE);
+        writeChunk(png, "IHDR", header.array());
+        writeChunk(png, "IDAT", compressed.toByteArray());
+        writeChunk(png, "IEND", new byte[0]);
+        return png.toByteArray();
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, String type, byte[] data) {
+        var typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        var crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeBytes(ByteBuffer.allocate(4).putInt(data.length).array());
+        out.writeBytes(typeBytes);
+        out.writeBytes(data);
+        out.writeBytes(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        return data.length >= prefix.length && Arrays.equals(data, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static int shortLe(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int shortBe(byte[] data, int offset) {
+        return (data[offset] & 0xFF) << 8 | (data[offset + 1] & 0xFF);
+    }
+
+    private static int intLe(byte[] data, int offset) {
+        return shortLe(data, offset) | shortLe(data, offset + 2) << 16;
+    }
+
+    private static int intBe(byte[] data, int offset) {
+        return shortBe(data, offset) << 16 | shortBe(data, offset + 2);
+    }
+}
@@ -0,0 +1,17 @@
+package to.sparkapp.app.history;
+
+/**
+ * A finished chat message captured from a provider page.
+ *
+ * @param key       stable id of the message within its conversation ({@code url#index});
+ *                  a newer message with the same key supersedes the older one
+ * @param timestamp epoch millis when the message was captured
+ */
+public record CapturedMessage(
+        String key,
+        long timestamp,
+        String providerId,
+        String url,
+        String role,
+        String text
+) {}
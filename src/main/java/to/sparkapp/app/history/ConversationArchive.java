@@ -0,0 +1,102 @@
+package to.sparkapp.app.history;
+
+import lombok.extern.slf4j.Slf4j;
+import to.sparkapp.app.config.AppPaths;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local archive of captured conversations with full-text search.
+ *
+ * <p>The append-only log in {@code conversations/} is the source of truth; the search index
+ * lives in memory and is rebuilt from the log on startup, then kept up to date incrementally.
+ * Writes and index maintenance run on a single background thread, searches can run anywhere.
+ */
+@Slf4j
+public class ConversationArchive {
+
+    private final ConversationStore store;
+    private final ConversationIndex index = new ConversationIndex();
+    private final Set<Long> seen = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        var t = new Thread(r, "conversation-archive");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ConversationArchive() {
+        this.store = new ConversationStore(new File(AppPaths.DATA_DIR, "conversations"));
+        executor.execute(this::loadIndex);
+    }
+
+    /** Stores and indexes messages, dropping ones already captured with the same text. */
+    public void record(List<CapturedMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        executor.execute(() -> {
+            var fresh = new ArrayList<CapturedMessage>();
+            for (var message : messages) {
+                if (seen.add(fingerprint(message))) {
+                    fresh.add(message);
+                }
+            }
+            if (fresh.isEmpty()) {
+                return;
+            }
+
+            store.append(fresh);
+            fresh.forEach(index::add);
+            index.mergeSealedSegments();
+        });
+    }
+
+    public List<SearchHit> search(String query, int limit) {
+        return index.search(query, limit);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loadIndex() {
+        var start = System.nanoTime();
+        var today = ConversationStore.dayOf(System.currentTimeMillis());
+        var count = 0;
+
+        for (var day : store.days()) {
+            var messages = store.read(day);
+            messages.forEach(m -> seen.add(fingerprint(m)));
+            count += messages.size();
+
+            if (day.isBefore(today)) {
+                index.addSealedDay(day, messages);
+            } else {
+                messages.forEach(index::add);
+            }
+        }
+        index.mergeSealedSegments();
+
+        log.info("Indexed {} captured messages in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static long fingerprint(CapturedMessage message) {
+        return ((long) message.key().hashCode() << 32) | (message.text().hashCode() & 0xffffffffL);
+    }
+}
@@ -0,0 +1,346 @@
+package to.sparkapp.app.history;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Incremental inverted index over captured messages.
+ *
+ * <p>Messages of the current day go into a small mutable segment; when the day rolls
+ * over the segment is sealed. Sealed segments are immutable and are periodically merged
+ * into one larger segment by {@link #mergeSealedSegments()}, so a search touches only a
+ * handful of term dictionaries regardless of how many days are indexed.
+ *
+ * <p>Supported queries: plain terms (AND), {@code "quoted phrases"} and prefixes, either
+ * explicit ({@code term*}) or implicit for the last word while the user is typing.
+ *
+ * <p>Only the newest version of each message (by {@link CapturedMessage#key()}) is searched:
+ * the index remembers the latest timestamp per key, and older versions are skipped before
+ * they are scored, so an edited message cannot be found by its old text.
+ */
+@Slf4j
+class ConversationIndex {
+
+    private static final int MAX_SEALED_SEGMENTS = 8;
+    private static final int SNIPPET_RADIUS = 60;
+
+    private volatile List<Segment> sealed = List.of();
+    private Segment live;
+    // Newest timestamp per message key; older versions stay in their segments but are skipped.
+    private final Map<String, Long> latest = new ConcurrentHashMap<>();
+
+    /** Indexes a complete past day; used while loading the store. */
+    synchronized void addSealedDay(LocalDate day, List<CapturedMessage> messages) {
+        var segment = new Segment(day, day);
+        messages.forEach(segment::add);
+        messages.forEach(this::trackLatest);
+
+        var next = new ArrayList<>(sealed);
+        next.add(segment);
+        sealed = List.copyOf(next);
+    }
+
+    synchronized void add(CapturedMessage message) {
+        var day = ConversationStore.dayOf(message.timestamp());
+        if (live == null || !live.to.equals(day)) {
+            if (live != null && !live.docs.isEmpty()) {
+                var next = new ArrayList<>(sealed);
+                next.add(live);
+                sealed = List.copyOf(next);
+            }
+            live = new Segment(day, day);
+        }
+        live.add(message);
+        trackLatest(message);
+    }
+
+    private void trackLatest(CapturedMessage message) {
+        latest.merge(message.key(), message.timestamp(), Math::max);
+    }
+
+    private boolean isLatest(CapturedMessage message) {
+        return message.timestamp() >= latest.getOrDefault(message.key(), Long.MIN_VALUE);
+    }
+
+    /**
+     * Folds all sealed segments into one when there are too many of them.
+     * Meant to run on a background thread; searches keep using the old segments until the swap.
+     *
+     * <p>Segments are only ever appended to {@link #sealed} while a merge runs, so the merged
+     * snapshot is still its prefix at swap time and whatever follows it was sealed meanwhile.
+     * If another merge replaced that prefix first, this one is dropped.
+     */
+    void mergeSealedSegments() {
+        List<Segment> current;
+        synchronized (this) {
+            current = sealed;
+        }
+        if (current.size() <= MAX_SEALED_SEGMENTS) {
+            return;
+        }
+
+        var start = System.nanoTime();
+        var merged = new Segment(current.getFirst().from, current.getLast().to);
+        for (var segment : current) {
+            merged.append(segment);
+        }
+
+        synchronized (this) {
+            if (!isPrefix(current, sealed)) {
+                log.debug("Conversation index changed while merging, keeping its segments");
+                return;
+            }
+            // Days sealed while merging stay as separate segments.
+            var next = new ArrayList<Segment>();
+            next.add(merged);
+            next.addAll(sealed.subList(current.size(), sealed.size()));
+            sealed = List.copyOf(next);
+        }
+        log.info("Merged {} conversation index segments ({} messages, {} terms) in {} ms",
+                current.size(), merged.docs.size(), merged.terms.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static boolean isPrefix(List<Segment> prefix, List<Segment> list) {
+        if (prefix.size() > list.size()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.size(); i++) {
+            if (prefix.get(i) != list.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    List<SearchHit> search(String query, int limit) {
+        var clauses = Clause.parse(query);
+        if (clauses.isEmpty()) {
+            return List.of();
+        }
+
+        var hits = new ArrayList<SearchHit>();
+        for (var segment : sealed) {
+            segment.search(clauses, this::isLatest, hits);
+        }
+        synchronized (this) {
+            if (live != null) {
+                live.search(clauses, this::isLatest, hits);
+            }
+        }
+
+        // Versions captured with the same timestamp can both be current; report one.
+        var newest = new LinkedHashMap<String, SearchHit>();
+        for (var hit : hits) {
+            newest.merge(hit.message().key(), hit,
+                    (a, b) -> a.message().timestamp() >= b.message().timestamp() ? a : b);
+        }
+
+        return newest.values().stream()
+                .sorted(Comparator.comparingDouble(SearchHit::score).reversed()
+                        .thenComparing(h -> -h.message().timestamp()))
+                .limit(limit)
+                .toList();
+    }
+
+    static List<String> tokenize(String text) {
+        var tokens = new ArrayList<String>();
+        var current = new StringBuilder();
+        text.codePoints().forEach(cp -> {
+            if (Character.isLetterOrDigit(cp)) {
+                current.appendCodePoint(Character.toLowerCase(cp));
+            } else if (!current.isEmpty()) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        });
+        if (!current.isEmpty()) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    private record Posting(int doc, int[] positions) {}
+
+    private record Clause(List<String> terms, boolean phrase, boolean prefix) {
+
+        static List<Clause> parse(String query) {
+            var clauses = new ArrayList<Clause>();
+            if (query == null) {
+                return clauses;
+            }
+
+            var parts = query.trim().split("\"", -1);
+            for (int i = 0; i < parts.length; i++) {
+                var isQuoted = i % 2 == 1 && i < parts.length - 1;
+                var terms = tokenize(parts[i]);
+                if (terms.isEmpty()) {
+                    continue;
+                }
+                if (isQuoted) {
+                    clauses.add(new Clause(terms, terms.size() > 1, false));
+                    continue;
+                }
+
+                var words = parts[i].trim().split("\\s+");
+                for (var word : words) {
+                    var wordTerms = tokenize(word);
+                    if (wordTerms.isEmpty()) {
+                        continue;
+                    }
+                    var explicitPrefix = word.endsWith("*");
+                    for (var term : wordTerms) {
+                        clauses.add(new Clause(List.of(term), false, explicitPrefix));
+                    }
+                }
+            }
+
+            // Search-as-you-type: an unterminated last word matches as a prefix.
+            if (!clauses.isEmpty() && !query.endsWith(" ") && !query.endsWith("\"")) {
+                var last = clauses.removeLast();
+                clauses.add(last.phrase() ? last : new Clause(last.terms(), false, true));
+            }
+            return clauses;
+        }
+    }
+
+    private static final class Segment {
+
+        private final LocalDate from;
+        private final LocalDate to;
+        private final List<CapturedMessage> docs = new ArrayList<>();
+        private final TreeMap<String, List<Posting>> terms = new TreeMap<>();
+
+        Segment(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        void add(CapturedMessage message) {
+            var doc = docs.size();
+            docs.add(message);
+
+            var positions = new HashMap<String, List<Integer>>();
+            var tokens = tokenize(message.text());
+            for (int i = 0; i < tokens.size(); i++) {
+                positions.computeIfAbsent(tokens.get(i), t -> new ArrayList<>()).add(i);
+            }
+            positions.forEach((term, list) -> terms.computeIfAbsent(term, t -> new ArrayList<>())
+                    .add(new Posting(doc, list.stream().mapToInt(Integer::intValue).toArray())));
+        }
+
+        void append(Segment other) {
+            var offset = docs.size();
+            docs.addAll(other.docs);
+            other.terms.forEach((term, postings) -> {
+                var target = terms.computeIfAbsent(term, t -> new ArrayList<>());
+                for (var posting : postings) {
+                    target.add(new Posting(posting.doc() + offset, posting.positions()));
+                }
+            });
+        }
+
+        void search(List<Clause> clauses, Predicate<CapturedMessage> current, List<SearchHit> out) {
+            Map<Integer, Double> scores = null;
+            for (var clause : clauses) {
+                var matches = match(clause);
+                if (scores == null) {
+                    matches.keySet().removeIf(doc -> !current.test(docs.get(doc)));
+                    scores = matches;
+                } else {
+                    scores.keySet().retainAll(matches.keySet());
+                    for (var entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + matches.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return;
+                }
+            }
+
+            var highlight = clauses.getFirst().terms().getFirst();
+            for (var entry : scores.entrySet()) {
+                var message = docs.get(entry.getKey());
+                out.add(new SearchHit(message, entry.getValue(), snippet(message.text(), highlight)));
+            }
+        }
+
+        private Map<Integer, Double> match(Clause clause) {
+            var result = new HashMap<Integer, Double>();
+            if (clause.phrase()) {
+                matchPhrase(clause.terms(), result);
+            } else if (clause.prefix()) {
+                var prefix = clause.terms().getFirst();
+                for (var postings : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+                    for (var posting : postings) {
+                        result.merge(posting.doc(), (double) posting.positions().length, Double::sum);
+                    }
+                }
+            } else {
+                for (var posting : terms.getOrDefault(clause.terms().getFirst(), List.of())) {
+                    result.put(posting.doc(), (double) posting.positions().length);
+                }
+            }
+            return result;
+        }
+
+        private void matchPhrase(List<String> phrase, Map<Integer, Double> result) {
+            var perTerm = new ArrayList<Map<Integer, int[]>>();
+            for (var term : phrase) {
+                var byDoc = new HashMap<Integer, int[]>();
+                for (var posting : terms.getOrDefault(term, List.of())) {
+                    byDoc.put(posting.doc(), posting.positions());
+                }
+                if (byDoc.isEmpty()) {
+                    return;
+                }
+                perTerm.add(byDoc);
+            }
+
+            Set<Integer> candidates = new HashSet<>(perTerm.getFirst().keySet());
+            for (var byDoc : perTerm) {
+                candidates.retainAll(byDoc.keySet());
+            }
+
+            for (var doc : candidates) {
+                var count = 0;
+                for (var start : perTerm.getFirst().get(doc)) {
+                    var matched = true;
+                    for (int i = 1; i < perTerm.size() && matched; i++) {
+                        matched = Arrays.binarySearch(perTerm.get(i).get(doc), start + i) >= 0;
+                    }
+                    if (matched) {
+                        count++;
+                    }
+                }
+                if (count > 0) {
+                    // Phrases are more specific than loose terms, rank them higher.
+                    result.put(doc, count * 2.0 * phrase.size());
+                }
+            }
+        }
+
+        private static String snippet(String text, String term) {
+            var index = text.toLowerCase().indexOf(term);
+            if (index < 0) {
+                index = 0;
+            }
+            var start = Math.max(0, index - SNIPPET_RADIUS);
+            var end = Math.min(text.length(), index + term.length() + SNIPPET_RADIUS);
+            var snippet = text.substring(start, end).replaceAll("\\s+", " ").trim();
+            return (start > 0 ? "…" : "") + snippet + (end < text.length() ? "…" : "");
+        }
+    }
+}
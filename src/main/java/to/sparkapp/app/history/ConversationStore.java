@@ -0,0 +1,112 @@
+package to.sparkapp.app.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Append-only storage of captured messages: one JSON line per message, one file per day.
+ *
+ * <p>Files are never rewritten, so a crash can lose at most the line being appended.
+ * Not thread-safe; {@link ConversationArchive} serialises all access on its own thread.
+ */
+@Slf4j
+class ConversationStore {
+
+    private static final String SUFFIX = ".jsonl";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final File dir;
+
+    ConversationStore(File dir) {
+        this.dir = dir;
+        if (!dir.exists() && !dir.mkdirs()) {
+            log.error("Failed to create conversations directory: {}", dir);
+        }
+    }
+
+    void append(List<CapturedMessage> messages) {
+        var byDay = new TreeMap<LocalDate, StringBuilder>();
+        for (var message : messages) {
+            try {
+                byDay.computeIfAbsent(dayOf(message.timestamp()), d -> new StringBuilder())
+                        .append(mapper.writeValueAsString(message))
+                        .append('\n');
+            } catch (IOException e) {
+                log.warn("Failed to serialise captured message", e);
+            }
+        }
+
+        for (var entry : byDay.entrySet()) {
+            var file = fileFor(entry.getKey());
+            try {
+                Files.writeString(file.toPath(), entry.getValue(), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                log.error("Failed to append to {}", file, e);
+            }
+        }
+    }
+
+    /** Days that have a log file, oldest first. */
+    List<LocalDate> days() {
+        var days = new ArrayList<LocalDate>();
+        var files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return days;
+        }
+        for (var file : files) {
+            try {
+                days.add(LocalDate.parse(file.getName().substring(0, file.getName().length() - SUFFIX.length())));
+            } catch (Exception e) {
+                log.debug("Skipping unexpected file in conversations dir: {}", file.getName());
+            }
+        }
+        days.sort(null);
+        return days;
+    }
+
+    List<CapturedMessage> read(LocalDate day) {
+        var messages = new ArrayList<CapturedMessage>();
+        var file = fileFor(day);
+        if (!file.exists()) {
+            return messages;
+        }
+
+        try (var lines = Files.lines(file.toPath(), StandardCharsets.UTF_8)) {
+            lines.forEach(line -> {
+                if (line.isBlank()) {
+                    return;
+                }
+                try {
+                    messages.add(mapper.readValue(line, CapturedMessage.class));
+                } catch (IOException e) {
+                    // A torn last line after a crash; everything before it is intact.
+                    log.warn("Skipping unreadable line in {}", file.getName());
+                }
+            });
+        } catch (IOException e) {
+            log.error("Failed to read {}", file, e);
+        }
+        return messages;
+    }
+
+    static LocalDate dayOf(long timestamp) {
+        return Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private File fileFor(LocalDate day) {
+        return new File(dir, day + SUFFIX);
+    }
+}
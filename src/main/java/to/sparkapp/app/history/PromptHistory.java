@@ -0,0 +1,184 @@
+package to.sparkapp.app.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import to.sparkapp.app.config.AppPaths;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local history of sent prompts with instant completion.
+ *
+ * <p>Every use is appended to {@code prompt-history.jsonl}; the completion index is built from
+ * that log in the background the first time it is needed, so startup does not pay for it.
+ * The log is compacted (one line per distinct prompt, at most {@link #MAX_ENTRIES}) when it
+ * grows well past the number of distinct prompts. That check runs when the index is loaded,
+ * so the limit applies to the file only: the index holds everything that was loaded plus the
+ * prompts of the current session, and is back within the limit at the next start.
+ */
+@Slf4j
+public class PromptHistory {
+
+    /** Distinct prompts kept in the file when it is compacted; see the class comment. */
+    public static final int MAX_ENTRIES = 100_000;
+
+    private static final int MIN_PROMPT_LENGTH = 3;
+    private static final long DUPLICATE_WINDOW_MS = 3000;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final File file = new File(AppPaths.DATA_DIR, "prompt-history.jsonl");
+    private final PromptIndex index = new PromptIndex();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        var t = new Thread(r, "prompt-history");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    private volatile boolean loadRequested = false;
+    private volatile boolean loaded = false;
+    private int logLines = 0;
+
+    private String lastRecorded;
+    private long lastRecordedAt;
+
+    /** Starts building the index in the background. Safe to call repeatedly. */
+    public void warmUp() {
+        if (loadRequested) {
+            return;
+        }
+        loadRequested = true;
+        executor.execute(this::load);
+    }
+
+    /**
+     * Records a sent prompt. The same prompt reported twice within a few seconds
+     * (e.g. by the quick-ask popup and by the page itself) counts once.
+     */
+    public synchronized void record(String prompt) {
+        if (prompt == null || prompt.strip().length() < MIN_PROMPT_LENGTH) {
+            return;
+        }
+
+        var text = prompt.strip();
+        var now = System.currentTimeMillis();
+        if (text.equals(lastRecorded) && now - lastRecordedAt < DUPLICATE_WINDOW_MS) {
+            return;
+        }
+        lastRecorded = text;
+        lastRecordedAt = now;
+
+        warmUp();
+        executor.execute(() -> {
+            index.add(text, now);
+            append(new HistoryLine(text, now));
+        });
+    }
+
+    /**
+     * Returns up to {@code limit} earlier prompts for the typed text, best first.
+     * Empty until the index has finished loading.
+     */
+    public List<String> complete(String typed, int limit) {
+        if (!loaded) {
+            warmUp();
+            return List.of();
+        }
+        return index.complete(typed, limit);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void load() {
+        var start = System.nanoTime();
+        if (file.exists()) {
+            try (var lines = Files.lines(file.toPath(), StandardCharsets.UTF_8)) {
+                lines.forEach(line -> {
+                    if (line.isBlank()) {
+                        return;
+                    }
+                    logLines++;
+                    try {
+                        var entry = mapper.readValue(line, HistoryLine.class);
+                        index.add(entry.text(), entry.timestamp());
+                    } catch (IOException e) {
+                        log.warn("Skipping unreadable prompt history line");
+                    }
+                });
+            } catch (IOException e) {
+                log.error("Failed to read prompt history", e);
+            }
+        }
+        loaded = true;
+        log.info("Loaded {} prompts into the completion index in {} ms",
+                index.size(), (System.nanoTime() - start) / 1_000_000);
+
+        if (logLines > index.size() * 2 + 1000 || index.size() > MAX_ENTRIES) {
+            compact();
+        }
+    }
+
+    private void append(HistoryLine line) {
+        try {
+            Files.writeString(file.toPath(), mapper.writeValueAsString(line) + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            logLines++;
+        } catch (IOException e) {
+            log.error("Failed to append to prompt history", e);
+        }
+    }
+
+    /**
+     * Rewrites the log with the best {@link #MAX_ENTRIES} prompts. Use counts are kept
+     * approximately by repeating a line up to three times.
+     */
+    private void compact() {
+        var now = System.currentTimeMillis();
+        var entries = index.snapshot().stream()
+                .sorted(Comparator.comparingDouble((PromptIndex.Entry e) -> e.score(now)).reversed())
+                .limit(MAX_ENTRIES)
+                .sorted(Comparator.comparingLong(e -> e.lastUsed))
+                .toList();
+
+        var tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            var out = new StringBuilder();
+            var written = 0;
+            for (var entry : entries) {
+                var json = mapper.writeValueAsString(new HistoryLine(entry.text, entry.lastUsed));
+                for (int i = 0; i < Math.min(entry.count, 3); i++) {
+                    out.append(json).append('\n');
+                    written++;
+                }
+            }
+            Files.writeString(tmp.toPath(), out, StandardCharsets.UTF_8);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Compacted prompt history from {} to {} lines", logLines, written);
+            logLines = written;
+        } catch (IOException e) {
+            log.error("Failed to compact prompt history", e);
+        }
+    }
+
+    private record HistoryLine(String text, long timestamp) {}
+}
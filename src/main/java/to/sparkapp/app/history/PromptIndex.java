@@ -0,0 +1,335 @@
+package to.sparkapp.app.history;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory completion index over previously sent prompts.
+ *
+ * <p>Two structures share one entry table:
+ * <ul>
+ *   <li>a prefix index: entry ids sorted by normalised text, so a prefix is one binary search
+ *       plus a range scan; the top entries of very short prefixes (whose ranges are large)
+ *       are cached, and re-ranked on every lookup so their recency stays current;</li>
+ *   <li>a trigram index over the first {@link #MAX_INDEXED_CHARS} characters, used for fuzzy
+ *       matches when the typed text is not a prefix of anything, e.g. a word from the middle
+ *       of a prompt or a typo.</li>
+ * </ul>
+ * Postings are plain {@code int} arrays so 100k prompts stay within a few MB.
+ * All methods are synchronized; mutations are rare compared to lookups.
+ */
+class PromptIndex {
+
+    static final int MAX_INDEXED_CHARS = 48;
+    private static final int CACHED_PREFIX_LENGTH = 2;
+    private static final int CACHED_PREFIX_RESULTS = 16;
+    // Recency moves slowly, so which entries are the top ones only needs a rescan now and then.
+    private static final long CACHED_PREFIX_TTL_MS = 3_600_000;
+    private static final double FUZZY_MIN_SIMILARITY = 0.5;
+    private static final int FUZZY_POSTING_BUDGET = 20_000;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Entry> byKey = new HashMap<>();
+    private final Map<Long, IntList> trigrams = new HashMap<>();
+    private final Map<String, CachedPrefix> shortPrefixCache = new HashMap<>();
+
+    private int[] sorted = new int[64];
+    private int sortedSize;
+    private int[] trigramHits = new int[64];
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /** Adds a prompt or bumps its use count. */
+    synchronized void add(String text, long timestamp) {
+        var key = normalize(text);
+        if (key.isEmpty()) {
+            return;
+        }
+
+        var existing = byKey.get(key);
+        if (existing != null) {
+            existing.touch(timestamp);
+            // Same text from another provider or with different whitespace: keep the latest form.
+            existing.text = text;
+            invalidateShortPrefixes(key);
+            return;
+        }
+
+        var entry = new Entry(entries.size(), text, key, timestamp);
+        entries.add(entry);
+        byKey.put(key, entry);
+        insertSorted(entry);
+        indexTrigrams(entry);
+        invalidateShortPrefixes(key);
+    }
+
+    synchronized List<Entry> snapshot() {
+        return List.copyOf(entries);
+    }
+
+    /**
+     * Prefix matches first (best ranked first), then fuzzy matches to fill up to {@code limit}.
+     */
+    synchronized List<String> complete(String query, int limit) {
+        var key = normalize(query);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        var result = new LinkedHashSet<String>();
+        var now = System.currentTimeMillis();
+
+        for (var id : prefixMatches(key, limit, now)) {
+            var entry = entries.get(id);
+            if (!entry.key.equals(key)) {
+                result.add(entry.text);
+            }
+        }
+
+        if (result.size() < limit) {
+            for (var id : fuzzyMatches(key, limit, now)) {
+                var entry = entries.get(id);
+                if (!entry.key.equals(key)) {
+                    result.add(entry.text);
+                }
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+        }
+
+        return List.copyOf(result).subList(0, Math.min(limit, result.size()));
+    }
+
+    private int[] prefixMatches(String prefix, int limit, long now) {
+        var cacheable = prefix.length() <= CACHED_PREFIX_LENGTH && limit <= CACHED_PREFIX_RESULTS;
+        if (!cacheable) {
+            return scanPrefix(prefix, limit, now);
+        }
+
+        var cached = shortPrefixCache.get(prefix);
+        if (cached == null || now - cached.cachedAt() > CACHED_PREFIX_TTL_MS) {
+            cached = new CachedPrefix(scanPrefix(prefix, CACHED_PREFIX_RESULTS, now), now);
+            shortPrefixCache.put(prefix, cached);
+        }
+        var top = new TopK(limit);
+        for (var id : cached.ids()) {
+            top.offer(id, entries.get(id).score(now));
+        }
+        return top.ids();
+    }
+
+    private int[] scanPrefix(String prefix, int limit, long now) {
+        var top = new TopK(limit);
+        for (int i = lowerBound(prefix); i < sortedSize; i++) {
+            var entry = entries.get(sorted[i]);
+            if (!entry.key.startsWith(prefix)) {
+                break;
+            }
+            top.offer(entry.id, entry.score(now));
+        }
+        return top.ids();
+    }
+
+    private int[] fuzzyMatches(String query, int limit, long now) {
+        var queryTrigrams = trigramsOf(query);
+        if (queryTrigrams.length == 0) {
+            return new int[0];
+        }
+
+        if (trigramHits.length < entries.size()) {
+            trigramHits = new int[Math.max(entries.size(), trigramHits.length * 2)];
+        }
+
+        // Rarest trigrams are the most selective, so they are counted first. Trigrams found in
+        // a large share of all prompts carry little signal and are skipped like stop words.
+        // Postings are walked newest first and the walk stops once the budget is spent, which
+        // bounds the lookup time on large histories; similarity is measured over the trigrams counted.
+        var commonLimit = Math.max(1000, entries.size() / 8);
+        var lists = new ArrayList<IntList>();
+        for (var trigram : queryTrigrams) {
+            var postings = trigrams.get(trigram);
+            lists.add(postings != null ? postings : IntList.EMPTY);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        var touched = new IntList();
+        var counted = 0;
+        var budget = FUZZY_POSTING_BUDGET;
+        for (var postings : lists) {
+            if (budget <= 0 || postings.size > commonLimit) {
+                break;
+            }
+            var oldest = Math.max(0, postings.size - budget);
+            for (int i = postings.size - 1; i >= oldest; i--) {
+                var id = postings.values[i];
+                if (trigramHits[id]++ == 0) {
+                    touched.add(id);
+                }
+            }
+            budget -= postings.size;
+            counted++;
+        }
+
+        if (counted == 0) {
+            return new int[0];
+        }
+        var minHits = Math.max(Math.min(2, counted), (int) Math.ceil(counted * FUZZY_MIN_SIMILARITY));
+        var top = new TopK(limit);
+        for (int i = 0; i < touched.size; i++) {
+            var id = touched.values[i];
+            var hits = trigramHits[id];
+            trigramHits[id] = 0;
+            if (hits >= minHits) {
+                var similarity = (double) hits / counted;
+                top.offer(id, similarity * 4 + entries.get(id).score(now));
+            }
+        }
+        return top.ids();
+    }
+
+    private void insertSorted(Entry entry) {
+        var position = lowerBound(entry.key);
+        if (sorted.length == sortedSize) {
+            sorted = Arrays.copyOf(sorted, sortedSize * 2);
+        }
+        System.arraycopy(sorted, position, sorted, position + 1, sortedSize - position);
+        sorted[position] = entry.id;
+        sortedSize++;
+    }
+
+    /** First position in {@link #sorted} whose key is not less than {@code key}. */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = sortedSize;
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (entries.get(sorted[mid]).key.compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void indexTrigrams(Entry entry) {
+        for (var trigram : trigramsOf(entry.key)) {
+            trigrams.computeIfAbsent(trigram, t -> new IntList()).add(entry.id);
+        }
+    }
+
+    private void invalidateShortPrefixes(String key) {
+        for (int length = 1; length <= CACHED_PREFIX_LENGTH && length <= key.length(); length++) {
+            shortPrefixCache.remove(key.substring(0, length));
+        }
+    }
+
+    /** Distinct trigrams of the first {@link #MAX_INDEXED_CHARS} characters, packed into longs. */
+    private static long[] trigramsOf(String key) {
+        var text = key.length() > MAX_INDEXED_CHARS ? key.substring(0, MAX_INDEXED_CHARS) : key;
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        var result = new LinkedHashSet<Long>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return result.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.strip().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    static final class Entry {
+
+        final int id;
+        final String key;
+        String text;
+        int count = 1;
+        double countWeight = Math.log1p(1);
+        long lastUsed;
+
+        Entry(int id, String text, String key, long lastUsed) {
+            this.id = id;
+            this.text = text;
+            this.key = key;
+            this.lastUsed = lastUsed;
+        }
+
+        /**
+         * Frequently and recently used prompts rank higher; the recency bonus halves after two weeks.
+         * Kept cheap because fuzzy lookups score thousands of candidates.
+         */
+        double score(long now) {
+            var ageDays = Math.max(0, now - lastUsed) / 86_400_000.0;
+            return countWeight + 1.0 / (1.0 + ageDays / 14.0);
+        }
+
+        void touch(long timestamp) {
+            count++;
+            countWeight = Math.log1p(count);
+            lastUsed = Math.max(lastUsed, timestamp);
+        }
+    }
+
+    /** The best entries for a short prefix when they were last scanned, in no particular order. */
+    private record CachedPrefix(int[] ids, long cachedAt) {
+    }
+
+    private static final class IntList {
+
+        static final IntList EMPTY = new IntList();
+
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /** Keeps the {@code k} best ids seen so far; k is small, so a sorted array beats a heap. */
+    private static final class TopK {
+
+        private final int[] ids;
+        private final double[] scores;
+        private int size;
+
+        TopK(int k) {
+            ids = new int[k];
+            scores = new double[k];
+        }
+
+        void offer(int id, double score) {
+            if (size == ids.length && score <= scores[size - 1]) {
+                return;
+            }
+            var position = size == ids.length ? size - 1 : size++;
+            while (position > 0 && scores[position - 1] < score) {
+                ids[position] = ids[position - 1];
+                scores[position] = scores[position - 1];
+                position--;
+            }
+            ids[position] = id;
+            scores[position] = score;
+        }
+
+        int[] ids() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package to.sparkapp.app.history;
+
+/**
+ * A captured message matching a search, with a short excerpt around the first match.
+ */
+public record SearchHit(CapturedMessage message, double score, String snippet) {}
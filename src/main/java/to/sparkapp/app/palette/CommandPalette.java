@@ -0,0 +1,92 @@
+package to.sparkapp.app.palette;
+
+import to.sparkapp.app.browser.WebviewNavigator;
+import to.sparkapp.app.config.AiConfiguration;
+import to.sparkapp.app.config.ProviderDiff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Everything the command palette can jump to: providers, recent pages per provider and
+ * app actions. The index is built once and then patched as providers change or pages are
+ * visited, so opening the palette and typing never rebuilds it.
+ */
+public class CommandPalette {
+
+    private final PaletteIndex index = new PaletteIndex();
+    private final PaletteHistory history = new PaletteHistory();
+
+    private List<AiConfiguration.AiConfig> providers = List.of();
+
+    /** Adds an app action, e.g. {@code addAction("settings", "Open settings", "preferences options")}. */
+    public void addAction(String action, String title, String keywords) {
+        index.put(PaletteItem.action(action, title, keywords));
+    }
+
+    /** Applies only the difference to the previous provider list. */
+    public void updateProviders(List<AiConfiguration.AiConfig> configs) {
+        var diff = ProviderDiff.compute(providers, configs);
+        providers = List.copyOf(configs);
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        var recentPages = history.recentPages();
+        for (var id : diff.removed()) {
+            index.remove(PaletteItem.provider(id, "", "").id());
+            for (var url : recentPages.getOrDefault(id, List.of())) {
+                index.remove(PaletteItem.recentPage(id, "", url).id());
+            }
+            history.forgetProvider(id);
+        }
+
+        var touched = new ArrayList<AiConfiguration.AiConfig>(diff.added());
+        touched.addAll(diff.changed());
+        for (var config : touched) {
+            index.put(PaletteItem.provider(config.id(), config.name(), config.url()));
+            for (var url : recentPages.getOrDefault(config.id(), List.of())) {
+                index.put(PaletteItem.recentPage(config.id(), config.name(), url));
+            }
+        }
+    }
+
+    /** Remembers a page of the given provider, ignoring its start page and sign-in pages. */
+    public void recordVisit(AiConfiguration.AiConfig config, String url) {
+        if (config == null || url == null || !url.startsWith("http") || WebviewNavigator.isAuthUrl(url)
+                || stripSlash(url).equals(stripSlash(config.url()))) {
+            return;
+        }
+
+        var evicted = history.recordPage(config.id(), url);
+        if (evicted != null) {
+            index.remove(PaletteItem.recentPage(config.id(), "", evicted).id());
+        }
+        index.put(PaletteItem.recentPage(config.id(), config.name(), url));
+    }
+
+    public List<PaletteItem> search(String query, int limit) {
+        return index.search(query, limit, history::usage);
+    }
+
+    /** Counts a pick so it ranks higher next time. */
+    public void recordUse(PaletteItem item) {
+        history.recordUse(item.id());
+    }
+
+    public AiConfiguration.AiConfig findProvider(String id) {
+        return providers.stream()
+                .filter(c -> Objects.equals(c.id(), id))
+                .findFirst()
+                .orElse(null);
+    }
+
+    public void shutdown() {
+        history.shutdown();
+    }
+
+    private static String stripSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,148 @@
+package to.sparkapp.app.palette;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import to.sparkapp.app.config.AppPaths;
+import to.sparkapp.app.utils.AtomicFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the palette remembers between runs: how often and how recently each entry was
+ * picked, and the last pages visited per provider. Kept in {@code palette-history.json}.
+ */
+@Slf4j
+public class PaletteHistory {
+
+    public static final int RECENT_PAGES_PER_PROVIDER = 5;
+
+    private static final double RECENCY_HALF_LIFE_DAYS = 7;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final File file = new File(AppPaths.DATA_DIR, "palette-history.json");
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        var t = new Thread(r, "palette-history");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private State state;
+
+    public PaletteHistory() {
+        state = load();
+    }
+
+    /**
+     * Ranking boost of an entry: grows with the number of picks and fades
+     * with the time since the last one.
+     */
+    public synchronized double usage(String itemId) {
+        var use = state.usage.get(itemId);
+        if (use == null) {
+            return 0;
+        }
+        var ageDays = (System.currentTimeMillis() - use.lastUsed) / 86_400_000.0;
+        return 0.3 * Math.log1p(use.count) + Math.pow(0.5, ageDays / RECENCY_HALF_LIFE_DAYS);
+    }
+
+    public synchronized void recordUse(String itemId) {
+        var use = state.usage.computeIfAbsent(itemId, id -> new Use());
+        use.count++;
+        use.lastUsed = System.currentTimeMillis();
+        save();
+    }
+
+    /**
+     * Puts {@code url} in front of the provider's recent pages.
+     *
+     * @return the url that fell off the end, or {@code null}
+     */
+    public synchronized String recordPage(String providerId, String url) {
+        var pages = state.recentPages.computeIfAbsent(providerId, id -> new ArrayList<>());
+        if (!pages.isEmpty() && pages.getFirst().equals(url)) {
+            return null;
+        }
+        pages.remove(url);
+        pages.addFirst(url);
+
+        String evicted = null;
+        if (pages.size() > RECENT_PAGES_PER_PROVIDER) {
+            evicted = pages.removeLast();
+            state.usage.remove(PaletteItem.recentPage(providerId, "", evicted).id());
+        }
+        save();
+        return evicted;
+    }
+
+    public synchronized Map<String, List<String>> recentPages() {
+        var copy = new HashMap<String, List<String>>();
+        state.recentPages.forEach((id, pages) -> copy.put(id, List.copyOf(pages)));
+        return copy;
+    }
+
+    public synchronized void forgetProvider(String providerId) {
+        if (state.recentPages.remove(providerId) != null) {
+            save();
+        }
+    }
+
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private State load() {
+        if (!file.exists()) {
+            return new State();
+        }
+        try {
+            var loaded = mapper.readValue(file, State.class);
+            if (loaded.usage == null) loaded.usage = new HashMap<>();
+            if (loaded.recentPages == null) loaded.recentPages = new HashMap<>();
+            return loaded;
+        } catch (IOException e) {
+            log.error("Failed to read palette history", e);
+            return new State();
+        }
+    }
+
+    // Picks and page visits are rare, so every change is written, just not on the caller's thread
+    private void save() {
+        byte[] json;
+        try {
+            json = mapper.writeValueAsBytes(state);
+        } catch (IOException e) {
+            log.error("Failed to serialize palette history", e);
+            return;
+        }
+        writer.execute(() -> {
+            try {
+                AtomicFiles.write(file.toPath(), json, false);
+            } catch (IOException e) {
+                log.error("Failed to save palette history", e);
+            }
+        });
+    }
+
+    static class State {
+        public Map<String, Use> usage = new HashMap<>();
+        public Map<String, List<String>> recentPages = new HashMap<>();
+    }
+
+    static class Use {
+        public int count;
+        public long lastUsed;
+    }
+}
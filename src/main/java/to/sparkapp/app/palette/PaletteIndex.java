@@ -0,0 +1,190 @@
+package to.sparkapp.app.palette;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory search index of the palette entries.
+ *
+ * <p>Entries are tokenised once when they are added, so a search only compares short
+ * lowercase tokens. Every query token must match some token of an entry, by prefix,
+ * substring, in-order subsequence ({@code cgpt} → {@code chatgpt}) or with up to one or
+ * two typos ({@code cluade} → {@code claude}). Matches are then weighted by how often and
+ * how recently the entry was picked.
+ */
+public class PaletteIndex {
+
+    private static final double SUBTITLE_WEIGHT = 0.6;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    public synchronized void put(PaletteItem item) {
+        entries.put(item.id(), new Entry(item, tokenize(item.title()), tokenize(item.subtitle())));
+    }
+
+    public synchronized void remove(String id) {
+        entries.remove(id);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @param usage boost of an entry id from earlier picks, {@code 0} for never picked
+     * @return the best {@code limit} entries; the most used ones for an empty query
+     */
+    public synchronized List<PaletteItem> search(String query, int limit, ToDoubleFunction<String> usage) {
+        var queryTokens = tokenize(query);
+        var top = new PriorityQueue<Scored>(Comparator.comparingDouble(Scored::score));
+
+        for (var entry : entries.values()) {
+            double score;
+            if (queryTokens.length == 0) {
+                score = usage.applyAsDouble(entry.item.id()) + kindBias(entry.item.kind());
+            } else {
+                var match = match(queryTokens, entry);
+                if (match <= 0) {
+                    continue;
+                }
+                score = match * (1 + usage.applyAsDouble(entry.item.id())) + kindBias(entry.item.kind());
+            }
+
+            if (top.size() < limit) {
+                top.add(new Scored(entry.item, score));
+            } else if (score > top.peek().score()) {
+                top.poll();
+                top.add(new Scored(entry.item, score));
+            }
+        }
+
+        var result = new ArrayList<Scored>(top);
+        result.sort(Comparator.comparingDouble(Scored::score).reversed()
+                .thenComparing(s -> s.item().title()));
+        return result.stream().map(Scored::item).toList();
+    }
+
+    // Providers slightly ahead of pages and actions that match equally well
+    private static double kindBias(PaletteItem.Kind kind) {
+        return kind == PaletteItem.Kind.PROVIDER ? 0.01 : 0;
+    }
+
+    private static double match(String[] queryTokens, Entry entry) {
+        double total = 0;
+        for (var queryToken : queryTokens) {
+            var best = 0.0;
+            for (var token : entry.titleTokens) {
+                best = Math.max(best, tokenScore(queryToken, token));
+            }
+            for (var token : entry.subtitleTokens) {
+                best = Math.max(best, tokenScore(queryToken, token) * SUBTITLE_WEIGHT);
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+
+        // Typing the start of the title outranks scattered word matches
+        if (entry.titleTokens.length > 0 && entry.titleTokens[0].startsWith(queryTokens[0])) {
+            total += 0.5;
+        }
+        return total / queryTokens.length;
+    }
+
+    static double tokenScore(String query, String token) {
+        if (token.startsWith(query)) {
+            return token.length() == query.length() ? 1.2 : 1.0;
+        }
+        if (query.length() >= 2 && token.contains(query)) {
+            return 0.7;
+        }
+        if (query.length() >= 2 && isSubsequence(query, token)) {
+            return 0.5;
+        }
+
+        var maxTypos = query.length() >= 7 ? 2 : query.length() >= 4 ? 1 : 0;
+        if (maxTypos == 0) {
+            return 0;
+        }
+        // Compare against the token's prefix of about the query's length, so typos in a partly typed word count
+        var best = Integer.MAX_VALUE;
+        for (var length = query.length() - 1; length <= query.length() + 1; length++) {
+            if (length > 0 && length <= token.length()) {
+                best = Math.min(best, distance(query, token.substring(0, length), maxTypos));
+            }
+        }
+        return best <= maxTypos ? 0.45 - 0.1 * best : 0;
+    }
+
+    private static boolean isSubsequence(String query, String token) {
+        int i = 0;
+        for (int j = 0; j < token.length() && i < query.length(); j++) {
+            if (query.charAt(i) == token.charAt(j)) {
+                i++;
+            }
+        }
+        return i == query.length();
+    }
+
+    /**
+     * Optimal string alignment distance (edits plus swaps of neighbours),
+     * returning {@code max + 1} as soon as it must exceed {@code max}.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+
+        var previous2 = new int[b.length() + 1];
+        var previous = new int[b.length() + 1];
+        var current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            var rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                var cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                var value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            var recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        return Arrays.stream(NON_WORD.split(text.toLowerCase(Locale.ROOT)))
+                .filter(t -> !t.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private record Entry(PaletteItem item, String[] titleTokens, String[] subtitleTokens) {}
+
+    private record Scored(PaletteItem item, double score) {}
+}
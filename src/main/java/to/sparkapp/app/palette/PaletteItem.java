@@ -0,0 +1,60 @@
+package to.sparkapp.app.palette;
+
+/**
+ * One entry of the command palette.
+ *
+ * @param id       stable key, also used to remember how often the entry was picked
+ * @param kind     what picking the entry does
+ * @param title    main text, searched with full weight
+ * @param subtitle secondary text, searched with less weight; may be empty
+ * @param target   provider id for {@link Kind#PROVIDER} and {@link Kind#RECENT_PAGE},
+ *                 action name for {@link Kind#ACTION}
+ * @param url      page to open for {@link Kind#RECENT_PAGE}, otherwise {@code null}
+ */
+public record PaletteItem(
+        String id,
+        Kind kind,
+        String title,
+        String subtitle,
+        String target,
+        String url
+) {
+
+    public enum Kind {
+        PROVIDER("Provider"),
+        RECENT_PAGE("Recent"),
+        ACTION("Action");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    public static PaletteItem provider(String providerId, String name, String url) {
+        return new PaletteItem("provider:" + providerId, Kind.PROVIDER, name, url, providerId, null);
+    }
+
+    public static PaletteItem recentPage(String providerId, String providerName, String url) {
+        return new PaletteItem("page:" + url, Kind.RECENT_PAGE, providerName + " · " + pageLabel(url), url, providerId, url);
+    }
+
+    public static PaletteItem action(String action, String title, String keywords) {
+        return new PaletteItem("action:" + action, Kind.ACTION, title, keywords, action, null);
+    }
+
+    private static String pageLabel(String url) {
+        var start = url.indexOf("://");
+        var path = url.indexOf('/', start < 0 ? 0 : start + 3);
+        if (path < 0 || path == url.length() - 1) {
+            return url;
+        }
+        var label = url.substring(path);
+        return label.length() > 48 ? label.substring(0, 47) + "…" : label;
+    }
+}
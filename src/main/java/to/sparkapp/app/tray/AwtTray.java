@@ -0,0 +1,70 @@
+package to.sparkapp.app.tray;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.awt.AWTException;
+import java.awt.Image;
+import java.awt.MenuItem;
+import java.awt.PopupMenu;
+import java.awt.SystemTray;
+import java.awt.TrayIcon;
+import java.io.IOException;
+
+/**
+ * The tray icon on macOS and Linux, through AWT. A StatusNotifierItem would spare Linux the
+ * toolkit too, but needs a D-Bus client the app does not have.
+ */
+@Slf4j
+final class AwtTray implements Tray {
+
+    private final TrayIcon trayIcon;
+
+    private AwtTray(TrayIcon trayIcon) {
+        this.trayIcon = trayIcon;
+    }
+
+    static Tray install(Runnable onShow, Runnable onExit) {
+        if (!SystemTray.isSupported()) return null;
+
+        var iconUrl = AwtTray.class.getResource("/app-icons/icon.png");
+        if (iconUrl == null) iconUrl = AwtTray.class.getResource("/app-icons/icon.ico");
+
+        Image image;
+        try {
+            image = ImageIO.read(iconUrl);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Failed to load tray icon", e);
+            return null;
+        }
+
+        var popup = new PopupMenu();
+
+        var showItem = new MenuItem(SHOW_LABEL);
+        showItem.addActionListener(e -> onShow.run());
+        popup.add(showItem);
+
+        popup.addSeparator();
+
+        var exitItem = new MenuItem(EXIT_LABEL);
+        exitItem.addActionListener(e -> onExit.run());
+        popup.add(exitItem);
+
+        var trayIcon = new TrayIcon(image, TOOLTIP, popup);
+        trayIcon.setImageAutoSize(true);
+        trayIcon.addActionListener(e -> onShow.run());
+
+        try {
+            SystemTray.getSystemTray().add(trayIcon);
+        } catch (AWTException e) {
+            log.error("Failed to setup system tray", e);
+            return null;
+        }
+        return new AwtTray(trayIcon);
+    }
+
+    @Override
+    public void remove() {
+        SystemTray.getSystemTray().remove(trayIcon);
+    }
+}
@@ -0,0 +1,31 @@
+package to.sparkapp.app.tray;
+
+import to.sparkapp.app.utils.SystemUtils;
+
+/**
+ * The app's icon in the system tray, with a menu to show the window or exit.
+ *
+ * <p>On Windows the icon is put there with {@code Shell_NotifyIcon} directly, so the AWT
+ * toolkit and its event threads are never started. Elsewhere {@code java.awt.SystemTray} is
+ * still used; it is only loaded there.
+ */
+public interface Tray {
+
+    String TOOLTIP = "Spark";
+    String SHOW_LABEL = "Show Application";
+    String EXIT_LABEL = "Exit Spark";
+
+    /**
+     * Adds the tray icon. The callbacks run on the tray's own thread.
+     *
+     * @param onShow a click on the icon or its "show" entry
+     * @param onExit the "exit" entry
+     * @return the icon, or {@code null} if there is no system tray
+     */
+    static Tray install(Runnable onShow, Runnable onExit) {
+        return SystemUtils.isWindows() ? WindowsTray.install(onShow, onExit) : AwtTray.install(onShow, onExit);
+    }
+
+    /** Takes the icon out of the tray; called on exit, as Windows would leave a dead one behind. */
+    void remove();
+}
@@ -0,0 +1,82 @@
+package to.sparkapp.app.tray;
+
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import com.sun.jna.platform.win32.BaseTSD;
+import com.sun.jna.platform.win32.Guid;
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.win32.StdCallLibrary;
+import com.sun.jna.win32.W32APIOptions;
+
+/**
+ * The Win32 tray and popup menu calls jna-platform does not map.
+ */
+interface TrayNative {
+
+    int NIM_ADD = 0x0;
+    int NIM_DELETE = 0x2;
+
+    int NIF_MESSAGE = 0x1;
+    int NIF_ICON = 0x2;
+    int NIF_TIP = 0x4;
+
+    int MF_STRING = 0x0;
+    int MF_SEPARATOR = 0x800;
+
+    int TPM_RIGHTBUTTON = 0x2;
+    int TPM_NONOTIFY = 0x80;
+    int TPM_RETURNCMD = 0x100;
+
+    interface Shell extends StdCallLibrary {
+
+        Shell INSTANCE = Native.load("shell32", Shell.class, W32APIOptions.DEFAULT_OPTIONS);
+
+        boolean Shell_NotifyIcon(int message, NOTIFYICONDATA data);
+    }
+
+    interface Menus extends StdCallLibrary {
+
+        Menus INSTANCE = Native.load("user32", Menus.class, W32APIOptions.DEFAULT_OPTIONS);
+
+        WinDef.HMENU CreatePopupMenu();
+
+        boolean AppendMenu(WinDef.HMENU menu, int flags, BaseTSD.ULONG_PTR id, String text);
+
+        /** With {@link #TPM_RETURNCMD}, the id of the chosen entry or {@code 0}. */
+        int TrackPopupMenu(WinDef.HMENU menu, int flags, int x, int y, int reserved, WinDef.HWND owner, Pointer rect);
+
+        boolean DestroyMenu(WinDef.HMENU menu);
+    }
+
+    @Structure.FieldOrder({"cbSize", "hWnd", "uID", "uFlags", "uCallbackMessage", "hIcon", "szTip", "dwState",
+            "dwStateMask", "szInfo", "uVersion", "szInfoTitle", "dwInfoFlags", "guidItem", "hBalloonIcon"})
+    class NOTIFYICONDATA extends Structure {
+        public int cbSize;
+        public WinDef.HWND hWnd;
+        public int uID;
+        public int uFlags;
+        public int uCallbackMessage;
+        public WinDef.HICON hIcon;
+        public char[] szTip = new char[128];
+        public int dwState;
+        public int dwStateMask;
+        public char[] szInfo = new char[256];
+        public int uVersion;
+        public char[] szInfoTitle = new char[64];
+        public int dwInfoFlags;
+        public Guid.GUID guidItem;
+        public WinDef.HICON hBalloonIcon;
+
+        public NOTIFYICONDATA() {
+            // after the field initialisers, which size() needs for the arrays
+            cbSize = size();
+        }
+
+        void setTip(String tip) {
+            var length = Math.min(tip.length(), szTip.length - 1);
+            tip.getChars(0, length, szTip, 0);
+            szTip[length] = 0;
+        }
+    }
+}
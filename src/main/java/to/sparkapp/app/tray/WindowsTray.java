@@ -0,0 +1,216 @@
+package to.sparkapp.app.tray;
+
+import com.sun.jna.platform.win32.BaseTSD;
+import com.sun.jna.platform.win32.Kernel32;
+import com.sun.jna.platform.win32.User32;
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.platform.win32.WinUser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The tray icon on Windows, without AWT.
+ *
+ * <p>The icon belongs to a hidden window created on a thread of its own, which runs that
+ * window's message loop: the shell reports clicks on the icon to it, and the popup menu is
+ * tracked on it. The window is top-level rather than message-only so that it also receives
+ * {@code TaskbarCreated} and can put the icon back after Explorer restarts.
+ */
+@Slf4j
+final class WindowsTray implements Tray {
+
+    private static final String WINDOW_CLASS = "SparkTrayWindow";
+    private static final String ICON_RESOURCE = "/app-icons/icon.ico";
+
+    private static final int ICON_ID = 1;
+    private static final int WM_TRAY = WinUser.WM_USER + 1;
+    private static final int WM_LBUTTONUP = 0x0202;
+    private static final int WM_RBUTTONUP = 0x0205;
+    private static final int WM_NULL = 0x0000;
+
+    private static final int IMAGE_ICON = 1;
+    private static final int LR_LOADFROMFILE = 0x10;
+    private static final int SM_CXSMICON = 49;
+    private static final int SM_CYSMICON = 50;
+
+    private static final int CMD_SHOW = 1;
+    private static final int CMD_EXIT = 2;
+
+    private final Runnable onShow;
+    private final Runnable onExit;
+    // Referenced for as long as the window lives, or JNA's callback stub would be collected.
+    private final WinUser.WindowProc windowProc = this::windowProc;
+
+    private volatile WinDef.HWND window;
+    // Set by remove(), which can run before the tray thread has created the window.
+    private volatile boolean removed;
+    private WinDef.HICON icon;
+    private int taskbarCreated;
+
+    private WindowsTray(Runnable onShow, Runnable onExit) {
+        this.onShow = onShow;
+        this.onExit = onExit;
+    }
+
+    static Tray install(Runnable onShow, Runnable onExit) {
+        var tray = new WindowsTray(onShow, onExit);
+        var thread = new Thread(tray::run, "tray");
+        thread.setDaemon(true);
+        thread.start();
+        return tray;
+    }
+
+    private void run() {
+        try {
+            var instance = Kernel32.INSTANCE.GetModuleHandle(null);
+            var windowClass = new WinUser.WNDCLASSEX();
+            windowClass.cbSize = windowClass.size();
+            windowClass.hInstance = instance;
+            windowClass.lpfnWndProc = windowProc;
+            windowClass.lpszClassName = WINDOW_CLASS;
+            if (User32.INSTANCE.RegisterClassEx(windowClass).intValue() == 0) {
+                log.error("Failed to register the tray window class: error {}", Kernel32.INSTANCE.GetLastError());
+                return;
+            }
+
+            taskbarCreated = User32.INSTANCE.RegisterWindowMessage("TaskbarCreated");
+            icon = loadIcon();
+            window = User32.INSTANCE.CreateWindowEx(0, WINDOW_CLASS, Tray.TOOLTIP, 0, 0, 0, 0, 0,
+                    null, null, instance, null);
+            if (window == null) {
+                log.error("Failed to create the tray window: error {}", Kernel32.INSTANCE.GetLastError());
+                return;
+            }
+            addIcon();
+            // remove() found no window yet, or deleted the icon before it was added.
+            if (removed) {
+                User32.INSTANCE.DestroyWindow(window);
+                return;
+            }
+
+            var msg = new WinUser.MSG();
+            while (User32.INSTANCE.GetMessage(msg, null, 0, 0) > 0) {
+                User32.INSTANCE.TranslateMessage(msg);
+                User32.INSTANCE.DispatchMessage(msg);
+            }
+        } catch (Throwable e) {
+            log.error("System tray failed", e);
+        } finally {
+            if (icon != null) {
+                User32.INSTANCE.DestroyIcon(icon);
+            }
+        }
+    }
+
+    private WinDef.LRESULT windowProc(WinDef.HWND hwnd, int message, WinDef.WPARAM wParam, WinDef.LPARAM lParam) {
+        if (message == WM_TRAY) {
+            switch (lParam.intValue()) {
+                case WM_LBUTTONUP -> onShow.run();
+                case WM_RBUTTONUP -> showMenu(hwnd);
+                default -> {
+                }
+            }
+            return new WinDef.LRESULT(0);
+        }
+        if (message == taskbarCreated && taskbarCreated != 0) {
+            addIcon();
+            return new WinDef.LRESULT(0);
+        }
+        if (message == WinUser.WM_CLOSE) {
+            User32.INSTANCE.DestroyWindow(hwnd);
+            return new WinDef.LRESULT(0);
+        }
+        if (message == WinUser.WM_DESTROY) {
+            TrayNative.Shell.INSTANCE.Shell_NotifyIcon(TrayNative.NIM_DELETE, iconData());
+            User32.INSTANCE.PostQuitMessage(0);
+            return new WinDef.LRESULT(0);
+        }
+        return User32.INSTANCE.DefWindowProc(hwnd, message, wParam, lParam);
+    }
+
+    private void showMenu(WinDef.HWND hwnd) {
+        var menus = TrayNative.Menus.INSTANCE;
+        var menu = menus.CreatePopupMenu();
+        if (menu == null) {
+            return;
+        }
+        try {
+            menus.AppendMenu(menu, TrayNative.MF_STRING, new BaseTSD.ULONG_PTR(CMD_SHOW), Tray.SHOW_LABEL);
+            menus.AppendMenu(menu, TrayNative.MF_SEPARATOR, new BaseTSD.ULONG_PTR(0), null);
+            menus.AppendMenu(menu, TrayNative.MF_STRING, new BaseTSD.ULONG_PTR(CMD_EXIT), Tray.EXIT_LABEL);
+
+            var cursor = new WinDef.POINT();
+            User32.INSTANCE.GetCursorPos(cursor);
+            // Without this the menu stays open when the user clicks elsewhere.
+            User32.INSTANCE.SetForegroundWindow(hwnd);
+            var command = menus.TrackPopupMenu(menu, TrayNative.TPM_RETURNCMD | TrayNative.TPM_NONOTIFY
+                    | TrayNative.TPM_RIGHTBUTTON, cursor.x, cursor.y, 0, hwnd, null);
+            User32.INSTANCE.PostMessage(hwnd, WM_NULL, new WinDef.WPARAM(0), new WinDef.LPARAM(0));
+
+            if (command == CMD_SHOW) {
+                onShow.run();
+            } else if (command == CMD_EXIT) {
+                onExit.run();
+            }
+        } finally {
+            menus.DestroyMenu(menu);
+        }
+    }
+
+    private void addIcon() {
+        var data = iconData();
+        data.uFlags = TrayNative.NIF_MESSAGE | TrayNative.NIF_ICON | TrayNative.NIF_TIP;
+        data.uCallbackMessage = WM_TRAY;
+        data.hIcon = icon;
+        data.setTip(Tray.TOOLTIP);
+        if (!TrayNative.Shell.INSTANCE.Shell_NotifyIcon(TrayNative.NIM_ADD, data)) {
+            log.warn("Failed to add the tray icon");
+        }
+    }
+
+    /**
+     * Removes the icon right away, from any thread, then lets the tray thread wind down. If the
+     * tray thread is still setting up, it removes the icon itself once it has been added.
+     */
+    @Override
+    public void remove() {
+        removed = true;
+        var hwnd = window;
+        if (hwnd == null) {
+            return;
+        }
+        TrayNative.Shell.INSTANCE.Shell_NotifyIcon(TrayNative.NIM_DELETE, iconData());
+        User32.INSTANCE.PostMessage(hwnd, WinUser.WM_CLOSE, new WinDef.WPARAM(0), new WinDef.LPARAM(0));
+    }
+
+    private TrayNative.NOTIFYICONDATA iconData() {
+        var data = new TrayNative.NOTIFYICONDATA();
+        data.hWnd = window;
+        data.uID = ICON_ID;
+        return data;
+    }
+
+    /** LoadImage reads icons from files only, so the bundled .ico is copied out first. */
+    private static WinDef.HICON loadIcon() throws IOException {
+        var file = Files.createTempFile("spark-tray", ".ico");
+        try (var in = WindowsTray.class.getResourceAsStream(ICON_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("Tray icon not found in resources: " + ICON_RESOURCE);
+            }
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+
+            var handle = User32.INSTANCE.LoadImage(null, file.toString(), IMAGE_ICON,
+                    User32.INSTANCE.GetSystemMetrics(SM_CXSMICON), User32.INSTANCE.GetSystemMetrics(SM_CYSMICON),
+                    LR_LOADFROMFILE);
+            if (handle == null) {
+                throw new IOException("Failed to load the tray icon: error " + Kernel32.INSTANCE.GetLastError());
+            }
+            return new WinDef.HICON(handle.getPointer());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package to.sparkapp.app.ui.chat;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Cursor;
+import javafx.scene.control.Button;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import to.sparkapp.app.browser.PromptTiming;
+import to.sparkapp.app.chat.ChatStreamListener;
+import to.sparkapp.app.chat.OpenAiChatClient;
+import to.sparkapp.app.config.AiConfiguration;
+import to.sparkapp.app.history.PromptHistory;
+import to.sparkapp.app.ui.Theme;
+import to.sparkapp.app.ui.chat.components.ChatEntry;
+import to.sparkapp.app.ui.chat.components.ChatMessageCell;
+import to.sparkapp.app.ui.history.PromptCompletionPopup;
+
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Lightweight chat view for providers that expose an OpenAI-compatible API.
+ *
+ * <p>Replaces the browser engine for such providers: the answer is streamed over SSE and
+ * appended to a virtualised {@link ListView}. Deltas are coalesced so the FX thread sees at
+ * most one text update per pulse, however fast the model is.
+ */
+@Slf4j
+public class NativeChatPane extends BorderPane {
+
+    @Getter
+    private final AiConfiguration.AiConfig config;
+    private final OpenAiChatClient client;
+    private final PromptHistory promptHistory;
+    private final ObservableList<ChatEntry> entries = FXCollections.observableArrayList();
+    private final ListView<ChatEntry> messageList = new ListView<>(entries);
+    private final TextField input;
+    private final Button sendButton;
+
+    private Future<?> activeRequest;
+
+    @Setter
+    private Consumer<PromptTiming> onPromptTiming;
+
+    /**
+     * @param promptHistory records sent prompts and completes typed ones; may be {@code null}
+     */
+    public NativeChatPane(AiConfiguration.AiConfig config, PromptHistory promptHistory) {
+        this.config = config;
+        this.promptHistory = promptHistory;
+        this.client = new OpenAiChatClient(config.url(), config.model(), config.apiKey());
+
+        this.setStyle("-fx-background-color: " + Theme.toHex(Theme.BG_DEEP) + ";");
+
+        messageList.setCellFactory(list -> new ChatMessageCell());
+        messageList.setFocusTraversable(false);
+        messageList.setStyle("-fx-background-color: transparent; -fx-control-inner-background: " + Theme.toHex(Theme.BG_DEEP) + ";");
+        this.setCenter(messageList);
+
+        input = createInput();
+        PromptCompletionPopup.attach(input, promptHistory);
+        sendButton = createSendButton();
+        var inputRow = new HBox(8, input, sendButton);
+        inputRow.setAlignment(Pos.CENTER_LEFT);
+        inputRow.setPadding(new Insets(8, 12, 12, 12));
+        HBox.setHgrow(input, Priority.ALWAYS);
+        this.setBottom(inputRow);
+    }
+
+    /**
+     * Sends a prompt as if the user typed it.
+     *
+     * @return the request id that {@link PromptTiming} events will carry, or {@code null} if
+     *         the prompt was blank and nothing was sent
+     */
+    public String submitPrompt(String prompt) {
+        if (prompt == null || prompt.isBlank()) {
+            return null;
+        }
+        var requestId = UUID.randomUUID().toString();
+        cancel();
+
+        entries.add(new ChatEntry("user", prompt.trim()));
+        var history = entries.stream().map(ChatEntry::toMessage).toList();
+
+        var answer = new ChatEntry("assistant", "");
+        entries.add(answer);
+        messageList.scrollTo(entries.size() - 1);
+        sendButton.setText("Stop");
+
+        activeRequest = client.stream(history, new StreamRenderer(requestId, answer));
+        return requestId;
+    }
+
+    public void focusInput() {
+        input.requestFocus();
+    }
+
+    public void shutdown() {
+        cancel();
+    }
+
+    private void cancel() {
+        if (activeRequest != null) {
+            activeRequest.cancel(true);
+            activeRequest = null;
+        }
+        sendButton.setText("Send");
+    }
+
+    private void send() {
+        if (activeRequest != null && !activeRequest.isDone()) {
+            cancel();
+            return;
+        }
+        var text = input.getText();
+        input.clear();
+        if (promptHistory != null) {
+            promptHistory.record(text);
+        }
+        submitPrompt(text);
+    }
+
+    private void report(String requestId, String phase, long startNanos) {
+        var timing = new PromptTiming(requestId, phase, (System.nanoTime() - startNanos) / 1_000_000.0);
+        Platform.runLater(() -> {
+            if (onPromptTiming != null) {
+                onPromptTiming.accept(timing);
+            }
+        });
+    }
+
+    private TextField createInput() {
+        var field = new TextField();
+        field.setPromptText("Message " + config.name() + "…");
+        field.setFont(Theme.FONT_SETTINGS);
+        field.setStyle("""
+                    -fx-background-color: %s;
+                    -fx-border-color: %s;
+                    -fx-text-fill: %s;
+                    -fx-prompt-text-fill: %s;
+                    -fx-padding: 8 12 8 12;
+                    -fx-border-radius: 4;
+                    -fx-background-radius: 4;
+                """.formatted(Theme.toHex(Theme.BG_POPUP), Theme.toHex(Theme.BORDER),
+                Theme.toHex(Theme.TEXT_PRIMARY), Theme.toHex(Theme.TEXT_TERTIARY)));
+        field.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) {
+                send();
+            }
+        });
+        return field;
+    }
+
+    private Button createSendButton() {
+        var button = new Button("Send");
+        button.setFont(Theme.FONT_SETTINGS);
+        button.setCursor(Cursor.HAND);
+        button.setMinWidth(72);
+        button.setStyle(
+                "-fx-background-color: " + Theme.toHex(Theme.ACCENT) + "; " +
+                        "-fx-text-fill: white; " +
+                        "-fx-padding: 8 20 8 20; " +
+                        "-fx-background-radius: 4;"
+        );
+        button.setOnAction(e -> send());
+        return button;
+    }
+
+    /**
+     * Buffers deltas from the streaming thread and flushes them to the answer entry
+     * with at most one pending {@link Platform#runLater} at a time.
+     */
+    private final class StreamRenderer implements ChatStreamListener {
+
+        private final String requestId;
+        private final ChatEntry answer;
+        private final long startNanos = System.nanoTime();
+        private final StringBuilder pending = new StringBuilder();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+        private final AtomicBoolean firstToken = new AtomicBoolean(false);
+
+        StreamRenderer(String requestId, ChatEntry answer) {
+            this.requestId = requestId;
+            this.answer = answer;
+        }
+
+        @Override
+        public void onDelta(String text) {
+            if (firstToken.compareAndSet(false, true)) {
+                report(requestId, "first", startNanos);
+            }
+            synchronized (pending) {
+                pending.append(text);
+            }
+            if (flushScheduled.compareAndSet(false, true)) {
+                Platform.runLater(this::flush);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            report(requestId, "complete", startNanos);
+            Platform.runLater(() -> {
+                flush();
+                sendButton.setText("Send");
+            });
+        }
+
+        @Override
+        public void onError(Exception error) {
+            report(requestId, "error", startNanos);
+            Platform.runLater(() -> {
+                flush();
+                var prefix = answer.getText().isEmpty() ? "" : answer.getText() + "\n\n";
+                answer.textProperty().set(prefix + "⚠ " + error.getMessage());
+                sendButton.setText("Send");
+            });
+        }
+
+        private void flush() {
+            flushScheduled.set(false);
+            String chunk;
+            synchronized (pending) {
+                chunk = pending.toString();
+                pending.setLength(0);
+            }
+            if (chunk.isEmpty()) {
+                return;
+            }
+            answer.textProperty().set(answer.getText() + chunk);
+            if (entries.getLast() == answer) {
+                messageList.scrollTo(entries.size() - 1);
+            }
+        }
+    }
+}
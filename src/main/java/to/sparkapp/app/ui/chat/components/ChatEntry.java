@@ -0,0 +1,38 @@
+package to.sparkapp.app.ui.chat.components;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import lombok.Getter;
+import to.sparkapp.app.chat.ChatMessage;
+
+/**
+ * A message shown in the native chat list. The text is observable so a streamed
+ * answer can grow in place without replacing the list item.
+ */
+public class ChatEntry {
+
+    @Getter
+    private final String role;
+    private final StringProperty text;
+
+    public ChatEntry(String role, String text) {
+        this.role = role;
+        this.text = new SimpleStringProperty(text);
+    }
+
+    public StringProperty textProperty() {
+        return text;
+    }
+
+    public String getText() {
+        return text.get();
+    }
+
+    public boolean isUser() {
+        return "user".equals(role);
+    }
+
+    public ChatMessage toMessage() {
+        return new ChatMessage(role, getText());
+    }
+}
@@ -0,0 +1,45 @@
+package to.sparkapp.app.ui.chat.components;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.layout.HBox;
+import to.sparkapp.app.ui.Theme;
+
+/**
+ * Renders one {@link ChatEntry} as a bubble; user messages are right-aligned.
+ * Cells are recycled by the list, so only the visible messages have nodes.
+ */
+public class ChatMessageCell extends ListCell<ChatEntry> {
+
+    private final Label bubble = new Label();
+    private final HBox row = new HBox(bubble);
+
+    public ChatMessageCell() {
+        bubble.setWrapText(true);
+        bubble.setFont(Theme.FONT_SELECTOR);
+        bubble.setPadding(new Insets(8, 12, 8, 12));
+        row.setPadding(new Insets(4, 12, 4, 12));
+        setStyle("-fx-background-color: transparent; -fx-padding: 0;");
+    }
+
+    @Override
+    protected void updateItem(ChatEntry entry, boolean empty) {
+        super.updateItem(entry, empty);
+        bubble.textProperty().unbind();
+
+        if (empty || entry == null) {
+            setGraphic(null);
+            return;
+        }
+
+        bubble.textProperty().bind(entry.textProperty());
+        bubble.maxWidthProperty().bind(getListView().widthProperty().multiply(0.8));
+        bubble.setTextFill(entry.isUser() ? Theme.TEXT_PRIMARY : Theme.TEXT_SECONDARY);
+        bubble.setStyle("-fx-background-radius: 10; -fx-background-color: " +
+                Theme.toHex(entry.isUser() ? Theme.BG_HOVER : Theme.BG_POPUP) + ";");
+        row.setAlignment(entry.isUser() ? Pos.CENTER_RIGHT : Pos.CENTER_LEFT);
+        setGraphic(row);
+    }
+}
@@ -0,0 +1,214 @@
+package to.sparkapp.app.ui.compare;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Cursor;
+import javafx.scene.control.Button;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import lombok.extern.slf4j.Slf4j;
+import to.sparkapp.app.config.AiConfiguration;
+import to.sparkapp.app.config.AppPreferences;
+import to.sparkapp.app.history.PromptHistory;
+import to.sparkapp.app.ui.Theme;
+import to.sparkapp.app.ui.compare.components.CompareColumn;
+import to.sparkapp.app.ui.compare.components.ProviderChip;
+import to.sparkapp.app.ui.history.PromptCompletionPopup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Side-by-side view that sends one prompt to several providers at once.
+ *
+ * <p>Every selected provider gets its own {@link CompareColumn} with a live webview,
+ * so answers stream in parallel and their timings can be compared directly.
+ */
+@Slf4j
+public class ComparePane extends BorderPane {
+
+    public static final int MAX_PROVIDERS = 4;
+
+    private final AiConfiguration aiConfiguration;
+    private final AppPreferences appPreferences;
+    private final PromptHistory promptHistory;
+
+    private final FlowPane chipsRow;
+    private final HBox columnsContainer;
+    private final TextField promptField;
+    private final Map<String, CompareColumn> columns = new LinkedHashMap<>();
+
+    public ComparePane(AiConfiguration aiConfiguration, AppPreferences appPreferences, PromptHistory promptHistory) {
+        this.aiConfiguration = aiConfiguration;
+        this.appPreferences = appPreferences;
+        this.promptHistory = promptHistory;
+
+        this.setStyle("-fx-background-color: " + Theme.toHex(Theme.BG_DEEP) + ";");
+
+        promptField = createPromptField();
+        PromptCompletionPopup.attach(promptField, promptHistory);
+        chipsRow = new FlowPane(6, 6);
+        chipsRow.setPadding(new Insets(0, 12, 8, 12));
+
+        var sendButton = createSendButton();
+        var promptRow = new HBox(8, promptField, sendButton);
+        promptRow.setAlignment(Pos.CENTER_LEFT);
+        promptRow.setPadding(new Insets(10, 12, 8, 12));
+        HBox.setHgrow(promptField, Priority.ALWAYS);
+
+        var header = new VBox(promptRow, chipsRow);
+        header.setStyle("-fx-background-color: " + Theme.toHex(Theme.BG_BAR) + ";" +
+                "-fx-border-color: transparent transparent " + Theme.toHex(Theme.BORDER) + " transparent;");
+        this.setTop(header);
+
+        columnsContainer = new HBox();
+        this.setCenter(columnsContainer);
+
+        refreshProviders();
+    }
+
+    /**
+     * Rebuilds the provider chips and keeps only columns whose provider still exists.
+     */
+    public void refreshProviders() {
+        var configs = aiConfiguration.getConfigurations();
+        var selectedIds = new ArrayList<>(appPreferences.getCompareProviders());
+        selectedIds.removeIf(id -> configs.stream().noneMatch(c -> c.id().equals(id)));
+
+        if (selectedIds.isEmpty()) {
+            configs.stream().limit(2).forEach(c -> selectedIds.add(c.id()));
+        }
+
+        chipsRow.getChildren().clear();
+        for (var config : configs) {
+            chipsRow.getChildren().add(new ProviderChip(config, selectedIds.contains(config.id()), this::toggleProvider));
+        }
+
+        applySelection(selectedIds);
+    }
+
+    private void toggleProvider(ProviderChip chip) {
+        var selectedIds = new ArrayList<>(columns.keySet());
+        if (chip.isSelected()) {
+            if (selectedIds.size() <= 1) {
+                return;
+            }
+            selectedIds.remove(chip.getConfig().id());
+        } else {
+            if (selectedIds.size() >= MAX_PROVIDERS) {
+                return;
+            }
+            selectedIds.add(chip.getConfig().id());
+        }
+
+        chip.setSelected(!chip.isSelected());
+        appPreferences.setCompareProviders(selectedIds);
+        applySelection(selectedIds);
+    }
+
+    private void applySelection(List<String> selectedIds) {
+        var iterator = columns.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            if (!selectedIds.contains(entry.getKey())) {
+                entry.getValue().getWebViewPane().onWindowHidden();
+                entry.getValue().getWebViewPane().shutdown(() -> {});
+                iterator.remove();
+            }
+        }
+
+        for (var id : selectedIds) {
+            if (columns.containsKey(id)) {
+                continue;
+            }
+            aiConfiguration.getConfigurations().stream()
+                    .filter(c -> c.id().equals(id))
+                    .findFirst()
+                    .ifPresent(config -> columns.put(id, new CompareColumn(config, appPreferences)));
+        }
+
+        columnsContainer.getChildren().setAll(columns.values());
+    }
+
+    private void sendPrompt() {
+        submitPrompt(promptField.getText());
+        promptField.clear();
+    }
+
+    /** Sends the prompt to every selected provider. */
+    public void submitPrompt(String prompt) {
+        prompt = prompt.trim();
+        if (prompt.isEmpty()) {
+            return;
+        }
+
+        if (promptHistory != null) {
+            promptHistory.record(prompt);
+        }
+        log.info("Fanning out prompt to {} providers", columns.size());
+        for (var column : columns.values()) {
+            column.submitPrompt(prompt);
+        }
+    }
+
+    /** Hides every native webview, e.g. when the compare view is closed or the window is hidden. */
+    public void onWindowHidden() {
+        columns.values().forEach(c -> c.getWebViewPane().onWindowHidden());
+    }
+
+    public void onWindowRestored() {
+        columns.values().forEach(c -> c.getWebViewPane().onWindowRestored());
+    }
+
+    public void focusPrompt() {
+        promptField.requestFocus();
+    }
+
+    public void shutdown() {
+        columns.values().forEach(c -> c.getWebViewPane().shutdown(() -> {}));
+        columns.clear();
+    }
+
+    private TextField createPromptField() {
+        var field = new TextField();
+        field.setPromptText("Ask every selected provider…");
+        field.setFont(Theme.FONT_SETTINGS);
+        field.setStyle("""
+                    -fx-background-color: %s;
+                    -fx-border-color: %s;
+                    -fx-text-fill: %s;
+                    -fx-prompt-text-fill: %s;
+                    -fx-padding: 8 12 8 12;
+                    -fx-border-radius: 4;
+                    -fx-background-radius: 4;
+                """.formatted(Theme.toHex(Theme.BG_POPUP), Theme.toHex(Theme.BORDER),
+                Theme.toHex(Theme.TEXT_PRIMARY), Theme.toHex(Theme.TEXT_TERTIARY)));
+        field.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) {
+                sendPrompt();
+            }
+        });
+        return field;
+    }
+
+    private Button createSendButton() {
+        var button = new Button("Send");
+        button.setFont(Theme.FONT_SETTINGS);
+        button.setCursor(Cursor.HAND);
+        button.setStyle(
+                "-fx-background-color: " + Theme.toHex(Theme.ACCENT) + "; " +
+                        "-fx-text-fill: white; " +
+                        "-fx-padding: 8 20 8 20; " +
+                        "-fx-background-radius: 4;"
+        );
+        button.setOnAction(e -> sendPrompt());
+        return button;
+    }
+}
@@ -0,0 +1,121 @@
+package to.sparkapp.app.ui.compare.components;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.text.Font;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import to.sparkapp.app.browser.PromptTiming;
+import to.sparkapp.app.config.AiConfiguration;
+import to.sparkapp.app.config.AppPreferences;
+import to.sparkapp.app.ui.Theme;
+import to.sparkapp.app.ui.webview.FxWebViewPane;
+
+/**
+ * One provider in the compare view: a header with the time-to-first-token and
+ * time-to-complete of the last prompt, above a live webview.
+ */
+@Slf4j
+public class CompareColumn extends VBox {
+
+    @Getter
+    private final AiConfiguration.AiConfig config;
+    @Getter
+    private final FxWebViewPane webViewPane;
+    private final Label timingLabel;
+
+    private String pendingRequestId;
+    private double firstTokenMs = -1;
+
+    public CompareColumn(AiConfiguration.AiConfig config, AppPreferences appPreferences) {
+        this.config = config;
+
+        this.setMinWidth(0);
+        this.setStyle("-fx-border-color: transparent %s transparent transparent; -fx-border-width: 0 1 0 0;"
+                .formatted(Theme.toHex(Theme.BORDER)));
+        HBox.setHgrow(this, Priority.ALWAYS);
+
+        timingLabel = new Label("");
+        timingLabel.setFont(Font.font(Theme.FONT_SETTINGS.getFamily(), 11));
+        timingLabel.setTextFill(Theme.TEXT_TERTIARY);
+
+        this.getChildren().add(createHeader());
+
+        webViewPane = new FxWebViewPane(config.url(), appPreferences);
+        webViewPane.setTrackLastUrl(false);
+        webViewPane.setOnPromptTiming(this::handleTiming);
+        webViewPane.setCurrentConfig(config);
+        VBox.setVgrow(webViewPane, Priority.ALWAYS);
+        this.getChildren().add(webViewPane);
+    }
+
+    private HBox createHeader() {
+        var header = new HBox(8);
+        header.setAlignment(Pos.CENTER_LEFT);
+        header.setPadding(new Insets(6, 10, 6, 10));
+        header.setMinHeight(28);
+
+        var dot = new Circle(4, parseColor(config.color()));
+
+        var nameLabel = new Label(config.name());
+        nameLabel.setFont(Font.font(Theme.FONT_SETTINGS.getFamily(), 12));
+        nameLabel.setTextFill(Theme.TEXT_PRIMARY);
+
+        var spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+
+        header.getChildren().addAll(dot, nameLabel, spacer, timingLabel);
+        return header;
+    }
+
+    public void submitPrompt(String prompt) {
+        var requestId = webViewPane.submitPrompt(prompt);
+        if (requestId == null) {
+            return;
+        }
+        firstTokenMs = -1;
+        pendingRequestId = requestId;
+        timingLabel.setText("waiting…");
+    }
+
+    private void handleTiming(PromptTiming timing) {
+        if (!timing.requestId().equals(pendingRequestId)) {
+            return;
+        }
+
+        switch (timing.phase()) {
+            case "first" -> {
+                firstTokenMs = timing.millis();
+                timingLabel.setText("first token " + formatSeconds(firstTokenMs));
+            }
+            case "complete" -> timingLabel.setText((firstTokenMs >= 0 ? "first " + formatSeconds(firstTokenMs) + " · " : "")
+                    + "done " + formatSeconds(timing.millis()));
+            case "timeout" -> timingLabel.setText("no answer");
+            default -> timingLabel.setText("input not found");
+        }
+
+        if (timing.isFinal()) {
+            log.info("Compare [{}]: ttft={} ms, total={} ms, phase={}",
+                    config.name(), Math.round(firstTokenMs), Math.round(timing.millis()), timing.phase());
+        }
+    }
+
+    private static String formatSeconds(double millis) {
+        return String.format("%.2f s", millis / 1000.0);
+    }
+
+    private static Color parseColor(String hex) {
+        try {
+            return hex != null ? Color.web(hex) : Theme.ACCENT;
+        } catch (Exception e) {
+            return Theme.ACCENT;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package to.sparkapp.app.ui.compare.components;
+
+import javafx.geometry.Insets;
+import javafx.scene.Cursor;
+import javafx.scene.control.Label;
+import javafx.scene.text.Font;
+import lombok.Getter;
+import to.sparkapp.app.config.AiConfiguration;
+import to.sparkapp.app.ui.Theme;
+
+import java.util.function.Consumer;
+
+/**
+ * A small toggleable pill used to pick the providers a prompt is fanned out to.
+ */
+public class ProviderChip extends Label {
+
+    @Getter
+    private final AiConfiguration.AiConfig config;
+    @Getter
+    private boolean selected;
+
+    public ProviderChip(AiConfiguration.AiConfig config, boolean selected, Consumer<ProviderChip> onToggle) {
+        super(config.name());
+        this.config = config;
+        this.selected = selected;
+
+        this.setFont(Font.font(Theme.FONT_SETTINGS.getFamily(), 11));
+        this.setPadding(new Insets(3, 10, 3, 10));
+        this.setCursor(Cursor.HAND);
+        this.setOnMouseClicked(e -> onToggle.accept(this));
+
+        updateStyle();
+    }
+
+    public void setSelected(boolean selected) {
+        this.selected = selected;
+        updateStyle();
+    }
+
+    private void updateStyle() {
+        var accent = Theme.ACCENT;
+        try {
+            if (config.color() != null) {
+                accent = javafx.scene.paint.Color.web(config.color());
+            }
+        } catch (Exception ignored) {
+        }
+
+        this.setTextFill(selected ? Theme.TEXT_PRIMARY : Theme.TEXT_SECONDARY);
+        this.setStyle("""
+                    -fx-background-color: %s;
+                    -fx-border-color: %s;
+                    -fx-background-radius: 12;
+                    -fx-border-radius: 12;
+                """.formatted(
+                Theme.toHex(selected ? Theme.lerp(Theme.BG_POPUP, accent, 0.35) : Theme.BG_POPUP),
+                Theme.toHex(selected ? accent : Theme.BORDER)));
+    }
+}
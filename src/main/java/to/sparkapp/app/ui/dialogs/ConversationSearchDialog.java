@@ -0,0 +1,186 @@
+package to.sparkapp.app.ui.dialogs;
+
+import javafx.animation.PauseTransition;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+import javafx.stage.Window;
+import javafx.util.Duration;
+import to.sparkapp.app.history.ConversationArchive;
+import to.sparkapp.app.history.SearchHit;
+import to.sparkapp.app.ui.Theme;
+import to.sparkapp.app.ui.dialogs.components.ProviderMainPanel;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+
+/**
+ * Search-as-you-type over captured conversations. Choosing a result hands it to
+ * {@code onOpen}, which reopens the conversation in the main webview.
+ */
+public class ConversationSearchDialog extends Stage {
+
+    private static final int MAX_RESULTS = 50;
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+
+    private final ConversationArchive archive;
+    private final Consumer<SearchHit> onOpen;
+    private final ListView<SearchHit> results = new ListView<>();
+    private final Label status = new Label();
+    private final PauseTransition debounce = new PauseTransition(Duration.millis(120));
+
+    public ConversationSearchDialog(Window owner, ConversationArchive archive, Consumer<SearchHit> onOpen) {
+        this.archive = archive;
+        this.onOpen = onOpen;
+
+        this.initOwner(owner);
+        this.initStyle(StageStyle.TRANSPARENT);
+        this.setAlwaysOnTop(true);
+
+        var title = new Label("Search conversations");
+        title.setFont(Font.font(Theme.FONT_SETTINGS.getFamily(), FontWeight.BOLD, 18));
+        title.setTextFill(Theme.TEXT_PRIMARY);
+
+        var queryField = createQueryField();
+
+        status.setFont(Font.font(Theme.FONT_NAME, 12));
+        status.setTextFill(Theme.TEXT_TERTIARY);
+
+        results.setCellFactory(list -> new HitCell());
+        results.setStyle("-fx-background-color: transparent; -fx-control-inner-background: " + Theme.toHex(Theme.BG_POPUP) + ";");
+        results.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) {
+                openSelected();
+            }
+        });
+        results.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) {
+                openSelected();
+            }
+        });
+
+        var content = new VBox(10, queryField, status, results);
+        content.setPadding(new Insets(12, 0, 0, 0));
+
+        var mainPanel = new ProviderMainPanel();
+        mainPanel.setTop(title);
+        mainPanel.setCenter(content);
+
+        var scene = new Scene(mainPanel, 560, 480, Color.TRANSPARENT);
+        scene.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ESCAPE) {
+                close();
+            }
+        });
+        this.setScene(scene);
+        this.focusedProperty().addListener((obs, was, focused) -> {
+            if (!focused) {
+                close();
+            }
+        });
+
+        debounce.setOnFinished(e -> runSearch(queryField.getText()));
+        runSearch("");
+    }
+
+    private TextField createQueryField() {
+        var field = new TextField();
+        field.setPromptText("Words, \"exact phrase\" or prefix*");
+        field.setFont(Theme.FONT_SETTINGS);
+        field.setStyle("""
+                    -fx-background-color: %s;
+                    -fx-border-color: %s;
+                    -fx-text-fill: %s;
+                    -fx-prompt-text-fill: %s;
+                    -fx-padding: 8 12 8 12;
+                    -fx-border-radius: 4;
+                    -fx-background-radius: 4;
+                """.formatted(Theme.toHex(Theme.BG_POPUP), Theme.toHex(Theme.BORDER),
+                Theme.toHex(Theme.TEXT_PRIMARY), Theme.toHex(Theme.TEXT_TERTIARY)));
+        field.textProperty().addListener((obs, o, n) -> debounce.playFromStart());
+        field.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.DOWN && !results.getItems().isEmpty()) {
+                results.requestFocus();
+                results.getSelectionModel().selectFirst();
+            } else if (e.getCode() == KeyCode.ENTER) {
+                results.getSelectionModel().selectFirst();
+                openSelected();
+            }
+        });
+        return field;
+    }
+
+    private void runSearch(String query) {
+        if (query.isBlank()) {
+            results.getItems().clear();
+            status.setText("Type to search captured messages");
+            return;
+        }
+
+        var start = System.nanoTime();
+        var hits = archive.search(query, MAX_RESULTS);
+        var micros = (System.nanoTime() - start) / 1000;
+
+        results.getItems().setAll(hits);
+        status.setText(hits.isEmpty()
+                ? "No matches"
+                : "%d result%s in %.1f ms".formatted(hits.size(), hits.size() == 1 ? "" : "s", micros / 1000.0));
+    }
+
+    private void openSelected() {
+        var hit = results.getSelectionModel().getSelectedItem();
+        if (hit == null) {
+            return;
+        }
+        close();
+        onOpen.accept(hit);
+    }
+
+    private static final class HitCell extends ListCell<SearchHit> {
+
+        private final Label header = new Label();
+        private final Label snippet = new Label();
+        private final VBox box = new VBox(2, header, snippet);
+
+        HitCell() {
+            header.setFont(Font.font(Theme.FONT_NAME, 11));
+            header.setTextFill(Theme.TEXT_TERTIARY);
+            snippet.setFont(Font.font(Theme.FONT_NAME, 13));
+            snippet.setTextFill(Theme.TEXT_PRIMARY);
+            snippet.setWrapText(true);
+            snippet.setMaxHeight(40);
+            setStyle("-fx-background-color: transparent; -fx-padding: 6 8 6 8;");
+        }
+
+        @Override
+        protected void updateItem(SearchHit hit, boolean empty) {
+            super.updateItem(hit, empty);
+            if (empty || hit == null) {
+                setGraphic(null);
+                return;
+            }
+
+            var message = hit.message();
+            header.setText("%s · %s · %s".formatted(
+                    message.providerId() != null ? message.providerId() : "unknown",
+                    message.role(),
+                    DATE_FORMAT.format(Instant.ofEpochMilli(message.timestamp()))));
+            snippet.setText(hit.snippet());
+            snippet.prefWidthProperty().bind(getListView().widthProperty().subtract(32));
+            setGraphic(box);
+        }
+    }
+}
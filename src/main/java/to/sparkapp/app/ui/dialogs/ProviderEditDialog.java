@@ -5,7 +5,6 @@ import to.sparkapp.app.ui.dialogs.components.ProviderFormPanel;
 import to.sparkapp.app.ui.dialogs.components.ProviderMainPanel;
 import to.sparkapp.app.ui.dialogs.components.ProviderTitleLabel;
 import to.sparkapp.app.ui.dialogs.components.ProvidersFormButtonsPanel;
-import to.sparkapp.app.utils.SystemUtils;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.paint.Color;
@@ -36,9 +35,8 @@ public class ProviderEditDialog extends Stage {
         mainPanel.setBottom(buildButtonsPanel(provider));
 
         double width = 420;
-        double height = SystemUtils.isWindows() ? 330 : 290;
 
-        var scene = new Scene(mainPanel, width, height, Color.TRANSPARENT);
+        var scene = new Scene(mainPanel, width, -1, Color.TRANSPARENT);
         this.setScene(scene);
     }
 
@@ -71,6 +69,11 @@ public class ProviderEditDialog extends Stage {
             return false;
         }
 
+        if (isNativeChat() && getModel().isEmpty()) {
+            showValidationError("Please enter the model name to use with this API");
+            return false;
+        }
+
         return true;
     }
 
@@ -94,4 +97,20 @@ public class ProviderEditDialog extends Stage {
     public String getProviderUrl() {
         return providerFormPanel.getUrlFieldValue();
     }
+
+    public boolean isNativeChat() {
+        return providerFormPanel.isNativeChatSelected();
+    }
+
+    public String getProviderType() {
+        return isNativeChat() ? AiConfiguration.AiConfig.TYPE_OPENAI : null;
+    }
+
+    public String getModel() {
+        return isNativeChat() ? providerFormPanel.getModelFieldValue() : null;
+    }
+
+    public String getApiKey() {
+        return isNativeChat() ? providerFormPanel.getApiKeyFieldValue() : null;
+    }
 }
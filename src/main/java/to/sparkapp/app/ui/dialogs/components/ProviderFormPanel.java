@@ -3,7 +3,9 @@ package to.sparkapp.app.ui.dialogs.components;
 import to.sparkapp.app.config.AiConfiguration;
 import to.sparkapp.app.ui.Theme;
 import javafx.geometry.Insets;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
@@ -14,6 +16,11 @@ public class ProviderFormPanel extends VBox {
 
     private final TextField nameField;
     private final TextField urlField;
+    private final CheckBox nativeChatBox;
+    private final VBox apiFields;
+    private final TextField modelField;
+    private final PasswordField apiKeyField;
+    private final Label hintLabel;
 
     public ProviderFormPanel(AiConfiguration.AiConfig provider) {
         this.setSpacing(8);
@@ -31,10 +38,54 @@ public class ProviderFormPanel extends VBox {
         urlField = createTextField(provider != null ? provider.url() : "https://");
         this.getChildren().add(urlField);
 
-        var hintLabel = new Label("Icon and color will be automatically extracted from the website");
+        hintLabel = new Label();
         hintLabel.setFont(Font.font(Theme.FONT_SETTINGS.getFamily(), FontPosture.ITALIC, 11));
         hintLabel.setTextFill(Theme.TEXT_TERTIARY);
         this.getChildren().add(hintLabel);
+
+        nativeChatBox = new CheckBox("OpenAI-compatible API (native chat, no browser)");
+        nativeChatBox.setFont(Theme.FONT_SETTINGS);
+        nativeChatBox.setTextFill(Theme.TEXT_SECONDARY);
+        nativeChatBox.setSelected(provider != null && provider.isNativeChat());
+        this.getChildren().add(nativeChatBox);
+
+        modelField = createTextField(provider != null && provider.model() != null ? provider.model() : "");
+        modelField.setPromptText("e.g. llama3.1 or gpt-4o-mini");
+        apiKeyField = new PasswordField();
+        apiKeyField.setText(provider != null && provider.apiKey() != null ? provider.apiKey() : "");
+        apiKeyField.setPromptText("Optional for local servers");
+        apiKeyField.setFont(Theme.FONT_SETTINGS);
+        apiKeyField.setStyle(modelField.getStyle());
+
+        apiFields = new VBox(8, createLabel("Model:"), modelField, createLabel("API Key:"), apiKeyField);
+        this.getChildren().add(apiFields);
+
+        nativeChatBox.selectedProperty().addListener((obs, o, n) -> updateMode());
+        updateMode();
+    }
+
+    private void updateMode() {
+        var nativeChat = nativeChatBox.isSelected();
+        apiFields.setVisible(nativeChat);
+        apiFields.setManaged(nativeChat);
+        hintLabel.setText(nativeChat
+                ? "API base URL, e.g. http://localhost:11434/v1"
+                : "Icon and color will be automatically extracted from the website");
+        if (getScene() != null && getScene().getWindow() != null) {
+            getScene().getWindow().sizeToScene();
+        }
+    }
+
+    public boolean isNativeChatSelected() {
+        return nativeChatBox.isSelected();
+    }
+
+    public String getModelFieldValue() {
+        return modelField.getText().trim();
+    }
+
+    public String getApiKeyFieldValue() {
+        return apiKeyField.getText().trim();
     }
 
     public String getNameFieldValue() {
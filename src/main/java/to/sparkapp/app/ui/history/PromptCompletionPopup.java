@@ -0,0 +1,156 @@
+package to.sparkapp.app.ui.history;
+
+import javafx.geometry.Insets;
+import javafx.scene.Cursor;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.stage.Popup;
+import to.sparkapp.app.history.PromptHistory;
+import to.sparkapp.app.ui.Theme;
+
+import java.util.List;
+
+/**
+ * Drop-down with earlier prompts for a text field.
+ *
+ * <p>Suggestions appear while typing; Up/Down select, Tab or Enter on a selected row accepts,
+ * Esc closes. Enter without a selection is left to the field, so submitting is unchanged.
+ */
+public class PromptCompletionPopup extends Popup {
+
+    private static final int MAX_SUGGESTIONS = 6;
+    private static final int MIN_QUERY_LENGTH = 2;
+    private static final int MAX_LABEL_CHARS = 90;
+
+    private final TextField field;
+    private final PromptHistory history;
+    private final VBox rows = new VBox();
+
+    private List<String> suggestions = List.of();
+    private int selected = -1;
+    private boolean applying = false;
+
+    private PromptCompletionPopup(TextField field, PromptHistory history) {
+        this.field = field;
+        this.history = history;
+
+        setAutoHide(true);
+        setAutoFix(true);
+
+        rows.setPadding(new Insets(4));
+        rows.setStyle(
+                "-fx-background-color: " + Theme.toHex(Theme.BG_POPUP) + ";" +
+                        "-fx-background-radius: 8;" +
+                        "-fx-border-color: " + Theme.toHex(Theme.BORDER) + ";" +
+                        "-fx-border-radius: 8;"
+        );
+        getContent().add(rows);
+
+        field.textProperty().addListener((obs, o, n) -> refresh());
+        field.focusedProperty().addListener((obs, o, focused) -> {
+            if (!focused) {
+                hide();
+            }
+        });
+        field.addEventFilter(KeyEvent.KEY_PRESSED, this::handleKey);
+    }
+
+    /** Adds prompt completion to {@code field}. */
+    public static void attach(TextField field, PromptHistory history) {
+        if (history != null) {
+            new PromptCompletionPopup(field, history);
+        }
+    }
+
+    private void handleKey(KeyEvent e) {
+        if (!isShowing()) {
+            return;
+        }
+        switch (e.getCode()) {
+            case DOWN -> select(Math.min(selected + 1, suggestions.size() - 1));
+            case UP -> select(Math.max(selected - 1, -1));
+            case TAB -> accept(Math.max(selected, 0));
+            case ENTER -> {
+                if (selected < 0) {
+                    hide();
+                    return;
+                }
+                accept(selected);
+            }
+            case ESCAPE -> hide();
+            default -> {
+                return;
+            }
+        }
+        e.consume();
+    }
+
+    private void refresh() {
+        if (applying) {
+            return;
+        }
+
+        var text = field.getText();
+        suggestions = text == null || text.strip().length() < MIN_QUERY_LENGTH
+                ? List.of()
+                : history.complete(text, MAX_SUGGESTIONS);
+        selected = -1;
+
+        if (suggestions.isEmpty() || field.getScene() == null || !field.isFocused()) {
+            hide();
+            return;
+        }
+
+        rows.getChildren().clear();
+        for (int i = 0; i < suggestions.size(); i++) {
+            rows.getChildren().add(createRow(i));
+        }
+        rows.setPrefWidth(field.getWidth());
+
+        var bounds = field.localToScreen(field.getBoundsInLocal());
+        if (bounds != null) {
+            show(field, bounds.getMinX(), bounds.getMaxY() + 4);
+        }
+    }
+
+    private Label createRow(int index) {
+        var text = suggestions.get(index).replaceAll("\\s+", " ");
+        if (text.length() > MAX_LABEL_CHARS) {
+            text = text.substring(0, MAX_LABEL_CHARS) + "…";
+        }
+
+        var row = new Label(text);
+        row.setFont(Font.font(Theme.FONT_NAME, 13));
+        row.setTextFill(Theme.TEXT_PRIMARY);
+        row.setPadding(new Insets(6, 10, 6, 10));
+        row.setMaxWidth(Double.MAX_VALUE);
+        row.setCursor(Cursor.HAND);
+        row.setStyle("-fx-background-radius: 6;");
+        row.setOnMouseEntered(e -> select(index));
+        row.setOnMouseClicked(e -> accept(index));
+        return row;
+    }
+
+    private void select(int index) {
+        selected = index;
+        for (int i = 0; i < rows.getChildren().size(); i++) {
+            rows.getChildren().get(i).setStyle("-fx-background-radius: 6;" + (i == index
+                    ? "-fx-background-color: " + Theme.toHex(Theme.BG_HOVER) + ";"
+                    : ""));
+        }
+    }
+
+    private void accept(int index) {
+        if (index < 0 || index >= suggestions.size()) {
+            return;
+        }
+        applying = true;
+        field.setText(suggestions.get(index));
+        field.positionCaret(field.getText().length());
+        applying = false;
+        hide();
+    }
+}
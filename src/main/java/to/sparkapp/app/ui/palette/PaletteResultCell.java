@@ -0,0 +1,65 @@
+package to.sparkapp.app.ui.palette;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import to.sparkapp.app.palette.PaletteItem;
+import to.sparkapp.app.ui.Theme;
+
+/** One palette result: title, subtitle and what kind of entry it is. */
+public class PaletteResultCell extends ListCell<PaletteItem> {
+
+    public static final double HEIGHT = 46;
+
+    private final Label title = new Label();
+    private final Label subtitle = new Label();
+    private final Label kind = new Label();
+    private final HBox row;
+
+    public PaletteResultCell() {
+        title.setFont(Font.font(Theme.FONT_NAME, 14));
+        title.setTextFill(Theme.TEXT_PRIMARY);
+        subtitle.setFont(Font.font(Theme.FONT_NAME, 11));
+        subtitle.setTextFill(Theme.TEXT_TERTIARY);
+        kind.setFont(Font.font(Theme.FONT_NAME, 11));
+        kind.setTextFill(Theme.TEXT_SECONDARY);
+
+        var text = new VBox(2, title, subtitle);
+        text.setAlignment(Pos.CENTER_LEFT);
+        HBox.setHgrow(text, Priority.ALWAYS);
+
+        row = new HBox(10, text, kind);
+        row.setAlignment(Pos.CENTER_LEFT);
+        row.setPadding(new Insets(0, 12, 0, 12));
+
+        selectedProperty().addListener((obs, was, selected) -> updateBackground());
+        updateBackground();
+    }
+
+    @Override
+    protected void updateItem(PaletteItem item, boolean empty) {
+        super.updateItem(item, empty);
+
+        if (empty || item == null) {
+            setGraphic(null);
+            return;
+        }
+
+        title.setText(item.title());
+        subtitle.setText(item.subtitle());
+        subtitle.setManaged(!item.subtitle().isEmpty());
+        subtitle.setVisible(!item.subtitle().isEmpty());
+        kind.setText(item.kind().label());
+        setGraphic(row);
+    }
+
+    private void updateBackground() {
+        setStyle("-fx-padding: 0; -fx-background-radius: 8; -fx-background-color: "
+                + (isSelected() ? Theme.toHex(Theme.BG_HOVER) : "transparent") + ";");
+    }
+}
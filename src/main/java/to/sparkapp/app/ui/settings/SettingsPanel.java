@@ -5,10 +5,10 @@ import to.sparkapp.app.config.AppPreferences;
 import to.sparkapp.app.ui.Theme;
 import to.sparkapp.app.ui.settings.components.*;
 import to.sparkapp.app.utils.GlobalHotkeyManager;
-import to.sparkapp.app.utils.UpdateChecker;
-import javafx.application.Platform;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Node;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import lombok.Setter;
@@ -31,6 +31,8 @@ public class SettingsPanel extends VBox {
     private Runnable onProvidersChanged;
     @Setter
     private Consumer<Boolean> onAutoUpdateChanged;
+    @Setter
+    private Runnable onSearchConversations;
 
     private final AppPreferences appPreferences;
     private final AiConfiguration aiConfiguration;
@@ -43,17 +45,6 @@ public class SettingsPanel extends VBox {
 
         initLayout();
         buildUI();
-
-        if (appPreferences.isCheckUpdatesOnStartupEnabled()) {
-            Platform.runLater(() -> {
-                var scene = this.getScene();
-                if (scene != null) {
-                    UpdateChecker.check(scene.getWindow());
-                } else {
-                    UpdateChecker.check(null);
-                }
-            });
-        }
     }
 
     private void initLayout() {
@@ -88,6 +79,10 @@ public class SettingsPanel extends VBox {
         });
         this.getChildren().add(clearCookiesBtn);
 
+        addStrut(16);
+
+        buildHistorySection();
+
         addStrut(SECTION_GAP);
 
         this.getChildren().add(new GithubLinkPanel());
@@ -139,6 +134,11 @@ public class SettingsPanel extends VBox {
     private void buildHotkeySection() {
         addSectionHeader("Global Hotkey");
         this.getChildren().add(new HotkeySection(appPreferences, hotkeyManager));
+        addStrut(ROW_GAP);
+
+        addToggleRow("Open Spark when a quick-ask answer starts",
+                appPreferences.isQuickAskRevealOnAnswer(),
+                appPreferences::setQuickAskRevealOnAnswer);
     }
 
     private void buildBrowserSection() {
@@ -151,6 +151,26 @@ public class SettingsPanel extends VBox {
                 appPreferences::setDarkModeEnabled);
     }
 
+    private void buildHistorySection() {
+        addSectionHeader("History");
+
+        addToggleRow("Save conversations for local search (restart required)",
+                appPreferences.isConversationCaptureEnabled(),
+                appPreferences::setConversationCaptureEnabled);
+
+        addToggleRow("Remember sent prompts for completion (restart required)",
+                appPreferences.isPromptHistoryEnabled(),
+                appPreferences::setPromptHistoryEnabled);
+
+        var searchRow = new HBox(new AnimatedSettingsButton("Search conversations", () -> {
+            if (onSearchConversations != null) {
+                onSearchConversations.run();
+            }
+        }));
+        searchRow.setAlignment(Pos.CENTER_LEFT);
+        this.getChildren().add(searchRow);
+    }
+
     private void addSectionHeader(String title) {
         this.getChildren().add(new SettingsSection(title));
         addStrut(10);
@@ -14,7 +14,10 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontPosture;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class HotkeySection extends VBox {
 
@@ -22,33 +25,49 @@ public class HotkeySection extends VBox {
         this.setAlignment(Pos.CENTER_LEFT);
         this.setMaxWidth(Double.MAX_VALUE);
 
-        var mainRow = new HBox();
-        mainRow.setAlignment(Pos.CENTER_LEFT);
-        mainRow.setMaxWidth(Double.MAX_VALUE);
+        this.getChildren().add(buildHotkeyRow("Toggle Window Shortcut", hotkeyManager,
+                appPreferences::getHotkeyToStartApplication,
+                hotkeyManager != null ? hotkeyManager::startRecording : null,
+                hotkeyManager != null ? hotkeyManager::clearHotkey : null));
 
-        mainRow.getChildren().add(buildLabel("Toggle Window Shortcut"));
+        var rowSpacer = new Region();
+        rowSpacer.setMinHeight(8);
+        this.getChildren().add(rowSpacer);
+
+        this.getChildren().add(buildHotkeyRow("Quick Ask Shortcut", hotkeyManager,
+                appPreferences::getHotkeyQuickAsk,
+                hotkeyManager != null ? hotkeyManager::startRecordingQuickAsk : null,
+                hotkeyManager != null ? hotkeyManager::clearQuickAskHotkey : null));
+
+        if (SystemUtils.isMac() && (hotkeyManager == null || !hotkeyManager.isInitialized())) {
+            var verticalSpacer = new Region();
+            verticalSpacer.setMinHeight(8);
+            this.getChildren().addAll(verticalSpacer, buildPermissionWarning());
+        }
+    }
+
+    private HBox buildHotkeyRow(String title, GlobalHotkeyManager hotkeyManager, Supplier<List<Integer>> current,
+                                Consumer<Runnable> startRecording, Runnable clear) {
+        var row = new HBox();
+        row.setAlignment(Pos.CENTER_LEFT);
+        row.setMaxWidth(Double.MAX_VALUE);
+
+        row.getChildren().add(buildLabel(title));
 
         var spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
-        mainRow.getChildren().add(spacer);
+        row.getChildren().add(spacer);
 
         if (hotkeyManager != null && hotkeyManager.isInitialized()) {
-            var hotkeyRecordButton = buildHotkeyRecordButton(appPreferences, hotkeyManager);
-            var resetBtn = buildResetHotkeyButton(hotkeyManager, hotkeyRecordButton);
+            var hotkeyRecordButton = buildHotkeyRecordButton(current, startRecording);
+            var resetBtn = buildResetHotkeyButton(clear, hotkeyRecordButton);
 
             HBox.setMargin(resetBtn, new javafx.geometry.Insets(0, 0, 0, 8));
-            mainRow.getChildren().addAll(hotkeyRecordButton, resetBtn);
+            row.getChildren().addAll(hotkeyRecordButton, resetBtn);
         } else {
-            mainRow.getChildren().add(buildLabel("Disabled"));
-        }
-
-        this.getChildren().add(mainRow);
-
-        if (SystemUtils.isMac() && (hotkeyManager == null || !hotkeyManager.isInitialized())) {
-            var verticalSpacer = new Region();
-            verticalSpacer.setMinHeight(8);
-            this.getChildren().addAll(verticalSpacer, buildPermissionWarning());
+            row.getChildren().add(buildLabel("Disabled"));
         }
+        return row;
     }
 
     private Label buildLabel(String text) {
@@ -72,8 +91,8 @@ public class HotkeySection extends VBox {
         return warningPanel;
     }
 
-    private AnimatedSettingsButton buildHotkeyRecordButton(AppPreferences appPreferences, GlobalHotkeyManager hotkeyManager) {
-        var currentHotkey = GlobalHotkeyManager.getHotkeyText(appPreferences.getHotkeyToStartApplication());
+    private AnimatedSettingsButton buildHotkeyRecordButton(Supplier<List<Integer>> current, Consumer<Runnable> startRecording) {
+        var currentHotkey = GlobalHotkeyManager.getHotkeyText(current.get());
         var initialText = currentHotkey.isEmpty() ? "Click to Record" : currentHotkey;
         var btnRef = new AtomicReference<AnimatedSettingsButton>();
 
@@ -81,8 +100,8 @@ public class HotkeySection extends VBox {
             var button = btnRef.get();
             if (button != null) {
                 button.setText("Press keys... (Esc to cancel)");
-                hotkeyManager.startRecording(() -> {
-                    var newHotkey = GlobalHotkeyManager.getHotkeyText(appPreferences.getHotkeyToStartApplication());
+                startRecording.accept(() -> {
+                    var newHotkey = GlobalHotkeyManager.getHotkeyText(current.get());
                     javafx.application.Platform.runLater(() -> button.setText(newHotkey));
                 });
             }
@@ -93,15 +112,13 @@ public class HotkeySection extends VBox {
         return hotkeyRecordBtn;
     }
 
-    private ColorfulButton buildResetHotkeyButton(GlobalHotkeyManager hotkeyManager, AnimatedSettingsButton hotkeyRecordButton) {
+    private ColorfulButton buildResetHotkeyButton(Runnable clear, AnimatedSettingsButton hotkeyRecordButton) {
         var resetColor = Color.rgb(255, 94, 91);
         var buttonText = SystemUtils.isWindows() ? "X" : "✖";
 
         return new ColorfulButton(buttonText, resetColor, () -> {
-            if (hotkeyManager != null) {
-                hotkeyManager.clearHotkey();
-                hotkeyRecordButton.setText("None");
-            }
+            clear.run();
+            hotkeyRecordButton.setText("None");
         });
     }
 }
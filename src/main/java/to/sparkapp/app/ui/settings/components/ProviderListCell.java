@@ -0,0 +1,35 @@
+package to.sparkapp.app.ui.settings.components;
+
+import javafx.scene.control.ListCell;
+import to.sparkapp.app.config.AiConfiguration;
+
+import java.util.function.Consumer;
+
+/**
+ * Recycled cell of the providers list; each cell keeps one {@link ProviderListItem}
+ * and only swaps the provider it shows.
+ */
+class ProviderListCell extends ListCell<AiConfiguration.AiConfig> {
+
+    static final double ROW_GAP = 4;
+
+    private final ProviderListItem item;
+
+    ProviderListCell(Consumer<AiConfiguration.AiConfig> onEdit, Consumer<AiConfiguration.AiConfig> onDelete) {
+        item = new ProviderListItem(onEdit, onDelete);
+        setStyle("-fx-background-color: transparent; -fx-padding: 0 0 " + ROW_GAP + " 0;");
+    }
+
+    @Override
+    protected void updateItem(AiConfiguration.AiConfig provider, boolean empty) {
+        super.updateItem(provider, empty);
+
+        if (empty || provider == null) {
+            setGraphic(null);
+            return;
+        }
+
+        item.setProvider(provider);
+        setGraphic(item);
+    }
+}
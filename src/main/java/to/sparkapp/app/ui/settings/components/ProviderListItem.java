@@ -9,15 +9,30 @@ import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 
+import java.util.function.Consumer;
+
+/**
+ * One row of the providers list. Rows are recycled by the list, so the shown
+ * provider is swapped with {@link #setProvider}.
+ */
 class ProviderListItem extends BorderPane {
 
-    public ProviderListItem(AiConfiguration.AiConfig provider, Runnable onEdit, Runnable onDelete) {
+    static final double ITEM_HEIGHT = SystemUtils.isWindows() ? 40 : 50;
+
+    private final Rectangle colorStrip = new Rectangle(4, 32);
+    private final Label nameLabel = new Label();
+    private final Label urlLabel = new Label();
+
+    private AiConfiguration.AiConfig provider;
+
+    public ProviderListItem(Consumer<AiConfiguration.AiConfig> onEdit, Consumer<AiConfiguration.AiConfig> onDelete) {
         this.setStyle("""
                     -fx-border-color: %s;
                     -fx-border-width: 1;
@@ -25,62 +40,57 @@ class ProviderListItem extends BorderPane {
                 """.formatted(Theme.toHex(Theme.BORDER)));
         this.setPadding(new Insets(8, 12, 8, 12));
 
-        double itemHeight = SystemUtils.isWindows() ? 40 : 50;
-        this.setMaxHeight(itemHeight);
-        this.setMinHeight(itemHeight);
+        this.setMaxHeight(ITEM_HEIGHT);
+        this.setMinHeight(ITEM_HEIGHT);
 
-        this.setLeft(createColorStrip(provider.color()));
+        this.setLeft(createColorStrip());
 
-        var infoPanel = createInfoPanel(provider);
+        var infoPanel = createInfoPanel();
         BorderPane.setMargin(infoPanel, new Insets(0, 0, 0, 12));
         this.setCenter(infoPanel);
 
-        this.setRight(createActionButtons(onEdit, onDelete));
+        this.setRight(createActionButtons(() -> onEdit.accept(provider), () -> onDelete.accept(provider)));
     }
 
-    private Node createColorStrip(String colorHex) {
-        var rect = new Rectangle(4, 32);
-        rect.setArcWidth(4);
-        rect.setArcHeight(4);
+    public void setProvider(AiConfiguration.AiConfig provider) {
+        this.provider = provider;
 
         try {
-            rect.setFill(Color.web(colorHex));
+            colorStrip.setFill(Color.web(provider.color()));
         } catch (Exception e) {
-            rect.setFill(Theme.ACCENT);
+            colorStrip.setFill(Theme.ACCENT);
         }
 
+        nameLabel.setText(provider.name());
+        urlLabel.setText(SystemUtils.isWindows() ? " (" + provider.url() + ")" : provider.url());
+    }
+
+    private Node createColorStrip() {
+        colorStrip.setArcWidth(4);
+        colorStrip.setArcHeight(4);
+
         // Wrap in a VBox to center it vertically
-        var container = new VBox(rect);
+        var container = new VBox(colorStrip);
         container.setAlignment(Pos.CENTER);
         return container;
     }
 
-    private Node createInfoPanel(AiConfiguration.AiConfig provider) {
-        var nameLabel = new Label(provider.name());
+    private Node createInfoPanel() {
         nameLabel.setFont(Font.font(Theme.FONT_SETTINGS.getFamily(), FontWeight.BOLD, Theme.FONT_SETTINGS.getSize()));
         nameLabel.setTextFill(Theme.TEXT_PRIMARY);
 
-        if (SystemUtils.isWindows()) {
-            var infoPanel = new HBox();
-            infoPanel.setAlignment(Pos.CENTER_LEFT);
-
-            var urlLabel = new Label(" (" + provider.url() + ")");
-            urlLabel.setFont(Font.font(Theme.FONT_SETTINGS.getFamily(), 11));
-            urlLabel.setTextFill(Theme.TEXT_TERTIARY);
-
-            infoPanel.getChildren().addAll(nameLabel, urlLabel);
-            return infoPanel;
-        } else {
-            var infoPanel = new VBox(2);
-            infoPanel.setAlignment(Pos.CENTER_LEFT);
+        urlLabel.setFont(Font.font(Theme.FONT_SETTINGS.getFamily(), 11));
+        urlLabel.setTextFill(Theme.TEXT_TERTIARY);
 
-            var urlLabel = new Label(provider.url());
-            urlLabel.setFont(Font.font(Theme.FONT_SETTINGS.getFamily(), 11));
-            urlLabel.setTextFill(Theme.TEXT_TERTIARY);
-
-            infoPanel.getChildren().addAll(nameLabel, urlLabel);
-            return infoPanel;
+        Pane infoPanel = SystemUtils.isWindows() ? new HBox() : new VBox(2);
+        if (infoPanel instanceof HBox hBox) {
+            hBox.setAlignment(Pos.CENTER_LEFT);
+        } else if (infoPanel instanceof VBox vBox) {
+            vBox.setAlignment(Pos.CENTER_LEFT);
         }
+
+        infoPanel.getChildren().addAll(nameLabel, urlLabel);
+        return infoPanel;
     }
 
     private Node createActionButtons(Runnable onEdit, Runnable onDelete) {
@@ -9,7 +9,7 @@ import javafx.scene.layout.Region;
 
 class ProvidersListHeader extends HBox {
 
-    ProvidersListHeader(Runnable action) {
+    ProvidersListHeader(Runnable onAdd, Runnable onImport) {
         this.setAlignment(Pos.CENTER_LEFT);
 
         var titleLabel = new Label("AI PROVIDERS");
@@ -19,8 +19,10 @@ class ProvidersListHeader extends HBox {
         var spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
-        var addButton = new ProvidersListTextButton("+ Add", Theme.ACCENT, action);
+        var importButton = new ProvidersListTextButton("Import…", Theme.TEXT_SECONDARY, onImport);
+        var addButton = new ProvidersListTextButton("+ Add", Theme.ACCENT, onAdd);
 
-        this.getChildren().addAll(titleLabel, spacer, addButton);
+        this.setSpacing(12);
+        this.getChildren().addAll(titleLabel, spacer, importButton, addButton);
     }
 }
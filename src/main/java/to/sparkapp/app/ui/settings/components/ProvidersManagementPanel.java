@@ -3,21 +3,34 @@ package to.sparkapp.app.ui.settings.components;
 import javafx.stage.Stage;
 import to.sparkapp.app.config.AiConfiguration;
 import to.sparkapp.app.config.CustomAiProvidersManager;
+import to.sparkapp.app.config.ProviderImporter;
 import to.sparkapp.app.windows.FrameUtils;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
+import javafx.scene.Node;
+import javafx.scene.control.ListView;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
 import java.util.function.Consumer;
 
+/**
+ * Provider list of the settings. Rows live in a virtualised {@link ListView}, so only the
+ * visible providers have nodes no matter how many are configured.
+ */
+@Slf4j
 public class ProvidersManagementPanel extends VBox {
 
+    private static final int MAX_VISIBLE_ROWS = 8;
+
     private final CustomAiProvidersManager providersManager;
     private final Consumer<Void> onProvidersChanged;
-    private final VBox listContainer;
+    private final ListView<AiConfiguration.AiConfig> providersList = new ListView<>();
+    private final ProvidersEmptyListLabel emptyLabel = new ProvidersEmptyListLabel();
 
     public ProvidersManagementPanel(CustomAiProvidersManager providersManager, Consumer<Void> onProvidersChanged) {
         this.providersManager = providersManager;
@@ -26,37 +39,46 @@ public class ProvidersManagementPanel extends VBox {
         this.setPadding(new Insets(0, 0, 12, 0));
         this.setSpacing(8); // Gap between header and list
 
-        this.getChildren().add(new ProvidersListHeader(this::openAddDialog));
+        this.getChildren().add(new ProvidersListHeader(this::openAddDialog, this::openImportDialog));
 
-        listContainer = new VBox();
-        listContainer.setSpacing(4);
-        this.getChildren().add(listContainer);
+        providersList.setFixedCellSize(ProviderListItem.ITEM_HEIGHT + ProviderListCell.ROW_GAP);
+        providersList.setFocusTraversable(false);
+        providersList.setSelectionModel(null);
+        providersList.setStyle("-fx-background-color: transparent; -fx-control-inner-background: transparent; -fx-padding: 0;");
+        providersList.setCellFactory(list -> new ProviderListCell(this::openEditDialog, this::confirmAndDelete));
+        this.getChildren().add(providersList);
 
         refreshProvidersList();
+        // Also catches changes made outside this panel, e.g. an edited providers.json.
+        providersManager.getRepository().addListener(snapshot -> Platform.runLater(this::refreshProvidersList));
     }
 
     private void refreshProvidersList() {
-        listContainer.getChildren().clear();
         var allProviders = providersManager.loadProviders();
 
         if (allProviders.isEmpty()) {
-            listContainer.getChildren().add(new ProvidersEmptyListLabel());
+            showList(emptyLabel);
         } else {
             fillProviderList(allProviders);
+            showList(providersList);
         }
     }
 
-    private void fillProviderList(List<AiConfiguration.AiConfig> allProviders) {
-        for (var provider : allProviders) {
-            var itemPanel = new ProviderListItem(
-                    provider,
-                    () -> openEditDialog(provider),
-                    () -> confirmAndDelete(provider)
-            );
-            listContainer.getChildren().add(itemPanel);
+    private void showList(Node node) {
+        if (this.getChildren().get(1) != node) {
+            this.getChildren().set(1, node);
         }
     }
 
+    private void fillProviderList(List<AiConfiguration.AiConfig> allProviders) {
+        providersList.getItems().setAll(allProviders);
+
+        var height = Math.min(allProviders.size(), MAX_VISIBLE_ROWS) * providersList.getFixedCellSize() + 2;
+        providersList.setPrefHeight(height);
+        providersList.setMinHeight(height);
+        providersList.setMaxHeight(height);
+    }
+
     private void openAddDialog() {
         var owner = FrameUtils.getOwnerStage(this);
         var dialog = new to.sparkapp.app.ui.dialogs.ProviderEditDialog(owner, null);
@@ -66,11 +88,55 @@ public class ProvidersManagementPanel extends VBox {
             var name = dialog.getProviderName();
             var url = dialog.getProviderUrl();
             var color = String.format("#%06x", (int) (Math.random() * 0xFFFFFF));
+            var type = dialog.getProviderType();
+            var model = dialog.getModel();
+            var apiKey = dialog.getApiKey();
 
-            executeAsyncOp(() -> providersManager.addCustomProvider(name, url, color));
+            executeAsyncOp(() -> providersManager.addCustomProvider(name, url, color, type, model, apiKey));
         }
     }
 
+    private void openImportDialog() {
+        var chooser = new FileChooser();
+        chooser.setTitle("Import Providers");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Provider lists and bookmarks", "*.json", "*.csv", "*.html", "*.htm"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+
+        var file = chooser.showOpenDialog(FrameUtils.getOwnerStage(this));
+        if (file == null) {
+            return;
+        }
+
+        new Thread(() -> {
+            String message;
+            try {
+                message = new ProviderImporter(providersManager).importFile(file.toPath()).summary();
+            } catch (Exception e) {
+                log.error("Failed to import providers from {}", file, e);
+                message = "Could not read " + file.getName() + ":\n" + e.getMessage();
+            }
+
+            var summary = message;
+            Platform.runLater(() -> {
+                refreshProvidersList();
+                if (onProvidersChanged != null) {
+                    onProvidersChanged.accept(null);
+                }
+                showImportResult(summary);
+            });
+        }, "provider-import-main").start();
+    }
+
+    private void showImportResult(String summary) {
+        var alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Import Providers");
+        alert.setHeaderText(null);
+        alert.setContentText(summary);
+        ((Stage) alert.getDialogPane().getScene().getWindow()).setAlwaysOnTop(true);
+        alert.show();
+    }
+
     private void openEditDialog(AiConfiguration.AiConfig provider) {
         var owner = FrameUtils.getOwnerStage(this);
         var dialog = new to.sparkapp.app.ui.dialogs.ProviderEditDialog(owner, provider);
@@ -80,7 +146,11 @@ public class ProvidersManagementPanel extends VBox {
             var name = dialog.getProviderName();
             var url = dialog.getProviderUrl();
 
-            executeAsyncOp(() -> providersManager.updateProvider(provider.id(), name, url, provider.color()));
+            var type = dialog.getProviderType();
+            var model = dialog.getModel();
+            var apiKey = dialog.getApiKey();
+
+            executeAsyncOp(() -> providersManager.updateProvider(provider.id(), name, url, provider.color(), type, model, apiKey));
         }
     }
 
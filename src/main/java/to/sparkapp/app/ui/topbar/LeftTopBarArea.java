@@ -6,12 +6,17 @@ import to.sparkapp.app.ui.webview.FxWebViewPane;
 import to.sparkapp.app.ui.topbar.components.AiDock;
 import javafx.geometry.Insets;
 import javafx.scene.layout.HBox;
+import lombok.Getter;
 
 class LeftTopBarArea extends HBox {
 
+    @Getter
+    private final AiDock dock;
+
     public LeftTopBarArea(AiConfiguration aiConfiguration, FxWebViewPane fxWebViewPane, AppPreferences appPreferences) {
         this.setStyle("-fx-background-color: transparent;");
         this.setPadding(new Insets(0, 0, 0, 15));
-        this.getChildren().add(new AiDock(aiConfiguration.getConfigurations(), fxWebViewPane, appPreferences));
+        dock = new AiDock(aiConfiguration.getConfigurations(), fxWebViewPane, appPreferences);
+        this.getChildren().add(dock);
     }
 }
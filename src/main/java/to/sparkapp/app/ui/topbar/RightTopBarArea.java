@@ -10,7 +10,7 @@ import javafx.scene.layout.HBox;
 
 class RightTopBarArea extends HBox {
 
-    public RightTopBarArea(FxWebViewPane fxWebViewPane, Runnable onSettingsToggle, Runnable onCloseWindow) {
+    public RightTopBarArea(FxWebViewPane fxWebViewPane, Runnable onCompareToggle, Runnable onSettingsToggle, Runnable onCloseWindow) {
         this.setAlignment(Pos.CENTER_RIGHT);
         this.setSpacing(6);
         this.setPadding(new Insets(0, 10, 0, 0));
@@ -20,9 +20,10 @@ class RightTopBarArea extends HBox {
         fxWebViewPane.setZoomCallback(zoomButton::updateZoomDisplay);
         HBox.setMargin(zoomButton, new Insets(0, 9, 0, 0));
 
+        var compareButton = new AnimatedIconButton("⧉", Theme.ACCENT, onCompareToggle);
         var settingsButton = new AnimatedIconButton("⚙", Theme.BTN_HOVER_SETTINGS, onSettingsToggle);
         var closeButton = new AnimatedIconButton("✕", Theme.BTN_HOVER_CLOSE, onCloseWindow);
 
-        this.getChildren().addAll(zoomButton, settingsButton, closeButton);
+        this.getChildren().addAll(zoomButton, compareButton, settingsButton, closeButton);
     }
 }
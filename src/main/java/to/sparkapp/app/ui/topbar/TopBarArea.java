@@ -8,17 +8,19 @@ import to.sparkapp.app.ui.topbar.components.AnimatedIconButton;
 import to.sparkapp.app.ui.topbar.components.DockItemNode;
 import to.sparkapp.app.ui.topbar.components.GradientPanel;
 import to.sparkapp.app.ui.topbar.components.ZoomButton;
-import to.sparkapp.app.windows.SettingsWindow;
 import javafx.scene.Node;
 import javafx.scene.control.ButtonBase;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
+import java.util.List;
+
 public class TopBarArea extends GradientPanel {
 
     private final Stage frame;
-    private final SettingsWindow settingsWindow;
+    private final Runnable onDragStart;
+    private final LeftTopBarArea leftArea;
 
     private double initialX = Double.NaN;
     private double initialY = Double.NaN;
@@ -26,18 +28,20 @@ public class TopBarArea extends GradientPanel {
     public TopBarArea(AiConfiguration aiConfiguration,
                       FxWebViewPane fxWebViewPane,
                       Stage frame,
-                      SettingsWindow settingsWindow,
+                      Runnable onDragStart,
                       AppPreferences appPreferences,
+                      Runnable onCompareToggle,
                       Runnable onSettingsToggle,
                       Runnable onCloseWindow) {
         super();
 
         this.frame = frame;
-        this.settingsWindow = settingsWindow;
+        this.onDragStart = onDragStart;
 
         this.setPrefSize(frame.getWidth(), 48);
-        this.setLeft(new LeftTopBarArea(aiConfiguration, fxWebViewPane, appPreferences));
-        this.setRight(new RightTopBarArea(fxWebViewPane, onSettingsToggle, onCloseWindow));
+        leftArea = new LeftTopBarArea(aiConfiguration, fxWebViewPane, appPreferences);
+        this.setLeft(leftArea);
+        this.setRight(new RightTopBarArea(fxWebViewPane, onCompareToggle, onSettingsToggle, onCloseWindow));
 
         setupDragging();
 
@@ -46,6 +50,21 @@ public class TopBarArea extends GradientPanel {
         }
     }
 
+    /** Brings the dock up to date with a changed provider list without rebuilding the bar. */
+    public void updateProviders(List<AiConfiguration.AiConfig> configs) {
+        leftArea.getDock().setProviders(configs);
+    }
+
+    /** @see AiDock#applySavedOrder() */
+    public void applySavedDockOrder() {
+        leftArea.getDock().applySavedOrder();
+    }
+
+    /** @see AiDock#selectProvider(String, String) */
+    public boolean selectProvider(String id, String url) {
+        return leftArea.getDock().selectProvider(id, url);
+    }
+
     private void setupDragging() {
         this.setOnMousePressed(e -> {
             if (!isDraggableTarget((Node) e.getTarget())) {
@@ -56,9 +75,7 @@ public class TopBarArea extends GradientPanel {
             initialX = e.getSceneX();
             initialY = e.getSceneY();
 
-            if (settingsWindow != null && settingsWindow.isOpen()) {
-                settingsWindow.close();
-            }
+            onDragStart.run();
         });
 
         this.setOnMouseDragged(e -> {
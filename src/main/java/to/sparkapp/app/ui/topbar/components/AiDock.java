@@ -5,14 +5,18 @@ import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Cursor;
+import javafx.scene.Node;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Polygon;
@@ -22,51 +26,83 @@ import lombok.extern.slf4j.Slf4j;
 import to.sparkapp.app.config.AiConfiguration;
 import to.sparkapp.app.config.AppPaths;
 import to.sparkapp.app.config.AppPreferences;
+import to.sparkapp.app.config.ProviderDiff;
 import to.sparkapp.app.ui.Theme;
 import to.sparkapp.app.ui.topbar.utils.AiDockIconUtils;
 import to.sparkapp.app.ui.topbar.utils.AiDockOrderUtils;
+import to.sparkapp.app.ui.topbar.utils.IconCache;
 import to.sparkapp.app.ui.webview.FxWebViewPane;
 
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * The provider dock. It is virtualised: only the providers inside the visible part of the
+ * scroll area (and the selected one) have a {@link DockItemNode}; the rest are represented
+ * by spacers of the same width, and nodes that scroll out are recycled for the ones that
+ * scroll in. Collapsed, the dock needs a single node however many providers there are.
+ */
 @Slf4j
 public class AiDock extends StackPane {
 
-    public static final Map<String, javafx.scene.image.Image> ICON_CACHE = new ConcurrentHashMap<>();
+    /** Decoded provider icons, shared with the loading overlay. */
+    public static final IconCache ICON_CACHE = new IconCache(64);
     public static final int ICON_SIZE = 24;
 
     static final int ITEM_HEIGHT = 32;
     static final int ITEM_MARGIN = 6;
     static final int PAD = 12;
     static final int GAP = 8;
+    static final double COLLAPSED_WIDTH = PAD + ICON_SIZE + PAD;
 
     private static final int MAX_DOCK_WIDTH = 500;
     private static final int ARROW_WIDTH = 22;
     private static final double SCROLL_STEP = 0.12;
     private static final double HOLD_SCROLL_RATE = 0.010;
+    private static final int WINDOW_BUFFER = 3;
+    private static final int MAX_POOLED_NODES = 32;
+    /** As many icons as fit an expanded dock. */
+    private static final int PRELOADED_ICONS = MAX_DOCK_WIDTH / (ICON_SIZE + GAP);
+    private static final File USER_ICONS_DIR = new File(AppPaths.DATA_DIR, "icons");
 
     private final HBox dockContainer;
     private final ScrollPane scrollPane;
-    private final List<DockItemNode> dockItems = new ArrayList<>();
     private final FxWebViewPane fxWebViewPane;
     private final AppPreferences appPreferences;
 
+    /** Providers in dock order. */
+    private final List<AiConfiguration.AiConfig> items = new ArrayList<>();
+    private final Map<String, DockItemNode> realized = new HashMap<>();
+    private final Deque<DockItemNode> pool = new ArrayDeque<>();
+    private final List<Spacer> spacers = new ArrayList<>();
+
+    /** 0 while the dock is collapsed, 1 while hovered; drives the width of the spacers. */
+    private final DoubleProperty expansion = new SimpleDoubleProperty(0);
+    private final Timeline expansionTimeline = new Timeline();
+
     private final StackPane leftArrow;
     private final StackPane rightArrow;
     private final Timeline arrowFadeTimeline = new Timeline();
 
     private DockItemNode selectedNode = null;
     private boolean isDockHovered = false;
+    private List<AiConfiguration.AiConfig> providers;
+    private int windowStart = 0;
+    private int windowEnd = 0;
 
     public AiDock(List<AiConfiguration.AiConfig> configs, FxWebViewPane fxWebViewPane, AppPreferences appPreferences) {
         this.fxWebViewPane = fxWebViewPane;
         this.appPreferences = appPreferences;
-
-        var userIconsDir = new File(AppPaths.DATA_DIR, "icons");
+        this.providers = List.copyOf(configs);
 
         this.setAlignment(Pos.CENTER_LEFT);
         this.setMaxWidth(MAX_DOCK_WIDTH);
@@ -113,43 +149,254 @@ public class AiDock extends StackPane {
 
         this.setOnMouseEntered(e -> {
             isDockHovered = true;
-            for (var item : dockItems) item.setDockHovered(true);
+            for (var item : realized.values()) item.setDockHovered(true);
+            animateExpansion(1.0);
+            updateWindow();
             Platform.runLater(this::updateArrowVisibility);
         });
         this.setOnMouseExited(e -> {
             isDockHovered = false;
-            for (var item : dockItems) item.setDockHovered(false);
+            for (var item : realized.values()) item.setDockHovered(false);
+            animateExpansion(0.0);
             fadeArrows(0.0, 0.0);
         });
 
+        expansion.addListener((obs, old, val) -> updateSpacerWidths());
         scrollPane.hvalueProperty().addListener((obs, old, val) -> {
+            updateWindow();
             if (isDockHovered) refreshArrowOpacity();
         });
+        scrollPane.viewportBoundsProperty().addListener((obs, old, val) -> updateWindow());
         dockContainer.widthProperty().addListener((obs, old, val) -> {
+            updateWindow();
             if (isDockHovered) Platform.runLater(this::updateArrowVisibility);
         });
 
-        var orderedConfigs = AiDockOrderUtils.applyCustomOrder(configs, appPreferences);
+        items.addAll(AiDockOrderUtils.applyCustomOrder(configs, appPreferences));
         var lastUrl = appPreferences.getLastUrl();
         int initialIndex = 0;
 
         if (lastUrl != null) {
-            for (int i = 0; i < orderedConfigs.size(); i++) {
-                if (orderedConfigs.get(i).url().equals(lastUrl)) {
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i).url().equals(lastUrl)) {
                     initialIndex = i;
                     break;
                 }
             }
         }
 
-        for (var config : orderedConfigs) {
-            AiDockIconUtils.preloadIcon(config, userIconsDir);
-            var node = new DockItemNode(config, this);
-            dockItems.add(node);
-            dockContainer.getChildren().add(node);
+        if (!items.isEmpty()) {
+            selectItem(nodeFor(items.get(initialIndex)));
         }
+        render();
+    }
+
+    /** Hands the provider's icon to {@code onLoaded} on the FX thread, decoding it in the background if needed. */
+    void requestIcon(AiConfiguration.AiConfig config, Consumer<javafx.scene.image.Image> onLoaded) {
+        AiDockIconUtils.loadIconAsync(config, USER_ICONS_DIR, onLoaded);
+    }
+
+    /** Shows a new provider list by applying its difference to the current one. */
+    public void setProviders(List<AiConfiguration.AiConfig> configs) {
+        applyDiff(ProviderDiff.compute(providers, configs));
+        providers = List.copyOf(configs);
+    }
 
-        if (!dockItems.isEmpty()) selectItem(dockItems.get(initialIndex));
+    /** Re-sorts the dock after the saved order was changed from outside the dock. */
+    public void applySavedOrder() {
+        var ordered = AiDockOrderUtils.applyCustomOrder(List.copyOf(items), appPreferences);
+        if (!ordered.equals(items)) {
+            items.clear();
+            items.addAll(ordered);
+            render();
+        }
+    }
+
+    /**
+     * Updates the dock in place: removed providers release their node, changed ones that are
+     * on screen are refreshed and everything else keeps its node, state and animation.
+     */
+    public void applyDiff(ProviderDiff diff) {
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        var byId = new HashMap<String, AiConfiguration.AiConfig>();
+        for (var config : items) {
+            byId.put(config.id(), config);
+        }
+        for (var id : diff.removed()) {
+            byId.remove(id);
+            var node = realized.get(id);
+            if (node != null && node != selectedNode) {
+                recycle(node);
+            }
+        }
+
+        var selectionChanged = false;
+        for (var config : diff.changed()) {
+            byId.put(config.id(), config);
+            var node = realized.get(config.id());
+            if (node == null) {
+                continue;
+            }
+            var old = node.getConfig();
+            node.update(config);
+            if (node == selectedNode) {
+                selectionChanged = true;
+                if (ProviderDiff.changesContent(old, config)) {
+                    fxWebViewPane.setCurrentConfig(config);
+                }
+            }
+        }
+        for (var config : diff.added()) {
+            byId.put(config.id(), config);
+        }
+
+        var configs = diff.order().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        items.clear();
+        items.addAll(AiDockOrderUtils.applyCustomOrder(configs, appPreferences));
+
+        if (selectedNode != null && !byId.containsKey(selectedNode.getConfig().id())) {
+            recycle(selectedNode);
+            selectedNode = null;
+            if (!items.isEmpty()) {
+                selectItem(nodeFor(items.getFirst()));
+            }
+        } else if (selectionChanged) {
+            updateTopBarColor();
+        }
+
+        windowEnd = Math.min(windowEnd, items.size());
+        windowStart = Math.min(windowStart, windowEnd);
+        updateWindow();
+        render();
+
+        log.debug("Dock updated: +{} -{} ~{}{}", diff.added().size(), diff.removed().size(),
+                diff.changed().size(), diff.reordered() ? ", reordered" : "");
+    }
+
+    private void animateExpansion(double target) {
+        expansionTimeline.stop();
+        expansionTimeline.getKeyFrames().setAll(new KeyFrame(Duration.millis(200),
+                new KeyValue(expansion, target)));
+        // Once collapsed, the hidden providers no longer need nodes
+        expansionTimeline.setOnFinished(e -> updateWindow());
+        expansionTimeline.play();
+    }
+
+    /**
+     * Works out which providers are inside the visible part of the dock, plus a few on each
+     * side, and re-renders if that range changed.
+     */
+    private void updateWindow() {
+        int start = 0;
+        int end = 0;
+
+        if (isDockHovered || expansion.get() > 0) {
+            var slot = COLLAPSED_WIDTH + ITEM_MARGIN;
+            var viewport = scrollPane.getViewportBounds().getWidth();
+            if (viewport <= 0) {
+                viewport = MAX_DOCK_WIDTH;
+            }
+            var offset = scrollPane.getHvalue() * Math.max(0, dockContainer.getWidth() - viewport);
+
+            start = Math.max(0, (int) (offset / slot) - WINDOW_BUFFER);
+            end = Math.min(items.size(), start + (int) Math.ceil(viewport / slot) + 2 * WINDOW_BUFFER);
+        }
+
+        if (start != windowStart || end != windowEnd) {
+            windowStart = start;
+            windowEnd = end;
+            render();
+        }
+    }
+
+    /** Lays out the realized nodes of the current window with spacers standing in for the rest. */
+    private void render() {
+        var indices = new TreeSet<Integer>();
+        for (int i = windowStart; i < windowEnd; i++) {
+            indices.add(i);
+        }
+        var selectedIndex = selectedNode != null ? items.indexOf(selectedNode.getConfig()) : -1;
+        if (selectedIndex >= 0) {
+            indices.add(selectedIndex);
+        }
+
+        var needed = new HashSet<String>();
+        for (var index : indices) {
+            needed.add(items.get(index).id());
+        }
+        for (var node : List.copyOf(realized.values())) {
+            if (!needed.contains(node.getConfig().id())) {
+                recycle(node);
+            }
+        }
+
+        var children = new ArrayList<Node>();
+        var spacerCount = 0;
+        var previous = -1;
+        for (var index : indices) {
+            var gap = index - previous - 1;
+            if (gap > 0) {
+                children.add(spacer(spacerCount++, gap));
+            }
+            children.add(nodeFor(items.get(index)));
+            previous = index;
+        }
+        var trailing = items.size() - previous - 1;
+        if (trailing > 0) {
+            children.add(spacer(spacerCount++, trailing));
+        }
+
+        if (!children.equals(dockContainer.getChildren())) {
+            dockContainer.getChildren().setAll(children);
+        }
+    }
+
+    private DockItemNode nodeFor(AiConfiguration.AiConfig config) {
+        var node = realized.get(config.id());
+        if (node != null) {
+            if (!node.getConfig().equals(config)) {
+                node.update(config);
+            }
+            return node;
+        }
+
+        node = pool.poll();
+        if (node == null) {
+            node = new DockItemNode(config, this, isDockHovered);
+        } else {
+            node.bind(config, false, isDockHovered);
+        }
+        realized.put(config.id(), node);
+        return node;
+    }
+
+    private void recycle(DockItemNode node) {
+        realized.remove(node.getConfig().id());
+        if (pool.size() < MAX_POOLED_NODES) {
+            pool.push(node);
+        }
+    }
+
+    private Spacer spacer(int slot, int providerCount) {
+        if (slot == spacers.size()) {
+            spacers.add(new Spacer());
+        }
+        var spacer = spacers.get(slot);
+        spacer.providerCount = providerCount;
+        spacer.updateWidth(expansion.get());
+        return spacer;
+    }
+
+    private void updateSpacerWidths() {
+        for (var spacer : spacers) {
+            spacer.updateWidth(expansion.get());
+        }
     }
 
     private boolean hasOverflow() {
@@ -251,14 +498,26 @@ public class AiDock extends StackPane {
         return container;
     }
 
+    /**
+     * Starts decoding the icons the dock will show first, before the dock exists, so they are
+     * ready by the time it asks for them. Must be called on the FX thread.
+     */
+    public static void preloadIcons(List<AiConfiguration.AiConfig> configs, AppPreferences appPreferences) {
+        var ordered = AiDockOrderUtils.applyCustomOrder(configs, appPreferences);
+        for (var config : ordered.subList(0, Math.min(PRELOADED_ICONS, ordered.size()))) {
+            AiDockIconUtils.loadIconAsync(config, USER_ICONS_DIR, image -> {
+            });
+        }
+    }
+
     public static void clearIconCache() {
+        log.info("Icon cache: {}", ICON_CACHE.stats());
         ICON_CACHE.clear();
-        log.debug("Icon cache cleared");
     }
 
     public static void pruneIconCache(List<String> activeIcons) {
-        ICON_CACHE.keySet().retainAll(activeIcons);
-        log.info("Icon cache pruned, {} icons remaining", ICON_CACHE.size());
+        ICON_CACHE.retainAll(activeIcons);
+        log.info("Icon cache pruned, {}", ICON_CACHE.stats());
     }
 
     public void selectItem(DockItemNode node) {
@@ -271,32 +530,61 @@ public class AiDock extends StackPane {
         updateTopBarColor();
     }
 
+    /**
+     * Selects the provider with the given id, optionally opening one of its pages instead of its start URL.
+     *
+     * @return false if the dock does not contain the provider
+     */
+    public boolean selectProvider(String id, String url) {
+        var config = items.stream().filter(c -> c.id().equals(id)).findFirst().orElse(null);
+        if (config == null) {
+            return false;
+        }
+
+        var node = nodeFor(config);
+        if (url == null) {
+            selectItem(node);
+        } else {
+            if (selectedNode != null && selectedNode != node) selectedNode.setSelected(false);
+            selectedNode = node;
+            selectedNode.setSelected(true);
+            fxWebViewPane.openUrl(config, url);
+            if (appPreferences != null) appPreferences.setLastUrl(url);
+            updateTopBarColor();
+        }
+        render();
+        return true;
+    }
+
     public void handleDrag(DockItemNode draggedNode, double sceneX) {
         var children = dockContainer.getChildren();
-        var currentIndex = children.indexOf(draggedNode);
-        var targetIndex = currentIndex;
+        DockItemNode target = null;
 
-        for (int i = 0; i < children.size(); i++) {
-            var child = children.get(i);
+        for (var child : children) {
+            if (!(child instanceof DockItemNode node)) {
+                continue;
+            }
+            target = node;
             var bounds = child.localToScene(child.getBoundsInLocal());
             var centerX = bounds.getMinX() + bounds.getWidth() / 2;
             if (sceneX < centerX) {
-                targetIndex = i;
                 break;
-            } else if (i == children.size() - 1) {
-                targetIndex = i;
             }
         }
 
-        if (targetIndex != currentIndex) {
-            children.remove(currentIndex);
-            children.add(targetIndex, draggedNode);
-            dockItems.clear();
-            for (var child : children) {
-                if (child instanceof DockItemNode din) dockItems.add(din);
-            }
-            AiDockOrderUtils.saveCurrentOrder(dockItems, appPreferences);
+        if (target == null || target == draggedNode) {
+            return;
+        }
+
+        var currentIndex = items.indexOf(draggedNode.getConfig());
+        var targetIndex = items.indexOf(target.getConfig());
+        if (currentIndex < 0 || targetIndex < 0) {
+            return;
         }
+
+        items.add(targetIndex, items.remove(currentIndex));
+        render();
+        AiDockOrderUtils.saveCurrentOrder(items, appPreferences);
     }
 
     private void updateTopBarColor() {
@@ -318,4 +606,18 @@ public class AiDock extends StackPane {
             }
         });
     }
+
+    /** Stands in for {@link #providerCount} providers without nodes, as wide as they would be. */
+    private static final class Spacer extends Region {
+
+        private int providerCount;
+
+        private void updateWidth(double expansion) {
+            // The HBox adds one ITEM_MARGIN after the spacer, the hidden nodes would add one each
+            var width = Math.max(0, providerCount * (COLLAPSED_WIDTH * expansion + ITEM_MARGIN) - ITEM_MARGIN);
+            setMinWidth(width);
+            setPrefWidth(width);
+            setMaxWidth(width);
+        }
+    }
 }
@@ -8,6 +8,7 @@ import javafx.animation.Timeline;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Cursor;
+import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.Background;
@@ -21,10 +22,16 @@ import javafx.scene.text.Text;
 import javafx.util.Duration;
 import lombok.Getter;
 
+import java.util.Objects;
+
+/**
+ * One provider in the dock. Nodes are recycled by {@link AiDock} as the dock scrolls,
+ * so the shown provider can be swapped with {@link #bind}.
+ */
 public class DockItemNode extends HBox {
 
     @Getter
-    private final AiConfiguration.AiConfig config;
+    private AiConfiguration.AiConfig config;
     private final AiDock parentDock;
     private final Label textLabel;
     private final Timeline timeline;
@@ -33,12 +40,13 @@ public class DockItemNode extends HBox {
     private boolean isDockHovered = false;
     private boolean isItemHovered = false;
 
-    private final double expandedWidth;
+    private double expandedWidth;
     private final double iconWidth;
 
-    public DockItemNode(AiConfiguration.AiConfig config, AiDock parentDock) {
+    public DockItemNode(AiConfiguration.AiConfig config, AiDock parentDock, boolean dockHovered) {
         this.config = config;
         this.parentDock = parentDock;
+        this.isDockHovered = dockHovered;
 
         this.setHeight(AiDock.ITEM_HEIGHT);
         this.setAlignment(Pos.CENTER_LEFT);
@@ -52,16 +60,7 @@ public class DockItemNode extends HBox {
                     -fx-background-radius: %spx;
                 """.formatted(Theme.toHex(Theme.BORDER), AiDock.ITEM_HEIGHT, AiDock.ITEM_HEIGHT));
 
-        var image = AiDock.ICON_CACHE.get(config.icon());
-        if (image != null && image.getWidth() > 1) {
-            var imageView = new ImageView(image);
-            imageView.setFitWidth(AiDock.ICON_SIZE);
-            imageView.setFitHeight(AiDock.ICON_SIZE);
-            this.getChildren().add(imageView);
-        } else {
-            var circle = new Circle(AiDock.ICON_SIZE / 2.0, Color.GRAY);
-            this.getChildren().add(circle);
-        }
+        this.getChildren().add(createPlaceholderIcon());
 
         textLabel = new Label(config.name());
         textLabel.setFont(Theme.FONT_SELECTOR);
@@ -69,12 +68,8 @@ public class DockItemNode extends HBox {
         textLabel.setOpacity(0.0);
         this.getChildren().add(textLabel);
 
-        var tempText = new Text(config.name());
-        tempText.setFont(Theme.FONT_SELECTOR);
-        var textWidth = tempText.getLayoutBounds().getWidth();
-
-        this.expandedWidth = AiDock.PAD + AiDock.ICON_SIZE + AiDock.GAP + textWidth + AiDock.PAD;
-        this.iconWidth = AiDock.PAD + AiDock.ICON_SIZE + AiDock.PAD;
+        this.expandedWidth = computeExpandedWidth(config.name());
+        this.iconWidth = AiDock.COLLAPSED_WIDTH;
 
         this.setPrefWidth(0);
         this.setMaxWidth(0);
@@ -87,7 +82,76 @@ public class DockItemNode extends HBox {
         timeline = new Timeline();
 
         setupInteraction();
-        updateState();
+        updateState(false);
+        loadIcon();
+    }
+
+    /**
+     * Shows another provider in this recycled node, jumping straight to the resting
+     * state instead of animating from the previous provider's one.
+     */
+    public void bind(AiConfiguration.AiConfig newConfig, boolean selected, boolean dockHovered) {
+        this.config = newConfig;
+        this.getChildren().set(0, createPlaceholderIcon());
+        textLabel.setText(newConfig.name());
+        expandedWidth = computeExpandedWidth(newConfig.name());
+
+        isItemHovered = false;
+        isDockHovered = dockHovered;
+        applySelectionStyle(selected);
+        updateState(false);
+        loadIcon();
+    }
+
+    /**
+     * Shows the new values of the same provider in place, keeping hover, selection
+     * and any running animation.
+     */
+    public void update(AiConfiguration.AiConfig newConfig) {
+        var old = this.config;
+        this.config = newConfig;
+
+        if (!Objects.equals(old.icon(), newConfig.icon())) {
+            loadIcon();
+        }
+        if (!Objects.equals(old.name(), newConfig.name())) {
+            textLabel.setText(newConfig.name());
+            expandedWidth = computeExpandedWidth(newConfig.name());
+        }
+        if (isSelected) {
+            setSelected(true);
+        } else {
+            updateState();
+        }
+    }
+
+    // The icon is decoded off the FX thread; a grey dot stands in until it arrives.
+    private void loadIcon() {
+        var requested = config;
+        parentDock.requestIcon(requested, image -> {
+            if (config != requested) {
+                return; // recycled for another provider in the meantime
+            }
+            if (image != null && image.getWidth() > 1) {
+                var imageView = new ImageView(image);
+                imageView.setFitWidth(AiDock.ICON_SIZE);
+                imageView.setFitHeight(AiDock.ICON_SIZE);
+                this.getChildren().set(0, imageView);
+            } else {
+                this.getChildren().set(0, createPlaceholderIcon());
+            }
+        });
+    }
+
+    private static Node createPlaceholderIcon() {
+        return new Circle(AiDock.ICON_SIZE / 2.0, Color.GRAY);
+    }
+
+    private static double computeExpandedWidth(String name) {
+        var tempText = new Text(name);
+        tempText.setFont(Theme.FONT_SELECTOR);
+        var textWidth = tempText.getLayoutBounds().getWidth();
+        return AiDock.PAD + AiDock.ICON_SIZE + AiDock.GAP + textWidth + AiDock.PAD;
     }
 
     private void setupInteraction() {
@@ -121,6 +185,11 @@ public class DockItemNode extends HBox {
     }
 
     public void setSelected(boolean selected) {
+        applySelectionStyle(selected);
+        updateState();
+    }
+
+    private void applySelectionStyle(boolean selected) {
         this.isSelected = selected;
         if (selected) {
             var accent = Theme.ACCENT;
@@ -140,10 +209,13 @@ public class DockItemNode extends HBox {
                         -fx-background-radius: %dpx;
                     """.formatted(Theme.toHex(Theme.BORDER), AiDock.ITEM_HEIGHT, AiDock.ITEM_HEIGHT));
         }
-        updateState();
     }
 
     private void updateState() {
+        updateState(true);
+    }
+
+    private void updateState(boolean animate) {
         timeline.stop();
         timeline.getKeyFrames().clear();
 
@@ -171,6 +243,13 @@ public class DockItemNode extends HBox {
         var paddingLeft = (targetWidth == iconWidth) ? (iconWidth - AiDock.ICON_SIZE) / 2.0 : AiDock.PAD;
         this.setPadding(new Insets(0, 0, 0, paddingLeft));
 
+        if (!animate) {
+            this.setPrefWidth(targetWidth);
+            this.setMaxWidth(targetWidth);
+            textLabel.setOpacity(textOpacity);
+            return;
+        }
+
         timeline.getKeyFrames().add(new KeyFrame(Duration.millis(200),
                 new KeyValue(this.prefWidthProperty(), targetWidth),
                 new KeyValue(this.maxWidthProperty(), targetWidth),
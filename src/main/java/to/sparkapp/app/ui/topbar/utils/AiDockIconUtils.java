@@ -1,85 +1,111 @@
 package to.sparkapp.app.ui.topbar.utils;
 
-import com.formdev.flatlaf.extras.FlatSVGIcon;
 import to.sparkapp.app.config.AiConfiguration;
+import to.sparkapp.app.config.AppPaths;
 import to.sparkapp.app.ui.topbar.components.AiDock;
-import javafx.embed.swing.SwingFXUtils;
+import to.sparkapp.app.utils.StartupTracer;
+import javafx.application.Platform;
 import javafx.scene.image.Image;
 import javafx.scene.image.WritableImage;
+import javafx.stage.Screen;
 import lombok.extern.slf4j.Slf4j;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Slf4j
 public class AiDockIconUtils {
 
-    public static void preloadIcon(AiConfiguration.AiConfig cfg, File userIconsDir) {
-        if (cfg.icon() == null) {
+    // Decoding is mostly disk reads on a cache hit, so a couple of threads keep up with a full dock.
+    private static final int LOADER_THREADS = Math.clamp(Runtime.getRuntime().availableProcessors() / 2, 1, 3);
+    private static final AtomicInteger LOADER_THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(LOADER_THREADS, r -> {
+        var t = new Thread(r, "dock-icons-" + LOADER_THREAD_COUNT.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final IconRasterCache RASTER_CACHE = new IconRasterCache(new File(AppPaths.DATA_DIR, "cache/icons"));
+
+    /** Callbacks waiting for an icon that is being decoded, by icon name. Only touched on the FX thread. */
+    private static final Map<String, List<Consumer<Image>>> PENDING = new HashMap<>();
+
+    /**
+     * Hands the icon of {@code cfg} to {@code onLoaded} on the FX thread: right away when it is
+     * cached, otherwise after it has been decoded in the background. Gets {@code null} when the
+     * provider has no icon. Must be called on the FX thread.
+     */
+    public static void loadIconAsync(AiConfiguration.AiConfig cfg, File userIconsDir, Consumer<Image> onLoaded) {
+        var key = cfg.icon();
+        if (key == null) {
+            onLoaded.accept(null);
             return;
         }
 
-        AiDock.ICON_CACHE.computeIfAbsent(cfg.icon(), key -> {
-            try {
-                var resourceUrl = AiDock.class.getResource("/icons/" + key);
-                if (resourceUrl != null) {
-                    if (key.toLowerCase().endsWith(".svg")) {
-                        var icon = new FlatSVGIcon(resourceUrl);
-                        return renderSvgToFx(icon);
-                    } else {
-                        return resizeToFx(ImageIO.read(resourceUrl));
-                    }
-                }
+        var cached = AiDock.ICON_CACHE.get(key);
+        if (cached != null) {
+            onLoaded.accept(cached);
+            return;
+        }
 
-                var userIconFile = new File(userIconsDir, key);
-                if (userIconFile.exists()) {
-                    if (key.toLowerCase().endsWith(".svg")) {
-                        var icon = new FlatSVGIcon(userIconFile);
-                        return renderSvgToFx(icon);
-                    } else {
-                        return resizeToFx(ImageIO.read(userIconFile));
-                    }
+        var waiting = PENDING.get(key);
+        if (waiting != null) {
+            waiting.add(onLoaded);
+            return;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(onLoaded);
+        PENDING.put(key, waiting);
+
+        // Icons are rendered for the screen the app starts on; read the scale while still on the FX thread.
+        var scale = Screen.getPrimary().getOutputScaleX();
+        LOADER.execute(() -> {
+            var image = decodeIcon(cfg, userIconsDir, scale);
+            Platform.runLater(() -> {
+                AiDock.ICON_CACHE.put(key, image);
+                for (var callback : PENDING.remove(key)) {
+                    callback.accept(image);
+                }
+                if (PENDING.isEmpty()) {
+                    StartupTracer.mark("dockIconsLoaded");
                 }
+            });
+        });
+    }
 
+    private static Image decodeIcon(AiConfiguration.AiConfig cfg, File userIconsDir, double scale) {
+        var key = cfg.icon();
+        try {
+            var source = readSource(key, userIconsDir);
+            if (source == null) {
                 log.warn("Icon not found: {} (searched in resources and {})", key, userIconsDir.getAbsolutePath());
                 return createPlaceholderIcon();
-
-            } catch (Exception e) {
-                log.error("Error while trying to preload icon for {}", cfg.name(), e);
-                return createPlaceholderIcon();
             }
-        });
-    }
-
-    private static javafx.scene.image.Image renderSvgToFx(com.formdev.flatlaf.extras.FlatSVGIcon icon) {
-        int padding = 2;
-        int innerSize = AiDock.ICON_SIZE - padding * 2;
-
-        var scaledIcon = icon.derive(innerSize, innerSize);
-        var img = new java.awt.image.BufferedImage(AiDock.ICON_SIZE, AiDock.ICON_SIZE, java.awt.image.BufferedImage.TYPE_INT_ARGB);
-        var g = img.createGraphics();
-
-        g.setRenderingHint(java.awt.RenderingHints.KEY_ANTIALIASING, java.awt.RenderingHints.VALUE_ANTIALIAS_ON);
-        g.setRenderingHint(java.awt.RenderingHints.KEY_RENDERING, java.awt.RenderingHints.VALUE_RENDER_QUALITY);
-
-        scaledIcon.paintIcon(null, g, padding, padding);
-        g.dispose();
-
-        return javafx.embed.swing.SwingFXUtils.toFXImage(img, null);
+            return RASTER_CACHE.load(key, source, key.toLowerCase().endsWith(".svg"), AiDock.ICON_SIZE, scale);
+        } catch (Exception e) {
+            log.error("Error while trying to load icon for {}", cfg.name(), e);
+            return createPlaceholderIcon();
+        }
     }
 
-    private static Image resizeToFx(BufferedImage img) {
-        var resized = new BufferedImage(AiDock.ICON_SIZE, AiDock.ICON_SIZE, BufferedImage.TYPE_INT_ARGB);
-        var g = resized.createGraphics();
-
-        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g.drawImage(img, 0, 0, AiDock.ICON_SIZE, AiDock.ICON_SIZE, null);
-        g.dispose();
+    private static byte[] readSource(String key, File userIconsDir) throws IOException {
+        try (var in = AiDock.class.getResourceAsStream("/icons/" + key)) {
+            if (in != null) {
+                return in.readAllBytes();
+            }
+        }
 
-        return SwingFXUtils.toFXImage(resized, null);
+        var userIconFile = new File(userIconsDir, key);
+        return userIconFile.exists() ? Files.readAllBytes(userIconFile.toPath()) : null;
     }
 
     private static Image createPlaceholderIcon() {
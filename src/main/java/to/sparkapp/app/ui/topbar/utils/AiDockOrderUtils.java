@@ -2,9 +2,10 @@ package to.sparkapp.app.ui.topbar.utils;
 
 import to.sparkapp.app.config.AiConfiguration;
 import to.sparkapp.app.config.AppPreferences;
-import to.sparkapp.app.ui.topbar.components.DockItemNode;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,28 +17,28 @@ public class AiDockOrderUtils {
             return configs;
         }
 
-        var ordered = new ArrayList<AiConfiguration.AiConfig>();
-        for (var url : savedOrder) {
-            if (url.startsWith("http")) {
-                configs.stream()
-                        .filter(c -> c.url().equals(url))
-                        .findFirst()
-                        .ifPresent(ordered::add);
-            }
+        var byUrl = new HashMap<String, AiConfiguration.AiConfig>();
+        for (var config : configs) {
+            byUrl.putIfAbsent(config.url(), config);
         }
 
-        for (var config : configs) {
-            if (!ordered.contains(config)) {
-                ordered.add(config);
+        var ordered = new LinkedHashSet<AiConfiguration.AiConfig>();
+        for (var url : savedOrder) {
+            if (url.startsWith("http")) {
+                var config = byUrl.get(url);
+                if (config != null) {
+                    ordered.add(config);
+                }
             }
         }
+        ordered.addAll(configs);
 
-        return ordered;
+        return new ArrayList<>(ordered);
     }
 
-    public static void saveCurrentOrder(List<DockItemNode> dockItems, AppPreferences appPreferences) {
-        var urls = dockItems.stream()
-                .map(item -> item.getConfig().url())
+    public static void saveCurrentOrder(List<AiConfiguration.AiConfig> configs, AppPreferences appPreferences) {
+        var urls = configs.stream()
+                .map(AiConfiguration.AiConfig::url)
                 .collect(Collectors.toList());
         appPreferences.setAiOrder(urls);
     }
@@ -0,0 +1,79 @@
+package to.sparkapp.app.ui.topbar.utils;
+
+import javafx.scene.image.Image;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decoded icons by icon name, least recently used first out.
+ *
+ * <p>Nodes keep the image they show, so an evicted icon only costs a read from the
+ * raster cache the next time another node asks for it.
+ */
+public class IconCache {
+
+    private final int capacity;
+    private final LinkedHashMap<String, Image> images;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public IconCache(int capacity) {
+        this.capacity = capacity;
+        this.images = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+                if (size() > IconCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** @return the image, or {@code null} when it is not cached */
+    public synchronized Image get(String name) {
+        var image = images.get(name);
+        if (image != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return image;
+    }
+
+    public synchronized void put(String name, Image image) {
+        images.put(name, image);
+    }
+
+    /** Drops every icon whose name is not in {@code names}. */
+    public synchronized void retainAll(Collection<String> names) {
+        images.keySet().retainAll(names);
+    }
+
+    public synchronized void clear() {
+        images.clear();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(images.size(), capacity, hits, misses, evictions);
+    }
+
+    public record Stats(int size, int capacity, long hits, long misses, long evictions) {
+
+        public double hitRate() {
+            var lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "%d/%d icons, %d hits, %d misses (%.0f%%), %d evictions"
+                    .formatted(size, capacity, hits, misses, hitRate() * 100, evictions);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package to.sparkapp.app.ui.topbar.utils;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import lombok.extern.slf4j.Slf4j;
+import to.sparkapp.app.utils.AtomicFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Keeps rendered icons on disk as raw ARGB pixels so they can be put into an {@link Image}
+ * without decoding or rendering anything.
+ *
+ * <p>Entries are keyed by a hash of the icon source, the logical size and the output scale,
+ * so a changed icon file or a move to a screen with another DPI simply misses and renders
+ * again. Older renderings of the same icon are deleted when a new one is written.
+ */
+@Slf4j
+final class IconRasterCache {
+
+    private static final int MAGIC = 0x53504B49; // "SPKI"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_INTS = 4;
+    private static final String EXTENSION = ".argb";
+
+    private final Path dir;
+
+    IconRasterCache(File dir) {
+        this.dir = dir.toPath();
+    }
+
+    /**
+     * Returns the icon rendered at {@code size} logical pixels for the given output scale,
+     * from disk when it has been rendered before.
+     */
+    Image load(String name, byte[] source, boolean svg, int size, double scale) throws IOException {
+        var pixels = (int) Math.ceil(size * scale);
+        var prefix = fileNamePrefix(name);
+        var file = dir.resolve(prefix + hash(source) + "-" + size + "@" + Math.round(scale * 100) + EXTENSION);
+
+        var cached = read(file, pixels);
+        if (cached != null) {
+            return toImage(cached, pixels);
+        }
+
+        var argb = IconRasterizer.rasterize(source, svg, pixels, (int) Math.round(2 * scale));
+        write(file, argb, pixels, prefix);
+        return toImage(argb, pixels);
+    }
+
+    private static int[] read(Path file, int pixels) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read cached icon {}", file, e);
+            return null;
+        }
+
+        var ints = ByteBuffer.wrap(bytes).asIntBuffer();
+        if (ints.remaining() != HEADER_INTS + pixels * pixels
+                || ints.get() != MAGIC
+                || ints.get() != FORMAT_VERSION
+                || ints.get() != pixels
+                || ints.get() != pixels) {
+            log.warn("Ignoring malformed cached icon {}", file);
+            return null;
+        }
+
+        var argb = new int[pixels * pixels];
+        ints.get(argb);
+        return argb;
+    }
+
+    private void write(Path file, int[] argb, int pixels, String prefix) {
+        var buffer = ByteBuffer.allocate((HEADER_INTS + argb.length) * Integer.BYTES);
+        buffer.asIntBuffer()
+                .put(MAGIC)
+                .put(FORMAT_VERSION)
+                .put(pixels)
+                .put(pixels)
+                .put(argb);
+
+        try {
+            Files.createDirectories(dir);
+            // A lost cache entry is simply rendered again, so there is no need to wait for the disk.
+            AtomicFiles.write(file, buffer.array(), false);
+        } catch (IOException e) {
+            log.warn("Failed to cache icon {}", file, e);
+            return;
+        }
+
+        try (var siblings = Files.newDirectoryStream(dir, prefix + "*" + EXTENSION)) {
+            for (var sibling : siblings) {
+                if (!sibling.equals(file)) {
+                    Files.deleteIfExists(sibling);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Failed to prune old renderings of {}", file, e);
+        }
+    }
+
+    private static Image toImage(int[] argb, int pixels) {
+        var image = new WritableImage(pixels, pixels);
+        image.getPixelWriter().setPixels(0, 0, pixels, pixels, PixelFormat.getIntArgbInstance(), argb, 0, pixels);
+        return image;
+    }
+
+    private static String fileNamePrefix(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_") + "-";
+    }
+
+    private static String hash(byte[] source) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(source);
+            return HexFormat.of().formatHex(digest, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
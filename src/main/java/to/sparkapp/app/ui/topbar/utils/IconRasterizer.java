@@ -0,0 +1,71 @@
+package to.sparkapp.app.ui.topbar.utils;
+
+import com.github.weisj.jsvg.parser.LoaderContext;
+import com.github.weisj.jsvg.parser.SVGLoader;
+import com.github.weisj.jsvg.renderer.NullPlatformSupport;
+import com.github.weisj.jsvg.view.ViewBox;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * Draws icon sources into square ARGB pixel buffers.
+ *
+ * <p>Kept apart from {@link IconRasterCache} so the image decoders and the SVG renderer are
+ * only loaded when an icon actually has to be drawn, not when it is read back from the cache.
+ *
+ * <p>Bitmaps are decoded by JavaFX. SVGs are rendered by jsvg into an offscreen image: that is
+ * plain Java2D and never starts the AWT toolkit, and JavaFX itself cannot draw whole SVG
+ * documents with their gradients, clips and masks.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class IconRasterizer {
+
+    /**
+     * @param pixels     edge length of the result in physical pixels
+     * @param svgPadding transparent border around SVGs, in physical pixels
+     * @return non-premultiplied ARGB pixels, row by row
+     */
+    static int[] rasterize(byte[] source, boolean svg, int pixels, int svgPadding) throws IOException {
+        return svg ? rasterizeSvg(source, pixels, svgPadding) : rasterizeBitmap(source, pixels);
+    }
+
+    private static int[] rasterizeSvg(byte[] source, int pixels, int padding) throws IOException {
+        var document = new SVGLoader().load(new ByteArrayInputStream(source), null, LoaderContext.createDefault());
+        if (document == null) {
+            throw new IOException("Invalid SVG");
+        }
+
+        var img = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
+        var g = img.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+
+            var inner = pixels - padding * 2;
+            // Offscreen, so there is no component to repaint or observe image loading.
+            document.renderWithPlatform(NullPlatformSupport.INSTANCE, g, new ViewBox(padding, padding, inner, inner));
+        } finally {
+            g.dispose();
+        }
+        return img.getRGB(0, 0, pixels, pixels, null, 0, pixels);
+    }
+
+    private static int[] rasterizeBitmap(byte[] source, int pixels) throws IOException {
+        var image = new Image(new ByteArrayInputStream(source), pixels, pixels, false, true);
+        if (image.isError() || image.getPixelReader() == null) {
+            throw new IOException("Unsupported image format", image.getException());
+        }
+
+        var argb = new int[pixels * pixels];
+        image.getPixelReader().getPixels(0, 0, pixels, pixels, PixelFormat.getIntArgbInstance(), argb, 0, pixels);
+        return argb;
+    }
+}
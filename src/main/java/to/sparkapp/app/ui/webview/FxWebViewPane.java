@@ -1,23 +1,35 @@
 package to.sparkapp.app.ui.webview;
 
-import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.image.Image;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
-import javafx.util.Duration;
+import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import to.sparkapp.app.browser.PromptTiming;
 import to.sparkapp.app.browser.WebviewManager;
 import to.sparkapp.app.browser.WebviewNavigator;
 import to.sparkapp.app.config.AiConfiguration;
+import to.sparkapp.app.config.AppPaths;
 import to.sparkapp.app.config.AppPreferences;
+import to.sparkapp.app.history.CapturedMessage;
+import to.sparkapp.app.history.PromptHistory;
 import to.sparkapp.app.ui.Theme;
+import to.sparkapp.app.ui.chat.NativeChatPane;
 import to.sparkapp.app.ui.topbar.components.AiDock;
+import to.sparkapp.app.ui.topbar.utils.AiDockIconUtils;
 import to.sparkapp.app.utils.NativeWindowUtils;
 import to.sparkapp.app.utils.SystemUtils;
 
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.function.Consumer;
 
 /**
@@ -26,6 +38,9 @@ import java.util.function.Consumer;
  * <p>The native webview is a separate OS window that is parented and positioned
  * to perfectly overlap this pane. A {@link WebViewLoadingOverlay} is shown
  * above while navigation is in progress.
+ *
+ * <p>Providers with an OpenAI-compatible API are shown in a {@link NativeChatPane}
+ * instead; the webview stays hibernated while one of them is selected.
  */
 @Slf4j
 public class FxWebViewPane extends StackPane {
@@ -35,12 +50,39 @@ public class FxWebViewPane extends StackPane {
     private final String startUrl;
     private final WebViewLoadingOverlay overlay;
 
+    private final Map<String, NativeChatPane> chatPanes = new HashMap<>();
+
     private boolean bridgeStarted = false;
+    private Scene observedScene;
+    private NativeChatPane activeChat;
+    @Getter
+    private AiConfiguration.AiConfig currentConfig;
 
     @Setter
     private Consumer<Double> zoomCallback;
     @Setter
     private Consumer<Boolean> onAuthPageDetected;
+    @Setter
+    private Consumer<PromptTiming> onPromptTiming;
+    @Setter
+    private Consumer<List<CapturedMessage>> onMessagesCaptured;
+    /** Receives prompts sent from this pane and offers completion in native chats. */
+    @Setter
+    private PromptHistory promptHistory;
+    /**
+     * Whether URL changes are written to the "last used AI" preference.
+     * Secondary panes (e.g. the compare view) turn this off.
+     */
+    @Setter
+    private boolean trackLastUrl = true;
+    /** Receives every page the current provider navigates to, on the FX thread. */
+    @Setter
+    private Consumer<String> onUrlChanged;
+    @Setter
+    private Runnable onPaletteRequested;
+    /** Called on the FX thread whenever a page of the current provider has loaded its DOM. */
+    @Setter
+    private Runnable onPageReady;
 
     public FxWebViewPane(String startUrl, AppPreferences appPreferences) {
         this.startUrl = startUrl;
@@ -78,9 +120,42 @@ public class FxWebViewPane extends StackPane {
             if (onAuthPageDetected != null) {
                 Platform.runLater(() -> onAuthPageDetected.accept(WebviewNavigator.isAuthUrl(url)));
             }
-            if (appPreferences.isRememberLastAi()) {
+            if (trackLastUrl && appPreferences.isRememberLastAi()) {
                 appPreferences.setLastUrl(url);
             }
+            if (onUrlChanged != null) {
+                Platform.runLater(() -> onUrlChanged.accept(url));
+            }
+        });
+
+        bridge.setOnPromptTiming(timing -> {
+            if (onPromptTiming != null) {
+                onPromptTiming.accept(timing);
+            }
+        });
+
+        bridge.setOnMessagesCaptured(messages -> {
+            if (onMessagesCaptured != null) {
+                onMessagesCaptured.accept(messages);
+            }
+        });
+
+        bridge.setOnPaletteRequested(() -> {
+            if (onPaletteRequested != null) {
+                Platform.runLater(onPaletteRequested);
+            }
+        });
+
+        bridge.setOnPageReady(() -> {
+            if (onPageReady != null) {
+                onPageReady.run();
+            }
+        });
+
+        bridge.setOnPromptSent(prompt -> {
+            if (promptHistory != null) {
+                promptHistory.record(prompt);
+            }
         });
     }
 
@@ -96,18 +171,23 @@ public class FxWebViewPane extends StackPane {
         localToSceneTransformProperty().addListener((obs, o, n) -> syncBounds());
 
         sceneProperty().addListener((obs, oldScene, newScene) -> {
-            if (newScene == null) {
+            // Panes can be detached and re-attached (compare view), so only hook a scene once.
+            if (newScene == null || newScene == observedScene) {
                 return;
             }
+            observedScene = newScene;
             newScene.windowProperty().addListener((wObs, oldWin, newWin) -> {
                 if (newWin == null) {
                     return;
                 }
 
+                // The native window exists once showing turns true, so the webview moves in right away.
                 newWin.showingProperty().addListener((o, old, isShowing) -> {
                     if (isShowing) {
                         if (!bridgeStarted) {
                             startBridgeIfReady();
+                        } else {
+                            doWakeup();
                         }
                     } else if (bridgeStarted) {
                         bridge.hibernate();
@@ -118,13 +198,11 @@ public class FxWebViewPane extends StackPane {
     }
 
     /**
-     * Call after the host window becomes visible (tray restore or hotkey show).
-     * Deferred 100 ms so the Win32 HWND is fully activated before FindWindow.
+     * Call after the host window becomes visible (tray restore or hotkey show), or when this
+     * pane is put back into a showing window. Nothing to do if the webview is already there.
      */
     public void onWindowRestored() {
-        var delay = new PauseTransition(Duration.millis(100));
-        delay.setOnFinished(e -> doWakeup());
-        delay.play();
+        doWakeup();
     }
 
     /**
@@ -136,7 +214,7 @@ public class FxWebViewPane extends StackPane {
     }
 
     private synchronized void startBridgeIfReady() {
-        if (bridgeStarted) {
+        if (bridgeStarted || activeChat != null) {
             return;
         }
         var scene = getScene();
@@ -148,9 +226,9 @@ public class FxWebViewPane extends StackPane {
             return;
         }
 
-        long parentHandle = resolveParentHandle(window);
+        // Without the window there is nothing to parent to; the next show tries again.
+        long parentHandle = parentHandleOf(window);
         if (parentHandle == 0L && SystemUtils.isWindows()) {
-            scheduleRetryStart();
             return;
         }
 
@@ -159,44 +237,25 @@ public class FxWebViewPane extends StackPane {
         Platform.runLater(this::syncBounds);
     }
 
-    private long resolveParentHandle(javafx.stage.Window window) {
-        if (!SystemUtils.isWindows() || !(window instanceof Stage stage)) {
-            return 0L;
-        }
-        var title = stage.getTitle();
-        boolean temporary = title == null || title.isEmpty();
-        if (temporary) {
-            title = "SparkMainWindow-" + System.nanoTime();
-            stage.setTitle(title);
-        }
-
-        long handle = NativeWindowUtils.getJavaFXWindowHandle(title);
-        if (temporary) {
-            stage.setTitle("");
-        }
-        return handle;
-    }
-
-    private void scheduleRetryStart() {
-        var t = new PauseTransition(Duration.millis(50));
-        t.setOnFinished(e -> startBridgeIfReady());
-        t.play();
+    private static long parentHandleOf(javafx.stage.Window window) {
+        return window instanceof Stage stage ? NativeWindowUtils.getStageHandle(stage) : 0L;
     }
 
     private void doWakeup() {
         var window = getScene() != null ? getScene().getWindow() : null;
-        if (window == null || !window.isShowing()) {
+        if (window == null || !window.isShowing() || activeChat != null) {
+            return;
+        }
+        if (!bridgeStarted) {
+            startBridgeIfReady();
             return;
         }
-        long parentHandle = resolveParentHandle(window);
+        long parentHandle = parentHandleOf(window);
         if (parentHandle == 0L && SystemUtils.isWindows()) {
-            var t = new PauseTransition(Duration.millis(50));
-            t.setOnFinished(e -> doWakeup());
-            t.play();
             return;
         }
 
-        log.info("FxWebViewPane: Waking up bridge with parentHandle=0x{}", Long.toHexString(parentHandle));
+        log.debug("FxWebViewPane: Waking up bridge with parentHandle=0x{}", Long.toHexString(parentHandle));
         bridge.wakeup(parentHandle);
         getScene().getRoot().applyCss();
         getScene().getRoot().layout();
@@ -237,11 +296,24 @@ public class FxWebViewPane extends StackPane {
      * Shows a loading overlay while the page transitions.
      */
     public void setCurrentConfig(AiConfiguration.AiConfig config) {
+        this.currentConfig = config;
+
+        if (config.isNativeChat()) {
+            showNativeChat(config);
+            return;
+        }
+        if (activeChat != null) {
+            getChildren().remove(activeChat);
+            activeChat = null;
+            doWakeup();
+        }
+
         var icon = AiDock.ICON_CACHE.get(config.icon());
 
         if (!bridgeStarted) {
             overlay.activate(icon, 0, null);
             bridge.setCurrentConfig(config);
+            loadOverlayIcon(icon, config);
             return;
         }
 
@@ -250,10 +322,84 @@ public class FxWebViewPane extends StackPane {
             syncBounds();
             bridge.setVisible(true);
         });
+        loadOverlayIcon(icon, config);
 
         bridge.setCurrentConfig(config);
     }
 
+    // Dock icons are decoded lazily, so the provider's icon may not be cached yet
+    private void loadOverlayIcon(Image cached, AiConfiguration.AiConfig config) {
+        if (cached != null) {
+            return;
+        }
+        AiDockIconUtils.loadIconAsync(config, new File(AppPaths.DATA_DIR, "icons"), image -> {
+            if (overlay.isActive() && config.equals(currentConfig)) {
+                overlay.setIcon(image);
+            }
+        });
+    }
+
+    private void showNativeChat(AiConfiguration.AiConfig config) {
+        if (activeChat != null) {
+            getChildren().remove(activeChat);
+        }
+        if (overlay.isActive()) {
+            overlay.deactivate();
+        }
+        if (bridgeStarted) {
+            bridge.setVisible(false);
+            bridge.hibernate();
+        }
+
+        // Keep one pane per provider so switching back and forth keeps the conversation.
+        var existing = chatPanes.get(config.id());
+        if (existing == null || !existing.getConfig().equals(config)) {
+            if (existing != null) {
+                existing.shutdown();
+            }
+            existing = new NativeChatPane(config, promptHistory);
+            existing.setOnPromptTiming(timing -> {
+                if (onPromptTiming != null) {
+                    onPromptTiming.accept(timing);
+                }
+            });
+            chatPanes.put(config.id(), existing);
+        }
+
+        activeChat = existing;
+        getChildren().add(activeChat);
+        activeChat.focusInput();
+    }
+
+    /**
+     * Switches to the given provider and opens a specific page of it,
+     * e.g. a conversation found in the history.
+     */
+    public void openUrl(AiConfiguration.AiConfig config, String url) {
+        setCurrentConfig(config);
+        if (!config.isNativeChat()) {
+            bridge.navigate(url);
+        }
+    }
+
+    /**
+     * Injects the prompt into the current provider page and submits it.
+     *
+     * @return the request id that {@link PromptTiming} events will carry, or {@code null} if
+     *         the prompt was blank and nothing was sent
+     */
+    public String submitPrompt(String prompt) {
+        if (prompt == null || prompt.isBlank()) {
+            return null;
+        }
+        if (activeChat != null) {
+            return activeChat.submitPrompt(prompt);
+        }
+        var requestId = UUID.randomUUID().toString();
+        bridge.submitPrompt(requestId, prompt, AiConfiguration.getPromptSelectors(currentConfig));
+        return requestId;
+    }
+
     public void clearCookies() {
         bridge.clearCookies();
     }
@@ -263,6 +409,7 @@ public class FxWebViewPane extends StackPane {
     }
 
     public void shutdown(Runnable onComplete) {
+        chatPanes.values().forEach(NativeChatPane::shutdown);
         bridge.shutdown(() -> Platform.runLater(onComplete));
     }
 }
@@ -72,6 +72,10 @@ class WebViewLoadingOverlay extends VBox {
         }
     }
 
+    void setIcon(Image icon) {
+        iconView.setImage(icon);
+    }
+
     /** Immediately hides the overlay and stops any pending auto-hide timer. */
     void deactivate() {
         cancelTimer();
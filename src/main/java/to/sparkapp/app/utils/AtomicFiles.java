@@ -0,0 +1,51 @@
+package to.sparkapp.app.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Whole-file writes that never leave a half-written file behind: the data goes to a
+ * sibling temp file first, which then replaces the target with a single rename.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class AtomicFiles {
+
+    /**
+     * @param fsync also force the data to the device before the rename, so the new
+     *              content survives a power loss and not just a crash of the process
+     */
+    public static void write(Path target, byte[] data, boolean fsync) throws IOException {
+        var dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        var tmp = dir.resolve(target.getFileName() + ".tmp");
+
+        try (var channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(true);
+            }
+        }
+
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            log.debug("Atomic move not supported for {}, replacing it directly", target);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -1,15 +1,22 @@
 package to.sparkapp.app.utils;
 
 import to.sparkapp.app.config.AppPaths;
-import to.sparkapp.app.config.AppPreferences;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 @Slf4j
 public class AutoStartManager {
     private static final String APP_NAME = "Spark";
+    private static final String WINDOWS_RUN_KEY = "HKCU\\Software\\Microsoft\\Windows\\CurrentVersion\\Run";
+
+    /** Passed by every autostart entry, so the app knows it was started at login. */
+    public static final String AUTOSTART_ARG = "--autostart";
 
     public static void setAutoStart(boolean enable) {
         try {
@@ -24,29 +31,64 @@ public class AutoStartManager {
                 handleWindows(enable, executablePath);
             } else if (SystemUtils.isMac()) {
                 handleMac(enable, executablePath);
+            } else {
+                handleLinux(enable, executablePath);
             }
         } catch (Exception e) {
             log.error("Can't set auto start", e);
         }
     }
 
+    /**
+     * Rewrites an existing autostart entry made by an older version, which did not pass
+     * {@link #AUTOSTART_ARG}. Does nothing when autostart is not set up. Blocks for a moment
+     * on Windows, so call it off the FX thread.
+     */
+    public static void refresh() {
+        try {
+            if (isOutdated()) {
+                log.info("Updating the autostart entry");
+                setAutoStart(true);
+            }
+        } catch (Exception e) {
+            log.warn("Can't check the autostart entry", e);
+        }
+    }
+
+    private static boolean isOutdated() throws IOException, InterruptedException {
+        if (SystemUtils.isWindows()) {
+            var query = new ProcessBuilder("reg", "query", WINDOWS_RUN_KEY, "/v", APP_NAME)
+                    .redirectErrorStream(true)
+                    .start();
+            var output = new String(query.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            return query.waitFor() == 0 && !output.contains(AUTOSTART_ARG);
+        }
+
+        var entry = SystemUtils.isMac() ? macPlist().toPath() : linuxDesktopEntry();
+        return Files.exists(entry) && !Files.readString(entry).contains(AUTOSTART_ARG);
+    }
+
     private static void handleWindows(boolean enable, String path) throws Exception {
-        var key = "HKCU\\Software\\Microsoft\\Windows\\CurrentVersion\\Run";
         if (enable) {
-            new ProcessBuilder("reg", "add", key, "/v", APP_NAME, "/t", "REG_SZ", "/d", path, "/f").start();
+            // reg.exe takes \" as a literal quote; the path is quoted as it may contain spaces.
+            var command = "\\\"" + path + "\\\" " + AUTOSTART_ARG;
+            new ProcessBuilder("reg", "add", WINDOWS_RUN_KEY, "/v", APP_NAME, "/t", "REG_SZ", "/d", command, "/f").start();
         } else {
-            new ProcessBuilder("reg", "delete", key, "/v", APP_NAME, "/f").start();
+            new ProcessBuilder("reg", "delete", WINDOWS_RUN_KEY, "/v", APP_NAME, "/f").start();
         }
     }
 
+    private static File macPlist() {
+        return new File(new File(AppPaths.DATA_DIR, "Library/LaunchAgents"), "to.sparkapp.app.plist");
+    }
+
     private static void handleMac(boolean enable, String path) throws Exception {
-        var launchAgentsDir = new File(AppPaths.DATA_DIR, "Library/LaunchAgents");
+        var plistFile = macPlist();
+        var launchAgentsDir = plistFile.getParentFile();
         if (!launchAgentsDir.exists()) {
             launchAgentsDir.mkdirs();
         }
 
-        var plistFile = new File(launchAgentsDir, "to.sparkapp.app.plist");
-
         if (enable) {
             var plistContent = """
                     <?xml version="1.0" encoding="UTF-8"?>
@@ -58,12 +100,13 @@ public class AutoStartManager {
                         <key>ProgramArguments</key>
                         <array>
                             <string>%s</string>
+                            <string>%s</string>
                         </array>
                         <key>RunAtLoad</key>
                         <true/>
                     </dict>
                     </plist>
-                    """.formatted(path);
+                    """.formatted(path, AUTOSTART_ARG);
 
             try (var writer = new FileWriter(plistFile)) {
                 writer.write(plistContent);
@@ -74,4 +117,41 @@ public class AutoStartManager {
             }
         }
     }
+
+    // XDG autostart: desktop environments start every entry in $XDG_CONFIG_HOME/autostart at login.
+    private static Path linuxDesktopEntry() {
+        var configHome = System.getenv("XDG_CONFIG_HOME");
+        var base = configHome != null && !configHome.isBlank()
+                ? Path.of(configHome)
+                : Path.of(System.getProperty("user.home"), ".config");
+        return base.resolve("autostart").resolve("spark.desktop");
+    }
+
+    private static void handleLinux(boolean enable, String path) throws IOException {
+        var entry = linuxDesktopEntry();
+        if (!enable) {
+            Files.deleteIfExists(entry);
+            return;
+        }
+
+        var content = """
+                [Desktop Entry]
+                Type=Application
+                Name=%s
+                Exec=%s %s
+                Terminal=false
+                X-GNOME-Autostart-enabled=true
+                """.formatted(APP_NAME, quoteExec(path), AUTOSTART_ARG);
+        Files.createDirectories(entry.getParent());
+        AtomicFiles.write(entry, content.getBytes(StandardCharsets.UTF_8), false);
+    }
+
+    // Desktop Entry spec: quote the argument and escape ", `, $ and \ inside the quotes.
+    private static String quoteExec(String path) {
+        var escaped = path.replace("\\", "\\\\\\\\")
+                .replace("\"", "\\\"")
+                .replace("`", "\\`")
+                .replace("$", "\\$");
+        return "\"" + escaped + "\"";
+    }
 }
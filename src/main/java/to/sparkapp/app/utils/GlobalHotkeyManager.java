@@ -10,10 +10,12 @@ import javafx.application.Platform;
 import lombok.Getter;
 import to.sparkapp.app.config.AppPreferences;
 import to.sparkapp.app.windows.MainWindow;
-import to.sparkapp.app.windows.SettingsWindow;
 
-import javax.swing.Timer;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -23,37 +25,44 @@ public class GlobalHotkeyManager implements NativeKeyListener, NativeMouseInputL
     private static final int MOUSE_OFFSET = 10_000;
 
     private final MainWindow mainWindow;
-    private final SettingsWindow settingsWindow;
     private final AppPreferences appPreferences;
 
     private final Set<Integer> pressedKeys = Collections.synchronizedSet(new HashSet<>());
 
     private volatile boolean recording = false;
+    private volatile boolean recordingQuickAsk = false;
     private Runnable onRecordComplete;
 
-    private boolean hotkeyTriggered = false;
-    private long lastEventTime = System.currentTimeMillis();
+    // Written by the hook thread, read by the watchdog.
+    private volatile boolean hotkeyTriggered = false;
+    private volatile long lastEventTime = System.currentTimeMillis();
 
-    private final Timer watchdogTimer;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        var t = new Thread(r, "hotkey-timer");
+        t.setDaemon(true);
+        return t;
+    });
+    private ScheduledFuture<?> watchdog;
 
+    // Set on a startup thread, read on the FX thread.
     @Getter
-    private boolean initialized = false;
+    private volatile boolean initialized = false;
 
-    public GlobalHotkeyManager(MainWindow mainWindow, SettingsWindow settingsWindow, AppPreferences appPreferences) {
+    public GlobalHotkeyManager(MainWindow mainWindow, AppPreferences appPreferences) {
         this.mainWindow = mainWindow;
         this.appPreferences = appPreferences;
-        this.settingsWindow = settingsWindow;
 
         var logger = Logger.getLogger(GlobalScreen.class.getPackage().getName());
         logger.setLevel(Level.OFF);
         logger.setUseParentHandlers(false);
+    }
 
-        watchdogTimer = new Timer(1000, e -> {
-            if (System.currentTimeMillis() - lastEventTime > 1500) {
-                pressedKeys.clear();
-                hotkeyTriggered = false;
-            }
-        });
+    /** Forgets keys whose release the hook missed, once the keyboard has been quiet for a while. */
+    private void resetStaleKeys() {
+        if (System.currentTimeMillis() - lastEventTime > 1500) {
+            pressedKeys.clear();
+            hotkeyTriggered = false;
+        }
     }
 
     public void start() {
@@ -61,7 +70,7 @@ public class GlobalHotkeyManager implements NativeKeyListener, NativeMouseInputL
             GlobalScreen.registerNativeHook();
             GlobalScreen.addNativeKeyListener(this);
             GlobalScreen.addNativeMouseListener(this);
-            watchdogTimer.start();
+            watchdog = timer.scheduleWithFixedDelay(this::resetStaleKeys, 1, 1, TimeUnit.SECONDS);
             initialized = true;
         } catch (NativeHookException e) {
             initialized = false;
@@ -74,7 +83,9 @@ public class GlobalHotkeyManager implements NativeKeyListener, NativeMouseInputL
         }
 
         try {
-            watchdogTimer.stop();
+            if (watchdog != null) {
+                watchdog.cancel(false);
+            }
             GlobalScreen.removeNativeKeyListener(this);
             GlobalScreen.removeNativeMouseListener(this);
             GlobalScreen.unregisterNativeHook();
@@ -83,52 +94,73 @@ public class GlobalHotkeyManager implements NativeKeyListener, NativeMouseInputL
     }
 
     public void startRecording(Runnable onRecordComplete) {
+        startRecording(false, onRecordComplete);
+    }
+
+    /**
+     * Records the shortcut that opens the quick-ask popup instead of the window toggle.
+     */
+    public void startRecordingQuickAsk(Runnable onRecordComplete) {
+        startRecording(true, onRecordComplete);
+    }
+
+    private void startRecording(boolean quickAsk, Runnable onRecordComplete) {
         if (!initialized) {
             return;
         }
 
+        this.recordingQuickAsk = quickAsk;
         this.onRecordComplete = onRecordComplete;
         recording = false;
         pressedKeys.clear();
 
-        new Timer(200, e -> {
-            ((Timer) e.getSource()).stop();
+        timer.schedule(() -> {
             pressedKeys.clear();
             recording = true;
-        }).start();
+        }, 200, TimeUnit.MILLISECONDS);
     }
 
     public void clearHotkey() {
         appPreferences.setHotkeyToStartApplication(null);
     }
 
+    public void clearQuickAskHotkey() {
+        appPreferences.setHotkeyQuickAsk(null);
+    }
+
     private void tryTriggerHotkey() {
         if (recording || hotkeyTriggered) {
             return;
         }
 
-        var saved = appPreferences.getHotkeyToStartApplication();
-        if (saved == null || saved.isEmpty()) {
-            return;
-        }
+        var toggle = appPreferences.getHotkeyToStartApplication();
+        var quickAsk = appPreferences.getHotkeyQuickAsk();
 
         synchronized (pressedKeys) {
-            if (pressedKeys.containsAll(saved)) {
+            var toggleMatches = !toggle.isEmpty() && pressedKeys.containsAll(toggle);
+            var quickAskMatches = !quickAsk.isEmpty() && pressedKeys.containsAll(quickAsk);
+
+            // When one shortcut contains the other (Ctrl+Space vs Ctrl+Shift+Space), the longer one wins.
+            if (quickAskMatches && (!toggleMatches || quickAsk.size() >= toggle.size())) {
+                hotkeyTriggered = true;
+                Platform.runLater(this::toggleQuickAsk);
+            } else if (toggleMatches) {
                 hotkeyTriggered = true;
-                Platform.runLater(this::toggleWindow);
+                var pressedAt = System.nanoTime();
+                Platform.runLater(() -> toggleWindow(pressedAt));
             }
         }
     }
 
-    private void toggleWindow() {
-        if (settingsWindow != null) {
-            settingsWindow.close();
-        }
+    private void toggleQuickAsk() {
+        mainWindow.toggleQuickAsk();
+    }
 
-        if (mainWindow.isShowing()) {
+    private void toggleWindow(long pressedAt) {
+        if (mainWindow.isOnScreen()) {
             mainWindow.hideMainWindow();
         } else {
-            mainWindow.showMainWindow();
+            mainWindow.showMainWindow(pressedAt);
         }
     }
 
@@ -209,10 +241,11 @@ public class GlobalHotkeyManager implements NativeKeyListener, NativeMouseInputL
 
         if (save) {
             synchronized (pressedKeys) {
-                if (forceClear || pressedKeys.isEmpty()) {
-                    appPreferences.setHotkeyToStartApplication(null);
+                var keys = forceClear || pressedKeys.isEmpty() ? null : new ArrayList<>(pressedKeys);
+                if (recordingQuickAsk) {
+                    appPreferences.setHotkeyQuickAsk(keys);
                 } else {
-                    appPreferences.setHotkeyToStartApplication(new ArrayList<>(pressedKeys));
+                    appPreferences.setHotkeyToStartApplication(keys);
                 }
             }
         }
@@ -0,0 +1,71 @@
+package to.sparkapp.app.utils;
+
+/**
+ * Counts latencies in fixed buckets, so they can be summarised over a whole session without
+ * keeping every sample. Percentiles are reported as the upper bound of the bucket they fall
+ * in, e.g. {@code p90 <=50 ms}. Safe to use from any thread.
+ */
+public final class LatencyHistogram {
+
+    /** Upper bounds of the buckets in ms; the last bucket takes everything slower. */
+    private static final long[] BOUNDS_MS = {5, 10, 16, 25, 33, 50, 75, 100, 150, 250, 500, 1000};
+
+    private final String name;
+    private final long[] counts = new long[BOUNDS_MS.length + 1];
+    private long total;
+    private double maxMs;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(double millis) {
+        var bucket = 0;
+        while (bucket < BOUNDS_MS.length && millis > BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        total++;
+        maxMs = Math.max(maxMs, millis);
+    }
+
+    public synchronized long count() {
+        return total;
+    }
+
+    /** One line with the count, p50/p90/p99, the maximum and the non-empty buckets. */
+    public synchronized String summary() {
+        if (total == 0) {
+            return name + ": no samples";
+        }
+        var summary = new StringBuilder(name)
+                .append(": n=").append(total)
+                .append(", p50 ").append(percentile(0.50))
+                .append(", p90 ").append(percentile(0.90))
+                .append(", p99 ").append(percentile(0.99))
+                .append(", max ").append(Math.round(maxMs)).append(" ms [");
+        for (var i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                summary.append(bucketLabel(i)).append(": ").append(counts[i]).append(", ");
+            }
+        }
+        summary.setLength(summary.length() - 2);
+        return summary.append(']').toString();
+    }
+
+    private String percentile(double p) {
+        var rank = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (var i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return bucketLabel(i) + " ms";
+            }
+        }
+        return bucketLabel(counts.length - 1) + " ms";
+    }
+
+    private static String bucketLabel(int bucket) {
+        return bucket < BOUNDS_MS.length ? "<=" + BOUNDS_MS[bucket] : ">" + BOUNDS_MS[BOUNDS_MS.length - 1];
+    }
+}
@@ -1,71 +1,179 @@
 package to.sparkapp.app.utils;
 
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
-import ch.qos.logback.classic.joran.JoranConfigurator;
-import ch.qos.logback.core.joran.spi.JoranException;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.SizeAndTimeBasedRollingPolicy;
+import ch.qos.logback.core.util.FileSize;
 import to.sparkapp.app.config.AppPaths;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.text.SimpleDateFormat;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
+/**
+ * Sets up logging in code rather than from an XML file, so startup does not parse one.
+ *
+ * <p>Threads that log (FX, webview, navigation) only put the event into a bounded queue; a
+ * worker thread per appender formats and writes it. When a queue is full the event is dropped
+ * rather than blocking the caller. Drops are counted, and the next event that gets through is
+ * preceded by a warning saying how many were lost.
+ *
+ * <p>The file log is {@code logs/app.log}, rolled over daily and at {@link #MAX_FILE_SIZE}
+ * into gzipped files, of which {@link #MAX_HISTORY_DAYS} days and {@link #TOTAL_SIZE_CAP}
+ * are kept.
+ */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class LogSetup {
 
-    private static final int MAX_LOG_FILES = 3;
+    private static final String FILE_NAME = "app.log";
+    private static final String ROLLED_PATTERN = "app-%d{yyyy-MM-dd}.%i.log.gz";
+    private static final String MAX_FILE_SIZE = "5MB";
+    private static final int MAX_HISTORY_DAYS = 7;
+    private static final String TOTAL_SIZE_CAP = "30MB";
 
-    public static void init() {
-        var logsDirPath = new File(AppPaths.DATA_DIR, "logs").getAbsolutePath();
-        var logsDir = new File(logsDirPath);
+    /** Events buffered per appender before new ones are dropped. */
+    private static final int QUEUE_SIZE = 1024;
+    private static final int MAX_FLUSH_MS = 1000;
+
+    // Older versions wrote one app-<date>_<time>.log per run, which the rolling policy does not know.
+    private static final Pattern LEGACY_LOG = Pattern.compile("app-\\d{4}-\\d{2}-\\d{2}_\\d{2}-\\d{2}-\\d{2}\\.log");
+
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    public static File logsDir() {
+        return new File(AppPaths.DATA_DIR, "logs");
+    }
 
+    public static void init() {
+        var logsDir = logsDir();
         if (!logsDir.exists()) {
             logsDir.mkdirs();
         }
-        cleanOldLogs(logsDir);
+        deleteLegacyLogs(logsDir);
+
+        configure((LoggerContext) LoggerFactory.getILoggerFactory(), logsDir);
+
+        // The queues are written out when the context stops; System.exit would otherwise lose them.
+        var flush = new Thread(() -> {
+            if (DROPPED.get() > 0) {
+                LoggerFactory.getLogger(LogSetup.class).warn("{} log events were dropped in this session", DROPPED.get());
+            }
+            ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        }, "log-flush");
+        Runtime.getRuntime().addShutdownHook(flush);
+        System.out.println("Logs initialized at: " + new File(logsDir, FILE_NAME).getAbsolutePath());
+    }
 
-        var timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
-        var logFileName = "app-" + timestamp;
+    /** Log events dropped so far because a queue was full. */
+    public static long droppedEvents() {
+        return DROPPED.get();
+    }
+
+    private static void configure(LoggerContext context, File logsDir) {
+        context.reset();
+
+        var console = new ConsoleAppender<ILoggingEvent>();
+        console.setContext(context);
+        console.setName("CONSOLE");
+        console.setEncoder(encoder(context, "%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n"));
+        console.start();
 
-        System.setProperty("log.name", logFileName);
-        System.setProperty("log.dir", logsDirPath);
+        var file = new RollingFileAppender<ILoggingEvent>();
+        file.setContext(context);
+        file.setName("FILE");
+        file.setFile(new File(logsDir, FILE_NAME).getAbsolutePath());
+        // Written from the queue's worker, so flushing each event would only cost I/O.
+        file.setImmediateFlush(false);
+        file.setEncoder(encoder(context, "%d{yyyy-MM-dd HH:mm:ss} [%thread] %-5level %logger{36} - %msg%n"));
 
-        reloadLogbackConfig();
-        System.out.println("Logs initialized at: " + new File(logsDir, logFileName + ".log").getAbsolutePath());
+        var rolling = new SizeAndTimeBasedRollingPolicy<ILoggingEvent>();
+        rolling.setContext(context);
+        rolling.setParent(file);
+        rolling.setFileNamePattern(new File(logsDir, ROLLED_PATTERN).getAbsolutePath());
+        rolling.setMaxFileSize(FileSize.valueOf(MAX_FILE_SIZE));
+        rolling.setMaxHistory(MAX_HISTORY_DAYS);
+        rolling.setTotalSizeCap(FileSize.valueOf(TOTAL_SIZE_CAP));
+        rolling.setCleanHistoryOnStart(true);
+        rolling.start();
+        file.setRollingPolicy(rolling);
+        file.start();
+
+        var root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(async(context, console));
+        root.addAppender(async(context, file));
     }
 
-    private static void reloadLogbackConfig() {
-        var context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    private static PatternLayoutEncoder encoder(LoggerContext context, String pattern) {
+        var encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(pattern);
+        encoder.start();
+        return encoder;
+    }
 
-        try {
-            var configurator = new JoranConfigurator();
-            configurator.setContext(context);
-            context.reset();
+    private static Appender<ILoggingEvent> async(LoggerContext context, Appender<ILoggingEvent> target) {
+        var async = new DroppingAsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC-" + target.getName());
+        async.setQueueSize(QUEUE_SIZE);
+        // Keep every level while there is room; drop only when the queue is full, never block.
+        async.setDiscardingThreshold(0);
+        async.setNeverBlock(true);
+        async.setMaxFlushTime(MAX_FLUSH_MS);
+        async.addAppender(target);
+        async.start();
+        return async;
+    }
 
-            var configFile = LogSetup.class.getResource("/app-logback.xml");
-            if (configFile != null) {
-                configurator.doConfigure(configFile);
+    private static void deleteLegacyLogs(File dir) {
+        File[] files = dir.listFiles((d, name) -> LEGACY_LOG.matcher(name).matches());
+        if (files == null) {
+            return;
+        }
+        for (var file : files) {
+            if (file.delete()) {
+                System.out.println("Deleted old log: " + file.getName());
             }
-        } catch (JoranException e) {
-            System.out.println("It's impossible to reload config " + e.getMessage());
         }
     }
 
-    private static void cleanOldLogs(File dir) {
-        File[] files = dir.listFiles((d, name) -> name.startsWith("app-") && name.endsWith(".log"));
+    /** Counts the events a full queue drops and reports them once there is room again. */
+    private static final class DroppingAsyncAppender extends AsyncAppender {
+
+        private long droppedSinceReport;
+
+        // The queue's own offer() drops silently. Producers take turns here, so the capacity
+        // seen can only grow before the event is queued (the worker only takes events out),
+        // and an event is either queued or counted, never lost in between.
+        @Override
+        protected synchronized void append(ILoggingEvent event) {
+            // The warning needs a slot of its own ahead of the event.
+            if (getRemainingCapacity() < (droppedSinceReport > 0 ? 2 : 1)) {
+                droppedSinceReport++;
+                DROPPED.incrementAndGet();
+                return;
+            }
 
-        if (files != null && files.length >= MAX_LOG_FILES) {
-            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
-            int filesToDelete = files.length - (MAX_LOG_FILES - 1);
-            for (int i = 0; i < filesToDelete; i++) {
-                if (files[i].delete()) {
-                    System.out.println("Deleted old log: " + files[i].getName());
-                }
+            if (droppedSinceReport > 0) {
+                var logger = ((LoggerContext) getContext()).getLogger(LogSetup.class);
+                var warning = new LoggingEvent(LogSetup.class.getName(), logger, Level.WARN,
+                        "Dropped " + droppedSinceReport + " log events, the log queue was full", null, null);
+                droppedSinceReport = 0;
+                super.append(warning);
             }
+            super.append(event);
         }
     }
 }
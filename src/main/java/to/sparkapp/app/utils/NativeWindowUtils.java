@@ -5,10 +5,15 @@ import com.sun.jna.Pointer;
 import com.sun.jna.platform.win32.User32;
 import com.sun.jna.platform.win32.WinDef;
 import com.sun.jna.platform.win32.WinUser;
+import com.sun.jna.ptr.IntByReference;
+import javafx.stage.Stage;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Map;
+import java.util.WeakHashMap;
+
 @Slf4j
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class NativeWindowUtils {
@@ -29,19 +34,101 @@ public final class NativeWindowUtils {
     private static final int SWP_NOACTIVATE = 0x0010;
     private static final int SWP_FRAMECHANGED = 0x0020;
 
-    public static long getJavaFXWindowHandle(String windowTitle) {
-        if (!SystemUtils.isWindows() || windowTitle == null || windowTitle.isEmpty()) {
+    /** Glass, the JavaFX windowing layer, registers its window classes as GlassWndClass-*. */
+    private static final String GLASS_CLASS_PREFIX = "GlassWndClass";
+
+    // JavaFX destroys a stage's native window on hide() and creates a new one on show(),
+    // so an entry is cleared when its stage hides. 0 means the stage is known but not showing.
+    private static final Map<Stage, Long> STAGE_HANDLES = new WeakHashMap<>();
+
+    /**
+     * The HWND of a showing stage. Looked up once per native window among the top-level
+     * windows of this process, then cached until the stage hides. Must be called on the FX
+     * thread; {@code 0} if not on Windows or the stage is not showing.
+     */
+    public static long getStageHandle(Stage stage) {
+        if (!SystemUtils.isWindows() || !stage.isShowing()) {
             return 0L;
         }
+        var cached = STAGE_HANDLES.get(stage);
+        if (cached == null) {
+            stage.showingProperty().addListener((obs, wasShowing, showing) -> {
+                if (!showing) {
+                    STAGE_HANDLES.put(stage, 0L);
+                }
+            });
+        } else if (cached != 0) {
+            return cached;
+        }
+
+        long handle = findStageWindow(stage);
+        STAGE_HANDLES.put(stage, handle);
+        if (handle == 0) {
+            log.warn("No native window found for stage '{}'", stage.getTitle());
+        }
+        return handle;
+    }
+
+    /**
+     * Every stage of the app is a Glass window of this process. Of those, the one with the
+     * stage's title wins; without a title, or if several share it, the one closest in size.
+     */
+    private static long findStageWindow(Stage stage) {
+        var pid = (int) ProcessHandle.current().pid();
+        var title = stage.getTitle() != null ? stage.getTitle() : "";
+        var width = stage.getWidth() * stage.getOutputScaleX();
+        var height = stage.getHeight() * stage.getOutputScaleY();
+
+        var best = new long[]{0L};
+        var bestScore = new double[]{Double.MAX_VALUE};
+        try {
+            var processId = new IntByReference();
+            var buffer = new char[256];
+            var rect = new WinDef.RECT();
+            User32.INSTANCE.EnumWindows((hwnd, data) -> {
+                User32.INSTANCE.GetWindowThreadProcessId(hwnd, processId);
+                if (processId.getValue() != pid) {
+                    return true;
+                }
+                var classLength = User32.INSTANCE.GetClassName(hwnd, buffer, buffer.length);
+                if (!new String(buffer, 0, classLength).startsWith(GLASS_CLASS_PREFIX)) {
+                    return true;
+                }
+
+                var titleLength = User32.INSTANCE.GetWindowText(hwnd, buffer, buffer.length);
+                var titleMismatch = !title.isEmpty() && !title.equals(new String(buffer, 0, titleLength));
+                User32.INSTANCE.GetWindowRect(hwnd, rect);
+                var score = (titleMismatch ? 1_000_000 : 0)
+                        + Math.abs(rect.right - rect.left - width) + Math.abs(rect.bottom - rect.top - height);
+                if (score < bestScore[0]) {
+                    bestScore[0] = score;
+                    best[0] = Pointer.nativeValue(hwnd.getPointer());
+                }
+                return true;
+            }, null);
+        } catch (Exception e) {
+            log.warn("Error looking up the native window of a stage", e);
+        }
+        return best[0];
+    }
+
+    /**
+     * Shows a top-level window hidden with {@link #setVisible} and brings it to the foreground.
+     *
+     * @return whether the window is visible afterwards
+     */
+    public static boolean activate(long windowHandle) {
+        if (!SystemUtils.isWindows() || windowHandle == 0) {
+            return false;
+        }
         try {
-            var hwnd = User32.INSTANCE.FindWindow(null, windowTitle);
-            if (hwnd != null) {
-                return Pointer.nativeValue(hwnd.getPointer());
-            }
-            return 0L;
+            var hwnd = new WinDef.HWND(new Pointer(windowHandle));
+            User32.INSTANCE.ShowWindow(hwnd, WinUser.SW_SHOW);
+            User32.INSTANCE.SetForegroundWindow(hwnd);
+            return User32.INSTANCE.IsWindowVisible(hwnd);
         } catch (Exception e) {
-            log.warn("Error getting HWND for JavaFX window", e);
-            return 0L;
+            log.warn("Activating window failed", e);
+            return false;
         }
     }
 
@@ -0,0 +1,86 @@
+package to.sparkapp.app.utils;
+
+import com.sun.jna.Native;
+import com.sun.jna.Structure;
+import com.sun.jna.platform.win32.BaseTSD;
+import com.sun.jna.platform.win32.Kernel32;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.win32.StdCallLibrary;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * How much memory the process uses: the Java heap as the JVM sees it, and the resident set
+ * (working set on Windows) as the OS sees it, which also counts metaspace, code, thread
+ * stacks and native libraries. All in MB; {@code rssMb} is {@code -1} where it cannot be read.
+ */
+public record ProcessMemory(long heapUsedMb, long heapCommittedMb, long nonHeapCommittedMb, long rssMb) {
+
+    private static final long MB = 1024 * 1024;
+
+    public static ProcessMemory sample() {
+        var memory = ManagementFactory.getMemoryMXBean();
+        var heap = memory.getHeapMemoryUsage();
+        return new ProcessMemory(heap.getUsed() / MB, heap.getCommitted() / MB,
+                memory.getNonHeapMemoryUsage().getCommitted() / MB, residentMb());
+    }
+
+    @Override
+    public String toString() {
+        return "heap " + heapUsedMb + "/" + heapCommittedMb + " MB, non-heap " + nonHeapCommittedMb + " MB, RSS "
+                + (rssMb >= 0 ? rssMb + " MB" : "unknown");
+    }
+
+    private static long residentMb() {
+        try {
+            if (SystemUtils.isWindows()) {
+                var counters = new Psapi.PROCESS_MEMORY_COUNTERS();
+                return Psapi.INSTANCE.GetProcessMemoryInfo(Kernel32.INSTANCE.GetCurrentProcess(), counters, counters.size())
+                        ? counters.WorkingSetSize.longValue() / MB : -1;
+            }
+            var status = Path.of("/proc/self/status");
+            if (Files.isReadable(status)) {
+                for (var line : Files.readAllLines(status)) {
+                    if (line.startsWith("VmRSS:")) {
+                        // "VmRSS:     123456 kB"
+                        return Long.parseLong(line.replaceAll("\\D", "")) / 1024;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException | LinkageError ignored) {
+            // reported as unknown
+        }
+        return -1;
+    }
+
+    /** The one psapi call jna-platform does not map. */
+    private interface Psapi extends StdCallLibrary {
+
+        Psapi INSTANCE = Native.load("psapi", Psapi.class);
+
+        boolean GetProcessMemoryInfo(WinNT.HANDLE process, PROCESS_MEMORY_COUNTERS counters, int size);
+
+        @Structure.FieldOrder({"cb", "PageFaultCount", "PeakWorkingSetSize", "WorkingSetSize",
+                "QuotaPeakPagedPoolUsage", "QuotaPagedPoolUsage", "QuotaPeakNonPagedPoolUsage",
+                "QuotaNonPagedPoolUsage", "PagefileUsage", "PeakPagefileUsage"})
+        class PROCESS_MEMORY_COUNTERS extends Structure {
+            public int cb;
+            public int PageFaultCount;
+            public BaseTSD.SIZE_T PeakWorkingSetSize;
+            public BaseTSD.SIZE_T WorkingSetSize;
+            public BaseTSD.SIZE_T QuotaPeakPagedPoolUsage;
+            public BaseTSD.SIZE_T QuotaPagedPoolUsage;
+            public BaseTSD.SIZE_T QuotaPeakNonPagedPoolUsage;
+            public BaseTSD.SIZE_T QuotaNonPagedPoolUsage;
+            public BaseTSD.SIZE_T PagefileUsage;
+            public BaseTSD.SIZE_T PeakPagefileUsage;
+
+            public PROCESS_MEMORY_COUNTERS() {
+                cb = size();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package to.sparkapp.app.utils;
+
+import javafx.application.Platform;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The startup work as named tasks that run as soon as the tasks they depend on are done:
+ * independent work in parallel on a few startup threads, UI work on the FX thread, so the
+ * FX thread never waits for anything it does not need for the first frame.
+ *
+ * <p>Each task shows up under its name in the {@link StartupTracer} timeline. A task that
+ * fails is logged and its dependents are skipped; tasks whose failure should not hold up
+ * others handle it themselves.
+ */
+@Slf4j
+public final class StartupGraph {
+
+    private static final int WORKERS = Math.clamp(Runtime.getRuntime().availableProcessors(), 2, 4);
+
+    private final Map<String, CompletableFuture<?>> tasks = new ConcurrentHashMap<>();
+    private final AtomicInteger workerCount = new AtomicInteger();
+    private final ThreadPoolExecutor workers = new ThreadPoolExecutor(WORKERS, WORKERS, 5, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+        var t = new Thread(r, "startup-" + workerCount.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    public StartupGraph() {
+        // Nothing runs here after startup; the threads go away once idle.
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    /** Runs {@code work} on a startup thread once the tasks named in {@code after} are done. */
+    public <T> CompletableFuture<T> supply(String name, Callable<T> work, String... after) {
+        return add(name, work, workers, after);
+    }
+
+    public CompletableFuture<Void> run(String name, Runnable work, String... after) {
+        return add(name, () -> {
+            work.run();
+            return null;
+        }, workers, after);
+    }
+
+    /** Runs {@code work} on the FX thread once the tasks named in {@code after} are done. */
+    public CompletableFuture<Void> runOnFx(String name, Runnable work, String... after) {
+        return add(name, () -> {
+            work.run();
+            return null;
+        }, Platform::runLater, after);
+    }
+
+    /**
+     * The result of a task that has already completed, e.g. one listed in the {@code after}
+     * of the task asking. Never blocks the FX thread waiting for it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T result(String name) {
+        var task = task(name);
+        if (!task.isDone()) {
+            throw new IllegalStateException("Startup task " + name + " has not finished yet");
+        }
+        return (T) task.join();
+    }
+
+    private <T> CompletableFuture<T> add(String name, Callable<T> work, Executor executor, String... after) {
+        var dependencies = new CompletableFuture<?>[after.length];
+        for (var i = 0; i < after.length; i++) {
+            dependencies[i] = task(after[i]);
+        }
+
+        var task = CompletableFuture.allOf(dependencies).thenApplyAsync(v -> {
+            try (var span = StartupTracer.span(name)) {
+                return work.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+        if (tasks.putIfAbsent(name, task) != null) {
+            throw new IllegalArgumentException("Startup task " + name + " exists already");
+        }
+
+        task.whenComplete((result, error) -> {
+            if (error == null) {
+                return;
+            }
+            if (dependencies.length > 0 && CompletableFuture.allOf(dependencies).isCompletedExceptionally()) {
+                log.warn("Startup task {} skipped, a task it depends on failed", name);
+            } else {
+                log.error("Startup task {} failed", name, error.getCause() != null ? error.getCause() : error);
+            }
+        });
+        return task;
+    }
+
+    private CompletableFuture<?> task(String name) {
+        var task = tasks.get(name);
+        if (task == null) {
+            throw new IllegalArgumentException("Unknown startup task " + name);
+        }
+        return task;
+    }
+}
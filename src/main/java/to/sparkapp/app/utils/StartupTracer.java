@@ -0,0 +1,210 @@
+package to.sparkapp.app.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long the steps of a startup take, so a slow update can be pinned on one of them.
+ *
+ * <p>Times are monotonic milliseconds since {@link #begin()}, which {@code main} calls first.
+ * A step is either a point in time ({@link #mark}) or a {@link Span} with a duration; each
+ * name is recorded once, so steps that repeat later (the window is shown again, another page
+ * loads) keep their first time. Once all steps given to {@link #finishWhen} have happened, or
+ * after {@link #GIVE_UP_MS}, the timeline is written as {@value #FILE_NAME} next to the logs
+ * and summarised in one log line, together with the heap and resident memory at that point.
+ *
+ * <p>Safe to call from any thread; does nothing before {@link #begin()} and after finishing.
+ * No logging before finishing, since the first steps run before logging is set up.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class StartupTracer {
+
+    public static final String FILE_NAME = "startup-timeline.json";
+
+    /** A startup that takes longer than this is written as incomplete rather than never. */
+    private static final long GIVE_UP_MS = 60_000;
+
+    private static final List<Step> STEPS = new ArrayList<>();
+    private static final Set<String> NAMES = new HashSet<>();
+    private static final Set<String> AWAITED = new HashSet<>();
+
+    private static volatile long origin;
+    private static Instant startedAt;
+    private static boolean finished;
+
+    public static synchronized void begin() {
+        if (origin != 0) {
+            return;
+        }
+        origin = System.nanoTime();
+        startedAt = Instant.now();
+
+        var giveUp = new Thread(() -> {
+            try {
+                Thread.sleep(GIVE_UP_MS);
+                finish(false);
+            } catch (InterruptedException ignored) {
+                // the JVM is exiting
+            }
+        }, "startup-tracer");
+        giveUp.setDaemon(true);
+        giveUp.start();
+    }
+
+    /** The timeline is written once all of these steps have been recorded; replaces earlier ones. */
+    public static synchronized void finishWhen(String... names) {
+        AWAITED.clear();
+        AWAITED.addAll(List.of(names));
+    }
+
+    public static void mark(String name) {
+        record(name, now(), 0);
+    }
+
+    /** Starts a step with a duration; {@link Span#close() close} it when the step is done. */
+    public static Span span(String name) {
+        return new Span(name, now());
+    }
+
+    private static long now() {
+        return System.nanoTime();
+    }
+
+    private static void record(String name, long startNanos, long durationNanos) {
+        boolean complete;
+        synchronized (StartupTracer.class) {
+            if (origin == 0 || finished || !NAMES.add(name)) {
+                return;
+            }
+            STEPS.add(new Step(name, millis(startNanos - origin), millis(durationNanos), Thread.currentThread().getName()));
+            complete = !AWAITED.isEmpty() && NAMES.containsAll(AWAITED);
+        }
+        if (complete) {
+            // Whoever records the last step may be the FX or webview thread; writing is not their job.
+            Thread.ofPlatform().daemon().name("startup-report").start(() -> finish(true));
+        }
+    }
+
+    private static void finish(boolean complete) {
+        Map<String, Object> timeline;
+        synchronized (StartupTracer.class) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            timeline = timeline(complete);
+        }
+
+        var log = LoggerFactory.getLogger(StartupTracer.class);
+        log.info(summary(timeline));
+        try {
+            var json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(timeline);
+            AtomicFiles.write(new File(LogSetup.logsDir(), FILE_NAME).toPath(), json, false);
+        } catch (IOException e) {
+            log.warn("Failed to write the startup timeline", e);
+        }
+    }
+
+    private static Map<String, Object> timeline(boolean complete) {
+        var sorted = new ArrayList<>(STEPS);
+        sorted.sort((a, b) -> Double.compare(a.atMs(), b.atMs()));
+
+        var timeline = new LinkedHashMap<String, Object>();
+        timeline.put("startedAt", startedAt.toString());
+        timeline.put("complete", complete);
+        // Process launch to main: JVM boot and class loading, which the steps cannot see.
+        ProcessHandle.current().info().startInstant().ifPresent(launched ->
+                timeline.put("processToMainMs", Math.max(0, startedAt.toEpochMilli() - launched.toEpochMilli())));
+        timeline.put("totalMs", sorted.stream().mapToDouble(s -> s.atMs() + s.durationMs()).max().orElse(0));
+        // Memory at the end of startup, so changes to what gets loaded can be compared run to run.
+        timeline.put("memory", ProcessMemory.sample());
+        // Startup logs the most; a full log queue drops events rather than stalling a step.
+        timeline.put("droppedLogEvents", LogSetup.droppedEvents());
+        timeline.put("steps", sorted);
+        return timeline;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String summary(Map<String, Object> timeline) {
+        var summary = new StringBuilder("Startup ")
+                .append(Boolean.TRUE.equals(timeline.get("complete")) ? "took " : "incomplete after ")
+                .append(Math.round((double) timeline.get("totalMs"))).append(" ms");
+        if (timeline.get("processToMainMs") instanceof Long beforeMain) {
+            summary.append(" (+").append(beforeMain).append(" ms before main)");
+        }
+        summary.append(':');
+        for (var step : (List<Step>) timeline.get("steps")) {
+            summary.append(' ').append(step.name());
+            if (step.durationMs() > 0) {
+                summary.append(' ').append(Math.round(step.durationMs())).append(" ms,");
+            } else {
+                summary.append(" @").append(Math.round(step.atMs())).append(',');
+            }
+        }
+        summary.setLength(summary.length() - 1);
+        summary.append("; ").append(timeline.get("memory"));
+        if (timeline.get("droppedLogEvents") instanceof Long dropped && dropped > 0) {
+            summary.append("; ").append(dropped).append(" log events dropped");
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Prints the timeline of the last startup for {@code --startup-report}.
+     *
+     * @return whether there was one
+     */
+    public static boolean printLastReport() {
+        var file = new File(LogSetup.logsDir(), FILE_NAME);
+        try {
+            System.out.println(Files.readString(file.toPath()));
+            return true;
+        } catch (IOException e) {
+            System.err.println("No startup timeline at " + file.getAbsolutePath() + "; start Spark once first.");
+            return false;
+        }
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1) * 10) / 10.0;
+    }
+
+    /**
+     * @param atMs       when the step started, since {@code main}
+     * @param durationMs how long it took; {@code 0} for a point in time
+     * @param thread     the thread it ran on
+     */
+    public record Step(String name, double atMs, double durationMs, String thread) {
+    }
+
+    public static final class Span implements AutoCloseable {
+
+        private final String name;
+        private final long start;
+
+        private Span(String name, long start) {
+            this.name = name;
+            this.start = start;
+        }
+
+        @Override
+        public void close() {
+            record(name, start, now() - start);
+        }
+    }
+}
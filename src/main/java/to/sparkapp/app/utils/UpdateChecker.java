@@ -6,7 +6,6 @@ import javafx.application.Platform;
 import javafx.stage.Window;
 import lombok.extern.slf4j.Slf4j;
 
-import java.awt.Desktop;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -76,10 +75,6 @@ public class UpdateChecker {
 
     private static void showUpdateDialog(Window parent, String version, String url) {
         if (!UpdateDialog.show(version, parent)) return;
-        try {
-            Desktop.getDesktop().browse(new URI(url));
-        } catch (Exception e) {
-            log.error("Error opening browser for update", e);
-        }
+        UrlUtils.openLink(url);
     }
 }
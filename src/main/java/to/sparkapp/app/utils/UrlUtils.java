@@ -2,17 +2,84 @@ package to.sparkapp.app.utils;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.awt.Desktop;
+import java.io.IOException;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Locale;
 
 @Slf4j
 public class UrlUtils {
 
+    /**
+     * Opens an http(s) URL in the default browser through the platform's own launcher, so the
+     * AWT toolkit is never started for it. Other schemes are refused: the launchers would open
+     * local files and programs just as readily.
+     */
     public static void openLink(String url) {
+        if (normalize(url) == null) {
+            log.warn("Refusing to open non-web link: {}", url);
+            return;
+        }
+        var target = url.trim().contains("://") ? url.trim() : "https://" + url.trim();
         try {
-            Desktop.getDesktop().browse(new URI(url));
-        } catch (Exception e) {
+            new ProcessBuilder(browserCommand(URI.create(target).toASCIIString()))
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+        } catch (IOException | IllegalArgumentException e) {
             log.error("Error opening link", e);
         }
     }
-}
\ No newline at end of file
+
+    private static List<String> browserCommand(String url) {
+        if (SystemUtils.isWindows()) {
+            return List.of("rundll32", "url.dll,FileProtocolHandler", url);
+        }
+        if (SystemUtils.isMac()) {
+            return List.of("open", url);
+        }
+        return List.of("xdg-open", url);
+    }
+
+    /**
+     * Brings a URL into a canonical form for comparisons: {@code https://} is assumed when the
+     * scheme is missing, scheme and host are lower-cased, and default ports, fragments and a
+     * trailing slash are dropped.
+     *
+     * @return the normalised URL, or {@code null} if it is not a valid http(s) URL
+     */
+    public static String normalize(String url) {
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+        var trimmed = url.trim();
+        if (!trimmed.contains("://")) {
+            trimmed = "https://" + trimmed;
+        }
+
+        try {
+            var uri = new URI(trimmed);
+            var scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            if (!scheme.equals("http") && !scheme.equals("https") || uri.getHost() == null) {
+                return null;
+            }
+
+            var port = uri.getPort();
+            if (port == 80 && scheme.equals("http") || port == 443 && scheme.equals("https")) {
+                port = -1;
+            }
+            var path = uri.getRawPath() == null ? "" : uri.getRawPath();
+            while (path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+
+            return scheme + "://" + uri.getHost().toLowerCase(Locale.ROOT)
+                    + (port != -1 ? ":" + port : "")
+                    + path
+                    + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+}
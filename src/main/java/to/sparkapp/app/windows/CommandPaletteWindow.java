@@ -0,0 +1,140 @@
+package to.sparkapp.app.windows;
+
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+import to.sparkapp.app.palette.CommandPalette;
+import to.sparkapp.app.palette.PaletteItem;
+import to.sparkapp.app.ui.Theme;
+import to.sparkapp.app.ui.palette.PaletteResultCell;
+
+import java.util.function.Consumer;
+
+/**
+ * Keyboard palette over the main window (Ctrl+Shift+P): type to find a provider, a recent
+ * page or an action, Up/Down to choose, Enter to go there, Esc to close.
+ *
+ * <p>A separate stage rather than an overlay node, because the native webview window
+ * covers the main window's scene.
+ */
+public class CommandPaletteWindow extends Stage {
+
+    private static final double WIDTH = 520;
+    private static final int MAX_RESULTS = 8;
+    private static final int RADIUS = 14;
+
+    private final CommandPalette palette;
+    private final Consumer<PaletteItem> onPick;
+    private final TextField input = new TextField();
+    private final ListView<PaletteItem> results = new ListView<>();
+
+    public CommandPaletteWindow(Stage owner, CommandPalette palette, Consumer<PaletteItem> onPick) {
+        this.palette = palette;
+        this.onPick = onPick;
+
+        this.initOwner(owner);
+        this.initStyle(StageStyle.TRANSPARENT);
+        this.setTitle("Spark Command Palette");
+
+        input.setPromptText("Go to a provider, recent page or action…");
+        input.setFont(Font.font(Theme.FONT_NAME, 16));
+        input.setStyle("""
+                    -fx-background-color: transparent;
+                    -fx-text-fill: %s;
+                    -fx-prompt-text-fill: %s;
+                    -fx-padding: 4 6 8 6;
+                """.formatted(Theme.toHex(Theme.TEXT_PRIMARY), Theme.toHex(Theme.TEXT_TERTIARY)));
+        input.textProperty().addListener((obs, o, text) -> refresh());
+        input.addEventFilter(KeyEvent.KEY_PRESSED, this::handleKey);
+
+        results.setFixedCellSize(PaletteResultCell.HEIGHT);
+        results.setPrefHeight(PaletteResultCell.HEIGHT * MAX_RESULTS + 2);
+        results.setFocusTraversable(false);
+        results.setStyle("-fx-background-color: transparent; -fx-control-inner-background: transparent; -fx-padding: 0;");
+        results.setCellFactory(list -> {
+            var cell = new PaletteResultCell();
+            cell.setOnMouseClicked(e -> {
+                if (cell.getItem() != null) {
+                    pick(cell.getItem());
+                }
+            });
+            return cell;
+        });
+
+        var root = new VBox(6, input, results);
+        root.setPadding(new Insets(12));
+        root.setStyle(
+                "-fx-background-color: " + Theme.toHex(Theme.BG_BAR) + ";" +
+                        "-fx-background-radius: " + RADIUS + "px;" +
+                        "-fx-border-color: " + Theme.toHex(Theme.BORDER) + ";" +
+                        "-fx-border-radius: " + RADIUS + "px;"
+        );
+
+        this.setScene(new Scene(root, WIDTH, -1, Color.TRANSPARENT));
+        this.focusedProperty().addListener((obs, was, focused) -> {
+            if (!focused) {
+                hide();
+            }
+        });
+    }
+
+    public void toggle() {
+        if (isShowing()) {
+            hide();
+        } else {
+            open();
+        }
+    }
+
+    public void open() {
+        input.clear();
+        refresh();
+
+        var owner = getOwner();
+        setX(owner.getX() + (owner.getWidth() - WIDTH) / 2);
+        setY(owner.getY() + 56);
+
+        show();
+        toFront();
+        requestFocus();
+        input.requestFocus();
+    }
+
+    private void refresh() {
+        results.getItems().setAll(palette.search(input.getText(), MAX_RESULTS));
+        if (!results.getItems().isEmpty()) {
+            results.getSelectionModel().select(0);
+        }
+    }
+
+    private void handleKey(KeyEvent e) {
+        var selection = results.getSelectionModel();
+        switch (e.getCode()) {
+            case DOWN -> selection.select(Math.min(selection.getSelectedIndex() + 1, results.getItems().size() - 1));
+            case UP -> selection.select(Math.max(selection.getSelectedIndex() - 1, 0));
+            case ENTER -> {
+                if (selection.getSelectedItem() != null) {
+                    pick(selection.getSelectedItem());
+                }
+            }
+            case ESCAPE -> hide();
+            default -> {
+                return;
+            }
+        }
+        e.consume();
+    }
+
+    private void pick(PaletteItem item) {
+        hide();
+        palette.recordUse(item);
+        onPick.accept(item);
+    }
+}
@@ -1,26 +1,48 @@
 package to.sparkapp.app.windows;
 
+import to.sparkapp.app.browser.PromptTiming;
 import to.sparkapp.app.config.AiConfiguration;
+import to.sparkapp.app.config.AppPaths;
 import to.sparkapp.app.config.AppPreferences;
+import to.sparkapp.app.config.ConfigFileWatcher;
+import to.sparkapp.app.history.ConversationArchive;
+import to.sparkapp.app.history.PromptHistory;
+import to.sparkapp.app.history.SearchHit;
+import to.sparkapp.app.palette.CommandPalette;
+import to.sparkapp.app.palette.PaletteItem;
+import to.sparkapp.app.tray.Tray;
+import to.sparkapp.app.ui.dialogs.ConversationSearchDialog;
 import to.sparkapp.app.ui.webview.FxWebViewPane;
 import to.sparkapp.app.ui.Theme;
+import to.sparkapp.app.ui.compare.ComparePane;
 import to.sparkapp.app.ui.settings.SettingsPanel;
 import to.sparkapp.app.ui.topbar.TopBarArea;
 import to.sparkapp.app.ui.topbar.components.AiDock;
 import to.sparkapp.app.utils.GlobalHotkeyManager;
+import to.sparkapp.app.utils.LatencyHistogram;
+import to.sparkapp.app.utils.NativeWindowUtils;
+import to.sparkapp.app.utils.StartupGraph;
+import to.sparkapp.app.utils.SystemUtils;
+import to.sparkapp.app.utils.UpdateChecker;
+import to.sparkapp.app.utils.StartupTracer;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.scene.Scene;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import javafx.util.Duration;
 import lombok.extern.slf4j.Slf4j;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.io.IOException;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -28,25 +50,47 @@ public class MainWindow extends Stage {
 
     private final AiConfiguration aiConfiguration;
     private final AppPreferences appPreferences;
+    private final StartupGraph startup;
 
     private FxWebViewPane fxWebViewPane;
+    private ComparePane comparePane;
+    private boolean compareMode = false;
     private SettingsWindow settingsWindow;
     private BorderPane rootPane;
-    private GlobalHotkeyManager globalHotkeyManager;
-    private SplashScreen splashScreen;
+    private TopBarArea topBarArea;
+    // Written by the "hotkeys" and "configWatcher" startup tasks off the FX thread, hence volatile;
+    // the other fields here are only touched on the FX thread.
+    private volatile GlobalHotkeyManager globalHotkeyManager;
+    private ConversationArchive conversationArchive;
+    private QuickAskWindow quickAskWindow;
+    private PromptHistory promptHistory;
+    private CommandPalette commandPalette;
+    private CommandPaletteWindow commandPaletteWindow;
+    private volatile ConfigFileWatcher configWatcher;
+    private CompletableFuture<Void> hotkeysReady = CompletableFuture.completedFuture(null);
+    private String pendingQuickAskId;
+    private boolean idleWorkDone;
+    // Hidden natively while JavaFX still considers it showing; see conceal().
+    private boolean concealed;
+    private final LatencyHistogram summonLatency = new LatencyHistogram("Hotkey to visible");
 
     // Сохраняем иконку трея, чтобы можно было удалить её при выходе
-    private TrayIcon trayIcon;
+    private volatile Tray tray;
 
     private boolean authMode = false;
 
     public static final int HEIGHT = 700;
     private static final int WIDTH = 820;
     private static final int RADIUS = 14;
+    private static final Duration IDLE_WORK_DELAY = Duration.seconds(2);
+    private static final Duration IDLE_WORK_FALLBACK = Duration.seconds(30);
+    private static final int SUMMON_REPORT_EVERY = 20;
+    private static final Duration TRAINING_SETTLE = Duration.seconds(5);
 
-    public MainWindow(AiConfiguration aiConfiguration, AppPreferences appPreferences) {
+    public MainWindow(AiConfiguration aiConfiguration, AppPreferences appPreferences, StartupGraph startup) {
         this.aiConfiguration = aiConfiguration;
         this.appPreferences = appPreferences;
+        this.startup = startup;
 
         this.setTitle("Spark");
         this.initStyle(StageStyle.TRANSPARENT);
@@ -90,8 +134,73 @@ public class MainWindow extends Stage {
         });
     }
 
-    public void showWindow() {
-        Platform.runLater(this::initializeOnFX);
+    /**
+     * Builds what the first frame needs and shows the window right after, in place of the
+     * splash; everything else is left to startup tasks. Must be called on the FX thread.
+     */
+    public void showWindow(SplashScreen splashScreen) {
+        try {
+            buildShell();
+        } catch (Exception e) {
+            log.error("Failed to initialize application", e);
+            splashScreen.hideSplash();
+            System.exit(1);
+            return;
+        }
+
+        splashScreen.hideSplash();
+        if (!appPreferences.isStartApplicationHiddenEnabled()) {
+            show();
+            StartupTracer.mark("windowShown");
+        } else {
+            showConcealed();
+        }
+        StartupTracer.mark("uiReady");
+
+        startResidentTasks();
+        startShellTasks();
+    }
+
+    /**
+     * Start at login in the background: only what lets the user summon the window (tray icon
+     * and hotkey hook) is set up. The scene and the webview are built when the window is first
+     * shown, or after {@link AppPreferences#getDeferredBootPrewarmSeconds() a delay} if set.
+     * Must be called on the FX thread.
+     */
+    public void startDeferred() {
+        CompletableFuture.allOf(startResidentTasks().toArray(CompletableFuture[]::new))
+                .whenComplete((v, e) -> StartupTracer.mark("residentReady"));
+
+        var prewarmSeconds = appPreferences.getDeferredBootPrewarmSeconds();
+        if (prewarmSeconds > 0) {
+            var prewarm = new PauseTransition(Duration.seconds(prewarmSeconds));
+            prewarm.setOnFinished(e -> {
+                if (rootPane == null) {
+                    log.info("Prewarming the main window after {} s in the background", prewarmSeconds);
+                    if (ensureShell()) {
+                        showConcealed();
+                    }
+                }
+            });
+            prewarm.play();
+        }
+        log.info("Started at login in the background; the main window is built when first shown");
+    }
+
+    /** Builds the window content if a deferred start has not yet; {@code false} if that failed. */
+    private boolean ensureShell() {
+        if (rootPane != null) {
+            return true;
+        }
+        try {
+            buildShell();
+        } catch (Exception e) {
+            log.error("Failed to build the main window", e);
+            rootPane = null;
+            return false;
+        }
+        startShellTasks();
+        return true;
     }
 
     public void setAuthMode(boolean isAuth) {
@@ -106,14 +215,42 @@ public class MainWindow extends Stage {
      * Public so that both the tray action and GlobalHotkeyManager can use it.
      */
     public void showMainWindow() {
-        this.show();
+        showMainWindow(0L);
+    }
+
+    /**
+     * @param requestedAtNanos {@link System#nanoTime()} of the hotkey press asking for the window;
+     *                         the time until it is on screen goes into the summon latency histogram.
+     *                         {@code 0} to not measure.
+     */
+    public void showMainWindow(long requestedAtNanos) {
+        if (!ensureShell()) {
+            return;
+        }
+        var revealed = reveal();
+        if (!revealed) {
+            this.show();
+        }
         this.setIconified(false);
         this.toFront();
         this.requestFocus();
 
-        if (fxWebViewPane != null) {
-            fxWebViewPane.onWindowRestored();
+        // A revealed window kept its webviews in place.
+        if (!revealed) {
+            if (compareMode) {
+                comparePane.onWindowRestored();
+            } else if (fxWebViewPane != null) {
+                fxWebViewPane.onWindowRestored();
+            }
         }
+        if (requestedAtNanos != 0) {
+            measureSummon(requestedAtNanos);
+        }
+    }
+
+    /** Whether the window is visible to the user, unlike {@link #isShowing()} which a concealed window also is. */
+    public boolean isOnScreen() {
+        return isShowing() && !concealed;
     }
 
     /**
@@ -124,12 +261,272 @@ public class MainWindow extends Stage {
         if (settingsWindow != null && settingsWindow.isOpen()) {
             settingsWindow.close();
         }
+        if (conceal()) {
+            return;
+        }
+        hideWithWebviews();
+    }
+
+    private void hideWithWebviews() {
         if (fxWebViewPane != null) {
             fxWebViewPane.onWindowHidden();
         }
+        if (comparePane != null) {
+            comparePane.onWindowHidden();
+        }
         this.hide();
     }
 
+    /**
+     * Hides the window natively where that is possible (Windows). {@link #hide()} would make
+     * JavaFX destroy the native window, so the webviews would have to leave it first and the
+     * next show would have to look up the new window and move them back in; a concealed window
+     * keeps both, and showing it is a single {@code ShowWindow}.
+     *
+     * @return {@code false} if the window has to be hidden the usual way
+     */
+    private boolean conceal() {
+        if (concealed) {
+            return true;
+        }
+        var handle = NativeWindowUtils.getStageHandle(this);
+        if (handle == 0) {
+            return false;
+        }
+        NativeWindowUtils.setVisible(handle, false);
+        concealed = true;
+        return true;
+    }
+
+    /**
+     * Shows a concealed window again; {@code false} if it was not concealed or could not be
+     * shown natively. In the latter case it is hidden the usual way, as JavaFX still considers
+     * it showing and would otherwise ignore the caller's {@code show()}.
+     */
+    private boolean reveal() {
+        if (!concealed) {
+            return false;
+        }
+        var handle = NativeWindowUtils.getStageHandle(this);
+        if (handle != 0 && NativeWindowUtils.activate(handle)) {
+            concealed = false;
+            return true;
+        }
+        log.warn("Could not show the concealed window natively; showing it again through JavaFX");
+        concealed = false;
+        hideWithWebviews();
+        return false;
+    }
+
+    /**
+     * A start in the background on Windows still shows the window, invisibly, and conceals it
+     * right away, so the webview loads in its place and the first summon is as quick as the rest.
+     */
+    private void showConcealed() {
+        if (!SystemUtils.isWindows() || isShowing()) {
+            return;
+        }
+        setOpacity(0);
+        show();
+        if (!conceal()) {
+            hide();
+        }
+        setOpacity(1);
+    }
+
+    // The summon ends with the first frame rendered after the window is shown, right after this layout pass.
+    private void measureSummon(long requestedAtNanos) {
+        var scene = getScene();
+        var done = new AtomicBoolean();
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            var millis = (System.nanoTime() - requestedAtNanos) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+            summonLatency.record(millis);
+            log.debug("Summoned in {} ms", Math.round(millis));
+            if (summonLatency.count() % SUMMON_REPORT_EVERY == 0) {
+                log.info(summonLatency.summary());
+            }
+            // Not from within the pulse that is iterating the listeners.
+            Platform.runLater(() -> scene.removePostLayoutPulseListener(listener[0]));
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+        Platform.requestNextPulse();
+    }
+
+    /**
+     * Switches the content area between the single provider webview and the
+     * side-by-side compare view.
+     */
+    public void toggleCompareMode() {
+        if (settingsWindow != null && settingsWindow.isOpen()) {
+            settingsWindow.close();
+        }
+
+        compareMode = !compareMode;
+        if (compareMode) {
+            if (comparePane == null) {
+                comparePane = new ComparePane(aiConfiguration, appPreferences, promptHistory);
+            }
+            fxWebViewPane.onWindowHidden();
+            rootPane.setCenter(comparePane);
+            comparePane.onWindowRestored();
+            comparePane.focusPrompt();
+        } else {
+            comparePane.onWindowHidden();
+            rootPane.setCenter(fxWebViewPane);
+            fxWebViewPane.onWindowRestored();
+        }
+        log.info("Compare mode {}", compareMode ? "enabled" : "disabled");
+    }
+
+    /**
+     * Opens or closes the quick-ask popup. Used by the quick-ask global hotkey.
+     */
+    public void toggleQuickAsk() {
+        if (!ensureShell()) {
+            return;
+        }
+        closeSettings();
+        String providerName;
+        if (compareMode) {
+            providerName = "all compared providers";
+        } else {
+            var config = fxWebViewPane.getCurrentConfig();
+            providerName = config != null ? config.name() : null;
+        }
+        quickAskWindow().toggle(providerName);
+    }
+
+    /**
+     * Opened by the first captured message or the first search, so sessions that do neither
+     * never read the store. The archive loads its index on its own thread.
+     */
+    private ConversationArchive conversationArchive() {
+        if (conversationArchive == null) {
+            conversationArchive = new ConversationArchive();
+        }
+        return conversationArchive;
+    }
+
+    private QuickAskWindow quickAskWindow() {
+        if (quickAskWindow == null) {
+            quickAskWindow = new QuickAskWindow(promptHistory, this::submitQuickAsk);
+        }
+        return quickAskWindow;
+    }
+
+    private void submitQuickAsk(String prompt) {
+        if (prompt == null || prompt.isBlank()) {
+            return;
+        }
+        if (compareMode) {
+            comparePane.submitPrompt(prompt);
+            if (!isOnScreen()) {
+                showMainWindow();
+            }
+            return;
+        }
+
+        if (promptHistory != null) {
+            promptHistory.record(prompt);
+        }
+
+        // The page is already loaded (hibernated webviews keep running), so the prompt is
+        // injected right away; the window only appears once the answer starts streaming.
+        pendingQuickAskId = fxWebViewPane.submitPrompt(prompt);
+        if (pendingQuickAskId != null) {
+            log.info("Quick ask submitted [{}]", pendingQuickAskId);
+        }
+    }
+
+    private void handlePromptTiming(PromptTiming timing) {
+        if (pendingQuickAskId == null || !pendingQuickAskId.equals(timing.requestId())) {
+            return;
+        }
+
+        var failed = "error".equals(timing.phase()) || "timeout".equals(timing.phase());
+        if (timing.isFirstToken()) {
+            log.info("Quick ask first token after {} ms", Math.round(timing.millis()));
+        }
+        // Failures are always surfaced, otherwise the prompt would silently vanish.
+        var reveal = failed || (timing.isFirstToken() && appPreferences.isQuickAskRevealOnAnswer());
+        if (reveal && !isOnScreen()) {
+            showMainWindow();
+        }
+        if (timing.isFinal()) {
+            pendingQuickAskId = null;
+        }
+    }
+
+    private void openConversationSearch() {
+        if (settingsWindow != null && settingsWindow.isOpen()) {
+            settingsWindow.close();
+        }
+        var dialog = new ConversationSearchDialog(this, conversationArchive(), this::openConversation);
+        dialog.show();
+        dialog.setX(getX() + (getWidth() - dialog.getWidth()) / 2);
+        dialog.setY(getY() + 60);
+    }
+
+    private void setupCommandPalette(Scene scene) {
+        commandPalette = new CommandPalette();
+        commandPalette.addAction("settings", "Open settings", "preferences options providers");
+        commandPalette.addAction("compare", "Toggle compare mode", "side by side multiple providers");
+        commandPalette.addAction("search", "Search conversations", "history find archive");
+        commandPalette.addAction("reset-zoom", "Reset zoom", "zoom 100 scale");
+        commandPalette.addAction("clear-cookies", "Clear cookies", "logout session data");
+        commandPalette.addAction("hide", "Hide window", "minimize close");
+        commandPalette.updateProviders(aiConfiguration.getConfigurations());
+
+        commandPaletteWindow = new CommandPaletteWindow(this, commandPalette, this::handlePaletteItem);
+        scene.getAccelerators().put(
+                new KeyCodeCombination(KeyCode.P, KeyCombination.SHORTCUT_DOWN, KeyCombination.SHIFT_DOWN),
+                commandPaletteWindow::toggle);
+        fxWebViewPane.setOnPaletteRequested(commandPaletteWindow::toggle);
+        fxWebViewPane.setOnUrlChanged(url -> commandPalette.recordVisit(fxWebViewPane.getCurrentConfig(), url));
+    }
+
+    private void handlePaletteItem(PaletteItem item) {
+        switch (item.kind()) {
+            case PROVIDER, RECENT_PAGE -> {
+                if (compareMode) {
+                    toggleCompareMode();
+                }
+                if (!topBarArea.selectProvider(item.target(), item.url())) {
+                    log.warn("Provider {} picked in the palette no longer exists", item.target());
+                }
+            }
+            case ACTION -> {
+                switch (item.target()) {
+                    case "settings" -> toggleSettings();
+                    case "compare" -> toggleCompareMode();
+                    case "search" -> openConversationSearch();
+                    case "reset-zoom" -> fxWebViewPane.resetZoom();
+                    case "clear-cookies" -> fxWebViewPane.clearCookies();
+                    case "hide" -> hideMainWindow();
+                    default -> log.warn("Unknown palette action {}", item.target());
+                }
+            }
+        }
+    }
+
+    private void openConversation(SearchHit hit) {
+        var message = hit.message();
+        var config = aiConfiguration.findById(message.providerId());
+        if (config.isEmpty()) {
+            log.warn("Provider {} of captured conversation no longer exists", message.providerId());
+            return;
+        }
+
+        if (compareMode) {
+            toggleCompareMode();
+        }
+        fxWebViewPane.openUrl(config.get(), message.url());
+    }
+
     private void handleProvidersChanged() {
         Platform.runLater(() -> {
             var activeIcons = aiConfiguration.getConfigurations().stream()
@@ -141,54 +538,39 @@ public class MainWindow extends Stage {
         });
     }
 
+    // Most preferences are read when they are used; only these need the UI to catch up.
+    private void handleExternalPreferencesChange(Set<String> changed) {
+        Platform.runLater(() -> {
+            if (changed.contains("aiOrder")) {
+                topBarArea.applySavedDockOrder();
+            }
+            if (changed.contains("compareProviders") && comparePane != null) {
+                comparePane.refreshProviders();
+            }
+        });
+    }
+
     public void reloadTopBar() {
         Platform.runLater(() -> {
             aiConfiguration.reload();
-            rootPane.setTop(null);
-
-            var newTopBarArea = new TopBarArea(aiConfiguration, fxWebViewPane, this, settingsWindow, appPreferences,
-                    this::toggleSettings, this::hideMainWindow);
-
-            rootPane.setTop(newTopBarArea);
-            log.info("TopBar reloaded with {} providers", aiConfiguration.getConfigurations().size());
+            topBarArea.updateProviders(aiConfiguration.getConfigurations());
+            if (commandPalette != null) {
+                commandPalette.updateProviders(aiConfiguration.getConfigurations());
+            }
+            if (comparePane != null) {
+                comparePane.refreshProviders();
+            }
+            log.info("TopBar updated with {} providers", aiConfiguration.getConfigurations().size());
         });
     }
 
     private void setupTray() {
-        if (!SystemTray.isSupported()) return;
-
-        var tray = SystemTray.getSystemTray();
-        var iconUrl = getClass().getResource("/app-icons/icon.png");
-        if (iconUrl == null) iconUrl = getClass().getResource("/app-icons/icon.ico");
-
-        Image image;
-        try {
-            image = ImageIO.read(iconUrl);
-        } catch (IOException | IllegalArgumentException e) {
-            log.error("Failed to load tray icon", e);
-            return;
-        }
-
-        var popup = new PopupMenu();
-
-        var showItem = new MenuItem("Show Application");
-        showItem.addActionListener(e -> Platform.runLater(this::showMainWindow));
-        popup.add(showItem);
-
-        popup.addSeparator();
-
-        var exitItem = new MenuItem("Exit Spark");
-        exitItem.addActionListener(e -> Platform.runLater(this::performShutdown));
-        popup.add(exitItem);
-
-        trayIcon = new TrayIcon(image, "Spark", popup);
-        trayIcon.setImageAutoSize(true);
-        trayIcon.addActionListener(e -> Platform.runLater(this::showMainWindow));
+        tray = Tray.install(() -> Platform.runLater(this::showMainWindow), () -> Platform.runLater(this::performShutdown));
+    }
 
-        try {
-            tray.add(trayIcon);
-        } catch (AWTException e) {
-            log.error("Failed to setup system tray", e);
+    private void closeSettings() {
+        if (settingsWindow != null && settingsWindow.isOpen()) {
+            settingsWindow.close();
         }
     }
 
@@ -199,13 +581,37 @@ public class MainWindow extends Stage {
         }
         if (settingsWindow.isOpen()) {
             settingsWindow.close();
-        } else {
+        } else if (hotkeysReady.isDone()) {
             settingsWindow.open();
+        } else {
+            // The panel is built once, and its hotkey section needs what the "hotkeys" task sets up.
+            hotkeysReady.whenComplete((v, e) -> Platform.runLater(settingsWindow::open));
         }
     }
 
+    /**
+     * The startup training run of the packaging build: after a real startup, opens the settings
+     * and the command palette as a user would, gives the dock icons time to rasterise and then
+     * shuts down the usual way, so the JVM records the classes all of that loads.
+     */
+    public void runTraining() {
+        log.info("Training run: exercising settings, palette and dock icons");
+        toggleSettings();
+        commandPaletteWindow.toggle();
+        var settle = new PauseTransition(TRAINING_SETTLE);
+        settle.setOnFinished(e -> {
+            commandPaletteWindow.toggle();
+            closeSettings();
+            performShutdown();
+        });
+        settle.play();
+    }
+
     private void performShutdown() {
         log.info("Starting application shutdown...");
+        if (summonLatency.count() > 0) {
+            log.info(summonLatency.summary());
+        }
 
         new Thread(() -> {
             try {
@@ -229,10 +635,38 @@ public class MainWindow extends Stage {
         }
 
         this.hide();
+        if (quickAskWindow != null) {
+            quickAskWindow.shutdown();
+        }
         AiDock.clearIconCache();
 
-        if (trayIcon != null && SystemTray.isSupported()) {
-            SystemTray.getSystemTray().remove(trayIcon);
+        if (comparePane != null) {
+            comparePane.shutdown();
+        }
+
+        if (conversationArchive != null) {
+            conversationArchive.shutdown();
+        }
+
+        if (promptHistory != null) {
+            promptHistory.shutdown();
+        }
+
+        if (commandPaletteWindow != null) {
+            commandPaletteWindow.hide();
+        }
+        if (commandPalette != null) {
+            commandPalette.shutdown();
+        }
+
+        if (configWatcher != null) {
+            configWatcher.stop();
+        }
+        aiConfiguration.getCustomProvidersManager().shutdown();
+        appPreferences.shutdown();
+
+        if (tray != null) {
+            tray.remove();
         }
 
         if (fxWebViewPane != null) {
@@ -252,65 +686,115 @@ public class MainWindow extends Stage {
         }
     }
 
-    private void initializeOnFX() {
-        try {
-            splashScreen = new SplashScreen();
-            splashScreen.showSplash();
+    private void buildShell() {
+        // Decoding starts on the icon loaders while the rest is built.
+        AiDock.preloadIcons(aiConfiguration.getConfigurations(), appPreferences);
 
-            rootPane = createRootPane();
-            Scene scene = new Scene(rootPane, WIDTH, HEIGHT, Color.TRANSPARENT);
-            this.setScene(scene);
+        rootPane = createRootPane();
+        Scene scene = new Scene(rootPane, WIDTH, HEIGHT, Color.TRANSPARENT);
+        this.setScene(scene);
+        StartupTracer.mark("sceneCreated");
 
-            if (splashScreen != null) splashScreen.updateStatus("Initializing browser engine...");
+        if (appPreferences.isPromptHistoryEnabled()) {
+            promptHistory = new PromptHistory();
+        }
+        StartupTracer.mark("historyOpened");
 
-            fxWebViewPane = getFxWebViewPane();
-            rootPane.setCenter(fxWebViewPane);
+        fxWebViewPane = getFxWebViewPane();
+        if (appPreferences.isConversationCaptureEnabled()) {
+            fxWebViewPane.setOnMessagesCaptured(messages -> conversationArchive().record(messages));
+        }
+        fxWebViewPane.setOnPromptTiming(this::handlePromptTiming);
+        fxWebViewPane.setPromptHistory(promptHistory);
+        rootPane.setCenter(fxWebViewPane);
 
-            if (appPreferences.isStartApplicationHiddenEnabled()) {
-                fxWebViewPane.onWindowHidden();
-            }
+        // On Windows a hidden start conceals the window instead, with the webview loading in it.
+        if (appPreferences.isStartApplicationHiddenEnabled() && !SystemUtils.isWindows()) {
+            fxWebViewPane.onWindowHidden();
+        }
+        StartupTracer.mark("webviewPaneCreated");
+
+        aiConfiguration.getCustomProvidersManager().setOnBackgroundChange(this::handleProvidersChanged);
+        settingsWindow = new SettingsWindow(this, this::createSettingsPanel);
+
+        topBarArea = new TopBarArea(aiConfiguration, fxWebViewPane, this, this::closeSettings, appPreferences,
+                this::toggleCompareMode, this::toggleSettings, this::hideMainWindow);
+        rootPane.setTop(topBarArea);
+        StartupTracer.mark("topBarCreated");
 
+        setupCommandPalette(scene);
+        StartupTracer.mark("paletteReady");
+    }
+
+    // What summons the window; set up in every start, deferred or not.
+    private List<CompletableFuture<Void>> startResidentTasks() {
+        var hotkeys = startup.run("hotkeys", () -> {
             try {
-                globalHotkeyManager = new GlobalHotkeyManager(this, settingsWindow, appPreferences);
-                globalHotkeyManager.start();
+                var manager = new GlobalHotkeyManager(this, appPreferences);
+                manager.start();
+                globalHotkeyManager = manager;
                 log.info("Global hotkey manager initialized");
             } catch (Exception | UnsatisfiedLinkError e) {
                 log.warn("Failed to initialize global hotkey manager", e);
             }
+        });
+        hotkeysReady = hotkeys;
+        var tray = startup.run("tray", this::setupTray);
+        return List.of(hotkeys, tray);
+    }
 
-            var settingsPanel = new SettingsPanel(appPreferences, globalHotkeyManager, aiConfiguration);
-            settingsPanel.setOnRememberLastAiChanged(appPreferences::setRememberLastAi);
-            settingsPanel.setOnClearCookies(fxWebViewPane::clearCookies);
-            settingsPanel.setOnProvidersChanged(this::handleProvidersChanged);
-
-            settingsWindow = new SettingsWindow(this, settingsPanel);
-
-            var topBarArea = new TopBarArea(aiConfiguration, fxWebViewPane, this, settingsWindow, appPreferences,
-                    this::toggleSettings, this::hideMainWindow);
-            rootPane.setTop(topBarArea);
-
-            setupTray();
-
-            var showTimer = new Timer();
-            showTimer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    Platform.runLater(() -> {
-                        if (splashScreen != null) {
-                            splashScreen.hideSplash();
-                        }
-                        if (!appPreferences.isStartApplicationHiddenEnabled()) {
-                            show();
-                        }
-                    });
-                }
-            }, 500);
+    // Nothing here is needed for the first frame; each part starts as soon as what it needs is there.
+    private void startShellTasks() {
+        startup.run("configWatcher", () -> {
+            var watcher = new ConfigFileWatcher(AppPaths.DATA_DIR.toPath());
+            aiConfiguration.getCustomProvidersManager().watch(watcher);
+            appPreferences.watch(watcher);
+            appPreferences.addExternalChangeListener(this::handleExternalPreferencesChange);
+            watcher.start();
+            configWatcher = watcher;
+        });
 
-        } catch (Exception e) {
-            log.error("Failed to initialize application", e);
-            if (splashScreen != null) splashScreen.hideSplash();
-            System.exit(1);
+        startup.runOnFx("quickAsk", () -> quickAskWindow().prewarm());
+
+        // Loads on its own thread, so startup is not slowed down.
+        if (promptHistory != null) {
+            promptHistory.warmUp();
         }
+
+        // Work nobody waits for starts once the first page is up, or after a while if it never is.
+        fxWebViewPane.setOnPageReady(this::scheduleIdleWork);
+        var fallback = new PauseTransition(IDLE_WORK_FALLBACK);
+        fallback.setOnFinished(e -> runIdleWork());
+        fallback.play();
+    }
+
+    private void scheduleIdleWork() {
+        fxWebViewPane.setOnPageReady(null);
+        var delay = new PauseTransition(IDLE_WORK_DELAY);
+        delay.setOnFinished(e -> runIdleWork());
+        delay.play();
+    }
+
+    private void runIdleWork() {
+        if (idleWorkDone) {
+            return;
+        }
+        idleWorkDone = true;
+
+        // The hotkey section of the panel shows whether the hook could be registered.
+        startup.runOnFx("settingsPrewarm", settingsWindow::prewarm, "hotkeys");
+        if (appPreferences.isCheckUpdatesOnStartupEnabled()) {
+            UpdateChecker.check(this);
+        }
+    }
+
+    private SettingsPanel createSettingsPanel() {
+        var settingsPanel = new SettingsPanel(appPreferences, globalHotkeyManager, aiConfiguration);
+        settingsPanel.setOnRememberLastAiChanged(appPreferences::setRememberLastAi);
+        settingsPanel.setOnClearCookies(fxWebViewPane::clearCookies);
+        settingsPanel.setOnProvidersChanged(this::handleProvidersChanged);
+        settingsPanel.setOnSearchConversations(this::openConversationSearch);
+        return settingsPanel;
     }
 
     private BorderPane createRootPane() {
@@ -330,8 +814,12 @@ public class MainWindow extends Stage {
             startUrl = appPreferences.getLastUrl();
         }
 
-        if (startUrl == null && !aiConfiguration.getConfigurations().isEmpty()) {
-            startUrl = aiConfiguration.getConfigurations().getFirst().url();
+        if (startUrl == null) {
+            startUrl = aiConfiguration.getConfigurations().stream()
+                    .filter(c -> !c.isNativeChat())
+                    .map(AiConfiguration.AiConfig::url)
+                    .findFirst()
+                    .orElse(null);
         }
 
         if (startUrl == null) {
@@ -0,0 +1,152 @@
+package to.sparkapp.app.windows;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.stage.Screen;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+import to.sparkapp.app.history.PromptHistory;
+import to.sparkapp.app.ui.Theme;
+import to.sparkapp.app.ui.history.PromptCompletionPopup;
+
+import java.util.function.Consumer;
+
+/**
+ * Spotlight-style prompt popup opened by the quick-ask hotkey.
+ *
+ * <p>The scene is built and styled at startup and the stage is only shown/hidden afterwards,
+ * so the caret is ready as soon as the hotkey fires. It is owned by an invisible utility stage
+ * rather than {@link MainWindow}, which keeps it out of the taskbar and lets it appear while
+ * the main window (and its webview) stays hidden. That owner is only created when the popup
+ * is first opened, so sessions that never use quick ask do not carry an extra window.
+ */
+public class QuickAskWindow extends Stage {
+
+    private static final double WIDTH = 600;
+    private static final int RADIUS = 14;
+
+    private final TextField input;
+    private final Label providerLabel;
+    private final Consumer<String> onSubmit;
+    private Stage owner;
+
+    public QuickAskWindow(PromptHistory promptHistory, Consumer<String> onSubmit) {
+        this.onSubmit = onSubmit;
+
+        this.initStyle(StageStyle.TRANSPARENT);
+        this.setAlwaysOnTop(true);
+        this.setTitle("Spark Quick Ask");
+
+        providerLabel = new Label();
+        providerLabel.setFont(Font.font(Theme.FONT_NAME, 12));
+        providerLabel.setTextFill(Theme.TEXT_TERTIARY);
+
+        input = new TextField();
+        input.setFont(Font.font(Theme.FONT_NAME, 18));
+        input.setStyle("""
+                    -fx-background-color: transparent;
+                    -fx-text-fill: %s;
+                    -fx-prompt-text-fill: %s;
+                    -fx-padding: 0;
+                """.formatted(Theme.toHex(Theme.TEXT_PRIMARY), Theme.toHex(Theme.TEXT_TERTIARY)));
+        input.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) {
+                submit();
+            } else if (e.getCode() == KeyCode.ESCAPE) {
+                hide();
+            }
+        });
+
+        PromptCompletionPopup.attach(input, promptHistory);
+
+        var root = new HBox(12, input, providerLabel);
+        root.setAlignment(Pos.CENTER_LEFT);
+        root.setPadding(new Insets(14, 18, 14, 18));
+        root.setStyle(
+                "-fx-background-color: " + Theme.toHex(Theme.BG_BAR) + ";" +
+                        "-fx-background-radius: " + RADIUS + "px;" +
+                        "-fx-border-color: " + Theme.toHex(Theme.BORDER) + ";" +
+                        "-fx-border-radius: " + RADIUS + "px;"
+        );
+        HBox.setHgrow(input, Priority.ALWAYS);
+
+        this.setScene(new Scene(root, WIDTH, -1, Color.TRANSPARENT));
+        this.focusedProperty().addListener((obs, was, focused) -> {
+            if (!focused) {
+                hide();
+            }
+        });
+    }
+
+    /**
+     * Applies styles and lays the scene out, so the first hotkey press only has to create the
+     * native windows. The stage is not shown: its owner has to be set before that.
+     */
+    public void prewarm() {
+        getScene().getRoot().applyCss();
+        getScene().getRoot().layout();
+    }
+
+    public void toggle(String providerName) {
+        if (isShowing()) {
+            hide();
+        } else {
+            open(providerName);
+        }
+    }
+
+    public void open(String providerName) {
+        providerLabel.setText(providerName != null ? providerName : "");
+        input.setPromptText(providerName != null ? "Ask " + providerName + "…" : "Ask…");
+
+        var bounds = Screen.getPrimary().getVisualBounds();
+        setX(bounds.getMinX() + (bounds.getWidth() - WIDTH) / 2);
+        setY(bounds.getMinY() + bounds.getHeight() / 4);
+
+        if (owner == null) {
+            owner = createHiddenOwner();
+            initOwner(owner);
+        }
+        show();
+        toFront();
+        requestFocus();
+        input.requestFocus();
+        input.selectAll();
+    }
+
+    public void shutdown() {
+        hide();
+        if (owner != null) {
+            owner.close();
+        }
+    }
+
+    private void submit() {
+        var text = input.getText().trim();
+        if (text.isEmpty()) {
+            return;
+        }
+        input.clear();
+        hide();
+        onSubmit.accept(text);
+    }
+
+    private static Stage createHiddenOwner() {
+        var owner = new Stage(StageStyle.UTILITY);
+        owner.setOpacity(0);
+        owner.setWidth(1);
+        owner.setHeight(1);
+        owner.setX(-10_000);
+        owner.setY(-10_000);
+        owner.show();
+        return owner;
+    }
+}
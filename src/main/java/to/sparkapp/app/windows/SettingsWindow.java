@@ -10,13 +10,16 @@ import javafx.stage.StageStyle;
 import javafx.stage.Window;
 import to.sparkapp.app.ui.settings.SettingsPanel;
 
+import java.util.function.Supplier;
+
 public class SettingsWindow {
 
     private static final int TOPBAR_HEIGHT = 48;
     private static final double LERP_SPEED = 0.22;
 
     private final Window owner;
-    private final SettingsPanel settingsPanel;
+    private final Supplier<SettingsPanel> panelFactory;
+    private SettingsPanel settingsPanel;
     private Stage window;
     private Rectangle contentClip;
 
@@ -25,9 +28,21 @@ public class SettingsWindow {
     private AnimationTimer animTimer;
     private double targetHeight = 0;
 
-    public SettingsWindow(Window owner, SettingsPanel settingsPanel) {
+    /**
+     * @param panelFactory builds the panel on first {@link #open()} or {@link #prewarm()}; most
+     *                     sessions never open settings, so it is not built before
+     */
+    public SettingsWindow(Window owner, Supplier<SettingsPanel> panelFactory) {
         this.owner = owner;
-        this.settingsPanel = settingsPanel;
+        this.panelFactory = panelFactory;
+    }
+
+    /** Builds the panel and its window ahead of time, so the first open is as quick as later ones. */
+    public void prewarm() {
+        if (window == null) {
+            createWindow();
+            window.getScene().getRoot().applyCss();
+        }
     }
 
     public void open() {
@@ -84,6 +99,8 @@ public class SettingsWindow {
     }
 
     private void createWindow() {
+        settingsPanel = panelFactory.get();
+
         window = new Stage();
         window.initOwner(owner);
         window.initStyle(StageStyle.TRANSPARENT);
@@ -0,0 +1,207 @@
+package to.sparkapp.app.chat;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the client against a local stand-in for an OpenAI-compatible server.
+ */
+class OpenAiChatClientTest {
+
+    private static final List<ChatMessage> HISTORY = List.of(new ChatMessage("user", "hi"));
+
+    private HttpServer server;
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void streamsDeltasUntilDone() throws Exception {
+        var requestBody = new AtomicReference<String>();
+        var client = clientFor(exchange -> {
+            requestBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (var out = exchange.getResponseBody()) {
+                write(out, ": keep-alive\n\n");
+                write(out, event("Hel"));
+                write(out, "data: {\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}\n\n");
+                write(out, event("lo"));
+                write(out, "data: [DONE]\n\n");
+                // Anything after [DONE] is ignored.
+                write(out, event("ignored"));
+            }
+        });
+
+        var listener = new RecordingListener();
+        client.stream(HISTORY, listener);
+
+        assertEquals("completed", listener.awaitOutcome());
+        assertEquals(List.of("Hel", "lo"), listener.deltas);
+        assertTrue(requestBody.get().contains("\"stream\":true"));
+        assertTrue(requestBody.get().contains("\"model\":\"test-model\""));
+    }
+
+    @Test
+    void sendsTheApiKeyAsBearerToken() throws Exception {
+        var authorization = new AtomicReference<String>();
+        var client = clientFor(exchange -> {
+            authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            exchange.sendResponseHeaders(200, 0);
+            try (var out = exchange.getResponseBody()) {
+                write(out, "data: [DONE]\n\n");
+            }
+        });
+
+        var listener = new RecordingListener();
+        client.stream(HISTORY, listener);
+
+        assertEquals("completed", listener.awaitOutcome());
+        assertEquals("Bearer secret", authorization.get());
+    }
+
+    @Test
+    void reportsErrorStatusWithBody() throws Exception {
+        var client = clientFor(exchange -> {
+            var body = "{\"error\":\"model not found\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(404, body.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        var listener = new RecordingListener();
+        client.stream(HISTORY, listener);
+
+        assertEquals("error", listener.awaitOutcome());
+        assertInstanceOf(IOException.class, listener.error.get());
+        assertEquals("HTTP 404: {\"error\":\"model not found\"}", listener.error.get().getMessage());
+        assertTrue(listener.deltas.isEmpty());
+    }
+
+    @Test
+    void reportsDisconnectMidStream() throws Exception {
+        var listener = new RecordingListener();
+        var client = clientFor(exchange -> {
+            // Promises more than it sends, then drops the connection once the client has read what came.
+            exchange.sendResponseHeaders(200, 10_000);
+            var out = exchange.getResponseBody();
+            write(out, event("partial"));
+            try {
+                listener.firstDelta.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+
+        client.stream(HISTORY, listener);
+
+        assertEquals("error", listener.awaitOutcome());
+        assertEquals(List.of("partial"), listener.deltas);
+    }
+
+    @Test
+    void cancelDropsTheConnectionWhileWaitingForData() throws Exception {
+        var firstSent = new CountDownLatch(1);
+        var writeFailed = new CountDownLatch(1);
+        var client = clientFor(exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            var out = exchange.getResponseBody();
+            write(out, event("first"));
+            firstSent.countDown();
+            try {
+                // Keeps the client waiting for the next chunk until the connection goes away.
+                for (var i = 0; i < 100; i++) {
+                    Thread.sleep(100);
+                    write(out, ": keep-alive\n\n");
+                }
+            } catch (IOException e) {
+                writeFailed.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        var listener = new RecordingListener();
+        var request = client.stream(HISTORY, listener);
+        assertTrue(firstSent.await(5, TimeUnit.SECONDS));
+        listener.firstDelta.await(5, TimeUnit.SECONDS);
+
+        assertTrue(request.cancel(true));
+        assertTrue(request.isCancelled());
+        assertTrue(writeFailed.await(5, TimeUnit.SECONDS), "the server should see the connection closed");
+        // Cancelling is not an error, and the answer is not complete either.
+        assertNull(listener.outcome.getNow(null));
+    }
+
+    private OpenAiChatClient clientFor(HttpHandler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1/chat/completions", handler);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return new OpenAiChatClient("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/", "test-model", "secret");
+    }
+
+    private static String event(String content) {
+        return "data: {\"choices\":[{\"delta\":{\"content\":\"" + content + "\"}}]}\n\n";
+    }
+
+    private static void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static final class RecordingListener implements ChatStreamListener {
+
+        final List<String> deltas = new CopyOnWriteArrayList<>();
+        final AtomicReference<Exception> error = new AtomicReference<>();
+        final CompletableFuture<String> outcome = new CompletableFuture<>();
+        final CountDownLatch firstDelta = new CountDownLatch(1);
+
+        @Override
+        public void onDelta(String text) {
+            deltas.add(text);
+            firstDelta.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            outcome.complete("completed");
+        }
+
+        @Override
+        public void onError(Exception e) {
+            error.set(e);
+            outcome.complete("error");
+        }
+
+        String awaitOutcome() throws Exception {
+            return outcome.get(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package to.sparkapp.app.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonFileStoreTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private JsonFileStore store;
+
+    @BeforeEach
+    void createStore() {
+        file = dir.resolve("config.json");
+        store = new JsonFileStore(file, mapper, false);
+        store.load();
+    }
+
+    @AfterEach
+    void shutdown() {
+        store.shutdown();
+    }
+
+    @Test
+    void reloadThatReadTheFileBetweenTwoWritesIsOwnContent() throws IOException {
+        store.submit(state("theme", "dark"));
+        store.flush();
+        var readByReload = Files.readAllBytes(file);
+        store.submit(state("theme", "light"));
+        store.flush();
+
+        assertTrue(store.isOwnContent(ConfigFileWatcher.hashOf(readByReload)));
+        assertTrue(store.isOwnContent(ConfigFileWatcher.hashOf(Files.readAllBytes(file))));
+        assertFalse(store.isOwnContent(ConfigFileWatcher.hashOf("{}".getBytes())));
+    }
+
+    @Test
+    void adoptsExternalStateWhenNothingIsPending() throws IOException {
+        store.submit(state("theme", "dark"));
+        store.flush();
+
+        assertTrue(store.adopt(state("theme", "blue"), "external"));
+
+        assertTrue(store.isOwnContent("external"));
+        store.flush();
+        // Adopted content is not written back.
+        assertEquals(state("theme", "dark"), mapper.readTree(file.toFile()));
+    }
+
+    @Test
+    void unwrittenChangeSurvivesAnExternalChange() throws IOException {
+        store.submit(state("theme", "dark"));
+        store.flush();
+        // Journaled, but the rewrite of the file is still a second away.
+        store.submit(state("theme", "light"));
+
+        assertFalse(store.adopt(state("theme", "blue"), "external"));
+
+        assertEquals(state("theme", "light"), mapper.readTree(file.toFile()));
+        assertTrue(store.isOwnContent(ConfigFileWatcher.hashOf(Files.readAllBytes(file))));
+        assertEquals(state("theme", "light"), store.load());
+    }
+
+    private ObjectNode state(String key, String value) {
+        return mapper.createObjectNode().put(key, value);
+    }
+}
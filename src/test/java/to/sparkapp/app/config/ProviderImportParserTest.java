@@ -0,0 +1,129 @@
+package to.sparkapp.app.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProviderImportParserTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void headerMayListColumnsInAnyOrder() {
+        var entries = ProviderImportParser.parseCsv("""
+                URL, Color ,name,model
+                https://chat.example.com/,#112233,Example,
+                https://other.example.com/,,Other,gpt-test
+                """);
+
+        assertEquals(List.of(
+                new ProviderImportParser.Entry("Example", "https://chat.example.com/", "#112233", null, null, null),
+                new ProviderImportParser.Entry("Other", "https://other.example.com/", null, null, "gpt-test", null)),
+                entries);
+    }
+
+    @Test
+    void withoutHeaderColumnsAreInDocumentedOrder() {
+        var entries = ProviderImportParser.parseCsv("Local,http://localhost:1234/v1,#abcdef,openai,llama,key\r\n");
+
+        assertEquals(List.of(new ProviderImportParser.Entry("Local", "http://localhost:1234/v1", "#abcdef", "openai",
+                "llama", "key")), entries);
+    }
+
+    @Test
+    void quotedFieldsKeepDelimitersQuotesAndLineBreaks() {
+        var entries = ProviderImportParser.parseCsv("name,url\n"
+                + "\"Foo, Inc \"\"beta\"\"\",https://foo.example.com/\n"
+                + "\"Two\nlines\",https://two.example.com/\n");
+
+        assertEquals("Foo, Inc \"beta\"", entries.get(0).name());
+        assertEquals("Two\nlines", entries.get(1).name());
+        assertEquals("https://two.example.com/", entries.get(1).url());
+    }
+
+    @Test
+    void semicolonsInCommaSeparatedFileAreData() {
+        var entries = ProviderImportParser.parseCsv("""
+                name,url,color
+                Foo; beta,https://foo.example.com/app;jsessionid=abc,#123456
+                """);
+
+        assertEquals(List.of(new ProviderImportParser.Entry("Foo; beta", "https://foo.example.com/app;jsessionid=abc",
+                "#123456", null, null, null)), entries);
+    }
+
+    @Test
+    void semicolonSeparatedFileFromASpreadsheet() {
+        var entries = ProviderImportParser.parseCsv("""
+                name;url;color
+                Foo, Inc;https://foo.example.com/;#123456
+                """);
+
+        assertEquals(List.of(new ProviderImportParser.Entry("Foo, Inc", "https://foo.example.com/", "#123456",
+                null, null, null)), entries);
+    }
+
+    @Test
+    void bareListOfUrls() {
+        var entries = ProviderImportParser.parseCsv("""
+
+                https://one.example.com/
+                https://two.example.com/app;jsessionid=abc
+                """);
+
+        assertEquals(List.of(
+                new ProviderImportParser.Entry(null, "https://one.example.com/", null, null, null, null),
+                new ProviderImportParser.Entry(null, "https://two.example.com/app;jsessionid=abc", null, null, null, null)),
+                entries);
+    }
+
+    @Test
+    void bookmarkExportGivesOneEntryPerLink() {
+        var entries = ProviderImportParser.parseBookmarks("""
+                <!DOCTYPE NETSCAPE-Bookmark-file-1>
+                <DL><p>
+                    <DT><H3>AI</H3>
+                    <DL><p>
+                        <DT><A HREF="https://chat.example.com/?a=1&amp;b=2" ADD_DATE="1700000000">Chat &amp; <b>more</b></A>
+                        <DT><A HREF="https://untitled.example.com/"></A>
+                    </DL><p>
+                </DL><p>
+                """);
+
+        assertEquals(List.of(
+                new ProviderImportParser.Entry("Chat & more", "https://chat.example.com/?a=1&b=2", null, null, null, null),
+                new ProviderImportParser.Entry(null, "https://untitled.example.com/", null, null, null, null)),
+                entries);
+    }
+
+    @Test
+    void jsonUsesProviderFieldNames() throws IOException {
+        var entries = ProviderImportParser.parseJson("""
+                {"providers": [{"name": " Local ", "url": "http://localhost:1234/v1", "type": "openai",
+                                "apiKey": "key", "color": ""}]}
+                """);
+
+        assertEquals(List.of(new ProviderImportParser.Entry("Local", "http://localhost:1234/v1", null, "openai", null,
+                "key")), entries);
+        assertThrows(IOException.class, () -> ProviderImportParser.parseJson("{\"other\": 1}"));
+    }
+
+    @Test
+    void formatIsPickedByNameOrContent() throws IOException {
+        var csv = Files.writeString(dir.resolve("providers.txt"), "\uFEFFname,url\nFoo,https://foo.example.com/\n");
+        var html = Files.writeString(dir.resolve("bookmarks.html"), "<A HREF=\"https://foo.example.com/\">Foo</A>");
+        var json = Files.writeString(dir.resolve("export"), "[{\"url\": \"https://foo.example.com/\"}]");
+
+        assertEquals("Foo", ProviderImportParser.parse(csv).getFirst().name());
+        assertEquals("Foo", ProviderImportParser.parse(html).getFirst().name());
+        assertEquals("https://foo.example.com/", ProviderImportParser.parse(json).getFirst().url());
+    }
+}
@@ -0,0 +1,101 @@
+package to.sparkapp.app.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProviderRepositoryTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private ProviderRepository repository;
+
+    @BeforeEach
+    void createRepository() {
+        file = dir.resolve("providers.json");
+        repository = new ProviderRepository(file.toFile(), mapper);
+    }
+
+    @AfterEach
+    void shutdown() {
+        repository.shutdown();
+    }
+
+    @Test
+    void reloadThatReadTheFileBetweenTwoWritesIsOwnContent() throws IOException {
+        repository.replaceAll(List.of(provider("a")));
+        repository.flush();
+        // A debounced reload reads the file here, and only compares after the next write has started.
+        var readByReload = Files.readAllBytes(file);
+        repository.replaceAll(List.of(provider("a"), provider("b")));
+        repository.flush();
+
+        assertTrue(repository.isOwnContent(ConfigFileWatcher.hashOf(readByReload)));
+        assertTrue(repository.isOwnContent(ConfigFileWatcher.hashOf(Files.readAllBytes(file))));
+        assertFalse(repository.isOwnContent(ConfigFileWatcher.hashOf("[]".getBytes())));
+    }
+
+    @Test
+    void onlyTheLastTwoWritesCount() throws IOException {
+        repository.replaceAll(List.of(provider("a")));
+        repository.flush();
+        var first = ConfigFileWatcher.hashOf(Files.readAllBytes(file));
+        repository.replaceAll(List.of(provider("b")));
+        repository.flush();
+        repository.replaceAll(List.of(provider("c")));
+        repository.flush();
+
+        // Another program putting back old content is a real change.
+        assertFalse(repository.isOwnContent(first));
+    }
+
+    @Test
+    void externalChangeReplacesEarlierWrites() throws IOException {
+        repository.replaceAll(List.of(provider("a")));
+        repository.flush();
+        var own = ConfigFileWatcher.hashOf(Files.readAllBytes(file));
+
+        assertTrue(repository.loadExternal(List.of(provider("x")), "external"));
+
+        assertEquals(List.of(provider("x")), repository.snapshot().providers());
+        assertTrue(repository.isOwnContent("external"));
+        assertFalse(repository.isOwnContent(own));
+    }
+
+    @Test
+    void unwrittenEditSurvivesAnExternalChange() throws IOException {
+        repository.replaceAll(List.of(provider("a")));
+        repository.flush();
+        repository.replaceAll(List.of(provider("a"), provider("b")));
+
+        assertFalse(repository.loadExternal(List.of(provider("x")), "external"));
+
+        assertEquals(List.of(provider("a"), provider("b")), repository.snapshot().providers());
+        repository.flush();
+        assertEquals(List.of(provider("a"), provider("b")), readFile());
+    }
+
+    private List<AiConfiguration.AiConfig> readFile() throws IOException {
+        return mapper.readValue(file.toFile(), new TypeReference<>() {});
+    }
+
+    private static AiConfiguration.AiConfig provider(String id) {
+        return new AiConfiguration.AiConfig(id, id, "https://" + id + ".example.com/", "#123456", null, null, null, null);
+    }
+}
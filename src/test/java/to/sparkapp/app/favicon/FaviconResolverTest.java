@@ -0,0 +1,243 @@
+package to.sparkapp.app.favicon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Resolves icons from a local stand-in for a website.
+ */
+class FaviconResolverTest {
+
+    @TempDir
+    File cacheDir;
+
+    private HttpServer server;
+    private String origin;
+    private FaviconResolver resolver;
+
+    /** Path to response; paths not listed answer 404. */
+    private final Map<String, Response> site = new ConcurrentHashMap<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::serve);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        origin = "http://127.0.0.1:" + server.getAddress().getPort();
+        resolver = new FaviconResolver(HttpClient.newHttpClient(), cacheDir, Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void picksTheSmallestIconThatIsLargeEnough() throws Exception {
+        page("""
+                <link rel="icon" href="/icon-16.png" sizes="16x16">
+                <link rel="icon" href="/icon-64.png" sizes="64x64">
+                <link rel="apple-touch-icon" href="/touch.png">
+                """);
+        site.put("/icon-16.png", Response.ok(TestImages.png(16, 16)));
+        site.put("/icon-64.png", Response.ok(TestImages.png(64, 64)));
+        site.put("/touch.png", Response.ok(TestImages.png(180, 180)));
+
+        var favicon = resolve("/chat/1");
+
+        assertEquals(URI.create(origin + "/icon-64.png"), favicon.source());
+        assertEquals(64, favicon.size());
+    }
+
+    @Test
+    void fallsBackWhenTheBestDeclaredIconIsBroken() throws Exception {
+        page("""
+                <link rel="icon" href="/icon.svg" type="image/svg+xml">
+                <link rel="icon" href="/icon-32.png" sizes="32x32">
+                """);
+        site.put("/icon.svg", Response.ok("<html>login required</html>".getBytes(StandardCharsets.UTF_8)));
+        site.put("/icon-32.png", Response.ok(TestImages.png(32, 32)));
+
+        assertEquals(URI.create(origin + "/icon-32.png"), resolve("/").source());
+    }
+
+    @Test
+    void usesManifestIconsAndFaviconIco() throws Exception {
+        page("<link rel=\"manifest\" href=\"/site.webmanifest\">");
+        site.put("/site.webmanifest", Response.ok("""
+                {"icons": [{"src": "/android-192.png", "sizes": "192x192"}]}
+                """.getBytes(StandardCharsets.UTF_8)));
+        site.put("/android-192.png", Response.ok(TestImages.png(192, 192)));
+        site.put("/favicon.ico", Response.ok(TestImages.ico(TestImages.png(32, 32))));
+
+        assertEquals(URI.create(origin + "/android-192.png"), resolve("/").source());
+
+        site.remove("/android-192.png");
+        clearCache();
+        var favicon = resolve("/");
+        assertEquals(URI.create(origin + "/favicon.ico"), favicon.source());
+        assertEquals("png", favicon.extension());
+    }
+
+    @Test
+    void siteWithoutIconsGivesEmptyResult() throws Exception {
+        page("<title>nothing here</title>");
+
+        assertTrue(resolver.resolve(origin + "/").get(10, TimeUnit.SECONDS).isEmpty());
+        assertTrue(resolver.resolve("not a url").get(10, TimeUnit.SECONDS).isEmpty());
+        assertTrue(resolver.resolve("file:///etc/passwd").get(10, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    void freshCacheEntryNeedsNoRequest() throws Exception {
+        page("<link rel=\"icon\" href=\"/icon.png\" sizes=\"64x64\">");
+        site.put("/icon.png", Response.ok(TestImages.png(64, 64)));
+        resolve("/");
+        requests.clear();
+
+        assertEquals(64, resolve("/other/page").size());
+        assertTrue(requests.isEmpty(), "requested " + requests);
+    }
+
+    @Test
+    void staleCacheEntryIsRevalidatedWithItsEtag() throws Exception {
+        var icon = TestImages.png(64, 64);
+        page("<link rel=\"icon\" href=\"/icon.png\" sizes=\"64x64\">");
+        site.put("/icon.png", Response.ok(icon).etag("\"v1\""));
+        resolve("/");
+        makeCacheStale();
+        requests.clear();
+
+        var favicon = resolve("/");
+
+        assertArrayEquals(icon, favicon.data());
+        assertEquals(List.of("/icon.png \"v1\""), requests);
+        // Confirmed current, so the next resolve is served from the cache again.
+        requests.clear();
+        resolve("/");
+        assertTrue(requests.isEmpty(), "requested " + requests);
+    }
+
+    @Test
+    void changedIconReplacesTheCachedOne() throws Exception {
+        page("<link rel=\"icon\" href=\"/icon.png\" sizes=\"64x64\">");
+        site.put("/icon.png", Response.ok(TestImages.png(64, 64)).etag("\"v1\""));
+        resolve("/");
+        makeCacheStale();
+
+        site.put("/icon.png", Response.ok(TestImages.png(96, 96)).etag("\"v2\""));
+        assertEquals(96, resolve("/").size());
+    }
+
+    @Test
+    void vanishedIconIsDiscoveredAgain() throws Exception {
+        page("<link rel=\"icon\" href=\"/old.png\" sizes=\"64x64\">");
+        site.put("/old.png", Response.ok(TestImages.png(64, 64)));
+        resolve("/");
+        makeCacheStale();
+
+        site.remove("/old.png");
+        page("<link rel=\"icon\" href=\"/new.png\" sizes=\"64x64\">");
+        site.put("/new.png", Response.ok(TestImages.png(64, 64)));
+
+        assertEquals(URI.create(origin + "/new.png"), resolve("/").source());
+    }
+
+    @Test
+    void staleIconIsKeptWhileOffline() throws Exception {
+        page("<link rel=\"icon\" href=\"/icon.png\" sizes=\"64x64\">");
+        site.put("/icon.png", Response.ok(TestImages.png(64, 64)));
+        resolve("/");
+        makeCacheStale();
+
+        server.stop(0);
+        assertEquals(URI.create(origin + "/icon.png"), resolve("/").source());
+    }
+
+    private Favicon resolve(String path) throws Exception {
+        return resolver.resolve(origin + path).get(10, TimeUnit.SECONDS).orElseThrow();
+    }
+
+    private void page(String head) {
+        site.put("/", Response.ok(("<html><head>" + head + "</head><body></body></html>").getBytes(StandardCharsets.UTF_8)));
+        site.put("/chat/1", site.get("/"));
+        site.put("/other/page", site.get("/"));
+    }
+
+    private void makeCacheStale() throws IOException {
+        var mapper = new ObjectMapper();
+        try (var files = Files.list(cacheDir.toPath())) {
+            for (var file : files.filter(f -> f.toString().endsWith(".json")).toList()) {
+                var entry = mapper.readValue(file.toFile(), FaviconCache.Entry.class);
+                mapper.writeValue(file.toFile(), new FaviconCache.Entry(entry.iconUrl(), entry.etag(),
+                        entry.lastModified(), entry.extension(), entry.size(), 0));
+            }
+        }
+    }
+
+    private void clearCache() throws IOException {
+        try (var files = Files.list(cacheDir.toPath())) {
+            for (var file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        var path = exchange.getRequestURI().getPath();
+        var ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        requests.add(ifNoneMatch != null ? path + " " + ifNoneMatch : path);
+
+        var response = site.get(path);
+        if (response == null) {
+            exchange.sendResponseHeaders(404, -1);
+        } else if (response.etag() != null && response.etag().equals(ifNoneMatch)) {
+            exchange.sendResponseHeaders(304, -1);
+        } else {
+            if (response.etag() != null) {
+                exchange.getResponseHeaders().set("ETag", response.etag());
+            }
+            exchange.sendResponseHeaders(200, response.body().length);
+            exchange.getResponseBody().write(response.body());
+        }
+        exchange.close();
+    }
+
+    private record Response(byte[] body, String etag) {
+
+        static Response ok(byte[] body) {
+            return new Response(body, null);
+        }
+
+        Response etag(String etag) {
+            return new Response(body, etag);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package to.sparkapp.app.favicon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IconLinkParserTest {
+
+    private static final URI PAGE = URI.create("https://example.com/chat/123");
+
+    private final IconLinkParser parser = new IconLinkParser(new ObjectMapper());
+
+    @Test
+    void readsIconLinksWithTheirDeclaredSizes() {
+        var result = parser.parsePage("""
+                <html><head>
+                <link rel="icon" href="/favicon-32.png" sizes="32x32">
+                <LINK REL='shortcut icon' HREF='static/favicon.png'>
+                <link rel=icon href=/multi.ico sizes="16x16 32x32 64x64">
+                <link rel="icon" type="image/svg+xml" href="/icon">
+                <link rel="icon" href="/logo.svg?v=2">
+                <link rel="icon" href="/any.png" sizes="any">
+                </head><body></body></html>
+                """, PAGE);
+
+        assertEquals(List.of(
+                candidate("https://example.com/favicon-32.png", 32),
+                candidate("https://example.com/chat/static/favicon.png", IconLinkParser.UNKNOWN_ICON_SIZE),
+                candidate("https://example.com/multi.ico", 64),
+                candidate("https://example.com/icon", Favicon.SCALABLE),
+                candidate("https://example.com/logo.svg?v=2", Favicon.SCALABLE),
+                candidate("https://example.com/any.png", Favicon.SCALABLE)), result.candidates());
+        assertNull(result.manifest());
+    }
+
+    @Test
+    void appleTouchIconsGuessTheirUsualSize() {
+        var result = parser.parsePage("""
+                <link rel="apple-touch-icon" href="/touch.png">
+                <link rel="apple-touch-icon-precomposed" href="/touch-120.png" sizes="120x120">
+                """, PAGE);
+
+        assertEquals(List.of(
+                candidate("https://example.com/touch.png", IconLinkParser.UNKNOWN_TOUCH_ICON_SIZE),
+                candidate("https://example.com/touch-120.png", 120)), result.candidates());
+    }
+
+    @Test
+    void skipsMaskIconsDataUrisAndOtherLinks() {
+        var result = parser.parsePage("""
+                <link rel="mask-icon" href="/pinned.svg" color="#000">
+                <link rel="icon" href="data:image/png;base64,AAAA">
+                <link rel="icon" href="">
+                <link rel="stylesheet" href="/style.css">
+                <link rel="icon" href="ftp://example.com/icon.png">
+                """, PAGE);
+
+        assertTrue(result.candidates().isEmpty());
+    }
+
+    @Test
+    void resolvesAgainstBaseAndUnescapesAttributes() {
+        var result = parser.parsePage("""
+                <base href="https://cdn.example.net/assets/">
+                <link rel="icon" href="icon.png?a=1&amp;b=2">
+                """, PAGE);
+
+        assertEquals(List.of(candidate("https://cdn.example.net/assets/icon.png?a=1&b=2", IconLinkParser.UNKNOWN_ICON_SIZE)),
+                result.candidates());
+    }
+
+    @Test
+    void ignoresLinksAfterTheHead() {
+        var result = parser.parsePage("""
+                <head><link rel="icon" href="/head.png"></head>
+                <body><link rel="icon" href="/body.png"></body>
+                """, PAGE);
+
+        assertEquals(List.of(candidate("https://example.com/head.png", IconLinkParser.UNKNOWN_ICON_SIZE)),
+                result.candidates());
+    }
+
+    @Test
+    void findsTheManifestAndReadsItsIcons() {
+        var result = parser.parsePage("<link rel=\"manifest\" href=\"/app/site.webmanifest\">", PAGE);
+        assertEquals(URI.create("https://example.com/app/site.webmanifest"), result.manifest());
+
+        var manifest = """
+                {"icons": [
+                  {"src": "icon-192.png", "sizes": "192x192", "type": "image/png"},
+                  {"src": "/mono.png", "sizes": "512x512", "purpose": "monochrome"},
+                  {"src": "icon.svg", "sizes": "any"},
+                  {"sizes": "48x48"}
+                ]}
+                """.getBytes(StandardCharsets.UTF_8);
+        assertEquals(List.of(
+                candidate("https://example.com/app/icon-192.png", 192),
+                candidate("https://example.com/app/icon.svg", Favicon.SCALABLE)),
+                parser.parseManifest(manifest, result.manifest()));
+    }
+
+    @Test
+    void unreadableManifestGivesNoIcons() {
+        var manifest = "<html>not json</html>".getBytes(StandardCharsets.UTF_8);
+        assertTrue(parser.parseManifest(manifest, URI.create("https://example.com/manifest.json")).isEmpty());
+    }
+
+    @Test
+    void scoresPreferScalableThenTheSmallestLargeEnoughBitmap() {
+        var ranked = List.of(Favicon.SCALABLE, 48, 64, 180, 512, 32, 16);
+        for (var i = 1; i < ranked.size(); i++) {
+            assertTrue(Favicon.score(ranked.get(i - 1)) > Favicon.score(ranked.get(i)),
+                    ranked.get(i - 1) + " should beat " + ranked.get(i));
+        }
+    }
+
+    private static FaviconCandidate candidate(String uri, int size) {
+        return new FaviconCandidate(URI.create(uri), size);
+    }
+}
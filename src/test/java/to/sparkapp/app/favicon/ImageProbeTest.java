@@ -0,0 +1,85 @@
+package to.sparkapp.app.favicon;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ImageProbeTest {
+
+    private static final URI SOURCE = URI.create("https://example.com/icon");
+
+    @Test
+    void readsPngSizeFromTheHeader() {
+        var favicon = ImageProbe.probe(TestImages.png(64, 48), SOURCE);
+
+        assertNotNull(favicon);
+        assertEquals("png", favicon.extension());
+        assertEquals(64, favicon.size());
+        assertEquals(SOURCE, favicon.source());
+    }
+
+    @Test
+    void readsGifAndJpegSizes() {
+        var gif = ByteBuffer.allocate(13).put("GIF89a".getBytes(StandardCharsets.US_ASCII))
+                .put((byte) 32).put((byte) 0).put((byte) 24).put((byte) 0).array();
+        assertEquals(32, ImageProbe.probe(gif, SOURCE).size());
+
+        // SOI, an APP0 segment to skip, then a baseline start-of-frame with 96x128.
+        var jpeg = new byte[]{(byte) 0xFF, (byte) 0xD8,
+                (byte) 0xFF, (byte) 0xE0, 0, 4, 0, 0,
+                (byte) 0xFF, (byte) 0xC0, 0, 11, 8, 0, (byte) 128, 0, 96, 3, 0, 0, 0};
+        var favicon = ImageProbe.probe(jpeg, SOURCE);
+        assertEquals("jpg", favicon.extension());
+        assertEquals(128, favicon.size());
+    }
+
+    @Test
+    void recognisesSvgAsScalable() {
+        var favicon = ImageProbe.probe(TestImages.svg(), SOURCE);
+
+        assertEquals("svg", favicon.extension());
+        assertEquals(Favicon.SCALABLE, favicon.size());
+    }
+
+    @Test
+    void rejectsTrackingPixelsAndNonImages() {
+        assertNull(ImageProbe.probe(TestImages.png(1, 1), SOURCE));
+        assertNull(ImageProbe.probe("<html><body>Not found</body></html>".getBytes(StandardCharsets.UTF_8), SOURCE));
+        assertNull(ImageProbe.probe(new byte[0], SOURCE));
+    }
+
+    @Test
+    void takesTheBestPngOutOfAnIco() {
+        var small = TestImages.png(16, 16);
+        var large = TestImages.png(48, 48);
+        var favicon = ImageProbe.probe(TestImages.ico(small, large), SOURCE);
+
+        assertEquals("png", favicon.extension());
+        assertEquals(48, favicon.size());
+        assertArrayEquals(large, favicon.data());
+    }
+
+    @Test
+    void convertsIcoBitmapsToPng() {
+        var favicon = ImageProbe.probe(TestImages.ico(TestImages.dib(32, 0xFF336699)), SOURCE);
+
+        assertEquals("png", favicon.extension());
+        assertEquals(32, favicon.size());
+        // The result is a real PNG, so it probes the same again.
+        assertEquals(32, ImageProbe.probe(favicon.data(), SOURCE).size());
+    }
+
+    @Test
+    void rejectsIcoEntriesPointingPastTheEnd() {
+        var ico = TestImages.ico(TestImages.png(32, 32));
+        assertNull(ImageProbe.probe(Arrays.copyOf(ico, ico.length - 4), SOURCE));
+    }
+}
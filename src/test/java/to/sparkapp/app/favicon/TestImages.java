@@ -0,0 +1,55 @@
+package to.sparkapp.app.favicon;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/** Just enough of each format for {@link ImageProbe} to recognise it. */
+final class TestImages {
+
+    private TestImages() {
+    }
+
+    static byte[] png(int width, int height) {
+        return ByteBuffer.allocate(33)
+                .put(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'})
+                .putInt(13).put("IHDR".getBytes(StandardCharsets.US_ASCII))
+                .putInt(width).putInt(height)
+                .array();
+    }
+
+    static byte[] svg() {
+        return "<?xml version=\"1.0\"?><svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 16 16\"/>"
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** An ICO holding the given images, each already encoded as PNG or DIB. */
+    static byte[] ico(byte[]... images) {
+        var header = ByteBuffer.allocate(6 + images.length * 16).order(ByteOrder.LITTLE_ENDIAN);
+        header.putShort((short) 0).putShort((short) 1).putShort((short) images.length);
+        var offset = header.capacity();
+        for (var image : images) {
+            header.putInt(0).putShort((short) 1).putShort((short) 32).putInt(image.length).putInt(offset);
+            offset += image.length;
+        }
+
+        var out = new ByteArrayOutputStream();
+        out.writeBytes(header.array());
+        for (var image : images) {
+            out.writeBytes(image);
+        }
+        return out.toByteArray();
+    }
+
+    /** A 32-bit ICO bitmap filled with one ARGB colour. */
+    static byte[] dib(int size, int argb) {
+        var dib = ByteBuffer.allocate(40 + size * size * 4 + size * size / 8).order(ByteOrder.LITTLE_ENDIAN);
+        dib.putInt(40).putInt(size).putInt(size * 2).putShort((short) 1).putShort((short) 32).putInt(0);
+        dib.position(40);
+        for (var i = 0; i < size * size; i++) {
+            dib.putInt(argb);
+        }
+        return dib.array();
+    }
+}
@@ -0,0 +1,116 @@
+package to.sparkapp.app.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversationIndexTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void plainTermsMustAllMatch() {
+        var index = new ConversationIndex();
+        index.add(message("a", 0, "the quick brown fox"));
+        index.add(message("b", 0, "a quick grey wolf"));
+
+        assertEquals(List.of("a#0"), keys(index.search("quick fox ", 10)));
+        assertEquals(2, index.search("quick ", 10).size());
+    }
+
+    @Test
+    void lastWordMatchesAsPrefixWhileTyping() {
+        var index = new ConversationIndex();
+        index.add(message("a", 0, "configuration of the gradle build"));
+
+        assertEquals(1, index.search("config", 10).size());
+        // A trailing space ends the word, so it has to match whole.
+        assertTrue(index.search("config ", 10).isEmpty());
+        assertEquals(1, index.search("grad* build ", 10).size());
+    }
+
+    @Test
+    void phraseNeedsAdjacentTermsInOrder() {
+        var index = new ConversationIndex();
+        index.add(message("a", 0, "memory leak in the parser"));
+        index.add(message("b", 0, "the parser has a leak of memory"));
+
+        assertEquals(List.of("a#0"), keys(index.search("\"memory leak\"", 10)));
+        assertEquals(2, index.search("memory leak ", 10).size());
+    }
+
+    @Test
+    void supersededVersionIsNotFoundByItsOldText() {
+        var index = new ConversationIndex();
+        index.add(new CapturedMessage("chat#1", at(0, 1000), "p", "u", "assistant", "draft about apples"));
+        index.add(new CapturedMessage("chat#1", at(0, 2000), "p", "u", "assistant", "final answer about pears"));
+
+        assertTrue(index.search("apples ", 10).isEmpty());
+        var hits = index.search("pears ", 10);
+        assertEquals(1, hits.size());
+        assertEquals("final answer about pears", hits.getFirst().message().text());
+    }
+
+    @Test
+    void supersededVersionInAnOlderSegmentIsSkipped() {
+        var index = new ConversationIndex();
+        index.addSealedDay(FIRST_DAY, List.of(
+                new CapturedMessage("chat#1", at(0, 1000), "p", "u", "assistant", "old apples")));
+        index.add(new CapturedMessage("chat#1", at(1, 1000), "p", "u", "assistant", "new pears"));
+
+        assertTrue(index.search("apples ", 10).isEmpty());
+        assertEquals(1, index.search("pears ", 10).size());
+    }
+
+    @Test
+    void mergingSegmentsKeepsEveryDaySearchable() {
+        var index = new ConversationIndex();
+        for (var day = 0; day < 12; day++) {
+            index.addSealedDay(FIRST_DAY.plusDays(day), List.of(
+                    message("day" + day, day, "shared topic number" + day),
+                    message("other" + day, day, "unrelated")));
+        }
+        index.mergeSealedSegments();
+
+        assertEquals(12, index.search("shared topic ", 100).size());
+        assertEquals(List.of("day7#0"), keys(index.search("number7 ", 10)));
+        assertEquals(12, index.search("\"shared topic\"", 100).size());
+        assertEquals(12, index.search("numb", 100).size());
+
+        // Days sealed after the merge are searched alongside the merged segment.
+        index.addSealedDay(FIRST_DAY.plusDays(12), List.of(message("late", 12, "shared topic late")));
+        assertEquals(13, index.search("shared topic ", 100).size());
+    }
+
+    @Test
+    void mergeKeepsLatestVersionAcrossSegments() {
+        var index = new ConversationIndex();
+        for (var day = 0; day < 10; day++) {
+            index.addSealedDay(FIRST_DAY.plusDays(day), List.of(
+                    new CapturedMessage("chat#1", at(day, 0), "p", "u", "assistant", "version" + day)));
+        }
+        index.mergeSealedSegments();
+
+        assertTrue(index.search("version3 ", 10).isEmpty());
+        assertEquals(1, index.search("version9 ", 10).size());
+        assertEquals(1, index.search("version", 10).size());
+    }
+
+    private static CapturedMessage message(String conversation, int day, String text) {
+        return new CapturedMessage(conversation + "#0", at(day, 0), "provider", "https://example.com/" + conversation,
+                "user", text);
+    }
+
+    private static long at(int day, long offsetMs) {
+        return FIRST_DAY.plusDays(day).atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + offsetMs;
+    }
+
+    private static List<String> keys(List<SearchHit> hits) {
+        return hits.stream().map(hit -> hit.message().key()).toList();
+    }
+}